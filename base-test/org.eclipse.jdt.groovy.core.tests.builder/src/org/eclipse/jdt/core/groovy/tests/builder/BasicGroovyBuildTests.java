@@ -11,7 +11,9 @@
 package org.eclipse.jdt.core.groovy.tests.builder;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.StringTokenizer;
 
 import junit.framework.Test;
@@ -2532,6 +2534,54 @@ public class BasicGroovyBuildTests extends GroovierBuilderTests {
 		JavaCore.setOptions(options);
 	}
 
+	// several tags in one comment, ignoring case
+	@SuppressWarnings("rawtypes")
+	public void testTaskMarkerMultipleTagsCaseInsensitive() throws Exception {
+		Hashtable options = JavaCore.getOptions();
+		Hashtable newOptions = JavaCore.getOptions();
+		newOptions.put(JavaCore.COMPILER_TASK_TAGS, "TODO,FIXME"); //$NON-NLS-1$
+		newOptions.put(JavaCore.COMPILER_TASK_PRIORITIES, "NORMAL,HIGH"); //$NON-NLS-1$
+		newOptions.put(JavaCore.COMPILER_TASK_CASE_SENSITIVE, JavaCore.DISABLED); //$NON-NLS-1$
+
+		JavaCore.setOptions(newOptions);
+
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+
+		// remove old package fragment root so that names don't collide
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		IPath pathToA = env.addGroovyClass(root, "p", "A", //$NON-NLS-1$ //$NON-NLS-2$
+				"package p; \n" + //$NON-NLS-1$
+						"/*\n" + //$NON-NLS-1$
+						" * todo first line\n" + //$NON-NLS-1$
+						" * @todo not a task\n" + //$NON-NLS-1$
+						" * Fixme second line\n" + //$NON-NLS-1$
+						" * todos are not tasks either\n" + //$NON-NLS-1$
+						" */\n" + //$NON-NLS-1$
+						"public class A {\n" + //$NON-NLS-1$
+						"}");
+
+		fullBuild(projectPath);
+		IMarker[] markers = env.getTaskMarkersFor(pathToA);
+		assertEquals("Wrong size", 2, markers.length);
+		try {
+			List<String> messages = new ArrayList<String>();
+			for (IMarker marker : markers) {
+				messages.add((String) marker.getAttribute(IMarker.MESSAGE));
+			}
+			assertTrue("Missing task in " + messages, messages.contains(toTask("TODO", "first line")));
+			assertTrue("Missing task in " + messages, messages.contains(toTask("FIXME", "second line")));
+		} catch (CoreException e) {
+			assertTrue(false);
+		}
+		JavaCore.setOptions(options);
+	}
+
 	public void testCopyGroovyResourceNonGroovyProject_GRECLIPSE653()
 			throws Exception {
 		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
@@ -42,6 +42,7 @@ public class AllSearchTests {
         suite.addTestSuite(SyntheticAccessorInferencingTests.class);
         suite.addTestSuite(Groovy20InferencingTests.class);
         suite.addTestSuite(GenericsMappingTest.class);
+        suite.addTestSuite(EnclosingMemberInferencingTests.class);
         return suite;
     }
 }
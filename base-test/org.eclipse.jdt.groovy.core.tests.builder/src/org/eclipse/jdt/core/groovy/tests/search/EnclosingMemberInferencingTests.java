@@ -0,0 +1,138 @@
+/*
+ * Copyright 2003-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+
+/**
+ * Tests that visiting only the member enclosing an offset infers the same
+ * types there as visiting the whole compilation unit, and that the other
+ * members are skipped
+ */
+public class EnclosingMemberInferencingTests extends AbstractInferencingTest {
+
+    /**
+     * Also remembers the names of all variables that are visited
+     */
+    private static class RecordingRequestor extends SearchRequestor {
+        final Set<String> variables = new HashSet<String>();
+
+        RecordingRequestor(int start, int end) {
+            super(start, end);
+        }
+
+        @Override
+        public VisitStatus acceptASTNode(ASTNode visitorNode, TypeLookupResult visitorResult,
+                IJavaElement enclosingElement) {
+            if (visitorNode instanceof VariableExpression) {
+                variables.add(((VariableExpression) visitorNode).getName());
+            }
+            return super.acceptASTNode(visitorNode, visitorResult, enclosingElement);
+        }
+    }
+
+    public static Test suite() {
+        return buildTestSuite(EnclosingMemberInferencingTests.class);
+    }
+
+    public EnclosingMemberInferencingTests(String name) {
+        super(name);
+    }
+
+    public void testMethod() throws Exception {
+        String contents =
+            "class Search {\n" +
+            "  String field = 'x'\n" +
+            "  def other() {\n" +
+            "    def inOther = 1\n" +
+            "  }\n" +
+            "  def m() {\n" +
+            "    def x = field.trim()\n" +
+            "    x\n" +
+            "  }\n" +
+            "}";
+        assertSameAsFullVisit(contents, "x\n  }", "java.lang.String", "inOther");
+    }
+
+    public void testFieldInitializer() throws Exception {
+        String contents =
+            "class Search {\n" +
+            "  def other() {\n" +
+            "    def inOther = 1\n" +
+            "  }\n" +
+            "  List<String> list = ['a'].collect { it }\n" +
+            "  def later() {\n" +
+            "    def inLater = 1\n" +
+            "  }\n" +
+            "}";
+        assertSameAsFullVisit(contents, "it", "java.lang.String", "inOther", "inLater");
+    }
+
+    public void testScriptStatement() throws Exception {
+        String contents =
+            "def x = 'a'\n" +
+            "def m() {\n" +
+            "  def inMethod = 1\n" +
+            "}\n" +
+            "[1].each { def inClosure = it }\n" +
+            "x = 1\n" +
+            "def y = x\n" +
+            "y\n" +
+            "def later = 2\n";
+        // the declaration and assignment of x are visited, other statements are not
+        assertSameAsFullVisit(contents, "y\ndef", "java.lang.Integer", "inMethod", "inClosure", "later");
+    }
+
+    /**
+     * Asserts that the expression that starts where the marker starts has the
+     * same type in a visit of the enclosing member as in a full visit, and
+     * that the given variables are only visited in the full visit
+     *
+     * @param marker the text of the expression, followed by text that makes
+     *        it unique
+     */
+    private void assertSameAsFullVisit(String contents, String marker, String expectedType, String... skipped) {
+        GroovyCompilationUnit unit = createUnit("Search", contents);
+        int start = contents.indexOf(marker);
+        int end = start + marker.split("\\W")[0].length();
+
+        RecordingRequestor full = new RecordingRequestor(start, end);
+        factory.createVisitor(unit).visitCompilationUnit(full);
+        RecordingRequestor enclosing = new RecordingRequestor(start, end);
+        factory.createVisitor(unit).visitEnclosingMember(enclosing, start);
+
+        assertNotNull("Did not find expected ASTNode in full visit", full.node);
+        assertNotNull("Did not find expected ASTNode in visit of enclosing member", enclosing.node);
+        assertEquals(expectedType, printTypeName(full.result.type));
+        assertEquals(printTypeName(full.result.type), printTypeName(enclosing.result.type));
+        assertEquals(printTypeName(full.result.declaringType), printTypeName(enclosing.result.declaringType));
+        assertEquals(full.result.confidence, enclosing.result.confidence);
+        for (String variable : skipped) {
+            assertTrue(variable + " should have been visited in full visit", full.variables.contains(variable));
+            assertFalse(variable + " should not have been visited", enclosing.variables.contains(variable));
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.codehaus.jdt.groovy.internal.compiler.ast.IGroovyDebugRequestor;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTClassNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
+import org.codehaus.jdt.groovy.internal.compiler.ast.LineColumnMapper;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jdt.core.ToolFactory;
@@ -2684,6 +2685,33 @@ public class GroovySimpleTest extends AbstractRegressionTest {
 		}
 	}
 	
+	public void testJavadocPositions_MixedLineEndings() {
+		this.runConformTest(new String[] {
+			"X.groovy",
+			"class X {\r\n" +
+			"  /** one */\r\n"+
+			"  private int a\r\n"+
+			"  /** two */\n"+
+			"\n"+
+			"  private int b\n"+
+			"}\n",
+		},"");
+
+		GroovyCompilationUnitDeclaration decl = getCUDeclFor("X.groovy");
+
+		assertEquals(13,grabField(decl,"a").declarationSourceStart);
+		assertEquals(44,grabField(decl,"b").declarationSourceStart);
+
+		LineColumnMapper mapper = decl.getLineColumnMapper();
+		assertEquals(8,mapper.getLineCount());
+		assertEquals(25,mapper.getLineStart(3));
+		assertEquals(60,mapper.getOffset(6,5));
+		// a line separator belongs to the line that it ends
+		assertEquals(3,mapper.getLine(40));
+		assertEquals(3,mapper.getLine(41));
+		assertEquals(4,mapper.getLine(42));
+	}
+
 	static class Requestor implements ICompilerRequestor {
 
 		public void acceptResult(CompilationResult result) {
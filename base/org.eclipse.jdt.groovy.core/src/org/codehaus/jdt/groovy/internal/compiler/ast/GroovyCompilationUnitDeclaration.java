@@ -124,6 +124,11 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 
 	private boolean isScript = false;
 
+	// translates all line/column positions of this unit, created once the line separators are known
+	private LineColumnMapper lineColumnMapper;
+	// javadoc comments by the line they end on, created when the first javadoc is looked for
+	private Map<Integer, List<Comment>> javadocsByLastLine;
+
 	private static final boolean DEBUG_TASK_TAGS = false;
 
 	public GroovyCompilationUnitDeclaration(ProblemReporter problemReporter, CompilationResult compilationResult, int sourceLength,
@@ -146,12 +151,39 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 		this.comments = new int[groovyComments.size()][2];
 		for (int c = 0, max = groovyComments.size(); c < max; c++) {
 			Comment groovyComment = groovyComments.get(c);
-			this.comments[c] = groovyComment.getPositions(compilationResult.lineSeparatorPositions);
+			this.comments[c] = getPositions(groovyComment);
 			// System.out.println("Comment recorded on " + groovySourceUnit.getName() + "  " + this.comments[c][0] + ">"
 			// + this.comments[c][1]);
 		}
 	}
 
+	/**
+	 * @return the positions of the comment as JDT wants to see them, the same as {@link Comment#getPositions(int[])}
+	 */
+	private int[] getPositions(Comment comment) {
+		LineColumnMapper mapper = getLineColumnMapper();
+		int start = mapper.getOffset(comment.sline, comment.scol);
+		int end = mapper.getOffset(comment.eline, comment.ecol);
+		if (comment.isJavadoc()) {
+			return new int[] { start, end };
+		} else if (comment.toString().startsWith("//")) {
+			return new int[] { -start, -end };
+		} else {
+			return new int[] { start, -end };
+		}
+	}
+
+	/**
+	 * @return the mapper that translates the line/column positions of this unit to offsets and back, which is built on first use
+	 *         from the line separator positions of the compilation result
+	 */
+	public LineColumnMapper getLineColumnMapper() {
+		if (lineColumnMapper == null) {
+			lineColumnMapper = new LineColumnMapper(compilationResult.lineSeparatorPositions);
+		}
+		return lineColumnMapper;
+	}
+
 	/**
 	 * Drives the Groovy Compilation Unit for this project through to the specified phase. Yes on a call for one groovy file to
 	 * processToPhase(), all the groovy files in the project proceed to that phase. This isn't ideal but doesn't necessarily cause a
@@ -594,22 +626,47 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 	// FIXASC when the parser correctly records javadoc for nodes alongside them during a parse, we will not have to search
 	private Javadoc findJavadoc(int line) {
 		// System.out.println("Looking for javadoc for line " + line);
-		for (Comment comment : groovySourceUnit.getComments()) {
-			if (comment.isJavadoc()) {
-				// System.out.println("Checking against comment ending on " + comment.getLastLine());
-				if (comment.getLastLine() + 1 == line || (comment.getLastLine() + 2 == line && !comment.usedUp)) {
-					int[] pos = comment.getPositions(compilationResult.lineSeparatorPositions);
-					// System.out.println("Comment says it is from line=" + comment.sline + ",col=" + comment.scol + " to line="
-					// + comment.eline + ",col=" + comment.ecol);
-					// System.out.println("Returning positions " + pos[0] + ">" + pos[1]);
-					comment.usedUp = true;
-					return new Javadoc(pos[0], pos[1]);
+		if (javadocsByLastLine == null) {
+			javadocsByLastLine = new HashMap<Integer, List<Comment>>();
+			List<Comment> groovyComments = groovySourceUnit.getComments();
+			if (groovyComments != null) {
+				for (Comment comment : groovyComments) {
+					if (comment.isJavadoc()) {
+						List<Comment> javadocs = javadocsByLastLine.get(comment.getLastLine());
+						if (javadocs == null) {
+							javadocs = new ArrayList<Comment>(1);
+							javadocsByLastLine.put(comment.getLastLine(), javadocs);
+						}
+						javadocs.add(comment);
+					}
 				}
 			}
 		}
+		// in source order, the comments that end two lines before come first
+		List<Comment> twoLinesBefore = javadocsByLastLine.get(line - 2);
+		if (twoLinesBefore != null) {
+			for (Comment comment : twoLinesBefore) {
+				if (!comment.usedUp) {
+					return useJavadoc(comment);
+				}
+			}
+		}
+		List<Comment> lineBefore = javadocsByLastLine.get(line - 1);
+		if (lineBefore != null) {
+			return useJavadoc(lineBefore.get(0));
+		}
 		return null;
 	}
 
+	private Javadoc useJavadoc(Comment comment) {
+		int[] pos = getPositions(comment);
+		// System.out.println("Comment says it is from line=" + comment.sline + ",col=" + comment.scol + " to line="
+		// + comment.eline + ",col=" + comment.ecol);
+		// System.out.println("Returning positions " + pos[0] + ">" + pos[1]);
+		comment.usedUp = true;
+		return new Javadoc(pos[0], pos[1]);
+	}
+
 	/**
 	 * Build JDT TypeDeclarations for the groovy type declarations that were parsed from the source file.
 	 */
@@ -1741,32 +1798,20 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 					soffset = rpe.getNode().getStart();
 					eoffset = rpe.getNode().getEnd() - 1;
 					// need to work out the line again as it may be wrong
-					line = 0;
-					while (compilationResult.lineSeparatorPositions[line] < soffset
-							&& line < compilationResult.lineSeparatorPositions.length) {
-						line++;
-					}
-
-					line++; // from an array index to a real 'line number'
+					line = getLineColumnMapper().getLine(soffset);
 				}
 			}
 			if (syntaxException instanceof PreciseSyntaxException) {
 				soffset = ((PreciseSyntaxException) syntaxException).getStartOffset();
 				eoffset = ((PreciseSyntaxException) syntaxException).getEndOffset();
 				// need to work out the line again as it may be wrong
-				line = 0;
-				while (line < compilationResult.lineSeparatorPositions.length
-						&& compilationResult.lineSeparatorPositions[line] < soffset) {
-					line++;
-				}
-				;
-				line++; // from an array index to a real 'line number'
+				line = getLineColumnMapper().getLine(soffset);
 			} else {
 				if (soffset == -1) {
-					soffset = getOffset(compilationResult.lineSeparatorPositions, line, scol);
+					soffset = getOffset(line, scol);
 				}
 				if (eoffset == -1) {
-					eoffset = getOffset(compilationResult.lineSeparatorPositions, line, ecol);
+					eoffset = getOffset(line, ecol);
 				}
 			}
 			if (soffset > eoffset) {
@@ -1787,9 +1832,10 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 		errors.removeAll(errorsRecorded);
 	}
 
-	private int getOffset(int[] lineSeparatorPositions, int line, int col) {
-		if (lineSeparatorPositions.length > (line - 2) && line > 1) {
-			return lineSeparatorPositions[line - 2] + col;
+	private int getOffset(int line, int col) {
+		LineColumnMapper mapper = getLineColumnMapper();
+		if (line > 1 && line <= mapper.getLineCount()) {
+			return mapper.getOffset(line, col);
 		} else {
 			return col;
 		}
@@ -2012,55 +2058,17 @@ public class GroovyCompilationUnitDeclaration extends CompilationUnitDeclaration
 		boolean caseSensitiveTags = this.compilerOptions.isTaskCaseSensitive;
 		try {
 			if (taskTags != null) {
-				// For each comment find all task tags within it and cope with
+				// one pass over each comment finds all of the tags within it
+				TaskTagScanner scanner = TaskTagScanner.forTags(taskTags, taskPriorities, caseSensitiveTags);
 				for (Comment comment : comments) {
-					List<TaskEntry> allTasksInComment = new ArrayList<TaskEntry>();
-					for (int t = 0; t < taskTags.length; t++) {
-						String taskTag = new String(taskTags[t]);
-						String taskPriority = null;
-						if (taskPriorities != null) {
-							taskPriority = new String(taskPriorities[t]);
-						}
-						allTasksInComment.addAll(comment.getPositionsOf(taskTag, taskPriority,
-								compilationResult.lineSeparatorPositions, caseSensitiveTags));
-					}
-					if (!allTasksInComment.isEmpty()) {
-						// Need to check quickly for clashes
-						for (int t1 = 0; t1 < allTasksInComment.size(); t1++) {
-							for (int t2 = 0; t2 < allTasksInComment.size(); t2++) {
-								if (t1 == t2)
-									continue;
-								TaskEntry taskOne = allTasksInComment.get(t1);
-								TaskEntry taskTwo = allTasksInComment.get(t2);
-								if (DEBUG_TASK_TAGS) {
-									System.out.println("Comparing " + taskOne.toString() + " and " + taskTwo.toString());
-								}
-								if ((taskOne.start + taskOne.taskTag.length() + 1) == taskTwo.start) {
-									// Adjacent tags
-									taskOne.isAdjacentTo = taskTwo;
-								} else {
-									if ((taskOne.getEnd() > taskTwo.start) && (taskOne.start < taskTwo.start)) {
-										taskOne.setEnd(taskTwo.start - 1);
-										if (DEBUG_TASK_TAGS) {
-											System.out.println("trim " + taskOne.toString() + " and " + taskTwo.toString());
-										}
-									} else if (taskTwo.getEnd() > taskOne.start && taskTwo.start < taskOne.start) {
-										taskTwo.setEnd(taskOne.start - 1);
-										if (DEBUG_TASK_TAGS) {
-											System.out.println("trim " + taskOne.toString() + " and " + taskTwo.toString());
-										}
-									}
-								}
-							}
-						}
-						for (TaskEntry taskEntry : allTasksInComment) {
-							this.problemReporter.referenceContext = this;
-							if (DEBUG_TASK_TAGS) {
-								System.out.println("Adding task " + taskEntry.toString());
-							}
-							problemReporter.task(taskEntry.taskTag, taskEntry.getText(), taskEntry.taskPriority, taskEntry.start,
-									taskEntry.getEnd());
+					List<TaskEntry> allTasksInComment = scanner.findTasks(comment, getLineColumnMapper());
+					for (TaskEntry taskEntry : allTasksInComment) {
+						this.problemReporter.referenceContext = this;
+						if (DEBUG_TASK_TAGS) {
+							System.out.println("Adding task " + taskEntry.toString());
 						}
+						problemReporter.task(taskEntry.taskTag, taskEntry.getText(), taskEntry.taskPriority, taskEntry.start,
+								taskEntry.getEnd());
 					}
 				}
 			}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+/**
+ * Translates between the 1-based line/column pairs that Groovy records and the 0-based offsets that JDT expects, for one source
+ * unit. It is built once from the line separator positions of the unit and never changes, so it can be shared by everything that
+ * translates positions of that unit. Going from a line/column pair to an offset is a single array access, going from an offset to a
+ * line is a binary search.
+ */
+public final class LineColumnMapper {
+
+	// the offset of the last character of each line separator, as in CompilationResult.lineSeparatorPositions
+	private final int[] lineSeparatorPositions;
+
+	/**
+	 * @param lineSeparatorPositions the positions of the line separators, which must not be changed afterwards
+	 */
+	public LineColumnMapper(int[] lineSeparatorPositions) {
+		this.lineSeparatorPositions = lineSeparatorPositions == null ? new int[0] : lineSeparatorPositions;
+	}
+
+	/**
+	 * @return the number of lines, which is one more than the number of line separators
+	 */
+	public int getLineCount() {
+		return lineSeparatorPositions.length + 1;
+	}
+
+	/**
+	 * @return the offset of the first character of the line, lines before the first one start at 0 and lines after the last one
+	 *         start where the last one does
+	 */
+	public int getLineStart(int line) {
+		if (line <= 1) {
+			return 0;
+		}
+		return lineSeparatorPositions[Math.min(line, getLineCount()) - 2] + 1;
+	}
+
+	/**
+	 * @return the offset of the character at the given line and column, both 1-based
+	 */
+	public int getOffset(int line, int column) {
+		return getLineStart(line) + column - 1;
+	}
+
+	/**
+	 * @return the 1-based line that the character at the offset is on, where a line separator belongs to the line that it ends
+	 */
+	public int getLine(int offset) {
+		// the number of separators that end before the offset
+		int low = 0;
+		int high = lineSeparatorPositions.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (lineSeparatorPositions[mid] < offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low + 1;
+	}
+}
@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.internal.compiler.ast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.Comment;
+import org.codehaus.groovy.ast.TaskEntry;
+
+/**
+ * Finds the task tags in comments. All tags are searched for at once, in a single pass over the text of a comment, using an
+ * Aho-Corasick automaton of the tags. The tasks found are the same, and in the same order, as when searching for one tag after
+ * the other with {@link Comment#getPositionsOf(String, String, int[], boolean)}, and adjacent tasks are resolved in the same way.
+ */
+class TaskTagScanner {
+
+	private static final Comparator<TaskEntry> BY_START = new Comparator<TaskEntry>() {
+		public int compare(TaskEntry e1, TaskEntry e2) {
+			return e1.start - e2.start;
+		}
+	};
+
+	// the task tags rarely change, so the scanner of the most recent tags is kept
+	private static TaskTagScanner lastScanner;
+
+	static synchronized TaskTagScanner forTags(char[][] taskTags, char[][] taskPriorities, boolean caseSensitive) {
+		TaskTagScanner scanner = lastScanner;
+		if (scanner == null || scanner.taskTagChars != taskTags || scanner.taskPriorityChars != taskPriorities
+				|| scanner.caseSensitive != caseSensitive) {
+			scanner = new TaskTagScanner(taskTags, taskPriorities, caseSensitive);
+			lastScanner = scanner;
+		}
+		return scanner;
+	}
+
+	/**
+	 * A state of the automaton: the longest prefix of some tags that the text read so far ends with.
+	 */
+	private static class State {
+		char[] keys = new char[0];
+		State[] next = new State[0];
+		// the state for the longest proper suffix of this state's prefix
+		State failure;
+		// the nearest state along the failure links that completes a tag
+		State output;
+		// the tags that this state completes
+		int[] tags = new int[0];
+
+		State get(char ch) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == ch) {
+					return next[i];
+				}
+			}
+			return null;
+		}
+
+		State add(char ch) {
+			State state = get(ch);
+			if (state == null) {
+				state = new State();
+				int n = keys.length;
+				char[] newKeys = new char[n + 1];
+				System.arraycopy(keys, 0, newKeys, 0, n);
+				newKeys[n] = ch;
+				State[] newNext = new State[n + 1];
+				System.arraycopy(next, 0, newNext, 0, n);
+				newNext[n] = state;
+				keys = newKeys;
+				next = newNext;
+			}
+			return state;
+		}
+
+		void addTag(int tag) {
+			int[] newTags = new int[tags.length + 1];
+			System.arraycopy(tags, 0, newTags, 0, tags.length);
+			newTags[tags.length] = tag;
+			tags = newTags;
+		}
+	}
+
+	private final char[][] taskTagChars;
+	private final char[][] taskPriorityChars;
+	private final boolean caseSensitive;
+	private final String[] taskTags;
+	private final String[] taskPriorities;
+	// the length of each tag as it is searched for
+	private final int[] tagLengths;
+	private final State root = new State();
+
+	private TaskTagScanner(char[][] taskTags, char[][] taskPriorities, boolean caseSensitive) {
+		this.taskTagChars = taskTags;
+		this.taskPriorityChars = taskPriorities;
+		this.caseSensitive = caseSensitive;
+		this.taskTags = new String[taskTags.length];
+		this.taskPriorities = new String[taskTags.length];
+		this.tagLengths = new int[taskTags.length];
+		for (int t = 0; t < taskTags.length; t++) {
+			this.taskTags[t] = new String(taskTags[t]);
+			if (taskPriorities != null) {
+				this.taskPriorities[t] = new String(taskPriorities[t]);
+			}
+			String searchFor = caseSensitive ? this.taskTags[t] : this.taskTags[t].toLowerCase();
+			tagLengths[t] = searchFor.length();
+			if (searchFor.length() == 0) {
+				continue;
+			}
+			State state = root;
+			for (int i = 0; i < searchFor.length(); i++) {
+				state = state.add(searchFor.charAt(i));
+			}
+			state.addTag(t);
+		}
+		computeFailures();
+	}
+
+	/**
+	 * Sets the failure and output links, breadth first so that the links of shorter prefixes are known.
+	 */
+	private void computeFailures() {
+		List<State> queue = new ArrayList<State>();
+		for (State child : root.next) {
+			child.failure = root;
+			queue.add(child);
+		}
+		for (int q = 0; q < queue.size(); q++) {
+			State state = queue.get(q);
+			for (int i = 0; i < state.keys.length; i++) {
+				char ch = state.keys[i];
+				State child = state.next[i];
+				State failure = state.failure;
+				while (failure != null && failure.get(ch) == null) {
+					failure = failure.failure;
+				}
+				child.failure = failure == null ? root : failure.get(ch);
+				child.output = child.failure.tags.length > 0 ? child.failure : child.failure.output;
+				queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * @return the tasks in the comment, in the order in which they should be reported
+	 */
+	List<TaskEntry> findTasks(Comment comment, LineColumnMapper mapper) {
+		String text = comment.toString();
+		boolean singleLine = text.startsWith("//");
+		int offsetToLineStart = mapper.getLineStart(comment.sline);
+		int offsetToCommentStart = offsetToLineStart + comment.scol - 1;
+
+		// a tag is never found again within its own previous occurrence
+		int[] nextAllowed = new int[taskTags.length];
+		List<List<TaskEntry>> tasksByTag = null;
+		int count = 0;
+		// where the line of the last multi line task ends
+		int lineBreak = -1;
+
+		State state = root;
+		for (int p = 0, max = text.length(); p < max; p++) {
+			char ch = caseSensitive ? text.charAt(p) : Character.toLowerCase(text.charAt(p));
+			while (state != root && state.get(ch) == null) {
+				state = state.failure;
+			}
+			State next = state.get(ch);
+			state = next == null ? root : next;
+			for (State found = state.tags.length > 0 ? state : state.output; found != null; found = found.output) {
+				for (int t : found.tags) {
+					int index = p - tagLengths[t] + 1;
+					if (index < nextAllowed[t]) {
+						continue;
+					}
+					nextAllowed[t] = index + tagLengths[t];
+					if (!isValidStartLocationForTask(text, index, tagLengths[t])) {
+						continue;
+					}
+					int taskEnd;
+					if (singleLine) {
+						taskEnd = offsetToLineStart + comment.ecol - 2;
+					} else {
+						if (lineBreak < index) {
+							lineBreak = findLineBreak(text, index);
+						}
+						taskEnd = offsetToCommentStart + lineBreak - 1;
+					}
+					TaskEntry taskEntry = new TaskEntry(offsetToCommentStart + index, taskEnd, taskTags[t], taskPriorities[t],
+							text, offsetToCommentStart);
+					if (tasksByTag == null) {
+						tasksByTag = new ArrayList<List<TaskEntry>>(taskTags.length);
+						for (int i = 0; i < taskTags.length; i++) {
+							tasksByTag.add(null);
+						}
+					}
+					List<TaskEntry> tasks = tasksByTag.get(t);
+					if (tasks == null) {
+						tasks = new ArrayList<TaskEntry>(2);
+						tasksByTag.set(t, tasks);
+					}
+					tasks.add(taskEntry);
+					count++;
+				}
+			}
+		}
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+
+		// tasks are reported tag by tag
+		List<TaskEntry> tasks = new ArrayList<TaskEntry>(count);
+		for (List<TaskEntry> tagTasks : tasksByTag) {
+			if (tagTasks != null) {
+				tasks.addAll(tagTasks);
+			}
+		}
+		if (count > 1) {
+			resolveAdjacentTasks(tasks);
+		}
+		return tasks;
+	}
+
+	/**
+	 * A task that is directly followed by another one shares its text, otherwise it ends before the next task starts.
+	 */
+	private static void resolveAdjacentTasks(List<TaskEntry> tasks) {
+		// if several tasks start at the same place, the last one reported wins
+		Map<Integer, TaskEntry> byStart = new HashMap<Integer, TaskEntry>();
+		for (TaskEntry task : tasks) {
+			byStart.put(task.start, task);
+		}
+		List<TaskEntry> sorted = new ArrayList<TaskEntry>(tasks);
+		Collections.sort(sorted, BY_START);
+		int nextStart = Integer.MAX_VALUE;
+		for (int i = sorted.size() - 1; i >= 0; i--) {
+			TaskEntry task = sorted.get(i);
+			TaskEntry adjacent = byStart.get(task.start + task.taskTag.length() + 1);
+			if (adjacent != null) {
+				task.isAdjacentTo = adjacent;
+			} else if (task.getEnd() > nextStart) {
+				task.setEnd(nextStart - 1);
+			}
+			if (i > 0 && sorted.get(i - 1).start < task.start) {
+				nextStart = task.start;
+			}
+		}
+	}
+
+	/**
+	 * @return the index of the line break that ends the line of a task in a multi line comment, or if the line is the last one,
+	 *         the index of the character before the closing '/'
+	 */
+	private static int findLineBreak(String text, int index) {
+		int last = text.length() - 1;
+		for (int pos = index;; pos++) {
+			char ch = text.charAt(pos);
+			if (ch == '\n' || ch == '\r') {
+				return pos;
+			}
+			if (pos >= last) {
+				return pos - 1;
+			}
+		}
+	}
+
+	/**
+	 * The same rules as {@link Comment#isValidStartLocationForTask(String, int, String)}.
+	 */
+	private static boolean isValidStartLocationForTask(String text, int index, int tagLen) {
+		if (index > 0 && text.charAt(index - 1) == '@') {
+			return false;
+		}
+
+		// ensure tag is not leaded with letter if tag starts with a letter
+		if (index > 0 && Character.isJavaIdentifierStart(text.charAt(index))) {
+			if (Character.isJavaIdentifierPart(text.charAt(index - 1))) {
+				return false;
+			}
+		}
+
+		// ensure tag is not followed with letter if tag finishes with a letter
+		if ((index + tagLen) < text.length() && Character.isJavaIdentifierStart(text.charAt(index + tagLen - 1))) {
+			if (Character.isJavaIdentifierPart(text.charAt(index + tagLen))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
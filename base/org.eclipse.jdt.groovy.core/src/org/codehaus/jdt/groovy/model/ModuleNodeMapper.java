@@ -43,6 +43,26 @@ public class ModuleNodeMapper {
 
 		public final ModuleNode module;
 		public final JDTResolver resolver;
+
+		private Map<Object, Object> derived;
+
+		/**
+		 * @return the value stored for the key by {@link #putDerived(Object, Object)}, or null
+		 */
+		public synchronized Object getDerived(Object key) {
+			return derived != null ? derived.get(key) : null;
+		}
+
+		/**
+		 * Stores a value computed from the module, such as an index of its nodes. The value lives as long as this info, so it
+		 * is dropped with the module when the working copy is reconciled or discarded
+		 */
+		public synchronized void putDerived(Object key, Object value) {
+			if (derived == null) {
+				derived = new HashMap<Object, Object>(4);
+			}
+			derived.put(key, value);
+		}
 	}
 
 	private static final ModuleNodeMapper INSTANCE = new ModuleNodeMapper();
@@ -118,6 +138,24 @@ public class ModuleNodeMapper {
 		}
 	}
 
+	/**
+	 * @return the info of the working copy whose module is the given module, or null if the module does not belong to a working
+	 *         copy
+	 */
+	public static ModuleNodeInfo findInfo(ModuleNode module) {
+		if (module == null) {
+			return null;
+		}
+		synchronized (INSTANCE) {
+			for (ModuleNodeInfo info : INSTANCE.infoToModuleMap.values()) {
+				if (info.module == module) {
+					return info;
+				}
+			}
+		}
+		return null;
+	}
+
 	public static boolean isEmpty() {
 		return INSTANCE.infoToModuleMap.isEmpty();
 	}
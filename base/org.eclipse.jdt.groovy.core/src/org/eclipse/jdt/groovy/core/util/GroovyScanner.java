@@ -55,6 +55,21 @@ public class GroovyScanner {
 		this(new StringReader(text), false);
 	}
 
+	/**
+	 * Create a scanner that continues scanning in the middle of a file, at the given antlr line / col position. The input must
+	 * start right after a newline token that was not inside parentheses or a GString, and that was enclosed by
+	 * <code>braceDepth</code> braces, none of which were opened inside parentheses or a GString. The scanner then produces the
+	 * same tokens as a scanner that had scanned the file from its start.
+	 */
+	public GroovyScanner(Reader input, int line, int col, int braceDepth) {
+		this.whiteSpaceIncluded = false;
+		lexer = new NestedGroovyLexer(input, braceDepth);
+		lexer.setWhitespaceIncluded(false);
+		this.stream = (TokenStream) lexer.plumb();
+		lexer.setLine(line);
+		lexer.setColumn(col);
+	}
+
 	public Token nextToken() throws TokenStreamException {
 		return stream.nextToken();
 	}
@@ -92,4 +107,16 @@ public class GroovyScanner {
 		return document.getLineOffset(line - 1) + col - 1;
 	}
 
+	/**
+	 * A lexer that starts out inside a number of braces.
+	 */
+	private static class NestedGroovyLexer extends GroovyLexer {
+		NestedGroovyLexer(Reader input, int braceDepth) {
+			super(input);
+			for (int i = 0; i < braceDepth; i++) {
+				pushParenLevel();
+			}
+		}
+	}
+
 }
@@ -14,6 +14,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -86,6 +87,7 @@ import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
@@ -274,6 +276,13 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
 	private final AssignmentStorer assignmentStorer = new AssignmentStorer();
 
+	/**
+	 * When visiting the enclosing member of a script statement, the body of the script's run method and the statement in it that
+	 * encloses the offset. Only this statement of the body and the statements before it that bind local variables are visited.
+	 */
+	private BlockStatement enclosingScriptBody;
+	private Statement enclosingScriptStatement;
+
 	/**
 	 * Use factory to instantiate
 	 */
@@ -292,6 +301,115 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	}
 
 	public void visitCompilationUnit(ITypeRequestor requestor) {
+		visitCompilationUnit(requestor, null);
+	}
+
+	/**
+	 * Visits only the member (method, field, or type) that encloses the given offset. The imports and the class declarations
+	 * enclosing the member are still visited so that the outer scopes are properly built up, but all other members and types
+	 * in the compilation unit are skipped. For large files, the cost of the visit depends on the size of the enclosing member
+	 * only. If no member encloses the offset, then the entire compilation unit is visited.
+	 * <p>
+	 * If the offset is inside of a script statement, then only that statement of the script's run method is visited, along
+	 * with the statements before it that declare or assign local variables, so that these variables are in scope. Assignments
+	 * nested inside of other statements, eg- inside of loops or closures, are not seen.
+	 * 
+	 * @param requestor the requestor to notify
+	 * @param offset source location inside of the member to visit
+	 */
+	public void visitEnclosingMember(ITypeRequestor requestor, int offset) {
+		List<IMember> memberPath = findEnclosingScriptStatement(offset);
+		if (memberPath == null) {
+			memberPath = findEnclosingMembers(offset);
+		}
+		try {
+			visitCompilationUnit(requestor, memberPath);
+		} finally {
+			enclosingScriptBody = null;
+			enclosingScriptStatement = null;
+		}
+	}
+
+	/**
+	 * Finds the statement of a script that encloses the offset and remembers it for the visit
+	 * 
+	 * @return the script type followed by its run method, or null if the offset is not inside of a script statement
+	 */
+	@SuppressWarnings("cast")
+	private List<IMember> findEnclosingScriptStatement(int offset) {
+		if (!(enclosingDeclarationNode instanceof ModuleNode)) {
+			return null;
+		}
+		for (ClassNode clazz : (Iterable<ClassNode>) ((ModuleNode) enclosingDeclarationNode).getClasses()) {
+			if (!clazz.isScript()) {
+				continue;
+			}
+			MethodNode run = clazz.getMethod("run", new Parameter[0]);
+			if (run == null || !(run.getCode() instanceof BlockStatement)) {
+				continue;
+			}
+			BlockStatement body = (BlockStatement) run.getCode();
+			for (Statement statement : (Iterable<Statement>) body.getStatements()) {
+				if (statement.getEnd() > 0 && statement.getStart() <= offset && offset <= statement.getEnd()) {
+					IType type = unit.getType(clazz.getNameWithoutPackage());
+					IMethod method = type.getMethod("run", new String[0]);
+					if (!method.exists()) {
+						return null;
+					}
+					enclosingScriptBody = body;
+					enclosingScriptStatement = statement;
+					List<IMember> path = new LinkedList<IMember>();
+					path.add(type);
+					path.add(method);
+					return path;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the top-level type of this compilation unit followed by all member types down to the member that encloses the
+	 *         offset, or null if there is no such member
+	 */
+	private List<IMember> findEnclosingMembers(int offset) {
+		if (enclosingDeclarationNode == null) {
+			return null;
+		}
+		IJavaElement element;
+		try {
+			element = unit.getElementAt(offset);
+		} catch (JavaModelException e) {
+			Util.log(e, "Error finding element at " + offset + " in " + unit.getElementName());
+			return null;
+		}
+		LinkedList<IMember> path = new LinkedList<IMember>();
+		while (element instanceof IMember) {
+			switch (element.getElementType()) {
+				case IJavaElement.TYPE:
+					path.addFirst((IMember) element);
+					break;
+				case IJavaElement.METHOD:
+				case IJavaElement.FIELD:
+					// anything inside of a method or field (eg- anonymous types) is visited along with it
+					path.clear();
+					path.add((IMember) element);
+					break;
+				default:
+					// initializers and the like are visited along with their declaring type
+					path.clear();
+					break;
+			}
+			element = element.getParent();
+		}
+		if (path.isEmpty() || path.getFirst().getElementType() != IJavaElement.TYPE || element == null
+				|| element.getElementType() != IJavaElement.COMPILATION_UNIT) {
+			return null;
+		}
+		return path;
+	}
+
+	private void visitCompilationUnit(ITypeRequestor requestor, List<IMember> memberPath) {
 		if (enclosingDeclarationNode == null) {
 			// no module node, can't do anything
 			return;
@@ -312,13 +430,17 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		try {
 			visitPackage(((ModuleNode) enclosingDeclarationNode).getPackage());
 			visitImports((ModuleNode) enclosingDeclarationNode);
-			try {
-				IType[] types = unit.getTypes();
-				for (IType type : types) {
-					visitJDT(type, requestor);
+			if (memberPath != null) {
+				visitJDTPath(memberPath, 0, requestor);
+			} else {
+				try {
+					IType[] types = unit.getTypes();
+					for (IType type : types) {
+						visitJDT(type, requestor);
+					}
+				} catch (JavaModelException e) {
+					Util.log(e, "Error getting types for " + unit.getElementName());
 				}
-			} catch (JavaModelException e) {
-				Util.log(e, "Error getting types for " + unit.getElementName());
 			}
 
 			scopes.pop();
@@ -407,6 +529,51 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		}
 	}
 
+	/**
+	 * Visits the declaration of each type in the path, but only the path's next element from its members
+	 */
+	private void visitJDTPath(List<IMember> path, int index, ITypeRequestor requestor) {
+		IMember member = path.get(index);
+		if (index == path.size() - 1) {
+			switch (member.getElementType()) {
+				case IJavaElement.METHOD:
+					visitJDT((IMethod) member, requestor);
+					break;
+				case IJavaElement.FIELD:
+					visitJDT((IField) member, requestor);
+					break;
+				default:
+					visitJDT((IType) member, requestor);
+					break;
+			}
+			return;
+		}
+
+		IType type = (IType) member;
+		IJavaElement oldEnclosing = enclosingElement;
+		ASTNode oldEnclosingNode = enclosingDeclarationNode;
+		enclosingElement = type;
+		ClassNode node = findClassWithName(createName(type));
+		if (node == null) {
+			// probably some sort of AST transformation is making this node invisible
+			return;
+		}
+		try {
+			scopes.push(new VariableScope(scopes.peek(), node, false));
+			enclosingDeclarationNode = node;
+			visitClassInternal(node);
+			visitJDTPath(path, index + 1, requestor);
+		} catch (VisitCompleted vc) {
+			if (vc.status == VisitStatus.STOP_VISIT) {
+				throw vc;
+			}
+		} finally {
+			enclosingElement = oldEnclosing;
+			enclosingDeclarationNode = oldEnclosingNode;
+			scopes.pop();
+		}
+	}
+
 	/**
 	 * @param node
 	 * @return
@@ -1283,11 +1450,45 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		scopes.push(new VariableScope(scopes.peek(), block, false));
 		boolean shouldContinue = handleStatement(block);
 		if (shouldContinue) {
-			super.visitBlockStatement(block);
+			if (block == enclosingScriptBody) {
+				visitEnclosingScriptStatement(block);
+			} else {
+				super.visitBlockStatement(block);
+			}
 		}
 		scopes.pop();
 	}
 
+	/**
+	 * Visits the statement of the script body that encloses the offset, after the statements before it that declare or assign
+	 * local variables. All other statements are skipped.
+	 */
+	@SuppressWarnings("cast")
+	private void visitEnclosingScriptStatement(BlockStatement block) {
+		for (Statement statement : (Iterable<Statement>) block.getStatements()) {
+			if (statement == enclosingScriptStatement) {
+				statement.visit(this);
+				return;
+			}
+			if (isLocalVariableBinding(statement)) {
+				statement.visit(this);
+			}
+		}
+	}
+
+	private boolean isLocalVariableBinding(Statement statement) {
+		if (statement instanceof ExpressionStatement) {
+			Expression expr = ((ExpressionStatement) statement).getExpression();
+			if (expr instanceof DeclarationExpression) {
+				return true;
+			} else if (expr instanceof BinaryExpression) {
+				BinaryExpression bexpr = (BinaryExpression) expr;
+				return bexpr.getOperation().getType() == Types.EQUALS && bexpr.getLeftExpression() instanceof VariableExpression;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void visitReturnStatement(ReturnStatement ret) {
 		boolean shouldContinue = handleStatement(ret);
@@ -45,6 +45,8 @@ public class AllCompletionTests {
         suite.addTestSuite(GuessingCompletionTests.class);
         suite.addTestSuite(DefaultMethodContentAssistTests.class);
         suite.addTestSuite(CommandChainCompletionTests.class);
+        suite.addTestSuite(TypeNameIndexTests.class);
+        suite.addTestSuite(CompletionSessionTests.class);
         
         return suite;
     }
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Andrew Eisenberg - initial API and implementation
+ *******************************************************************************/
+
+package org.codehaus.groovy.eclipse.codeassist.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.groovy.eclipse.codeassist.GroovyContentAssistActivator;
+import org.codehaus.groovy.eclipse.codeassist.processors.ISearchingCompletionProcessor;
+import org.codehaus.groovy.eclipse.codeassist.processors.RecordingSearchRequestor;
+import org.codehaus.groovy.eclipse.codeassist.requestor.GroovyCompletionProposalComputer;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.internal.core.SearchableEnvironment;
+import org.eclipse.jdt.internal.ui.javaeditor.EditorUtility;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.ui.text.java.IJavaCompletionProposal;
+import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.ide.IDE;
+
+/**
+ * Tests that the proposals of a content assist session are reused while the
+ * prefix is typed, and recomputed after any other change, and that slow
+ * searches do not hold up content assist
+ */
+public class CompletionSessionTests extends CompletionTestCase {
+
+    /**
+     * Searches only once they are released, and records when late proposals
+     * would be shown
+     */
+    private static class SlowComputer extends GroovyCompletionProposalComputer {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<ITextViewer> shown = Collections.synchronizedList(new ArrayList<ITextViewer>());
+
+        @Override
+        protected void search(ISearchingCompletionProcessor processor, RecordingSearchRequestor found,
+                SearchableEnvironment nameEnvironment, IProgressMonitor monitor) {
+            try {
+                release.await(20, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.search(processor, found, nameEnvironment, monitor);
+        }
+
+        @Override
+        protected void showLateProposals(ITextViewer viewer) {
+            shown.add(viewer);
+        }
+
+        @Override
+        protected int getMaxWait() {
+            return 200;
+        }
+    }
+
+    public CompletionSessionTests(String name) {
+        super(name);
+    }
+
+    private static final String CONTENTS = "class Foo {\n def foobar\n def fooBar\n def fooBaz\n def m() {\n fo\n HashMa\n }\n}";
+
+    private JavaEditor editor;
+    private IDocument document;
+    private int offset;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ICompilationUnit unit = create(CONTENTS);
+        unit.getResource().setPersistentProperty(IDE.EDITOR_KEY, "org.codehaus.groovy.eclipse.editor.GroovyEditor");
+        editor = (JavaEditor) EditorUtility.openInEditor(unit);
+        document = editor.getDocumentProvider().getDocument(editor.getEditorInput());
+        offset = getIndexOf(CONTENTS, "\n fo");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (slowComputer != null) {
+            slowComputer.release.countDown();
+            slowComputer = null;
+        }
+        GroovyContentAssistActivator.getDefault().getPreferenceStore().setToDefault(GroovyContentAssistActivator.LATENCY_BUDGET);
+        super.tearDown();
+    }
+
+    private SlowComputer slowComputer;
+
+    public void testReusedWhileTyping() throws Exception {
+        GroovyCompletionProposalComputer computer = new GroovyCompletionProposalComputer();
+        computer.sessionStarted();
+        List<ICompletionProposal> proposals = compute(computer, offset);
+        ICompletionProposal fooBar = find(proposals, "fooBar");
+        ICompletionProposal fooBaz = find(proposals, "fooBaz");
+
+        document.replace(offset, 0, "oBa");
+        proposals = compute(computer, offset + 3);
+        assertSame("Proposals should have been reused", fooBar, find(proposals, "fooBar"));
+        assertSame("Proposals should have been reused", fooBaz, find(proposals, "fooBaz"));
+
+        document.replace(offset + 3, 0, "r");
+        proposals = compute(computer, offset + 4);
+        assertSame("Proposals should have been reused", fooBar, find(proposals, "fooBar"));
+        assertNull("Proposal should have been filtered out", findOrNull(proposals, "fooBaz"));
+    }
+
+    public void testRecomputedAfterOtherChange() throws Exception {
+        GroovyCompletionProposalComputer computer = new GroovyCompletionProposalComputer();
+        computer.sessionStarted();
+        ICompletionProposal fooBar = find(compute(computer, offset), "fooBar");
+
+        // the document is changed somewhere else, and the prefix is extended afterwards
+        document.replace(0, 0, "\n");
+        document.replace(offset + 1, 0, "oB");
+        assertNotSame("Proposals should have been recomputed", fooBar, find(compute(computer, offset + 3), "fooBar"));
+    }
+
+    public void testRecomputedAfterDeletion() throws Exception {
+        GroovyCompletionProposalComputer computer = new GroovyCompletionProposalComputer();
+        computer.sessionStarted();
+        document.replace(offset, 0, "o");
+        ICompletionProposal fooBar = find(compute(computer, offset + 1), "fooBar");
+
+        // same length as before, but not the same prefix
+        document.replace(offset, 1, "");
+        document.replace(offset, 0, "o");
+        assertNotSame("Proposals should have been recomputed", fooBar, find(compute(computer, offset + 1), "fooBar"));
+    }
+
+    public void testNotReusedOutsideOfSession() throws Exception {
+        GroovyCompletionProposalComputer computer = new GroovyCompletionProposalComputer();
+        ICompletionProposal fooBar = find(compute(computer, offset), "fooBar");
+        assertNotSame("Proposals should have been recomputed", fooBar, find(compute(computer, offset), "fooBar"));
+    }
+
+    public void testRerankedWhileTyping() throws Exception {
+        GroovyCompletionProposalComputer computer = new GroovyCompletionProposalComputer();
+        computer.sessionStarted();
+        compute(computer, offset);
+
+        // case matches rank higher
+        document.replace(offset, 0, "oB");
+        List<ICompletionProposal> proposals = compute(computer, offset + 2);
+        IJavaCompletionProposal fooBar = (IJavaCompletionProposal) find(proposals, "fooBar");
+        IJavaCompletionProposal foobar = (IJavaCompletionProposal) find(proposals, "foobar");
+        assertTrue(fooBar.getRelevance() > foobar.getRelevance());
+        assertTrue(proposals.indexOf(fooBar) < proposals.indexOf(foobar));
+
+        document.replace(offset + 2, 0, "ar");
+        proposals = compute(computer, offset + 4);
+        assertSame(fooBar, proposals.get(0));
+    }
+
+    public void testLateProposalsShown() throws Exception {
+        GroovyContentAssistActivator.getDefault().getPreferenceStore().setValue(GroovyContentAssistActivator.LATENCY_BUDGET, 50);
+        slowComputer = new SlowComputer();
+        slowComputer.sessionStarted();
+        int typeOffset = getIndexOf(CONTENTS, "HashMa");
+        assertNull("Type search should not have finished", findOrNull(compute(slowComputer, typeOffset), "HashMap"));
+
+        slowComputer.release.countDown();
+        Display display = Display.getCurrent();
+        long end = System.currentTimeMillis() + 10000;
+        while (slowComputer.shown.isEmpty() && System.currentTimeMillis() < end) {
+            if (!display.readAndDispatch()) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals("Late proposals should have been shown", 1, slowComputer.shown.size());
+        assertSame(editor.getViewer(), slowComputer.shown.get(0));
+
+        // showing them asks for proposals again, which now include the late ones
+        assertNotNull("Late proposals should have been added", findOrNull(compute(slowComputer, typeOffset), "HashMap"));
+    }
+
+    public void testTimeoutOutsideOfSession() throws Exception {
+        slowComputer = new SlowComputer();
+        int typeOffset = getIndexOf(CONTENTS, "HashMa");
+        long start = System.currentTimeMillis();
+        List<ICompletionProposal> proposals = compute(slowComputer, typeOffset);
+        long time = System.currentTimeMillis() - start;
+
+        assertNull("Type search should have been left out", findOrNull(proposals, "HashMap"));
+        assertTrue("Should not have waited much longer than " + slowComputer.getMaxWait() + "ms, but waited " + time + "ms",
+                time < 5000);
+
+        // nothing to show them in, so they are never shown
+        slowComputer.release.countDown();
+        Thread.sleep(200);
+        while (Display.getCurrent().readAndDispatch()) {
+            // run pending UI work
+        }
+        assertTrue(slowComputer.shown.isEmpty());
+    }
+
+    private List<ICompletionProposal> compute(GroovyCompletionProposalComputer computer, int completionOffset) {
+        JavaContentAssistInvocationContext context = new JavaContentAssistInvocationContext(editor.getViewer(),
+                completionOffset, editor);
+        return computer.computeCompletionProposals(context, null);
+    }
+
+    private ICompletionProposal find(List<ICompletionProposal> proposals, String name) {
+        ICompletionProposal proposal = findOrNull(proposals, name);
+        assertNotNull("Expected proposal " + name + " in " + proposals, proposal);
+        return proposal;
+    }
+
+    private ICompletionProposal findOrNull(List<ICompletionProposal> proposals, String name) {
+        for (ICompletionProposal proposal : proposals) {
+            if (proposal.getDisplayString().startsWith(name + " ")) {
+                return proposal;
+            }
+        }
+        return null;
+    }
+}
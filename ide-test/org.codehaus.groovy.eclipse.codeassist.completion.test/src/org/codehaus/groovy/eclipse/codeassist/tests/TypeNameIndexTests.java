@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2012 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Andrew Eisenberg - initial API and implementation
+ *******************************************************************************/
+
+package org.codehaus.groovy.eclipse.codeassist.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.eclipse.codeassist.processors.TypeNameIndex;
+import org.codehaus.groovy.eclipse.test.SynchronizationUtils;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IAccessRule;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.codeassist.ISearchRequestor;
+import org.eclipse.jdt.internal.compiler.env.AccessRestriction;
+
+/**
+ * Tests lookups in the in-memory index of type names used by type completion
+ */
+public class TypeNameIndexTests extends CompletionTestCase {
+
+    public TypeNameIndexTests(String name) {
+        super(name);
+    }
+
+    private IPath projectPath;
+    private IJavaProject javaProject;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        projectPath = createGenericProject();
+        javaProject = JavaCore.create(getProject(projectPath));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        javaProject.setOptions(null);
+        IPath otherPath = new Path("/Other");
+        if (env.getProject("Other") != null && env.getProject("Other").exists()) {
+            env.removeRequiredProject(projectPath, otherPath);
+            env.removeProject(otherPath);
+        }
+        super.tearDown();
+    }
+
+    public void testPrefix() throws Exception {
+        List<String> found = find("ArrayLis", IJavaSearchConstants.TYPE);
+        assertTrue(found.toString(), found.contains("java.util.ArrayList"));
+        assertFalse(found.toString(), found.contains("java.util.HashMap"));
+    }
+
+    public void testPrefixIgnoresCase() throws Exception {
+        List<String> found = find("arraylis", IJavaSearchConstants.TYPE);
+        assertTrue(found.toString(), found.contains("java.util.ArrayList"));
+    }
+
+    public void testCamelCase() throws Exception {
+        List<String> found = find("HaMa", IJavaSearchConstants.TYPE);
+        assertTrue(found.toString(), found.contains("java.util.HashMap"));
+        assertFalse(found.toString(), found.contains("java.util.ArrayList"));
+    }
+
+    public void testQualified() throws Exception {
+        assertTrue(find("java.util.ArrayLis", IJavaSearchConstants.TYPE).contains("java.util.ArrayList"));
+        assertFalse(find("java.io.ArrayLis", IJavaSearchConstants.TYPE).contains("java.util.ArrayList"));
+    }
+
+    public void testMemberTypes() throws Exception {
+        assertTrue(find("java.util.Map.Ent", IJavaSearchConstants.TYPE).contains("java.util.Map.Entry"));
+        assertFalse(find("Ent", IJavaSearchConstants.TYPE, false).contains("java.util.Map.Entry"));
+    }
+
+    public void testKinds() throws Exception {
+        assertFalse(find("Runnabl", IJavaSearchConstants.CLASS).contains("java.lang.Runnable"));
+        assertTrue(find("Runnabl", IJavaSearchConstants.INTERFACE).contains("java.lang.Runnable"));
+        assertTrue(find("Retentio", IJavaSearchConstants.ANNOTATION_TYPE).contains("java.lang.annotation.Retention"));
+        assertFalse(find("Retentio", IJavaSearchConstants.ANNOTATION_TYPE).contains("java.lang.annotation.RetentionPolicy"));
+    }
+
+    public void testSourceTypes() throws Exception {
+        env.addGroovyClass(projectPath.append("src"), "p", "Farble", "package p\nclass Farble {\n class Inner { } }");
+        fullBuild(projectPath);
+        List<String> found = find("Farb", IJavaSearchConstants.TYPE);
+        assertTrue(found.toString(), found.contains("p.Farble"));
+        assertTrue(find("p.Farble.Inn", IJavaSearchConstants.TYPE).contains("p.Farble.Inner"));
+
+        // the index follows changes to the compilation unit
+        env.addGroovyClass(projectPath.append("src"), "p", "Farble", "package p\nclass Farble { }\nclass Farbler { }");
+        fullBuild(projectPath);
+        found = find("Farb", IJavaSearchConstants.TYPE);
+        assertTrue(found.toString(), found.contains("p.Farble"));
+        assertTrue(found.toString(), found.contains("p.Farbler"));
+        assertFalse(find("p.Farble.Inn", IJavaSearchConstants.TYPE).contains("p.Farble.Inner"));
+
+        env.removeFile(projectPath.append("src/p/Farble.groovy"));
+        assertFalse(find("Farb", IJavaSearchConstants.TYPE).contains("p.Farble"));
+    }
+
+    public void testForbiddenReference() throws Exception {
+        createOtherProject(IAccessRule.K_NON_ACCESSIBLE);
+        // kept, so that the requestor can decide according to the code assist options
+        assertTrue(find("Hidde", IJavaSearchConstants.TYPE).contains("q.Hidden forbidden"));
+
+        // no restrictions at all when the project ignores them
+        javaProject.setOption(JavaCore.COMPILER_PB_FORBIDDEN_REFERENCE, JavaCore.IGNORE);
+        javaProject.setOption(JavaCore.COMPILER_PB_DISCOURAGED_REFERENCE, JavaCore.IGNORE);
+        assertTrue(find("Hidde", IJavaSearchConstants.TYPE).contains("q.Hidden"));
+
+        // still restricted when only one of them is ignored
+        javaProject.setOption(JavaCore.COMPILER_PB_FORBIDDEN_REFERENCE, JavaCore.WARNING);
+        assertTrue(find("Hidde", IJavaSearchConstants.TYPE).contains("q.Hidden forbidden"));
+    }
+
+    public void testDiscouragedReference() throws Exception {
+        createOtherProject(IAccessRule.K_DISCOURAGED);
+        assertTrue(find("Hidde", IJavaSearchConstants.TYPE).contains("q.Hidden discouraged"));
+    }
+
+    /**
+     * Creates a project with a type q.Hidden and adds it to the classpath of
+     * the project, with the given access to the type
+     */
+    private void createOtherProject(int ruleKind) throws Exception {
+        IPath otherPath = env.addProject("Other", "1.5");
+        env.removePackageFragmentRoot(otherPath, "");
+        env.addExternalJars(otherPath, Util.getJavaClassLibs());
+        IPath otherRoot = env.addPackageFragmentRoot(otherPath, "src");
+        env.setOutputFolder(otherPath, "bin");
+        env.addClass(otherRoot, "q", "Hidden", "package q;\npublic class Hidden { }");
+        env.addRequiredProject(projectPath, otherPath, new Path("q/*"), ruleKind);
+        fullBuild();
+    }
+
+    private List<String> find(String prefix, int searchFor) throws Exception {
+        return find(prefix, searchFor, true);
+    }
+
+    /**
+     * @return the qualified names of the types found, followed by the kind of
+     * their access restriction, if any
+     */
+    private List<String> find(String prefix, int searchFor, boolean findMembers) throws Exception {
+        SynchronizationUtils.waitForIndexingToComplete();
+        TypeNameIndex index = TypeNameIndex.getIndex(javaProject);
+        assertNotNull("Index should be available once indexing is complete", index);
+        final List<String> found = new ArrayList<String>();
+        index.findTypes(prefix.toCharArray(), findMembers, searchFor, new ISearchRequestor() {
+            public void acceptType(char[] packageName, char[] typeName, char[][] enclosingTypeNames, int modifiers,
+                    AccessRestriction accessRestriction) {
+                String name = String.valueOf(CharOperation.concatWith(
+                        CharOperation.arrayConcat(CharOperation.splitOn('.', packageName), enclosingTypeNames), typeName, '.'));
+                if (accessRestriction != null) {
+                    name += accessRestriction.getProblemId() == IProblem.ForbiddenReference ? " forbidden" : " discouraged";
+                }
+                found.add(name);
+            }
+
+            public void acceptPackage(char[] packageName) {
+            }
+
+            public void acceptConstructor(int modifiers, char[] simpleTypeName, int parameterCount, char[] signature,
+                    char[][] parameterTypes, char[][] parameterNames, int typeModifiers, char[] packageName,
+                    int extraFlags, String path, AccessRestriction access) {
+            }
+        }, null);
+        return found;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.core.util;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.ExpressionStatement;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.eclipse.core.compiler.GroovySnippetParser;
+
+public class ASTNodePositionIndexTests extends TestCase {
+
+    private static final String CONTENTS =
+        "class Foo {\n" +
+        "  def first() { [1, 2].each { print it } }\n" +
+        "  def second() { 2 }\n" +
+        "  @Deprecated private String field = 'x'\n" +
+        "}";
+
+    private ModuleNode module;
+    private ClassNode foo;
+    private MethodNode first;
+    private MethodNode second;
+    private FieldNode field;
+    private ASTNodePositionIndex index;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        module = new GroovySnippetParser().parse(CONTENTS);
+        foo = (ClassNode) module.getClasses().get(0);
+        first = (MethodNode) foo.getMethods("first").get(0);
+        second = (MethodNode) foo.getMethods("second").get(0);
+        field = foo.getField("field");
+        index = new ASTNodePositionIndex(module);
+    }
+
+    public void testNotSharedOutsideOfWorkingCopies() throws Exception {
+        // only the modules of working copies keep their index
+        assertNull(ASTNodePositionIndex.forModule(module));
+    }
+
+    public void testEnclosingNodes() throws Exception {
+        int offset = CONTENTS.indexOf("print");
+        List<ASTNode> enclosing = index.findEnclosingNodes(offset, offset + 5);
+        // outermost first
+        assertSame(foo, enclosing.get(0));
+        assertSame(first, enclosing.get(1));
+        assertTrue(enclosing.contains(first.getCode()));
+        assertFalse(enclosing.contains(second));
+        assertFalse(enclosing.contains(field));
+        ASTNode last = enclosing.get(enclosing.size() - 1);
+        assertEquals("print", last.getText());
+        assertSame(last, index.findInnermostNode(offset, offset + 5));
+
+        // the closure is between the method and the call to print
+        int closure = -1;
+        for (int i = 0; i < enclosing.size(); i++) {
+            if (enclosing.get(i) instanceof ClosureExpression) {
+                closure = i;
+            }
+        }
+        assertTrue(enclosing.toString(), closure > 1 && closure < enclosing.size() - 1);
+    }
+
+    public void testInnermostNode() throws Exception {
+        // the call to each, but not the list it is called on
+        int offset = CONTENTS.indexOf("each");
+        ASTNode innermost = index.findInnermostNode(offset, offset + 4);
+        assertNotNull(innermost);
+        assertTrue(innermost.getStart() <= offset && offset + 4 <= innermost.getEnd());
+        assertTrue(innermost.toString(), index.findEnclosingNodes(offset, offset + 4).contains(innermost));
+
+        // between the declarations
+        offset = CONTENTS.indexOf("\n  def second");
+        assertSame(foo, index.findInnermostNode(offset, offset + 1));
+
+        // outside of everything
+        assertNull(index.findInnermostNode(CONTENTS.length() + 10, CONTENTS.length() + 11));
+        assertTrue(index.findEnclosingNodes(CONTENTS.length() + 10, CONTENTS.length() + 11).isEmpty());
+    }
+
+    public void testStatementExtents() throws Exception {
+        Statement statement = ((BlockStatement) first.getCode()).getStatements().get(0);
+        MethodCallExpression each = (MethodCallExpression) ((ExpressionStatement) statement).getExpression();
+        int offset = CONTENTS.indexOf("print");
+        assertTrue(index.mayEnclose(statement, offset, offset + 5));
+        assertTrue(index.mayEnclose(first.getCode(), offset, offset + 5));
+        offset = CONTENTS.indexOf("2 }");
+        assertFalse(index.mayEnclose(statement, offset, offset + 1));
+        assertFalse(index.mayEnclose(first.getCode(), offset, offset + 1));
+        assertTrue(index.mayEnclose(second.getCode(), offset, offset + 1));
+
+        // only declarations and statements have extents, so expressions may enclose anything
+        assertTrue(index.mayEnclose(each, 0, CONTENTS.length()));
+    }
+
+    public void testNestedRanges() throws Exception {
+        // inside of the closure, which is inside of the first method
+        int offset = CONTENTS.indexOf("print");
+        assertTrue(index.mayEnclose(foo, offset, offset + 5));
+        assertTrue(index.mayEnclose(first, offset, offset + 5));
+        assertFalse(index.mayEnclose(second, offset, offset + 5));
+        assertFalse(index.mayEnclose(field, offset, offset + 5));
+    }
+
+    public void testAdjacentRanges() throws Exception {
+        // the name of the second method, on the line after the end of the first
+        int offset = CONTENTS.indexOf("second");
+        assertFalse(index.mayEnclose(first, offset, offset));
+        assertTrue(index.mayEnclose(second, offset, offset));
+
+        // the end of the first method, right before the start of the second
+        offset = CONTENTS.indexOf("} }") + 2;
+        assertTrue(index.mayEnclose(first, offset, offset + 1));
+        assertFalse(index.mayEnclose(second, offset, offset + 1));
+    }
+
+    public void testRangeOverSeveralDeclarations() throws Exception {
+        int start = CONTENTS.indexOf("first");
+        int end = CONTENTS.indexOf("second") + 6;
+        assertTrue(index.mayEnclose(foo, start, end));
+        assertFalse(index.mayEnclose(first, start, end));
+        assertFalse(index.mayEnclose(second, start, end));
+    }
+
+    public void testExtentCoversAnnotation() throws Exception {
+        // the extent of a declaration covers its annotations
+        int offset = CONTENTS.indexOf("Deprecated");
+        assertTrue(index.mayEnclose(field, offset, offset + 10));
+        assertFalse(index.mayEnclose(second, offset, offset + 10));
+    }
+
+    public void testNotIndexed() throws Exception {
+        // nodes of other modules may enclose anything
+        ModuleNode other = new GroovySnippetParser().parse(CONTENTS);
+        ClassNode otherFoo = (ClassNode) other.getClasses().get(0);
+        int offset = CONTENTS.indexOf("print");
+        assertTrue(index.mayEnclose(otherFoo.getMethods("second").get(0), offset, offset + 5));
+        assertFalse(index.mayEnclose(second, offset, offset + 5));
+    }
+}
@@ -10,6 +10,7 @@ public class AllTests {
         suite.addTestSuite(TokenStreamTests.class);
         suite.addTestSuite(ExpressionFinderTests.class);
         suite.addTestSuite(ArrayUtilsTests.class);
+        suite.addTestSuite(ASTNodePositionIndexTests.class);
         return suite;
     }
 }
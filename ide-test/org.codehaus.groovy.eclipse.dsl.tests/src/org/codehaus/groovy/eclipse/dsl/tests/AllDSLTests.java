@@ -33,6 +33,7 @@ public class AllDSLTests {
         suite.addTestSuite(DSLContentAssistTests.class);
         suite.addTestSuite(DSLNamedArgContentAssistTests.class);
         suite.addTestSuite(SuggestionInferencingTests.class);
+        suite.addTest(StaticCheckerTests.suite());
         return suite;
     }
 
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.tests;
+
+/**
+ * Generates large Groovy sources for {@link ContentAssistLatencyBenchmark}.
+ * Every generated source ends with a reference to {@link #TARGET}, a
+ * String-typed variable, written as <code>benchmarkTarget.toUpperCase()</code>,
+ * so that all workloads can be completed and selected at the same kind of
+ * location.
+ */
+public class BenchmarkSourceGenerator {
+
+    public static final String TARGET = "benchmarkTarget";
+
+    /** complete here, in the middle of 'toUpperCase' */
+    public static final String COMPLETION_POINT = TARGET + ".toU";
+
+    /** classes from the JDK that are imported by {@link #manyImports(int, int)} */
+    private static final String[] IMPORTABLE = {
+        "java.util.ArrayList", "java.util.LinkedList", "java.util.HashMap", "java.util.TreeMap", "java.util.HashSet",
+        "java.util.TreeSet", "java.util.Calendar", "java.util.Collections", "java.util.Date", "java.util.Locale",
+        "java.util.Properties", "java.util.Random", "java.util.Scanner", "java.util.Stack", "java.util.Timer",
+        "java.util.UUID", "java.util.Vector", "java.util.regex.Matcher", "java.util.regex.Pattern",
+        "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.Executors", "java.util.concurrent.TimeUnit",
+        "java.io.File", "java.io.FileReader", "java.io.FileWriter", "java.io.BufferedReader", "java.io.BufferedWriter",
+        "java.io.InputStream", "java.io.OutputStream", "java.io.PrintWriter", "java.io.StringReader",
+        "java.io.StringWriter", "java.net.URL", "java.net.URI", "java.net.Socket", "java.net.InetAddress",
+        "java.text.SimpleDateFormat", "java.text.DecimalFormat", "java.text.MessageFormat", "java.math.BigDecimal",
+        "java.math.BigInteger", "java.lang.reflect.Method", "java.lang.reflect.Field", "java.lang.reflect.Modifier",
+        "java.nio.ByteBuffer", "java.nio.CharBuffer", "java.nio.charset.Charset", "java.security.MessageDigest",
+        "java.sql.Connection", "java.sql.Timestamp", "java.util.logging.Logger", "java.util.logging.Level",
+        "java.util.zip.ZipFile", "java.util.zip.ZipEntry", "java.util.jar.JarFile", "java.beans.PropertyChangeEvent",
+        "groovy.lang.Closure", "groovy.lang.GroovyObject", "groovy.util.Expando", "groovy.util.ConfigSlurper",
+    };
+
+    /**
+     * A method with closures nested <code>depth</code> deep, each with its
+     * own local variables.  The target is referenced in the innermost closure.
+     */
+    public static String deepClosures(int depth, int statementsPerLevel) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("class DeepClosures {\n");
+        sb.append("  def run() {\n");
+        sb.append("    String ").append(TARGET).append(" = 'value'\n");
+        for (int level = 0; level < depth; level++) {
+            indent(sb, level + 2).append("[").append(level).append("].each { a").append(level).append(" ->\n");
+            for (int i = 0; i < statementsPerLevel; i++) {
+                indent(sb, level + 3).append("def v").append(level).append('_').append(i).append(" = a").append(level)
+                        .append(" + ").append(i).append('\n');
+                if (i % 4 == 0) {
+                    indent(sb, level + 3).append("v").append(level).append('_').append(i).append(".toString().size()\n");
+                }
+            }
+        }
+        indent(sb, depth + 2).append(TARGET).append(".toUpperCase()\n");
+        for (int level = depth - 1; level >= 0; level--) {
+            indent(sb, level + 2).append("}\n");
+        }
+        sb.append("  }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * A script with many top level statements and script methods.  The target
+     * is referenced in the last statement.
+     */
+    public static String bigScript(int statements) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("String ").append(TARGET).append(" = 'value'\n");
+        for (int i = 0; i < statements; i++) {
+            switch (i % 5) {
+                case 0:
+                    sb.append("def list").append(i).append(" = [").append(i).append(", ").append(i + 1).append("]\n");
+                    break;
+                case 1:
+                    sb.append("def map").append(i).append(" = [key").append(i).append(": 'v").append(i).append("']\n");
+                    break;
+                case 2:
+                    sb.append("def str").append(i).append(" = \"value ${").append(i).append("}\".toString()\n");
+                    break;
+                case 3:
+                    sb.append("int method").append(i).append("(int x) { x * ").append(i).append(" }\n");
+                    break;
+                default:
+                    sb.append("list").append(i - 4).append(".collect { it * 2 }.findAll { it > ").append(i).append(" }\n");
+            }
+        }
+        sb.append(TARGET).append(".toUpperCase()\n");
+        return sb.toString();
+    }
+
+    /**
+     * A class whose file imports <code>imports</code> types, each aliased so that
+     * every import is distinct, followed by methods using them.
+     */
+    public static String manyImports(int imports, int methods) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < imports; i++) {
+            String type = IMPORTABLE[i % IMPORTABLE.length];
+            if (i < IMPORTABLE.length) {
+                sb.append("import ").append(type).append('\n');
+            } else {
+                sb.append("import ").append(type).append(" as Alias").append(i).append('\n');
+            }
+        }
+        sb.append("import static java.lang.Math.*\n");
+        sb.append("import static java.util.Collections.emptyList\n");
+        sb.append("class ManyImports {\n");
+        for (int i = 0; i < methods; i++) {
+            String type = IMPORTABLE[i % IMPORTABLE.length];
+            String simpleName = type.substring(type.lastIndexOf('.') + 1);
+            sb.append("  ").append(simpleName).append(" method").append(i).append("(").append(simpleName)
+                    .append(" arg) {\n");
+            sb.append("    def local = max(").append(i).append(", abs(-").append(i).append("))\n");
+            sb.append("    arg\n");
+            sb.append("  }\n");
+        }
+        sb.append("  def run() {\n");
+        sb.append("    String ").append(TARGET).append(" = 'value'\n");
+        sb.append("    ").append(TARGET).append(".toUpperCase()\n");
+        sb.append("  }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * A DSLD with many contribution blocks, each with its own pointcut, all of
+     * which must be evaluated for every expression in the file being inferred.
+     */
+    public static String heavyDsld(int contributions) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < contributions; i++) {
+            switch (i % 4) {
+                case 0:
+                    sb.append("contribute(currentType('BenchmarkDelegate')) {\n");
+                    sb.append("  property name: 'prop").append(i).append("', type: String\n");
+                    break;
+                case 1:
+                    sb.append("contribute(currentType(subType('java.lang.CharSequence')) & fileExtension('groovy')) {\n");
+                    sb.append("  method name: 'charMethod").append(i).append("', type: Integer, params: [a: String]\n");
+                    break;
+                case 2:
+                    sb.append("contribute(enclosingClass(name('UsesDsld')) & enclosingMethod(name('run').or(name('other")
+                            .append(i).append("')))) {\n");
+                    sb.append("  property name: 'enclosed").append(i).append("', type: List\n");
+                    break;
+                default:
+                    sb.append("contribute(currentType(hasField('field").append(i).append("')) | isThisType()) {\n");
+                    sb.append("  method name: 'thisMethod").append(i).append("', type: Object\n");
+            }
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A class that is affected by {@link #heavyDsld(int)}.
+     */
+    public static String usesDsld(int statements) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("class BenchmarkDelegate { }\n");
+        sb.append("class UsesDsld {\n");
+        sb.append("  def run() {\n");
+        sb.append("    def delegate = new BenchmarkDelegate()\n");
+        sb.append("    String ").append(TARGET).append(" = 'value'\n");
+        for (int i = 0; i < statements; i++) {
+            sb.append("    delegate.prop").append((i * 4) % 40).append('\n');
+            sb.append("    ").append(TARGET).append(".charMethod").append((i * 4 + 1) % 40).append("('x')\n");
+        }
+        sb.append("    ").append(TARGET).append(".toUpperCase()\n");
+        sb.append("  }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static StringBuilder indent(StringBuilder sb, int level) {
+        for (int i = 0; i < level; i++) {
+            sb.append("  ");
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.tests;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.eclipse.codeassist.requestor.GroovyCompletionProposalComputer;
+import org.codehaus.groovy.eclipse.codeassist.tests.CompletionTestCase;
+import org.codehaus.groovy.eclipse.core.model.GroovyRuntime;
+import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
+import org.codehaus.groovy.eclipse.dsl.RefreshDSLDJob;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
+import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+
+/**
+ * Measures the latency of content assist, code select and type inferencing
+ * on large generated sources (see {@link BenchmarkSourceGenerator}).  Each
+ * operation is reported by {@link LatencyRecorder} with its p50 and p99
+ * latency and the bytes allocated per operation.
+ * <p>
+ * These are not correctness tests and are not part of {@link AllDSLTests}.
+ * Run this class explicitly as a JUnit plug-in test, and compare the
+ * reported numbers (or the file named by <code>groovy.benchmark.output</code>)
+ * before and after a change.
+ */
+public class ContentAssistLatencyBenchmark extends CompletionTestCase {
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    public ContentAssistLatencyBenchmark(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        createGenericProject();
+        IProject project = getDefaultProject();
+        AbstractDSLInferencingTest.refreshExternalFoldersProject();
+        GroovyRuntime.addLibraryToClasspath(JavaCore.create(project), GroovyDSLCoreActivator.CLASSPATH_CONTAINER_ID, false);
+        env.fullBuild();
+        new RefreshDSLDJob(project).run(null);
+        GroovyDSLCoreActivator.getDefault().getContainerListener().ignoreProject(project);
+    }
+
+    public void testDeepClosures() throws Exception {
+        String contents = BenchmarkSourceGenerator.deepClosures(25, 12);
+        measureAll("deepClosures", create("DeepClosures", contents), contents);
+    }
+
+    public void testBigScript() throws Exception {
+        String contents = BenchmarkSourceGenerator.bigScript(3000);
+        measureAll("bigScript", create("BigScript", contents), contents);
+    }
+
+    public void testManyImports() throws Exception {
+        String contents = BenchmarkSourceGenerator.manyImports(300, 200);
+        ICompilationUnit unit = create("ManyImports", contents);
+        measureAll("manyImports", unit, contents);
+        // type completion must search the imports and the classpath
+        measureCompletion("manyImports.type", unit, getIndexOf(contents, "  ArrayLi"));
+    }
+
+    public void testHeavyDsld() throws Exception {
+        IProject project = getDefaultProject();
+        env.addFile(project.getFullPath(), "benchmark.dsld", BenchmarkSourceGenerator.heavyDsld(200));
+        new RefreshDSLDJob(project).run(null);
+        String contents = BenchmarkSourceGenerator.usesDsld(500);
+        measureAll("heavyDsld", create("UsesDsld", contents), contents);
+    }
+
+    private void measureAll(String name, ICompilationUnit unit, String contents) throws Exception {
+        measureCompletion(name + ".completion", unit, getLastIndexOf(contents, BenchmarkSourceGenerator.COMPLETION_POINT));
+        measureCodeSelect(name + ".codeSelect", unit, contents.lastIndexOf(BenchmarkSourceGenerator.TARGET));
+        measureInferencing(name + ".inferencing", (GroovyCompilationUnit) unit);
+    }
+
+    private void measureCompletion(String name, final ICompilationUnit unit, final int offset) throws Exception {
+        recorder.measure(name, new LatencyRecorder.Operation() {
+            public void run() throws Exception {
+                // a new computer each time, so nothing is reused from the previous request
+                performContentAssist(unit, offset, GroovyCompletionProposalComputer.class);
+            }
+        });
+    }
+
+    private void measureCodeSelect(String name, final ICompilationUnit unit, final int offset) throws Exception {
+        IJavaElement[] elements = unit.codeSelect(offset, BenchmarkSourceGenerator.TARGET.length());
+        assertEquals("Should have found the benchmark target", 1, elements.length);
+        recorder.measure(name, new LatencyRecorder.Operation() {
+            public void run() throws Exception {
+                unit.codeSelect(offset, BenchmarkSourceGenerator.TARGET.length());
+            }
+        });
+    }
+
+    private void measureInferencing(String name, final GroovyCompilationUnit unit) throws Exception {
+        final TypeInferencingVisitorFactory factory = new TypeInferencingVisitorFactory();
+        final ITypeRequestor requestor = new ITypeRequestor() {
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                return VisitStatus.CONTINUE;
+            }
+        };
+        recorder.measure(name, new LatencyRecorder.Operation() {
+            public void run() throws Exception {
+                TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+                visitor.visitCompilationUnit(requestor);
+            }
+        });
+    }
+}
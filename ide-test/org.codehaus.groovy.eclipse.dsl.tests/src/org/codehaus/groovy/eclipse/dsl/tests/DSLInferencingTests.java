@@ -823,6 +823,24 @@ public class DSLInferencingTests extends AbstractDSLInferencingTest {
         int end = start + "BAZ3".length();
         assertUnknownConfidence(contents, start, end, "Search", true);
     }
+    public void testSetDelegateTypeInLaterGroup() throws Exception {
+        // the second contribution group changes the delegate type
+        // after the first one has contributed the property
+        createDsls(
+                "contribute(inClosure() & currentType(String)) {\n" +
+                "  property name : 'later', type : Integer\n" +
+                "}\n" +
+                "contribute(inClosure() & currentIdentifier('later')) {\n" +
+                "  setDelegateType 'Obj'\n" +
+                "}");
+        String contents =
+                SET_DELEGATE_TYPE_SCRIPT +
+                "\"\".l { later }\n";
+        int start = contents.lastIndexOf("later");
+        int end = start + "later".length();
+        assertType(contents, start, end, "java.lang.Integer", true);
+        assertDeclaringType(contents, start, end, "Obj", true);
+    }
     
     // GRECLIPSE-1458
     public void testMultiProject() throws Exception {
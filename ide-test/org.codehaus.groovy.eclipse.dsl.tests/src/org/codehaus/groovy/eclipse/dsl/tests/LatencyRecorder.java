@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.tests;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Runs an operation repeatedly and reports latency percentiles and the bytes
+ * allocated per operation.  Allocation is measured with the HotSpot specific
+ * <code>com.sun.management.ThreadMXBean</code> when it is available, and only
+ * counts allocation on the calling thread.
+ * <p>
+ * The number of iterations can be set with the system properties
+ * <code>groovy.benchmark.warmup</code> and <code>groovy.benchmark.iterations</code>.
+ * If <code>groovy.benchmark.output</code> is set, each result is also appended
+ * to that file as a line of comma separated values.
+ */
+public class LatencyRecorder {
+
+    public static interface Operation {
+        void run() throws Exception;
+    }
+
+    public static class Result {
+        public final String name;
+        public final int iterations;
+        public final long p50Nanos;
+        public final long p99Nanos;
+        public final long meanNanos;
+        public final long maxNanos;
+        /** -1 if allocation cannot be measured on this VM */
+        public final long bytesPerOp;
+
+        Result(String name, long[] sortedNanos, long bytesPerOp) {
+            this.name = name;
+            this.iterations = sortedNanos.length;
+            this.p50Nanos = percentile(sortedNanos, 50);
+            this.p99Nanos = percentile(sortedNanos, 99);
+            long total = 0;
+            for (long nanos : sortedNanos) {
+                total += nanos;
+            }
+            this.meanNanos = total / sortedNanos.length;
+            this.maxNanos = sortedNanos[sortedNanos.length - 1];
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return "BENCHMARK " + name + ": n=" + iterations + " p50=" + millis(p50Nanos) + "ms p99=" + millis(p99Nanos) +
+                    "ms mean=" + millis(meanNanos) + "ms max=" + millis(maxNanos) + "ms alloc=" +
+                    (bytesPerOp < 0 ? "n/a" : (bytesPerOp / 1024) + "KB/op");
+        }
+
+        String toCSV() {
+            return name + "," + iterations + "," + p50Nanos + "," + p99Nanos + "," + meanNanos + "," + maxNanos + "," + bytesPerOp;
+        }
+    }
+
+    private static final Method getThreadAllocatedBytes;
+    static {
+        Method method = null;
+        try {
+            Class<?> sunBean = Class.forName("com.sun.management.ThreadMXBean");
+            if (sunBean.isInstance(ManagementFactory.getThreadMXBean())) {
+                method = sunBean.getMethod("getThreadAllocatedBytes", long.class);
+            }
+        } catch (Exception e) {
+            // not a HotSpot VM
+        }
+        getThreadAllocatedBytes = method;
+    }
+
+    private final int warmup;
+
+    private final int iterations;
+
+    public LatencyRecorder() {
+        this(Integer.getInteger("groovy.benchmark.warmup", 5), Integer.getInteger("groovy.benchmark.iterations", 30));
+    }
+
+    public LatencyRecorder(int warmup, int iterations) {
+        this.warmup = warmup;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    public Result measure(String name, Operation operation) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+        long[] nanos = new long[iterations];
+        long startBytes = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        long endBytes = allocatedBytes();
+        Arrays.sort(nanos);
+        Result result = new Result(name, nanos, startBytes < 0 || endBytes < 0 ? -1 : (endBytes - startBytes) / iterations);
+        report(result);
+        return result;
+    }
+
+    private void report(Result result) throws IOException {
+        System.out.println(result);
+        String output = System.getProperty("groovy.benchmark.output");
+        if (output != null) {
+            PrintWriter writer = new PrintWriter(new FileWriter(output, true));
+            try {
+                writer.println(result.toCSV());
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (getThreadAllocatedBytes == null) {
+            return -1;
+        }
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            return (Long) getThreadAllocatedBytes.invoke(bean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String millis(long nanos) {
+        return String.valueOf(nanos / 10000 / 100.0);
+    }
+}
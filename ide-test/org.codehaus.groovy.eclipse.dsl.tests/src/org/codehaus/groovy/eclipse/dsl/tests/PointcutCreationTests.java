@@ -173,7 +173,19 @@ public class PointcutCreationTests extends AbstractGroovySearchTest {
         assertEquals("Should have been an and pointcut", AndPointcut.class, pc.getClass());
         assertInvalidPointcut("Expecting 1 argument, but found 0.  Consider using '&' or '|' to connect arguments.", pc);
     }
-    
+
+    public void testAndFileLevelFirst() throws Exception {
+        IPointcut pc = new PointcutScriptExecutor().createPointcut("currentType(\"java.lang.String\") & fileExtension(\"groovy\") & nature(\"groovy\")");
+        pc = pc.normalize();
+        assertEquals("Should have been an and pointcut", AndPointcut.class, pc.getClass());
+        assertValidPointcut(pc);
+
+        assertEquals(FileExtensionPointcut.class, pc.getArgumentValues()[0].getClass());
+        assertEquals(ProjectNaturePointcut.class, pc.getArgumentValues()[1].getClass());
+        assertEquals(CurrentTypePointcut.class, pc.getArgumentValues()[2].getClass());
+        assertEquals("Should have 3 argument", 3, pc.getArgumentValues().length);
+    }
+
     public void testOr1() throws Exception {
         IPointcut pc = new PointcutScriptExecutor().createPointcut("currentType(\"java.lang.String\") | currentType(\"java.lang.String\")");
         assertEquals("Should have been an and pointcut", OrPointcut.class, pc.getClass());
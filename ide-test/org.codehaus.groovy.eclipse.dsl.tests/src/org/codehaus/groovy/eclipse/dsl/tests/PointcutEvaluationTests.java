@@ -408,6 +408,19 @@ public class PointcutEvaluationTests extends AbstractGroovySearchTest {
     public void testTypesNamedBinding18Fail() throws Exception {
         doTestOfLastBindingSet("package p\n2", "bind( b : currentType( subType( annotatedBy(Deprecated)) ) )");
     }
+
+    // the super type must come from the hierarchy of the current type, not from another type with the same super type
+    public void testTypesNamedBinding19() throws Exception {
+        GroovyCompilationUnit unit = createUnit("p", "Unit", "package p\n" +
+                "class Foo extends ArrayList<Integer> { }\n" +
+                "class Bar extends ArrayList<String> { }\n" +
+                "new Foo()\n" +
+                "new Bar()");
+        BindingSet bindings = evaluateForBindings(unit, "currentType( bind( b : subType(\"java.util.ArrayList\") ) )");
+        assertAllBindings(bindings, new BindingResult("b", "java.util.ArrayList"));
+        ClassNode superType = (ClassNode) bindings.getBinding("b").iterator().next();
+        assertEquals("java.lang.String", superType.getGenericsTypes()[0].getType().getName());
+    }
     
     public void testAnd1() throws Exception {
         doTestOfLastMatch("package p\n2", "bind( a : currentType( bind( b : bind( c : fields (\"value\") ) & bind( d : methods(\"intValue\")))))", "java.lang.Integer");
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Andrew Eisenberg - Initial implemenation
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.eclipse.dsl.RefreshDSLDJob;
+import org.codehaus.groovy.eclipse.dsl.checker.IStaticCheckerHandler;
+import org.codehaus.groovy.eclipse.dsl.checker.ReportStaticCheckerHandler;
+import org.codehaus.groovy.eclipse.dsl.checker.ResourceTypeChecker;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Tests the parallel, report and incremental modes of the static checker
+ */
+public class StaticCheckerTests extends AbstractDSLInferencingTest {
+
+    /**
+     * Records everything the checker reports, as text
+     */
+    private static class RecordingHandler implements IStaticCheckerHandler {
+        final List<String> events = new ArrayList<String>();
+        final List<String> checked = new ArrayList<String>();
+        int numProblems = 0;
+
+        public void handleUnknownReference(ASTNode node, Position position, int line) {
+            events.add("unknown " + node.getText() + " line " + line);
+            numProblems++;
+        }
+
+        public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+            events.add("assertion " + node.getText() + " " + expectedType + " " + actualType + " line " + line);
+            numProblems++;
+        }
+
+        public void setResource(IFile resource) {
+            events.add("file " + resource.getName());
+        }
+
+        public int numProblemsFound() {
+            return numProblems;
+        }
+
+        public void handleResourceStart(IResource resource) {
+        }
+
+        public void handleResourceEnd(IFile resource, long nanos) {
+            checked.add(resource.getName());
+        }
+
+        public boolean finish(Shell shell) {
+            return numProblems == 0;
+        }
+    }
+
+    public static Test suite() {
+        return new TestSuite(StaticCheckerTests.class);
+    }
+
+    public StaticCheckerTests(String name) {
+        super(name);
+    }
+
+    private File stateFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        stateFile = File.createTempFile("checker", ".properties");
+        stateFile.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        stateFile.delete();
+        super.tearDown();
+    }
+
+    public void testThreads() throws Exception {
+        createUnit("Clean", "def x = 1\nx");
+        createUnit("Unknown", "unknown1\nunknown2");
+        createUnit("Assertion", "def x = 1\nx // TYPE:java.lang.String\n");
+        createUnit("Other", "def y = ''\ny\nunknown3");
+
+        RecordingHandler sequential = new RecordingHandler();
+        assertFalse(createChecker(sequential).doCheck(null));
+
+        RecordingHandler parallel = new RecordingHandler();
+        ResourceTypeChecker checker = createChecker(parallel);
+        checker.setThreads(3);
+        assertFalse(checker.doCheck(null));
+
+        // same results, in the same order
+        assertEquals(sequential.events, parallel.events);
+        assertEquals(sequential.checked, parallel.checked);
+        assertEquals(4, parallel.checked.size());
+        assertEquals(4, parallel.numProblems);
+    }
+
+    public void testResultFormatJson() throws Exception {
+        createUnit("Clean", "def x = 1\nx");
+        createUnit("Unknown", "unknown");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertFalse(createChecker(new ReportStaticCheckerHandler(new PrintStream(bytes), ReportStaticCheckerHandler.Format.JSON)).doCheck(null));
+        String report = bytes.toString();
+        assertTrue(report, report.contains("\"success\": false,"));
+        assertTrue(report, report.contains("\"problems\": 1,"));
+        assertTrue(report, report.contains("\"path\": \"" + project.getFullPath() + "/src/Clean.groovy\","));
+        assertTrue(report, report.contains("\"path\": \"" + project.getFullPath() + "/src/Unknown.groovy\","));
+        assertTrue(report, report.contains("{ \"line\": 1, \"kind\": \"unknown\", \"message\": \"unknown type: unknown\" }"));
+    }
+
+    public void testResultFormatJUnit() throws Exception {
+        createUnit("Clean", "def x = 1\nx");
+        createUnit("Unknown", "unknown");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertFalse(createChecker(new ReportStaticCheckerHandler(new PrintStream(bytes), ReportStaticCheckerHandler.Format.JUNIT)).doCheck(null));
+        String report = bytes.toString();
+        assertTrue(report, report.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"));
+        assertTrue(report, report.contains("<testsuite name=\"groovy-static-check\" tests=\"2\" failures=\"1\" errors=\"0\""));
+        assertTrue(report, report.contains("<testcase classname=\"" + project.getFullPath() + "/src/Unknown.groovy\" name=\"typecheck\""));
+        assertTrue(report, report.contains("<failure message=\"1 type checking problems\">"));
+        assertTrue(report, report.contains("Line 1: unknown type: unknown"));
+    }
+
+    public void testIncremental() throws Exception {
+        createUnit("Clean", "def x = 1\nx");
+        createUnit("Magic", "magic");
+
+        // everything is checked in the first run
+        assertEquals(list("Clean.groovy", "Magic.groovy"), checkIncrementally(false));
+        // only files with problems in the second
+        assertEquals(list("Magic.groovy"), checkIncrementally(false));
+
+        // a new DSLD may change the inferred types of any file
+        createDsls("contribute(currentType(subType(Script))) { property name : 'magic', type : Integer }");
+        new RefreshDSLDJob(project).run(null);
+        assertEquals(list("Clean.groovy", "Magic.groovy"), checkIncrementally(true));
+        assertEquals(Collections.<String>emptyList(), checkIncrementally(true));
+    }
+
+    public void testIncrementalAfterChange() throws Exception {
+        createUnit("Clean", "def x = 1\nx");
+        createUnit("Other", "def y = ''\ny");
+
+        assertEquals(list("Clean.groovy", "Other.groovy"), checkIncrementally(true));
+        IFile other = (IFile) createUnit("Other", "def y = 1\ny").getResource();
+        touch(other);
+        // the types in one file may depend on any other, so all of them are checked again
+        assertEquals(list("Clean.groovy", "Other.groovy"), checkIncrementally(true));
+        assertEquals(Collections.<String>emptyList(), checkIncrementally(true));
+    }
+
+    /**
+     * Makes sure that the file has a new time stamp, even when the file system
+     * only keeps whole seconds
+     */
+    private static void touch(IFile file) throws Exception {
+        File location = file.getLocation().toFile();
+        assertTrue(location.setLastModified(location.lastModified() + 2000));
+        file.refreshLocal(IResource.DEPTH_ZERO, null);
+    }
+
+    /**
+     * @return the names of the files that were checked
+     */
+    private List<String> checkIncrementally(boolean clean) throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        ResourceTypeChecker checker = createChecker(handler);
+        checker.setIncrementalState(stateFile);
+        assertEquals(handler.events.toString(), clean, checker.doCheck(null));
+        assertTrue(stateFile.exists());
+        return handler.checked;
+    }
+
+    private ResourceTypeChecker createChecker(IStaticCheckerHandler handler) {
+        return new ResourceTypeChecker(handler, Collections.<IResource>singletonList(project), null, null, false);
+    }
+
+    private static List<String> list(String... names) {
+        List<String> list = new ArrayList<String>();
+        Collections.addAll(list, names);
+        return list;
+    }
+}
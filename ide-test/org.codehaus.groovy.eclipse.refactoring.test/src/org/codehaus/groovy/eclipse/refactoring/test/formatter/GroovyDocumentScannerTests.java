@@ -119,6 +119,65 @@ public class GroovyDocumentScannerTests extends TestCase {
         scanner.dispose();
     }
 
+    public void testIncrementalEdits() throws Exception {
+        String text =
+            "class Foo {\n" +
+            "    def a = 1<***>\n" +
+            "    def b(x) {\n" +
+            "        \"value ${x} and $x\"\n" +
+            "    }\n" +
+            "    def c = [1,\n" +
+            "        2]\n" +
+            "}\n";
+        makeEditor(text);
+
+        IDocument doc = getDocument();
+        GroovyDocumentScanner scanner = new GroovyDocumentScanner(doc);
+        scanner.getLastToken();
+
+        send("\n");
+        assertSameAsFullScan(scanner);
+        send("    def d = \"${a}\n");
+        assertSameAsFullScan(scanner);
+        send("\"");
+        assertSameAsFullScan(scanner);
+        send("{");
+        assertSameAsFullScan(scanner);
+        send("\n/* comment");
+        assertSameAsFullScan(scanner);
+        send("*/");
+        assertSameAsFullScan(scanner);
+
+        doc.replace(text.indexOf("def c"), 3, "");
+        assertSameAsFullScan(scanner);
+        doc.replace(0, doc.getLength() / 2, "(");
+        assertSameAsFullScan(scanner);
+        scanner.dispose();
+    }
+
+    /**
+     * The tokens of the scanner must be the same as the tokens of a new scanner
+     * for the same text.
+     */
+    private void assertSameAsFullScan(GroovyDocumentScanner scanner) {
+        IDocument doc = scanner.getDocument();
+        GroovyDocumentScanner fullScanner = new GroovyDocumentScanner(new Document(doc.get()));
+        List<Token> expected = fullScanner.getTokens(0, doc.getLength());
+        List<Token> actual = scanner.getTokens(0, doc.getLength());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Token expectedToken = expected.get(i);
+            Token actualToken = actual.get(i);
+            String message = "Token " + i + " of:\n" + doc.get();
+            assertEquals(message, expectedToken.getType(), actualToken.getType());
+            assertEquals(message, expectedToken.getText(), actualToken.getText());
+            assertEquals(message, expectedToken.getLine(), actualToken.getLine());
+            assertEquals(message, expectedToken.getColumn(), actualToken.getColumn());
+        }
+        assertEquals(fullScanner.getLastToken().getLine(), scanner.getLastToken().getLine());
+        fullScanner.dispose();
+    }
+
     private IDocument getDocument() {
         return editDoc;
     }
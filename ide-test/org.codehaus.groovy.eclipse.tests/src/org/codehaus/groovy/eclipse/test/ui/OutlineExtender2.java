@@ -17,6 +17,7 @@ package org.codehaus.groovy.eclipse.test.ui;
 
 import java.util.Stack;
 
+import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.expr.MethodCallExpression;
@@ -93,6 +94,12 @@ public class OutlineExtender2 extends OutlineExtender1 {
       doVisit(moduleNode);
     }
 
+    @Override
+    protected boolean mayContainRegion(ASTNode node) {
+      // the region is the whole module, and every node is of interest
+      return true;
+    }
+
     @Override
     public void visitMethodCallExpression(MethodCallExpression methodCall) {
       if (methodCall.getLineNumber()<0) {
@@ -195,6 +195,42 @@ public class OutlineExtenderTests extends EclipseTestCase {
     }
     
     
+    public void testOutlineTypeReusesChildren() throws Exception {
+        testProject.addNature(OutlineExtender2.NATURE); // applies to *Y*.groovy files
+
+        String contents = "Integer field1 = 0 \n" + "String field2 = 'S'";
+        GroovyOutlinePage outline = openFile("YTest", contents);
+        TCompilationUnit2 tu = (TCompilationUnit2) outline.getOutlineCompilationUnit();
+        TType tx = (TType) tu.getChildren()[0];
+        IJavaElement[] children = tx.getChildren();
+        assertEquals(2, children.length);
+
+        // the same members, one line further down
+        GroovyCompilationUnit unit = tu.getUnit();
+        unit.getBuffer().setContents("\n" + contents);
+        unit.reconcile(true, null);
+        OCompilationUnit.Delta delta = tu.refreshIncrementally();
+
+        assertSame("Unchanged type should have been reused", tx, tu.getChildren()[0]);
+        assertSame("Unchanged field should have been reused", children[0], tx.getChildren()[0]);
+        assertSame("Unchanged field should have been reused", children[1], tx.getChildren()[1]);
+        assertTrue("Type with unchanged children should not be changed", delta.changed.isEmpty());
+
+        // a new member
+        unit.getBuffer().setContents("Long field3 = 100 \n" + contents);
+        unit.reconcile(true, null);
+        delta = tu.refreshIncrementally();
+
+        assertSame("Type should have been reused", tx, tu.getChildren()[0]);
+        assertEquals(3, tx.getChildren().length);
+        assertIsField(tx.getChildren()[0], "field3", "Long");
+        assertEquals("Type with new children should be changed", 1, delta.changed.size());
+        assertSame(tx, delta.changed.get(0));
+        for (IJavaElement child : tx.getChildren()) {
+            assertSame("Children of a reused type should be its own", tx, child.getParent());
+        }
+    }
+
     public void testUseGroovyScriptOutline() throws Exception {
         testProject.addNature(OutlineExtender1.NATURE); // applies to *X*.groovy files
 
@@ -249,6 +285,36 @@ public class OutlineExtenderTests extends EclipseTestCase {
         assertEquals(3, ((IField) children[3]).getNameRange().getLength());
     }
     
+    public void testGroovyScriptOutlineReusesElements() throws Exception {
+        String contents =
+            "def aaa = 1\n" +
+            "def bbb = 2\n";
+        GroovyOutlinePage outline = openFile("Script", contents);
+        OCompilationUnit unit = outline.getOutlineCompilationUnit();
+        IJavaElement[] children = unit.getChildren();
+        assertEquals("Wrong number of children", 2, children.length);
+
+        String newContents =
+            "def aaa = 1\n" +
+            "\n" +
+            "def bbb = 2\n" +
+            "def ccc = 3\n";
+        GroovyCompilationUnit groovyUnit = unit.getUnit();
+        groovyUnit.getBuffer().setContents(newContents);
+        groovyUnit.reconcile(true, null);
+        outline.refresh();
+
+        IJavaElement[] newChildren = unit.getChildren();
+        assertEquals("Wrong number of children", 3, newChildren.length);
+        assertSame("Unchanged element should have been reused", children[0], newChildren[0]);
+        assertSame("Unchanged element should have been reused", children[1], newChildren[1]);
+        assertEquals("ccc", newChildren[2].getElementName());
+
+        // the reused elements refer to the new AST
+        assertEquals(newContents.indexOf("bbb"), ((IField) newChildren[1]).getNameRange().getOffset());
+        assertEquals(newContents.indexOf("ccc"), ((IField) newChildren[2]).getNameRange().getOffset());
+    }
+
     public void testStructureUnknown() throws Exception {
         String contents = 
             "class X {  }\n int o( \n}";
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.test.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.eclipse.core.search.OccurrenceIndex;
+import org.codehaus.groovy.eclipse.editor.GroovyReconcileScheduler;
+import org.codehaus.groovy.eclipse.editor.IGroovyReconcilingListener;
+import org.codehaus.groovy.eclipse.test.SynchronizationUtils;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * Tests that the listeners of a {@link GroovyReconcileScheduler} are told
+ * once per typing pause, and share one analysis of the unit
+ */
+public class ReconcileSchedulerTests extends GroovyEditorTest {
+
+    /**
+     * Remembers each snapshot it is given, and the inferencing results of
+     * the snapshot
+     */
+    private static class RecordingListener implements IGroovyReconcilingListener {
+        final List<GroovyReconcileScheduler.Snapshot> snapshots = new ArrayList<GroovyReconcileScheduler.Snapshot>();
+        final List<OccurrenceIndex> results = new ArrayList<OccurrenceIndex>();
+
+        public synchronized void reconciled(GroovyReconcileScheduler.Snapshot snapshot, IProgressMonitor monitor) {
+            snapshots.add(snapshot);
+            results.add(snapshot.getInferencingResults());
+        }
+
+        synchronized void clear() {
+            snapshots.clear();
+            results.clear();
+        }
+
+        synchronized int size() {
+            return snapshots.size();
+        }
+    }
+
+    private final RecordingListener first = new RecordingListener();
+    private final RecordingListener second = new RecordingListener();
+
+    public void testOnePassPerPause() throws Exception {
+        makeEditor("class Foo {\n  def bar() {\n    def x = 1\n    <***>x\n  }\n}\n");
+        // let the reconcile that follows opening the editor pass
+        SynchronizationUtils.joinBackgroudActivities();
+        editor.getReconcileScheduler().addListener(first);
+        editor.getReconcileScheduler().addListener(second);
+
+        IDocument document = editor.getDocumentProvider().getDocument(editor.getEditorInput());
+        int offset = document.get().indexOf("x\n  }");
+        for (int i = 0; i < 5; i++) {
+            document.replace(offset, 0, "x\n    ");
+        }
+        waitForPass();
+
+        assertEquals("Only one pass should follow a burst of edits", 1, first.size());
+        assertEquals(1, second.size());
+        assertSame(first.snapshots.get(0), second.snapshots.get(0));
+        OccurrenceIndex results = first.results.get(0);
+        assertNotNull(results);
+        // one analysis for all listeners and for mark occurrences
+        assertSame(results, second.results.get(0));
+        assertSame(results, OccurrenceIndex.forUnit(editor.getGroovyCompilationUnit()));
+        assertTrue(first.snapshots.get(0).isCurrent());
+
+        // the next pause is a new pass with a new analysis
+        first.clear();
+        second.clear();
+        document.replace(offset, 0, "x\n    ");
+        waitForPass();
+        assertEquals(1, first.size());
+        assertNotSame(results, first.results.get(0));
+        assertSame(first.results.get(0), second.results.get(0));
+    }
+
+    public void testStaleSnapshot() throws Exception {
+        makeEditor("def x = 1\nx<***>\n");
+        SynchronizationUtils.joinBackgroudActivities();
+        editor.getReconcileScheduler().addListener(first);
+        IDocument document = editor.getDocumentProvider().getDocument(editor.getEditorInput());
+        document.replace(document.getLength(), 0, "x\n");
+        waitForPass();
+        assertEquals(1, first.size());
+        GroovyReconcileScheduler.Snapshot snapshot = first.snapshots.get(0);
+        assertTrue(snapshot.isCurrent());
+
+        // positions computed for the snapshot no longer match the document
+        document.replace(0, 0, "\n");
+        assertFalse(snapshot.isCurrent());
+    }
+
+    private void waitForPass() {
+        // the reconciler waits for a pause in typing, then the scheduler for further reconciles
+        for (int i = 0; i < 20 && first.size() == 0; i++) {
+            SynchronizationUtils.joinBackgroudActivities();
+        }
+        SynchronizationUtils.joinBackgroudActivities();
+    }
+}
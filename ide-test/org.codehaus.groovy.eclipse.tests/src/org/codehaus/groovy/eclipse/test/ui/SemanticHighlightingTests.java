@@ -24,16 +24,21 @@ import static org.codehaus.groovy.eclipse.editor.highlighting.HighlightedTypedPo
 import static org.codehaus.groovy.eclipse.editor.highlighting.HighlightedTypedPosition.HighlightKind.UNKNOWN;
 import static org.codehaus.groovy.eclipse.editor.highlighting.HighlightedTypedPosition.HighlightKind.NUMBER;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.TreeSet;
 
 import org.codehaus.groovy.eclipse.editor.highlighting.GatherSemanticReferences;
 import org.codehaus.groovy.eclipse.editor.highlighting.HighlightedTypedPosition;
+import org.codehaus.groovy.eclipse.editor.highlighting.IncrementalSemanticReferences;
 import org.codehaus.groovy.eclipse.test.EclipseTestCase;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.ui.PartInitException;
 
@@ -190,6 +195,40 @@ public class SemanticHighlightingTests extends EclipseTestCase {
                 new HighlightedTypedPosition(third, "f".length(), STATIC_METHOD));
     }
     
+    public void testIncrementalEditInBody() throws Exception {
+        String contents = "class X { static FOO\n def x(c = { }) { FOO } }";
+        assertIncrementalHighlighting(contents, contents.lastIndexOf("FOO"), "FOO; ");
+    }
+
+    public void testIncrementalEditInDefaultValue() throws Exception {
+        // the closure in the default value of the parameter is not the body of the method
+        String contents = "class X { static FOO\n def x(c = { }) { FOO } }";
+        assertIncrementalHighlighting(contents, contents.indexOf("{ }") + 2, "FOO ");
+    }
+
+    /**
+     * Edits the unit after it has been highlighted once, and checks that
+     * highlighting it again finds the same references as highlighting the
+     * edited unit from scratch
+     */
+    private void assertIncrementalHighlighting(String contents, int offset, String insertion) throws Exception {
+        GroovyCompilationUnit unit = openFile(contents);
+        try {
+            unit.becomeWorkingCopy(null);
+            IncrementalSemanticReferences incremental = new IncrementalSemanticReferences();
+            incremental.findSemanticHighlightingReferences(unit);
+
+            unit.getBuffer().replace(offset, 0, insertion);
+            unit.reconcile(ICompilationUnit.NO_AST, false, null, null);
+            Collection<HighlightedTypedPosition> actual = incremental.findSemanticHighlightingReferences(unit);
+            Collection<HighlightedTypedPosition> expected = new GatherSemanticReferences(unit).findSemanticHighlightingReferences();
+            assertEquals(new ArrayList<HighlightedTypedPosition>(new TreeSet<HighlightedTypedPosition>(expected)),
+                    new ArrayList<HighlightedTypedPosition>(actual));
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
+
     private void assertHighlighting(String contents, HighlightedTypedPosition... expectedPositions) throws Exception {
         GroovyCompilationUnit unit = openFile(contents);
         checkStyles(unit, expectedPositions);
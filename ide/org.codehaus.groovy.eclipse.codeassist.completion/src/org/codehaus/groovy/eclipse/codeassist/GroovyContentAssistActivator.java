@@ -18,6 +18,9 @@ package org.codehaus.groovy.eclipse.codeassist;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.codehaus.groovy.eclipse.codeassist.creators.ReceiverMemberCache;
+import org.codehaus.groovy.eclipse.codeassist.processors.TypeNameIndex;
+import org.codehaus.groovy.eclipse.codeassist.requestor.GroovyCompletionProposalComputer;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
@@ -33,6 +36,14 @@ public class GroovyContentAssistActivator extends AbstractUIPlugin {
 
     public static final String FILTERED_DGMS = PLUGIN_ID + ".filtereddgms";
 
+    /**
+     * Milliseconds to wait for slow (type and package) proposals before the content assist popup opens. 0 means wait for
+     * all proposals, for at most a few seconds.
+     */
+    public static final String LATENCY_BUDGET = PLUGIN_ID + ".latencybudget";
+
+    public static final int DEFAULT_LATENCY_BUDGET = 500;
+
     private static GroovyContentAssistActivator plugin;
 
     public GroovyContentAssistActivator() {
@@ -46,6 +57,9 @@ public class GroovyContentAssistActivator extends AbstractUIPlugin {
 	@Override
     public void start(BundleContext context) throws Exception {
 		super.start(context);
+		getPreferenceStore().setDefault(LATENCY_BUDGET, DEFAULT_LATENCY_BUDGET);
+		TypeNameIndex.startListening();
+		ReceiverMemberCache.startListening();
 	}
 
 	/*
@@ -54,6 +68,9 @@ public class GroovyContentAssistActivator extends AbstractUIPlugin {
 	 */
 	@Override
     public void stop(BundleContext context) throws Exception {
+		TypeNameIndex.stopListening();
+		ReceiverMemberCache.stopListening();
+		GroovyCompletionProposalComputer.shutdownBackgroundSearches();
 		plugin = null;
 		super.stop(context);
 	}
@@ -83,6 +100,10 @@ public class GroovyContentAssistActivator extends AbstractUIPlugin {
 	    return filteredSet;
 	}
 
+	public int getLatencyBudget() {
+	    return Math.max(0, getPreferenceStore().getInt(LATENCY_BUDGET));
+	}
+
 	public void setFilteredDGMs(Set<String> filteredSet) {
 	    StringBuilder sb = new StringBuilder();
 	    for (String s : filteredSet) {
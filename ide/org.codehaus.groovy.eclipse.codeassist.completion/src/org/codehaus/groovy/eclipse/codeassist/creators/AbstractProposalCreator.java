@@ -45,6 +45,14 @@ public abstract class AbstractProposalCreator implements IProposalCreator {
         return name.charAt(0) != '<' && !name.contains("$");
     }
 
+    /**
+     * @return the member cache of the module being completed in
+     */
+    protected ReceiverMemberCache getMemberCache() {
+        ClassNode enclosingType = currentScope == null ? null : currentScope.getEnclosingTypeDeclaration();
+        return ReceiverMemberCache.forModule(enclosingType == null ? null : enclosingType.getModule());
+    }
+
     protected void getAllSupers(ClassNode type, Set<ClassNode> set, Set<ClassNode> except) {
         if (type == null) {
             return;
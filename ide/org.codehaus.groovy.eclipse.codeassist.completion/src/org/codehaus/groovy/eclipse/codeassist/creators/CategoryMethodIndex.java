@@ -0,0 +1,226 @@
+/*
+ * Copyright 2009-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.groovy.eclipse.codeassist.creators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.eclipse.codeassist.ProposalUtils;
+import org.eclipse.jdt.groovy.search.AccessorSupport;
+import org.eclipse.jdt.groovy.search.VariableScope;
+
+/**
+ * An immutable index of the public static methods of a category class.
+ * Methods are grouped by the type of their first (self) parameter and
+ * sorted by name, so that the candidates for a receiver hierarchy and a
+ * prefix can be found without scanning every method of the category.
+ * Accessors that can be proposed as properties are kept separately,
+ * sorted by property name.
+ * <p>
+ * Indexes of the default categories (DGM and friends) are built once and
+ * shared.  Other categories are indexed for each request.
+ */
+class CategoryMethodIndex {
+
+    private static class Entry {
+        final MethodNode method;
+        final String key;
+        final int ordinal;
+        Entry(MethodNode method, String key, int ordinal) {
+            this.method = method;
+            this.key = key;
+            this.ordinal = ordinal;
+        }
+    }
+
+    private static final Comparator<Entry> BY_KEY = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            return e1.key.compareTo(e2.key);
+        }
+    };
+
+    private static final Comparator<Entry> BY_ORDINAL = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            return e1.ordinal - e2.ordinal;
+        }
+    };
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static final Set<String> DEFAULT_CATEGORY_NAMES = new HashSet<String>();
+    static {
+        for (ClassNode category : VariableScope.ALL_DEFAULT_CATEGORIES) {
+            DEFAULT_CATEGORY_NAMES.add(category.getName());
+        }
+    }
+
+    private static final Map<String, CategoryMethodIndex> defaultIndexes = new HashMap<String, CategoryMethodIndex>();
+
+    /**
+     * @return the index for the given category, shared if it is one of the default categories
+     */
+    static CategoryMethodIndex forCategory(ClassNode category) {
+        if (!VariableScope.ALL_DEFAULT_CATEGORIES.contains(category)) {
+            return new CategoryMethodIndex(category);
+        }
+        synchronized (defaultIndexes) {
+            CategoryMethodIndex index = defaultIndexes.get(category.getName());
+            if (index == null || index.category != category) {
+                index = new CategoryMethodIndex(category);
+                defaultIndexes.put(category.getName(), index);
+            }
+            return index;
+        }
+    }
+
+    static boolean isDGMCategory(ClassNode category) {
+        return DEFAULT_CATEGORY_NAMES.contains(category.getName());
+    }
+
+    private final ClassNode category;
+
+    private final boolean isDGMCategory;
+
+    /** methods by the name of their first parameter type, each array sorted by method name */
+    private final Map<String, Entry[]> methodsBySelfType;
+
+    /** single parameter methods that look like accessors, sorted by property name */
+    private final Entry[] accessors;
+
+    private CategoryMethodIndex(ClassNode category) {
+        this.category = category;
+        this.isDGMCategory = isDGMCategory(category);
+        Map<String, List<Entry>> bySelfType = new HashMap<String, List<Entry>>();
+        List<Entry> accessorList = new ArrayList<Entry>();
+        List<MethodNode> allMethods = category.getAllDeclaredMethods();
+        int ordinal = 0;
+        for (MethodNode method : allMethods) {
+            ordinal++;
+            if (!method.isStatic() || !method.isPublic()) {
+                continue;
+            }
+            Parameter[] params = method.getParameters();
+            if (params == null || params.length == 0) {
+                continue;
+            }
+            String methodName = method.getName();
+            String selfType = params[0].getType().getName();
+            List<Entry> entries = bySelfType.get(selfType);
+            if (entries == null) {
+                entries = new ArrayList<Entry>();
+                bySelfType.put(selfType, entries);
+            }
+            entries.add(new Entry(method, methodName, ordinal));
+            if (params.length == 1 && AccessorSupport.create(methodName, true).isAccessor()) {
+                accessorList.add(new Entry(method, ProposalUtils.createMockFieldName(methodName), ordinal));
+            }
+        }
+        methodsBySelfType = new HashMap<String, Entry[]>(bySelfType.size() * 2);
+        for (Map.Entry<String, List<Entry>> entry : bySelfType.entrySet()) {
+            methodsBySelfType.put(entry.getKey(), sorted(entry.getValue()));
+        }
+        accessors = sorted(accessorList);
+    }
+
+    boolean isDGMCategory() {
+        return isDGMCategory;
+    }
+
+    /**
+     * Finds the methods that may be proposed for the given receiver hierarchy and prefix.
+     * This is a superset of the actual proposals: methods whose name may loosely match the prefix
+     * and whose first parameter is in the hierarchy, along with accessors whose property
+     * name may loosely match the prefix.  Callers must still check each candidate.
+     *
+     * @param selfTypes names of all types in the receiver hierarchy
+     * @param prefix the completion prefix
+     * @return the candidates, in declaration order
+     */
+    List<MethodNode> findCandidates(Set<String> selfTypes, String prefix) {
+        List<Entry> found = new ArrayList<Entry>();
+        for (String selfType : selfTypes) {
+            Entry[] entries = methodsBySelfType.get(selfType);
+            if (entries != null) {
+                addRange(entries, prefix, found);
+            }
+        }
+        addRange(accessors, prefix, found);
+        if (found.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collections.sort(found, BY_ORDINAL);
+        List<MethodNode> candidates = new ArrayList<MethodNode>(found.size());
+        int lastOrdinal = -1;
+        for (Entry entry : found) {
+            // a method may be both a regular method and an accessor
+            if (entry.ordinal != lastOrdinal) {
+                candidates.add(entry.method);
+                lastOrdinal = entry.ordinal;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Adds all entries whose key starts with the first character of the prefix.
+     * {@link ProposalUtils#looselyMatches(String, String)} requires at least that much.
+     */
+    private static void addRange(Entry[] entries, String prefix, List<Entry> found) {
+        if (prefix == null || prefix.length() == 0) {
+            found.addAll(Arrays.asList(entries));
+            return;
+        }
+        char first = prefix.charAt(0);
+        int start = lowerBound(entries, String.valueOf(first));
+        for (int i = start; i < entries.length && entries[i].key.length() > 0 && entries[i].key.charAt(0) == first; i++) {
+            found.add(entries[i]);
+        }
+    }
+
+    private static int lowerBound(Entry[] entries, String key) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid].key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Entry[] sorted(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return NO_ENTRIES;
+        }
+        Entry[] array = entries.toArray(new Entry[entries.size()]);
+        Arrays.sort(array, BY_KEY);
+        return array;
+    }
+}
@@ -58,9 +58,9 @@ public class CategoryProposalCreator extends AbstractProposalCreator {
         Set<String> existingFieldProposals = new HashSet<String>();
         Map<String, List<MethodNode>> existingMethodProposals = new HashMap<String, List<MethodNode>>();
         for (ClassNode category : categories) {
-            List<MethodNode> allMethods = category.getAllDeclaredMethods();
-            boolean isDGMCategory = isDGMCategory(category);
-            for (MethodNode method : allMethods) {
+            CategoryMethodIndex index = CategoryMethodIndex.forCategory(category);
+            boolean isDGMCategory = index.isDGMCategory();
+            for (MethodNode method : index.findCandidates(set, prefix)) {
                 // Check for DGMs filtered from preferences
                 if (isDGMCategory && filter.isFiltered(method)) {
                     continue;
@@ -133,20 +133,6 @@ public class CategoryProposalCreator extends AbstractProposalCreator {
         return false;
     }
 
-    /**
-     * @param category
-     * @return
-     */
-    private boolean isDGMCategory(ClassNode category) {
-        String className = category.getName();
-        for (ClassNode dgClass : VariableScope.ALL_DEFAULT_CATEGORIES) {
-            if (dgClass.getName().equals(className)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     @Override
     public boolean redoForLoopClosure() {
         return true;
@@ -20,17 +20,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.FieldNode;
-import org.codehaus.groovy.ast.ImportNode;
-import org.codehaus.groovy.ast.ImportNodeCompatibilityWrapper;
 import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.Parameter;
@@ -131,31 +127,9 @@ public class FieldProposalCreator extends AbstractProposalCreator implements IPr
     private List<IGroovyProposal> getStaticImportProposals(
             String prefix, ModuleNode module) {
         List<IGroovyProposal> staticProposals = new ArrayList<IGroovyProposal>();
-        Map<String, ImportNode> staticImports = ImportNodeCompatibilityWrapper
-                .getStaticImports(module);
-        for (Entry<String, ImportNode> entry : staticImports.entrySet()) {
-            String fieldName = entry.getValue().getFieldName();
-            if (fieldName != null
-                    && ProposalUtils.looselyMatches(prefix, fieldName)) {
-                FieldNode field = entry.getValue().getType()
-                        .getField(fieldName);
-                if (field != null) {
-                    staticProposals.add(new GroovyFieldProposal(field));
-                }
-            }
-        }
-        Map<String, ImportNode> staticStarImports = ImportNodeCompatibilityWrapper
-                .getStaticStarImports(module);
-        for (Entry<String, ImportNode> entry : staticStarImports.entrySet()) {
-            ClassNode type = entry.getValue().getType();
-            if (type != null) {
-                for (FieldNode field : (Iterable<FieldNode>) type.getFields()) {
-                    if (field.isStatic()
-                            && ProposalUtils.looselyMatches(prefix,
-                                    field.getName())) {
-                        staticProposals.add(new GroovyFieldProposal(field));
-                    }
-                }
+        for (FieldNode field : ReceiverMemberCache.forModule(module).getStaticImportFields()) {
+            if (ProposalUtils.looselyMatches(prefix, field.getName())) {
+                staticProposals.add(new GroovyFieldProposal(field));
             }
         }
 
@@ -170,9 +144,30 @@ public class FieldProposalCreator extends AbstractProposalCreator implements IPr
      * @see http://docs.codehaus.org/display/GROOVY/Groovy+Beans
      */
     private Collection<FieldNode> getAllFields(ClassNode thisType) {
-        // use a LinkedHashSet to preserve order
-        Set<ClassNode> types = new LinkedHashSet<ClassNode>();
-        getAllSupers(thisType, types, alreadySeen);
+        ReceiverMemberCache.Members members = getMemberCache().getMembers(thisType);
+        // supers are in hierarchy order
+        Set<ClassNode> types = members.getSupersExcept(alreadySeen);
+        Collection<FieldNode> fields;
+        if (alreadySeen.isEmpty()) {
+            // the fields of the whole hierarchy are the same for every request
+            fields = members.getFields();
+            if (fields == null) {
+                fields = collectFields(types);
+                members.setFields(fields);
+            }
+        } else {
+            fields = collectFields(types);
+        }
+        // don't do anything with these types next time
+        if (alreadySeen.isEmpty()) {
+            alreadySeen = types;
+        } else {
+            alreadySeen.addAll(types);
+        }
+        return fields;
+    }
+
+    private Collection<FieldNode> collectFields(Set<ClassNode> types) {
         Map<String, FieldNode> nameFieldMap = new HashMap<String, FieldNode>();
         for (ClassNode type : types) {
             for (FieldNode field : type.getFields()) {
@@ -185,12 +180,6 @@ public class FieldProposalCreator extends AbstractProposalCreator implements IPr
                 }
             }
         }
-        // don't do anything with these types next time
-        if (alreadySeen.isEmpty()) {
-            alreadySeen = types;
-        } else {
-            alreadySeen.addAll(types);
-        }
         return nameFieldMap.values();
     }
 
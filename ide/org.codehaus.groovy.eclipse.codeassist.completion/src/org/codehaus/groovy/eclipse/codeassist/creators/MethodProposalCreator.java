@@ -22,13 +22,9 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassNode;
-import org.codehaus.groovy.ast.ImportNode;
-import org.codehaus.groovy.ast.ImportNodeCompatibilityWrapper;
 import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.eclipse.codeassist.ProposalUtils;
@@ -109,11 +105,12 @@ public class MethodProposalCreator extends AbstractProposalCreator implements IP
     }
 
     protected List<MethodNode> getAllMethods(ClassNode thisType) {
-        Set<ClassNode> types = new HashSet<ClassNode>();
+        ReceiverMemberCache.Members members = getMemberCache().getMembers(thisType);
 
-        List<MethodNode> allMethods = thisType.getAllDeclaredMethods();
+        List<MethodNode> allMethods = members.getAllMethods();
         if (!alreadySeen.isEmpty()) {
             // remove all methods from classes that we have already visited
+            allMethods = new ArrayList<MethodNode>(allMethods);
             for (Iterator<MethodNode> methodIter = allMethods.iterator(); methodIter.hasNext();) {
                 if (alreadySeen.contains(methodIter.next().getDeclaringClass())) {
                     methodIter.remove();
@@ -123,7 +120,7 @@ public class MethodProposalCreator extends AbstractProposalCreator implements IP
 
 
         // keep track of the already seen types so that next time, we won't include them
-        getAllSupers(thisType, types, alreadySeen);
+        Set<ClassNode> types = members.getSupersExcept(alreadySeen);
         if (alreadySeen.isEmpty()) {
             alreadySeen = types;
         } else {
@@ -137,34 +134,9 @@ public class MethodProposalCreator extends AbstractProposalCreator implements IP
     private List<IGroovyProposal> getStaticImportProposals(String prefix,
             ModuleNode module) {
         List<IGroovyProposal> staticProposals = new ArrayList<IGroovyProposal>();
-        Map<String, ImportNode> staticImports = ImportNodeCompatibilityWrapper
-                .getStaticImports(module);
-        for (Entry<String, ImportNode> entry : staticImports.entrySet()) {
-            String fieldName = entry.getValue().getFieldName();
-            if (fieldName != null
-                    && ProposalUtils.looselyMatches(prefix, fieldName)) {
-                List<MethodNode> methods = entry.getValue().getType()
-                        .getDeclaredMethods(fieldName);
-                if (methods != null) {
-                    for (MethodNode method : methods) {
-                        staticProposals.add(new GroovyMethodProposal(method, "Groovy", options));
-                    }
-                }
-            }
-        }
-        Map<String, ImportNode> staticStarImports = ImportNodeCompatibilityWrapper
-                .getStaticStarImports(module);
-        for (Entry<String, ImportNode> entry : staticStarImports.entrySet()) {
-            ClassNode type = entry.getValue().getType();
-            if (type != null) {
-                for (MethodNode method : (Iterable<MethodNode>) type
-                        .getMethods()) {
-                    if (method.isStatic()
-                            && ProposalUtils.looselyMatches(prefix,
-                                    method.getName())) {
-                        staticProposals.add(new GroovyMethodProposal(method, "Groovy", options));
-                    }
-                }
+        for (MethodNode method : ReceiverMemberCache.forModule(module).getStaticImportMethods()) {
+            if (ProposalUtils.looselyMatches(prefix, method.getName())) {
+                staticProposals.add(new GroovyMethodProposal(method, "Groovy", options));
             }
         }
 
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2009-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.groovy.eclipse.codeassist.creators;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.ImportNode;
+import org.codehaus.groovy.ast.ImportNodeCompatibilityWrapper;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Caches, for a module being edited, the members of each receiver type that
+ * content assist has completed on, and the members brought in by the static
+ * imports of the module.  Repeated completions on the same receiver (for
+ * example, while typing after a '.') reuse the hierarchy, methods and fields
+ * collected by the first one instead of walking the hierarchy again.
+ * <p>
+ * A module is replaced by a new one whenever its compilation unit is
+ * reconciled, so a cache never outlives the AST it was built from.  Caches of
+ * the most recently used modules are shared, and all caches are discarded
+ * when a classpath changes, since binary types may then resolve differently.
+ */
+public class ReceiverMemberCache {
+
+    private static final int CACHE_SIZE = 4;
+
+    private static final Map<ModuleNode, ReceiverMemberCache> caches = new LinkedHashMap<ModuleNode, ReceiverMemberCache>(
+            CACHE_SIZE * 2, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ModuleNode, ReceiverMemberCache> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final IElementChangedListener listener = new IElementChangedListener() {
+        public void elementChanged(ElementChangedEvent event) {
+            if (affectsClasspath(event.getDelta())) {
+                discardAll();
+            }
+        }
+    };
+
+    public static void startListening() {
+        JavaCore.addElementChangedListener(listener, ElementChangedEvent.POST_CHANGE);
+    }
+
+    public static void stopListening() {
+        JavaCore.removeElementChangedListener(listener);
+        discardAll();
+    }
+
+    /**
+     * @return the cache for the module, or a new cache that is not shared if
+     * the module is null
+     */
+    static ReceiverMemberCache forModule(ModuleNode module) {
+        if (module == null) {
+            return new ReceiverMemberCache(null);
+        }
+        synchronized (caches) {
+            ReceiverMemberCache cache = caches.get(module);
+            if (cache == null) {
+                cache = new ReceiverMemberCache(module);
+                caches.put(module, cache);
+            }
+            return cache;
+        }
+    }
+
+    private static void discardAll() {
+        synchronized (caches) {
+            caches.clear();
+        }
+    }
+
+    private static boolean affectsClasspath(IJavaElementDelta delta) {
+        int flags = delta.getFlags();
+        switch (delta.getElement().getElementType()) {
+            case IJavaElement.JAVA_MODEL:
+                for (IJavaElementDelta child : delta.getAffectedChildren()) {
+                    if (affectsClasspath(child)) {
+                        return true;
+                    }
+                }
+                return false;
+
+            case IJavaElement.JAVA_PROJECT:
+                if (delta.getKind() != IJavaElementDelta.CHANGED ||
+                        (flags & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+                    return true;
+                }
+                for (IJavaElementDelta child : delta.getAffectedChildren()) {
+                    if (affectsClasspath(child)) {
+                        return true;
+                    }
+                }
+                return false;
+
+            case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+                return delta.getKind() != IJavaElementDelta.CHANGED ||
+                        (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH |
+                                IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED)) != 0;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The members of a single receiver type.  Each list is computed the first
+     * time it is asked for and must not be modified.
+     */
+    static class Members {
+        private final ClassNode type;
+        private volatile List<ClassNode> supers;
+        private volatile List<MethodNode> methods;
+        private volatile Collection<FieldNode> fields;
+
+        Members(ClassNode type) {
+            this.type = type;
+        }
+
+        /**
+         * @return the type, its super classes and all of its interfaces, in
+         * the order of {@link AbstractProposalCreator#getAllSupers}
+         */
+        List<ClassNode> getSupers() {
+            if (supers == null) {
+                Set<ClassNode> set = new LinkedHashSet<ClassNode>();
+                collectSupers(type, set);
+                supers = Collections.unmodifiableList(new ArrayList<ClassNode>(set));
+            }
+            return supers;
+        }
+
+        /**
+         * @return a new set of the supers that are not in <code>except</code>
+         */
+        Set<ClassNode> getSupersExcept(Set<ClassNode> except) {
+            Set<ClassNode> set = new LinkedHashSet<ClassNode>();
+            for (ClassNode superType : getSupers()) {
+                if (!except.contains(superType)) {
+                    set.add(superType);
+                }
+            }
+            return set;
+        }
+
+        List<MethodNode> getAllMethods() {
+            if (methods == null) {
+                methods = Collections.unmodifiableList(new ArrayList<MethodNode>(type.getAllDeclaredMethods()));
+            }
+            return methods;
+        }
+
+        /**
+         * @return the fields of the whole hierarchy, or null if they have not been
+         * stored yet
+         */
+        Collection<FieldNode> getFields() {
+            return fields;
+        }
+
+        void setFields(Collection<FieldNode> fields) {
+            this.fields = Collections.unmodifiableCollection(fields);
+        }
+
+        private static void collectSupers(ClassNode type, Set<ClassNode> set) {
+            if (type == null) {
+                return;
+            }
+            set.add(type);
+            collectSupers(type.getSuperClass(), set);
+            for (ClassNode inter : (Iterable<ClassNode>) type.getAllInterfaces()) {
+                if (!inter.getName().equals(type.getName())) {
+                    collectSupers(inter, set);
+                }
+            }
+        }
+    }
+
+    private final ModuleNode module;
+
+    private final Map<ClassNode, Members> members = new HashMap<ClassNode, Members>();
+
+    private volatile List<MethodNode> staticImportMethods;
+
+    private volatile List<FieldNode> staticImportFields;
+
+    private ReceiverMemberCache(ModuleNode module) {
+        this.module = module;
+    }
+
+    Members getMembers(ClassNode type) {
+        synchronized (members) {
+            Members result = members.get(type);
+            if (result == null) {
+                result = new Members(type);
+                members.put(type, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @return the methods named by the static imports of the module, followed by
+     * the static methods of the types of its static star imports
+     */
+    List<MethodNode> getStaticImportMethods() {
+        if (staticImportMethods == null) {
+            List<MethodNode> result = new ArrayList<MethodNode>();
+            if (module != null) {
+                for (ImportNode importNode : ImportNodeCompatibilityWrapper.getStaticImports(module).values()) {
+                    String fieldName = importNode.getFieldName();
+                    if (fieldName != null) {
+                        List<MethodNode> methods = importNode.getType().getDeclaredMethods(fieldName);
+                        if (methods != null) {
+                            result.addAll(methods);
+                        }
+                    }
+                }
+                for (ImportNode importNode : ImportNodeCompatibilityWrapper.getStaticStarImports(module).values()) {
+                    ClassNode type = importNode.getType();
+                    if (type != null) {
+                        for (MethodNode method : (Iterable<MethodNode>) type.getMethods()) {
+                            if (method.isStatic()) {
+                                result.add(method);
+                            }
+                        }
+                    }
+                }
+            }
+            staticImportMethods = Collections.unmodifiableList(result);
+        }
+        return staticImportMethods;
+    }
+
+    /**
+     * @return the fields named by the static imports of the module, followed by
+     * the static fields of the types of its static star imports
+     */
+    List<FieldNode> getStaticImportFields() {
+        if (staticImportFields == null) {
+            List<FieldNode> result = new ArrayList<FieldNode>();
+            if (module != null) {
+                for (ImportNode importNode : ImportNodeCompatibilityWrapper.getStaticImports(module).values()) {
+                    String fieldName = importNode.getFieldName();
+                    if (fieldName != null) {
+                        FieldNode field = importNode.getType().getField(fieldName);
+                        if (field != null) {
+                            result.add(field);
+                        }
+                    }
+                }
+                for (ImportNode importNode : ImportNodeCompatibilityWrapper.getStaticStarImports(module).values()) {
+                    ClassNode type = importNode.getType();
+                    if (type != null) {
+                        for (FieldNode field : (Iterable<FieldNode>) type.getFields()) {
+                            if (field.isStatic()) {
+                                result.add(field);
+                            }
+                        }
+                    }
+                }
+            }
+            staticImportFields = Collections.unmodifiableList(result);
+        }
+        return staticImportFields;
+    }
+}
@@ -10,6 +10,7 @@ import org.eclipse.jdt.internal.corext.util.JavaConventionsUtil;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.IInputValidator;
 import org.eclipse.jface.dialogs.InputDialog;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.ListEditor;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
@@ -175,6 +176,14 @@ public class ContentAssistPreferencesPage extends FieldEditorOverlayPage impleme
     protected void createFieldEditors() {
         addField(new CompletionFilterListEditor("Filtered DGMs",
                 "Configure which DefaultGroovyMethods will be filtered from content asist.", getFieldEditorParent()));
+
+        IntegerFieldEditor latencyBudget = new IntegerFieldEditor(GroovyContentAssistActivator.LATENCY_BUDGET,
+                "Time to wait for type proposals before showing content assist (ms): ", getFieldEditorParent(), 5);
+        latencyBudget.setValidRange(0, 60000);
+        latencyBudget.getLabelControl(getFieldEditorParent()).setToolTipText(
+                "Type and package proposals that take longer than this are added to the open popup once they are found.  " +
+                "Use 0 to wait for all proposals, for at most a few seconds.");
+        addField(latencyBudget);
     }
 
     public void init(IWorkbench workbench) {}
@@ -33,6 +33,7 @@ import org.codehaus.groovy.eclipse.codeassist.completions.GroovyJavaMethodComple
 import org.codehaus.groovy.eclipse.codeassist.proposals.GroovyNamedArgumentProposal;
 import org.codehaus.groovy.eclipse.codeassist.proposals.ProposalFormattingOptions;
 import org.codehaus.groovy.eclipse.codeassist.relevance.Relevance;
+import org.codehaus.groovy.eclipse.codeassist.relevance.RelevanceContext;
 import org.codehaus.groovy.eclipse.codeassist.relevance.RelevanceRules;
 import org.codehaus.groovy.eclipse.codeassist.requestor.ContentAssistContext;
 import org.codehaus.groovy.eclipse.codeassist.requestor.ContentAssistLocation;
@@ -47,6 +48,7 @@ import org.eclipse.jdt.core.CompletionRequestor;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IAccessRule;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.core.compiler.CharOperation;
@@ -226,9 +228,16 @@ public class GroovyProposalTypeSearchRequestor implements ISearchRequestor,
     // all the types in the target Compilation unit
     private IType[] allTypesInUnit;
 
+    // relevance information about allTypesInUnit, shared by all proposals
+    private RelevanceContext relevanceContext;
+
     // instead of inserting text, show context information only for constructors
     private boolean contextOnly;
 
+    // whether forbidden and discouraged types are hidden, as set in the code assist options
+    private final boolean checkForbiddenReference;
+    private final boolean checkDiscouragedReference;
+
     private final ContentAssistContext context;
 
     public GroovyProposalTypeSearchRequestor(ContentAssistContext context,
@@ -261,6 +270,11 @@ public class GroovyProposalTypeSearchRequestor implements ISearchRequestor,
             GroovyCore.logException("Problem with type completion", e);
             allTypesInUnit = new IType[0];
         }
+        relevanceContext = new RelevanceContext(allTypesInUnit);
+        checkForbiddenReference = JavaCore.ENABLED.equals(
+                unit.getJavaProject().getOption(JavaCore.CODEASSIST_FORBIDDEN_REFERENCE_CHECK, true));
+        checkDiscouragedReference = JavaCore.ENABLED.equals(
+                unit.getJavaProject().getOption(JavaCore.CODEASSIST_DISCOURAGED_REFERENCE_CHECK, true));
     }
 
     public void acceptConstructor(int modifiers, char[] simpleTypeName,
@@ -283,9 +297,15 @@ public class GroovyProposalTypeSearchRequestor implements ISearchRequestor,
             if (accessRestriction != null) {
                 switch (accessRestriction.getProblemId()) {
                     case IProblem.ForbiddenReference:
-                        // forbidden references are removed
-                        return;
+                        if (checkForbiddenReference) {
+                            return;
+                        }
+                        accessibility = IAccessRule.K_NON_ACCESSIBLE;
+                        break;
                     case IProblem.DiscouragedReference:
+                        if (checkDiscouragedReference) {
+                            return;
+                        }
                         // discouraged references have lower priority
                         accessibility = IAccessRule.K_DISCOURAGED;
                         break;
@@ -334,9 +354,15 @@ public class GroovyProposalTypeSearchRequestor implements ISearchRequestor,
         if (accessRestriction != null) {
             switch (accessRestriction.getProblemId()) {
                 case IProblem.ForbiddenReference:
-                    // forbidden references are removed
-                    return;
+                    if (checkForbiddenReference) {
+                        return;
+                    }
+                    accessibility = IAccessRule.K_NON_ACCESSIBLE;
+                    break;
                 case IProblem.DiscouragedReference:
+                    if (checkDiscouragedReference) {
+                        return;
+                    }
                     // discouraged references have a lower priority
                     accessibility = IAccessRule.K_DISCOURAGED;
                     break;
@@ -531,7 +557,7 @@ public class GroovyProposalTypeSearchRequestor implements ISearchRequestor,
         proposal.setFlags(modifiers);
         proposal.setReplaceRange(this.offset, this.offset + this.replaceLength);
         proposal.setTokenRange(this.offset, this.actualCompletionPosition);
-        proposal.setRelevance(RelevanceRules.ALL_RULES.getRelevance(fullyQualifiedName, allTypesInUnit, accessibility, modifiers));
+        proposal.setRelevance(RelevanceRules.ALL_RULES.getRelevance(fullyQualifiedName, relevanceContext, accessibility, modifiers));
         proposal.setTypeName(simpleTypeName);
         proposal.setAccessibility(accessibility);
         proposal.setPackageName(packageName);
@@ -573,7 +599,7 @@ public class GroovyProposalTypeSearchRequestor implements ISearchRequestor,
         proposal.setFlags(modifiers);
         proposal.setReplaceRange(this.offset, this.offset + this.replaceLength);
         proposal.setTokenRange(this.offset, this.actualCompletionPosition);
-        proposal.setRelevance(RelevanceRules.ALL_RULES.getRelevance(fullyQualifiedName, allTypesInUnit, accessibility, modifiers));
+        proposal.setRelevance(RelevanceRules.ALL_RULES.getRelevance(fullyQualifiedName, relevanceContext, accessibility, modifiers));
         proposal.setNameLookup(nameLookup);
         proposal.setTypeName(simpleTypeName);
         proposal.setAccessibility(accessibility);
@@ -918,7 +944,7 @@ public class GroovyProposalTypeSearchRequestor implements ISearchRequestor,
         typeProposal.setReplaceRange(this.offset, this.offset + this.replaceLength);
         typeProposal.setTokenRange(this.offset, this.offset + this.replaceLength);
         typeProposal.setRelevance(RelevanceRules.ALL_RULES.getRelevance(
-                fullyQualifiedName, allTypesInUnit, accessibility,
+                fullyQualifiedName, relevanceContext, accessibility,
                 augmentedModifiers));
         return typeProposal;
     }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.groovy.eclipse.codeassist.processors;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.internal.codeassist.ISearchRequestor;
+import org.eclipse.jdt.internal.core.SearchableEnvironment;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+
+/**
+ * A completion processor whose expensive part is a search of the name
+ * environment.  The search only works on names, so it may run on any thread,
+ * but creating proposals from what it found reads the module node and the
+ * imports of the unit, and must happen on the thread that asked for
+ * completions.
+ */
+public interface ISearchingCompletionProcessor extends IGroovyCompletionProcessor {
+
+    /**
+     * Called on the thread that asked for completions.
+     *
+     * @return true iff {@link #search} should be run at all
+     */
+    boolean isSearchNeeded();
+
+    /**
+     * Searches the name environment, and does nothing else. May be called
+     * from any thread.
+     */
+    void search(ISearchRequestor requestor, SearchableEnvironment nameEnvironment, IProgressMonitor monitor);
+
+    /**
+     * Called on the thread that asked for completions.
+     *
+     * @param found what {@link #search} has found
+     */
+    List<ICompletionProposal> createProposals(RecordingSearchRequestor found, IProgressMonitor monitor);
+}
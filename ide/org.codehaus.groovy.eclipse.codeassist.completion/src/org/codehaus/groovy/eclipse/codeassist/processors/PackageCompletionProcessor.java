@@ -26,6 +26,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.jdt.core.JavaConventions;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.internal.codeassist.ISearchRequestor;
 import org.eclipse.jdt.internal.core.SearchableEnvironment;
 import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
@@ -34,7 +35,7 @@ import org.eclipse.jface.text.contentassist.ICompletionProposal;
  * @author Andrew Eisenberg
  * @created Dec 10, 2009
  */
-public class PackageCompletionProcessor extends AbstractGroovyCompletionProcessor {
+public class PackageCompletionProcessor extends AbstractGroovyCompletionProcessor implements ISearchingCompletionProcessor {
 
     public PackageCompletionProcessor(ContentAssistContext context,
             JavaContentAssistInvocationContext javaContext, SearchableEnvironment nameEnvironment) {
@@ -42,32 +43,56 @@ public class PackageCompletionProcessor extends AbstractGroovyCompletionProcesso
     }
 
     public List<ICompletionProposal> generateProposals(IProgressMonitor monitor) {
-        ContentAssistContext context = getContext();
-        char[] packageCompletionText = getPackageCompletionText(context.fullCompletionExpression);
-        if(mightBePackage(packageCompletionText)) {
-
-            int expressionStart = context.completionLocation
-                    - context.fullCompletionExpression.trim().length();
-            GroovyProposalTypeSearchRequestor requestor = new GroovyProposalTypeSearchRequestor(
-                    context, getJavaContext(), expressionStart,
-                    context.completionEnd - expressionStart,
-                    getNameEnvironment().nameLookup, monitor);
-            getNameEnvironment().findPackages(packageCompletionText, requestor);
-            List<ICompletionProposal> typeProposals = requestor.processAcceptedPackages();
-
-            boolean alsoLookForTypes = shouldLookForTypes(packageCompletionText);
-            if (alsoLookForTypes) {
-                getNameEnvironment().findTypes(packageCompletionText, true
-                        /* find all member types, should be false when
-                           in constructor*/,
-                        true /* camel case match */,
-                        getSearchFor(), requestor, monitor);
-                typeProposals.addAll(requestor.processAcceptedTypes());
-            }
-            return typeProposals;
-        } else {
+        if (!isSearchNeeded()) {
             return Collections.emptyList();
         }
+        GroovyProposalTypeSearchRequestor requestor = createRequestor(monitor);
+        search(requestor, getNameEnvironment(), monitor);
+        return processAccepted(requestor);
+    }
+
+    public boolean isSearchNeeded() {
+        return mightBePackage(getPackageCompletionText(getContext().fullCompletionExpression));
+    }
+
+    public void search(ISearchRequestor requestor, SearchableEnvironment nameEnvironment, IProgressMonitor monitor) {
+        char[] packageCompletionText = getPackageCompletionText(getContext().fullCompletionExpression);
+        nameEnvironment.findPackages(packageCompletionText, requestor);
+        boolean alsoLookForTypes = shouldLookForTypes(packageCompletionText);
+        if (alsoLookForTypes) {
+            nameEnvironment.findTypes(packageCompletionText, true
+                    /* find all member types, should be false when
+                       in constructor*/,
+                    true /* camel case match */,
+                    getSearchFor(), requestor, monitor);
+        }
+    }
+
+    public List<ICompletionProposal> createProposals(RecordingSearchRequestor found, IProgressMonitor monitor) {
+        GroovyProposalTypeSearchRequestor requestor = createRequestor(monitor);
+        found.replay(requestor);
+        return processAccepted(requestor);
+    }
+
+    private GroovyProposalTypeSearchRequestor createRequestor(IProgressMonitor monitor) {
+        ContentAssistContext context = getContext();
+        int expressionStart = context.completionLocation
+                - context.fullCompletionExpression.trim().length();
+        return new GroovyProposalTypeSearchRequestor(
+                context, getJavaContext(), expressionStart,
+                context.completionEnd - expressionStart,
+                getNameEnvironment().nameLookup, monitor);
+    }
+
+    /**
+     * packages come before types
+     */
+    private List<ICompletionProposal> processAccepted(GroovyProposalTypeSearchRequestor requestor) {
+        List<ICompletionProposal> typeProposals = requestor.processAcceptedPackages();
+        if (shouldLookForTypes(getPackageCompletionText(getContext().fullCompletionExpression))) {
+            typeProposals.addAll(requestor.processAcceptedTypes());
+        }
+        return typeProposals;
     }
 
     /**
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.groovy.eclipse.codeassist.processors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.internal.codeassist.ISearchRequestor;
+import org.eclipse.jdt.internal.compiler.env.AccessRestriction;
+
+/**
+ * Remembers the raw results of a search of the name environment, so that a
+ * search can run on one thread and the results be turned into proposals on
+ * another.  {@link #replay(ISearchRequestor)} passes the results on in the
+ * order in which they were found.
+ */
+public class RecordingSearchRequestor implements ISearchRequestor {
+
+    private static abstract class Accepted {
+        abstract void replay(ISearchRequestor requestor);
+    }
+
+    private final List<Accepted> accepted = new ArrayList<Accepted>();
+
+    private final IProgressMonitor monitor;
+
+    public RecordingSearchRequestor(IProgressMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    public void acceptConstructor(final int modifiers, final char[] simpleTypeName, final int parameterCount,
+            final char[] signature, final char[][] parameterTypes, final char[][] parameterNames, final int typeModifiers,
+            final char[] packageName, final int extraFlags, final String path, final AccessRestriction access) {
+        record(new Accepted() {
+            @Override
+            void replay(ISearchRequestor requestor) {
+                requestor.acceptConstructor(modifiers, simpleTypeName, parameterCount, signature, parameterTypes,
+                        parameterNames, typeModifiers, packageName, extraFlags, path, access);
+            }
+        });
+    }
+
+    public void acceptType(final char[] packageName, final char[] typeName, final char[][] enclosingTypeNames,
+            final int modifiers, final AccessRestriction accessRestriction) {
+        record(new Accepted() {
+            @Override
+            void replay(ISearchRequestor requestor) {
+                requestor.acceptType(packageName, typeName, enclosingTypeNames, modifiers, accessRestriction);
+            }
+        });
+    }
+
+    public void acceptPackage(final char[] packageName) {
+        record(new Accepted() {
+            @Override
+            void replay(ISearchRequestor requestor) {
+                requestor.acceptPackage(packageName);
+            }
+        });
+    }
+
+    private void record(Accepted result) {
+        if (monitor != null && monitor.isCanceled()) {
+            throw new OperationCanceledException();
+        }
+        accepted.add(result);
+    }
+
+    public int size() {
+        return accepted.size();
+    }
+
+    public void replay(ISearchRequestor requestor) {
+        for (Accepted result : accepted) {
+            result.replay(requestor);
+        }
+    }
+}
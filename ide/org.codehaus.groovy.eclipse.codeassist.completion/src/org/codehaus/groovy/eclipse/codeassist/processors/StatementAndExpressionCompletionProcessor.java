@@ -342,7 +342,8 @@ public class StatementAndExpressionCompletionProcessor extends
 
         // if completion node is null, then it is likely because of a syntax error
         if (completionNode != null) {
-            visitor.visitCompilationUnit(requestor);
+            // only the member enclosing the completion location can contain the completion node
+            visitor.visitEnclosingMember(requestor, context.completionLocation);
         }
         ClassNode completionType;
         boolean isStatic;
@@ -26,6 +26,7 @@ import org.codehaus.groovy.eclipse.core.util.ExpressionFinder;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.internal.codeassist.ISearchRequestor;
 import org.eclipse.jdt.internal.core.SearchableEnvironment;
 import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
@@ -35,7 +36,7 @@ import org.eclipse.jface.text.contentassist.ICompletionProposal;
  * @created Nov 10, 2009
  *
  */
-public class TypeCompletionProcessor extends AbstractGroovyCompletionProcessor {
+public class TypeCompletionProcessor extends AbstractGroovyCompletionProcessor implements ISearchingCompletionProcessor {
 
     public TypeCompletionProcessor(ContentAssistContext context,
             JavaContentAssistInvocationContext javaContext, SearchableEnvironment nameEnvironment) {
@@ -43,29 +44,53 @@ public class TypeCompletionProcessor extends AbstractGroovyCompletionProcessor {
     }
 
     public List<ICompletionProposal> generateProposals(IProgressMonitor monitor) {
-        ContentAssistContext context = getContext();
-        String toSearch = context.completionExpression.startsWith("new ") ? context.completionExpression.substring(4) : context.completionExpression;
-        if (shouldShowTypes(context, toSearch)) {
+        if (!isSearchNeeded()) {
             return Collections.emptyList();
         }
+        GroovyProposalTypeSearchRequestor requestor = createRequestor(monitor);
+        search(requestor, getNameEnvironment(), monitor);
+        return requestor.processAcceptedTypes();
+    }
+
+    public boolean isSearchNeeded() {
+        return !shouldShowTypes(getContext(), getSearchText());
+    }
+
+    public void search(ISearchRequestor requestor, SearchableEnvironment nameEnvironment, IProgressMonitor monitor) {
+        char[] toSearch = getSearchText().toCharArray();
+        TypeNameIndex index = TypeNameIndex.getIndex(getContext().unit.getJavaProject());
+        if (index != null) {
+            index.findTypes(toSearch, true, getSearchFor(), requestor, monitor);
+        } else {
+            // index not available until the search engine's indexes are ready
+            nameEnvironment.findTypes(toSearch, true, // all member
+                                                      // types, should
+                                                      // be false when
+                                                      // in
+                                                      // constructor
+                    true, // camel case match
+                    getSearchFor(), requestor, monitor);
+        }
+    }
 
+    public List<ICompletionProposal> createProposals(RecordingSearchRequestor found, IProgressMonitor monitor) {
+        GroovyProposalTypeSearchRequestor requestor = createRequestor(monitor);
+        found.replay(requestor);
+        return requestor.processAcceptedTypes();
+    }
+
+    private String getSearchText() {
+        ContentAssistContext context = getContext();
+        return context.completionExpression.startsWith("new ") ? context.completionExpression.substring(4) : context.completionExpression;
+    }
+
+    private GroovyProposalTypeSearchRequestor createRequestor(IProgressMonitor monitor) {
+        ContentAssistContext context = getContext();
         int expressionStart = findExpressionStart(context);
-        GroovyProposalTypeSearchRequestor requestor = new GroovyProposalTypeSearchRequestor(
+        return new GroovyProposalTypeSearchRequestor(
                 context, getJavaContext(), expressionStart,
                 context.completionEnd - expressionStart,
                 getNameEnvironment().nameLookup, monitor);
-
-        getNameEnvironment().findTypes(toSearch.toCharArray(), true, // all member
-                                                            // types, should
-                                                            // be false when
-                                                            // in
-                                                            // constructor
-                true, // camel case match
-                getSearchFor(), requestor, monitor);
-
-        List<ICompletionProposal> typeProposals = requestor
-                .processAcceptedTypes();
-        return typeProposals;
     }
 
     /**
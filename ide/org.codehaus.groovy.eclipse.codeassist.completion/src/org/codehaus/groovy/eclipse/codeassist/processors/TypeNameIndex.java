@@ -0,0 +1,478 @@
+/*
+ * Copyright 2009-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.groovy.eclipse.codeassist.processors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.eclipse.codeassist.GroovyContentAssistActivator;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.internal.codeassist.ISearchRequestor;
+import org.eclipse.jdt.internal.compiler.env.AccessRestriction;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.search.BasicSearchEngine;
+import org.eclipse.jdt.internal.core.search.IRestrictedAccessTypeRequestor;
+
+/**
+ * An in-memory index of the names of all types visible from a Java project,
+ * used to answer type completion prefix queries without going to the disk
+ * index each time.
+ * <p>
+ * The index is built lazily from the search engine the first time it is queried.
+ * Types from jars and class folders are kept in a single array sorted by simple
+ * name (ignoring case), so that a query only looks at names sharing the first
+ * character of the prefix.  Types from source are kept by compilation unit so that
+ * they can be replaced as compilation units change.  Changes to the classpath
+ * discard the index, which is rebuilt on the next query.
+ * <p>
+ * All types are kept along with their access restrictions, as the search engine
+ * reports them.  Whether forbidden and discouraged types are proposed is left to
+ * the requestor, as for a search of the name environment.
+ */
+public class TypeNameIndex {
+
+    private static class Entry {
+        final char[] packageName;
+        final char[] simpleName;
+        final char[][] enclosingNames;
+        final int modifiers;
+        final AccessRestriction access;
+        Entry(char[] packageName, char[] simpleName, char[][] enclosingNames, int modifiers, AccessRestriction access) {
+            this.packageName = packageName;
+            this.simpleName = simpleName;
+            this.enclosingNames = enclosingNames == null ? CharOperation.NO_CHAR_CHAR : enclosingNames;
+            this.modifiers = modifiers;
+            this.access = access;
+        }
+    }
+
+    private static final Comparator<Entry> BY_NAME = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            return compareIgnoreCase(e1.simpleName, e2.simpleName, Integer.MAX_VALUE);
+        }
+    };
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static final Map<IJavaProject, TypeNameIndex> indexes = new HashMap<IJavaProject, TypeNameIndex>();
+
+    private static final IElementChangedListener listener = new IElementChangedListener() {
+        public void elementChanged(ElementChangedEvent event) {
+            synchronized (indexes) {
+                if (indexes.isEmpty()) {
+                    return;
+                }
+            }
+            processDelta(event.getDelta());
+        }
+    };
+
+    public static void startListening() {
+        JavaCore.addElementChangedListener(listener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+    }
+
+    public static void stopListening() {
+        JavaCore.removeElementChangedListener(listener);
+        discardAll();
+    }
+
+    /**
+     * @return the index for the project, or null if the index is not built yet
+     * and the search engine's indexes are not ready to build it
+     */
+    public static TypeNameIndex getIndex(IJavaProject project) {
+        TypeNameIndex index;
+        synchronized (indexes) {
+            index = indexes.get(project);
+            if (index == null) {
+                if (JavaModelManager.getIndexManager().awaitingJobsCount() > 0) {
+                    return null;
+                }
+                index = new TypeNameIndex(project);
+                indexes.put(project, index);
+            }
+        }
+        return index.ensureBuilt() ? index : null;
+    }
+
+    private static void discardAll() {
+        synchronized (indexes) {
+            indexes.clear();
+        }
+    }
+
+    private static TypeNameIndex[] allIndexes() {
+        synchronized (indexes) {
+            return indexes.values().toArray(new TypeNameIndex[indexes.size()]);
+        }
+    }
+
+    private static void processDelta(IJavaElementDelta delta) {
+        IJavaElement element = delta.getElement();
+        int flags = delta.getFlags();
+        switch (element.getElementType()) {
+            case IJavaElement.JAVA_MODEL:
+                processChildren(delta);
+                break;
+
+            case IJavaElement.JAVA_PROJECT:
+                if (delta.getKind() != IJavaElementDelta.CHANGED ||
+                        (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED |
+                                IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+                    discardAll();
+                } else {
+                    processChildren(delta);
+                }
+                break;
+
+            case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+                if (delta.getKind() != IJavaElementDelta.CHANGED ||
+                        (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH |
+                                IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED)) != 0) {
+                    discardAll();
+                } else if (!((IPackageFragmentRoot) element).isArchive()) {
+                    processChildren(delta);
+                }
+                break;
+
+            case IJavaElement.PACKAGE_FRAGMENT:
+                if (delta.getKind() == IJavaElementDelta.REMOVED) {
+                    // compilation units of a removed package may not have deltas of their own
+                    String prefix = element.getPath().toString() + '/';
+                    for (TypeNameIndex index : allIndexes()) {
+                        index.removeSourceUnder(prefix);
+                    }
+                } else {
+                    processChildren(delta);
+                }
+                break;
+
+            case IJavaElement.COMPILATION_UNIT:
+                ICompilationUnit unit = (ICompilationUnit) element;
+                if (delta.getKind() == IJavaElementDelta.REMOVED) {
+                    String path = unit.getPath().toString();
+                    for (TypeNameIndex index : allIndexes()) {
+                        index.removeSource(path);
+                    }
+                } else if (delta.getKind() == IJavaElementDelta.ADDED ||
+                        (flags & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_CHILDREN)) != 0) {
+                    for (TypeNameIndex index : allIndexes()) {
+                        index.updateSource(unit);
+                    }
+                }
+                break;
+        }
+    }
+
+    private static void processChildren(IJavaElementDelta delta) {
+        for (IJavaElementDelta child : delta.getAffectedChildren()) {
+            processDelta(child);
+        }
+    }
+
+    private final IJavaProject project;
+
+    /** types from jars and class folders, sorted by simple name ignoring case */
+    private volatile Entry[] binaryEntries;
+
+    /** types from source, by the path of their compilation unit */
+    private final Map<String, Entry[]> sourceEntries = new HashMap<String, Entry[]>();
+
+    private TypeNameIndex(IJavaProject project) {
+        this.project = project;
+    }
+
+    /**
+     * Builds the index from the search engine if this has not been done yet.
+     * The build is not tied to the monitor of any one request so that a cancelled
+     * request does not leave the index half built.
+     * @return true iff the index is ready to be queried
+     */
+    private synchronized boolean ensureBuilt() {
+        if (binaryEntries != null) {
+            return true;
+        }
+        final List<Entry> binaries = new ArrayList<Entry>();
+        final Map<String, List<Entry>> sources = new HashMap<String, List<Entry>>();
+        final Map<String, char[]> packageNames = new HashMap<String, char[]>();
+        IRestrictedAccessTypeRequestor requestor = new IRestrictedAccessTypeRequestor() {
+            public void acceptType(int modifiers, char[] packageName, char[] simpleTypeName, char[][] enclosingTypeNames,
+                    String path, AccessRestriction access) {
+                Entry entry = new Entry(intern(packageName, packageNames), simpleTypeName,
+                        enclosingTypeNames, modifiers, access);
+                if (isSourcePath(path)) {
+                    List<Entry> entries = sources.get(path);
+                    if (entries == null) {
+                        entries = new ArrayList<Entry>(2);
+                        sources.put(path, entries);
+                    }
+                    entries.add(entry);
+                } else {
+                    binaries.add(entry);
+                }
+            }
+        };
+        try {
+            new BasicSearchEngine().searchAllTypeNames(null, SearchPattern.R_EXACT_MATCH, null, SearchPattern.R_PREFIX_MATCH,
+                    IJavaSearchConstants.TYPE, BasicSearchEngine.createJavaSearchScope(new IJavaElement[] { project }),
+                    requestor, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, new NullProgressMonitor());
+        } catch (JavaModelException e) {
+            GroovyContentAssistActivator.logError("Exception building type name index for " + project.getElementName(), e);
+            return false;
+        }
+        Entry[] sorted = binaries.toArray(new Entry[binaries.size()]);
+        Arrays.sort(sorted, BY_NAME);
+        synchronized (sourceEntries) {
+            sourceEntries.clear();
+            for (Map.Entry<String, List<Entry>> entry : sources.entrySet()) {
+                sourceEntries.put(entry.getKey(), entry.getValue().toArray(new Entry[entry.getValue().size()]));
+            }
+        }
+        binaryEntries = sorted;
+        return true;
+    }
+
+    /**
+     * Finds the types whose name matches the prefix in the same way as
+     * {@link org.eclipse.jdt.internal.core.SearchableEnvironment#findTypes(char[], boolean, boolean, int, ISearchRequestor, IProgressMonitor)}
+     * with camel case matching.  Types whose prefix is qualified are matched against
+     * their package name or, for member types, their enclosing type name.
+     * Like the name environment, no access restrictions are reported if the project
+     * ignores both forbidden and discouraged references.
+     */
+    public void findTypes(char[] prefix, boolean findMembers, int searchFor, ISearchRequestor requestor, IProgressMonitor monitor) {
+        boolean checkAccessRestrictions =
+                !JavaCore.IGNORE.equals(project.getOption(JavaCore.COMPILER_PB_FORBIDDEN_REFERENCE, true))
+                || !JavaCore.IGNORE.equals(project.getOption(JavaCore.COMPILER_PB_DISCOURAGED_REFERENCE, true));
+        int lastDotIndex = CharOperation.lastIndexOf('.', prefix);
+        char[] qualification = lastDotIndex < 0 ? null : CharOperation.subarray(prefix, 0, lastDotIndex);
+        char[] simpleName = lastDotIndex < 0 ? prefix : CharOperation.subarray(prefix, lastDotIndex + 1, prefix.length);
+
+        Entry[] binaries = binaryEntries;
+        int start = 0, end = binaries.length;
+        if (simpleName.length > 0) {
+            // camel case and prefix matches both agree with the first character of the name
+            start = lowerBound(binaries, simpleName, 1);
+            end = upperBound(binaries, simpleName, 1, start);
+        }
+        for (int i = start; i < end; i++) {
+            if ((i & 0xff) == 0 && monitor != null && monitor.isCanceled()) {
+                return;
+            }
+            accept(binaries[i], qualification, simpleName, findMembers, searchFor, checkAccessRestrictions, requestor);
+        }
+
+        Entry[][] sources;
+        synchronized (sourceEntries) {
+            sources = sourceEntries.values().toArray(new Entry[sourceEntries.size()][]);
+        }
+        for (Entry[] entries : sources) {
+            for (Entry entry : entries) {
+                accept(entry, qualification, simpleName, findMembers, searchFor, checkAccessRestrictions, requestor);
+            }
+        }
+    }
+
+    private static void accept(Entry entry, char[] qualification, char[] simpleName, boolean findMembers, int searchFor,
+            boolean checkAccessRestrictions, ISearchRequestor requestor) {
+        if (!findMembers && entry.enclosingNames.length > 0) {
+            return;
+        }
+        if (!matchesKind(searchFor, entry.modifiers)) {
+            return;
+        }
+        if (simpleName.length > 0 && !CharOperation.prefixEquals(simpleName, entry.simpleName, false)
+                && !CharOperation.camelCaseMatch(simpleName, entry.simpleName, false)) {
+            return;
+        }
+        if (qualification != null && !matchesQualification(qualification, entry)) {
+            return;
+        }
+        requestor.acceptType(entry.packageName, entry.simpleName, entry.enclosingNames, entry.modifiers,
+                checkAccessRestrictions ? entry.access : null);
+    }
+
+    private static boolean matchesQualification(char[] qualification, Entry entry) {
+        if (CharOperation.equals(qualification, entry.packageName, false)) {
+            return true;
+        }
+        if (entry.enclosingNames.length == 0) {
+            return false;
+        }
+        char[] enclosing = CharOperation.concatWith(entry.enclosingNames, '.');
+        return CharOperation.equals(qualification,
+                entry.packageName.length == 0 ? enclosing : CharOperation.concat(entry.packageName, enclosing, '.'), false);
+    }
+
+    private static boolean matchesKind(int searchFor, int modifiers) {
+        switch (searchFor) {
+            case IJavaSearchConstants.CLASS:
+                return (modifiers & (Flags.AccAnnotation | Flags.AccInterface | Flags.AccEnum)) == 0;
+            case IJavaSearchConstants.CLASS_AND_INTERFACE:
+                return (modifiers & (Flags.AccAnnotation | Flags.AccEnum)) == 0;
+            case IJavaSearchConstants.CLASS_AND_ENUM:
+                return (modifiers & (Flags.AccAnnotation | Flags.AccInterface)) == 0;
+            case IJavaSearchConstants.INTERFACE:
+                return (modifiers & Flags.AccInterface) != 0;
+            case IJavaSearchConstants.INTERFACE_AND_ANNOTATION:
+                return (modifiers & (Flags.AccInterface | Flags.AccAnnotation)) != 0;
+            case IJavaSearchConstants.ENUM:
+                return (modifiers & Flags.AccEnum) != 0;
+            case IJavaSearchConstants.ANNOTATION_TYPE:
+                return (modifiers & Flags.AccAnnotation) != 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Replaces the types of the given compilation unit if it is visible from this
+     * project.  Types from a compilation unit seen for the first time keep no
+     * access restriction, otherwise the restriction of the old types is kept.
+     */
+    private void updateSource(ICompilationUnit unit) {
+        if (binaryEntries == null) {
+            return;
+        }
+        String path = unit.getPath().toString();
+        Entry[] old;
+        synchronized (sourceEntries) {
+            old = sourceEntries.get(path);
+        }
+        if (old == null && !project.isOnClasspath(unit)) {
+            return;
+        }
+        AccessRestriction access = old != null && old.length > 0 ? old[0].access : null;
+        Entry[] entries;
+        try {
+            IType[] types = unit.getAllTypes();
+            entries = new Entry[types.length];
+            for (int i = 0; i < types.length; i++) {
+                entries[i] = toEntry(types[i], access);
+            }
+        } catch (JavaModelException e) {
+            // unit is gone or cannot be parsed; a later delta will bring it back
+            entries = NO_ENTRIES;
+        }
+        synchronized (sourceEntries) {
+            sourceEntries.put(path, entries);
+        }
+    }
+
+    private void removeSource(String path) {
+        synchronized (sourceEntries) {
+            sourceEntries.remove(path);
+        }
+    }
+
+    private void removeSourceUnder(String folderPrefix) {
+        synchronized (sourceEntries) {
+            for (Iterator<String> iter = sourceEntries.keySet().iterator(); iter.hasNext();) {
+                if (iter.next().startsWith(folderPrefix)) {
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    private static Entry toEntry(IType type, AccessRestriction access) throws JavaModelException {
+        List<char[]> enclosing = new ArrayList<char[]>(1);
+        for (IType declaring = type.getDeclaringType(); declaring != null; declaring = declaring.getDeclaringType()) {
+            enclosing.add(0, declaring.getElementName().toCharArray());
+        }
+        return new Entry(type.getPackageFragment().getElementName().toCharArray(), type.getElementName().toCharArray(),
+                enclosing.isEmpty() ? CharOperation.NO_CHAR_CHAR : enclosing.toArray(new char[enclosing.size()][]),
+                type.getFlags(), access);
+    }
+
+    private static boolean isSourcePath(String path) {
+        // binary types are reported as jar|entry.class or as the path of a class file
+        return path.indexOf(IJavaSearchScope.JAR_FILE_ENTRY_SEPARATOR) < 0 && !path.endsWith(".class");
+    }
+
+    private static char[] intern(char[] packageName, Map<String, char[]> packageNames) {
+        String key = String.valueOf(packageName);
+        char[] interned = packageNames.get(key);
+        if (interned == null) {
+            packageNames.put(key, packageName);
+            interned = packageName;
+        }
+        return interned;
+    }
+
+    /**
+     * Compares at most the first length characters of the two names, ignoring case
+     */
+    private static int compareIgnoreCase(char[] name1, char[] name2, int length) {
+        int max = Math.min(length, Math.min(name1.length, name2.length));
+        for (int i = 0; i < max; i++) {
+            char c1 = Character.toLowerCase(name1[i]);
+            char c2 = Character.toLowerCase(name2[i]);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return Math.min(length, name1.length) - Math.min(length, name2.length);
+    }
+
+    private static int lowerBound(Entry[] entries, char[] name, int length) {
+        int low = 0, high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareIgnoreCase(entries[mid].simpleName, name, length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(Entry[] entries, char[] name, int length, int low) {
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareIgnoreCase(entries[mid].simpleName, name, length) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -187,6 +187,24 @@ public abstract class AbstractRule implements IRelevanceRule {
 		return frag;
 	}
 
+	/**
+	 * Subclasses should override when they can make use of the precomputed
+	 * context
+	 */
+	public int getRelevance(IType relevanceType, RelevanceContext context) {
+		return getRelevance(relevanceType, context.contextTypes);
+	}
+
+	/**
+	 * Subclasses should override when they can make use of the precomputed
+	 * context
+	 */
+	public int getRelevance(char[] fullyQualifiedName,
+			RelevanceContext context, int accessibility, int modifiers) {
+		return getRelevance(fullyQualifiedName, context.contextTypes,
+				accessibility, modifiers);
+	}
+
 	public IType getFirstContextType(IType[] contextTypes) {
 		return contextTypes != null && contextTypes.length > 0 ? contextTypes[0]
 				: null;
@@ -58,4 +58,17 @@ public interface IRelevanceRule {
      */
     public int getRelevance(char[] fullyQualifiedName, IType[] contextTypes, int accessibility, int modifiers);
 
+    /**
+     * Same as {@link #getRelevance(IType, IType[])}, but using information about the context
+     * types that has already been computed.
+     */
+    public int getRelevance(IType relevanceType, RelevanceContext context);
+
+    /**
+     * Same as {@link #getRelevance(char[], IType[], int, int)}, but using information about the
+     * context types that has already been computed. Implementations should avoid accessing the
+     * Java model here since this is called for every type proposed by content assist.
+     */
+    public int getRelevance(char[] fullyQualifiedName, RelevanceContext context, int accessibility, int modifiers);
+
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.codeassist.relevance;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.compiler.CharOperation;
+
+/**
+ * Everything that the relevance rules need to know about the context types,
+ * computed once per completion request or quick fix rather than once for each
+ * type being ranked.  With a context, ranking a type by its fully qualified
+ * name requires no access to the Java model.
+ */
+public class RelevanceContext {
+
+	public static final RelevanceContext EMPTY = new RelevanceContext(new IType[0]);
+
+	public final IType[] contextTypes;
+
+	/**
+	 * the package containing all the context types, or null if there is none
+	 */
+	public final IPackageFragment packageFragment;
+
+	/**
+	 * segments of the name of {@link #packageFragment}, or null if there is no
+	 * such package
+	 */
+	public final char[][] packageSegments;
+
+	/**
+	 * the compilation unit containing all the context types, or null if there
+	 * is none
+	 */
+	public final ICompilationUnit compilationUnit;
+
+	public RelevanceContext(IType[] contextTypes) {
+		this.contextTypes = contextTypes;
+
+		IPackageFragment fragment = null;
+		ICompilationUnit unit = null;
+		boolean sameUnit = contextTypes != null && contextTypes.length > 0;
+		if (contextTypes != null) {
+			for (IType type : contextTypes) {
+				IPackageFragment fragToCheck = type.getPackageFragment();
+				if (fragment != null && !fragment.equals(fragToCheck)) {
+					fragment = null;
+					break;
+				}
+				fragment = fragToCheck;
+			}
+			for (IType type : contextTypes) {
+				ICompilationUnit unitToCheck = type.getCompilationUnit();
+				if (unitToCheck == null || (unit != null && !unit.equals(unitToCheck))) {
+					sameUnit = false;
+					break;
+				}
+				unit = unitToCheck;
+			}
+		}
+		this.packageFragment = fragment;
+		this.packageSegments = fragment == null ? null
+				: CharOperation.splitOn('.', fragment.getElementName().replace('$', '.').toCharArray());
+		this.compilationUnit = sameUnit ? unit : null;
+	}
+
+	/**
+	 * @return true iff the relevance type is in the package of all the context types
+	 */
+	public boolean isInContextPackage(IType relevanceType) {
+		return packageFragment != null && packageFragment.equals(relevanceType.getPackageFragment());
+	}
+
+	/**
+	 * @return true iff the relevance type is in the compilation unit of all the
+	 *         context types
+	 */
+	public boolean isInContextCompilationUnit(IType relevanceType) {
+		return compilationUnit != null && compilationUnit.equals(relevanceType.getCompilationUnit());
+	}
+}
@@ -15,13 +15,13 @@
  */
 package org.codehaus.groovy.eclipse.codeassist.relevance;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.codehaus.groovy.eclipse.codeassist.ProposalUtils;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IAccessRule;
-import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CharOperation;
@@ -49,6 +49,11 @@ public class RelevanceRules implements IRelevanceRule {
 
 	private RelevanceRuleType[] ruleTypes;
 
+	/**
+	 * the rules for the rule types, created once since rules have no state
+	 */
+	private final IRelevanceRule[] rules;
+
 	public static RelevanceRules ALL_RULES = new RelevanceRules(
 			RelevanceRuleType.LIBRARY_TYPE, RelevanceRuleType.SOURCE_TYPE,
 			// FIXNS: Enable only after it has been tested
@@ -91,6 +96,18 @@ public class RelevanceRules implements IRelevanceRule {
 	 */
 	public RelevanceRules(RelevanceRuleType... ruleTypes) {
 		this.ruleTypes = ruleTypes;
+
+		// use all the rule types if none were specified by the invoker.
+		RelevanceRuleType[] rTypes = ruleTypes == null || ruleTypes.length == 0 ? RelevanceRuleType
+				.values() : ruleTypes;
+		List<IRelevanceRule> ruleList = new ArrayList<IRelevanceRule>(rTypes.length);
+		for (RelevanceRuleType ruleType : rTypes) {
+			IRelevanceRule rule = getRule(ruleType);
+			if (rule != null) {
+				ruleList.add(rule);
+			}
+		}
+		this.rules = ruleList.toArray(new IRelevanceRule[ruleList.size()]);
 	}
 
 	/**
@@ -102,18 +119,25 @@ public class RelevanceRules implements IRelevanceRule {
 		if (fullyQualifiedName == null) {
 			return 0;
 		}
+		return getRelevance(fullyQualifiedName, new RelevanceContext(
+				contextTypes), accessibility, modifiers);
+	}
 
-		// use all the rule types if none were specified by the invoker.
-		RelevanceRuleType[] rTypes = ruleTypes == null || ruleTypes.length == 0 ? RelevanceRuleType
-				.values() : ruleTypes;
+	/**
+	 * Computes the integer relevance value of a given type based on registered
+	 * relevance rule types. Callers ranking many types should create the
+	 * context once and reuse it.
+	 */
+	public int getRelevance(char[] fullyQualifiedName,
+			RelevanceContext context, int accessibility, int modifiers) {
+		if (fullyQualifiedName == null) {
+			return 0;
+		}
 
 		int relevance = getStartingRelevanceValue();
-		for (RelevanceRuleType ruleType : rTypes) {
-			IRelevanceRule rule = getRule(ruleType);
-			if (rule != null) {
-				relevance += rule.getRelevance(fullyQualifiedName,
-						contextTypes, accessibility, modifiers);
-			}
+		for (IRelevanceRule rule : rules) {
+			relevance += rule.getRelevance(fullyQualifiedName, context,
+					accessibility, modifiers);
 		}
 		// Use lowest Relevance category as Types have lowest relevance
 		// category
@@ -128,17 +152,22 @@ public class RelevanceRules implements IRelevanceRule {
 		if (type == null) {
 			return 0;
 		}
+		return getRelevance(type, new RelevanceContext(contextTypes));
+	}
 
-		// use all the rule types if none were specified by the invoker.
-		RelevanceRuleType[] rTypes = ruleTypes == null || ruleTypes.length == 0 ? RelevanceRuleType
-				.values() : ruleTypes;
+	/**
+	 * Computes the integer relevance value of a given type based on registered
+	 * relevance rule types. Callers ranking many types should create the
+	 * context once and reuse it.
+	 */
+	public int getRelevance(IType type, RelevanceContext context) {
+		if (type == null) {
+			return 0;
+		}
 
 		int relevance = getStartingRelevanceValue();
-		for (RelevanceRuleType ruleType : rTypes) {
-			IRelevanceRule rule = getRule(ruleType);
-			if (rule != null) {
-				relevance += rule.getRelevance(type, contextTypes);
-			}
+		for (IRelevanceRule rule : rules) {
+			relevance += rule.getRelevance(type, context);
 		}
 		// User lowest Relevance category as Types have lowest relevance
 		// category
@@ -225,11 +254,17 @@ public class RelevanceRules implements IRelevanceRule {
 
 		protected TypeRelevanceCategory getTypeCategory(IType relevanceType,
 				IType[] contextTypes) {
+			return getTypeCategory(relevanceType, new RelevanceContext(
+					contextTypes));
+		}
+
+		protected TypeRelevanceCategory getTypeCategory(IType relevanceType,
+				RelevanceContext context) {
 
 			TypeRelevanceCategory category = null;
-			if (areTypesInSameCompilationUnit(relevanceType, contextTypes)) {
+			if (context.isInContextCompilationUnit(relevanceType)) {
 				category = TypeRelevanceCategory.HIGH_TYPE;
-			} else if (areTypesInSamePackage(relevanceType, contextTypes)) {
+			} else if (context.isInContextPackage(relevanceType)) {
 				category = TypeRelevanceCategory.MEDIUM_HIGH_TYPE;
 			} else {
 				// ignore this rule if not in same package or unit
@@ -240,13 +275,20 @@ public class RelevanceRules implements IRelevanceRule {
 		}
 
 		public int getRelevance(IType relevanceType, IType[] contextTypes) {
+			return getRelevance(relevanceType, new RelevanceContext(
+					contextTypes));
+		}
+
+		@Override
+		public int getRelevance(IType relevanceType, RelevanceContext context) {
 
 			int relevance = 0;
 			TypeRelevanceCategory category = null;
 			try {
-				int modifiers = relevanceType.getFlags();
-				category = getTypeCategory(relevanceType, contextTypes);
+				category = getTypeCategory(relevanceType, context);
 				if (category != null) {
+					// only ask for the flags of types that are in the context
+					int modifiers = relevanceType.getFlags();
 					relevance += (modifiers & Flags.AccDefault) != 0 ? 0 : 1;
 					relevance += (modifiers & Flags.AccPrivate) != 0 ? 0 : 1;
 					return category.applyCategory(relevance);
@@ -263,6 +305,12 @@ public class RelevanceRules implements IRelevanceRule {
 			return 0;
 		}
 
+		@Override
+		public int getRelevance(char[] fullyQualifiedName,
+				RelevanceContext context, int accessibility, int modifiers) {
+			return 0;
+		}
+
 	}
 
 	/**
@@ -302,13 +350,16 @@ public class RelevanceRules implements IRelevanceRule {
 		 * @return first segment in the package name containing the type
 		 */
 		protected LibraryType getLibraryType(char[] qualifiedName) {
-			char[][] segments = CharOperation.splitOn('.', qualifiedName);
-			if (segments != null && segments.length > 0) {
-				char[] firstPackSegment = segments[0];
-				for (LibraryType type : LibraryType.values()) {
-					if (Arrays.equals(type.getValue(), firstPackSegment)) {
-						return type;
-					}
+			// compare the first segment in place rather than splitting the
+			// whole name
+			int firstDot = CharOperation.indexOf('.', qualifiedName);
+			int firstSegmentLength = firstDot < 0 ? qualifiedName.length
+					: firstDot;
+			for (LibraryType type : LibraryType.values()) {
+				char[] value = type.getValue();
+				if (value.length == firstSegmentLength
+						&& CharOperation.prefixEquals(value, qualifiedName)) {
+					return type;
 				}
 			}
 			return null;
@@ -325,6 +376,13 @@ public class RelevanceRules implements IRelevanceRule {
 
 		public int getRelevance(char[] fullyQualifiedName,
 				IType[] contextTypes, int accessibility, int modifiers) {
+			return getRelevance(fullyQualifiedName, (RelevanceContext) null,
+					accessibility, modifiers);
+		}
+
+		@Override
+		public int getRelevance(char[] fullyQualifiedName,
+				RelevanceContext context, int accessibility, int modifiers) {
 			// Default is zero, meaning relevance for types in any other library
 			// is governed by other rules. Only types in the following libraries
 			// get higher priority
@@ -384,31 +442,47 @@ public class RelevanceRules implements IRelevanceRule {
 		}
 
 		public int getRelevance(IType relevanceType, IType[] contextTypes) {
+			return getRelevance(relevanceType, new RelevanceContext(
+					contextTypes));
+		}
+
+		@Override
+		public int getRelevance(IType relevanceType, RelevanceContext context) {
 			return getRelevance(relevanceType.getFullyQualifiedName('.')
-					.toCharArray(), contextTypes, 0, 0);
+					.toCharArray(), context, 0, 0);
 		}
 
 		public int getRelevance(char[] fullyQualifiedName,
 				IType[] contextTypes, int accessibility, int modifiers) {
+			return getRelevance(fullyQualifiedName, new RelevanceContext(
+					contextTypes), accessibility, modifiers);
+		}
+
+		@Override
+		public int getRelevance(char[] fullyQualifiedName,
+				RelevanceContext context, int accessibility, int modifiers) {
 			int relevance = 0;
-			IPackageFragment contextFragment = getContextPackageFragment(contextTypes);
-			if (contextFragment != null && fullyQualifiedName != null) {
-				String relQualified = String.valueOf(fullyQualifiedName);
-				String contextQualified = convertToDot(contextFragment
-						.getElementName());
-
-				String[] relSegments = relQualified.split("\\.");
-				String[] contextSegments = contextQualified.split("\\.");
-
-				for (int i = 0; i < relSegments.length
-						&& i < contextSegments.length; i++) {
-					if (relSegments[i].equals(contextSegments[i])) {
+			char[][] contextSegments = context.packageSegments;
+			if (contextSegments != null && fullyQualifiedName != null) {
+				// walk the segments of the name in place, stopping at the
+				// first one that differs from the context package
+				int segmentStart = 0;
+				for (int i = 0; i < contextSegments.length
+						&& segmentStart <= fullyQualifiedName.length; i++) {
+					int segmentEnd = CharOperation.indexOf('.',
+							fullyQualifiedName, segmentStart);
+					if (segmentEnd < 0) {
+						segmentEnd = fullyQualifiedName.length;
+					}
+					if (CharOperation.equals(contextSegments[i],
+							fullyQualifiedName, segmentStart, segmentEnd)) {
 						relevance++;
 					} else {
 						// Stop relevance counting once different segments are
 						// encountered
 						break;
 					}
+					segmentStart = segmentEnd + 1;
 				}
 
 			}
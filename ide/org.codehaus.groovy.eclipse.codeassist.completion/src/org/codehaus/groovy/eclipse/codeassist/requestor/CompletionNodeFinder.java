@@ -69,6 +69,7 @@ import org.codehaus.groovy.ast.stmt.ExpressionStatement;
 import org.codehaus.groovy.ast.stmt.ForStatement;
 import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.eclipse.core.util.ASTNodePositionIndex;
 import org.codehaus.groovy.eclipse.core.util.VisitCompleteException;
 import org.codehaus.groovy.runtime.GeneratedClosure;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
@@ -94,6 +95,12 @@ public class CompletionNodeFinder extends ClassCodeVisitorSupport {
     private GroovyCompilationUnit unit;
     private ContentAssistContext context;
 
+    /**
+     * used to skip statements that cannot contain the completion, only
+     * available for the module of a working copy
+     */
+    private ASTNodePositionIndex index;
+
     /**
      * Left hand side of any assignment statement or null if there is none
      */
@@ -121,6 +128,7 @@ public class CompletionNodeFinder extends ClassCodeVisitorSupport {
     public ContentAssistContext findContentAssistContext(GroovyCompilationUnit unit) {
         try {
             this.unit = unit;
+            this.index = ASTNodePositionIndex.forModule(unit.getModuleNode());
             internalVisitModuleNode(unit.getModuleNode());
         } catch (VisitCompleteException e) { }
         return context;
@@ -354,7 +362,12 @@ public class CompletionNodeFinder extends ClassCodeVisitorSupport {
     @Override
     public void visitBlockStatement(BlockStatement node) {
         blockStack.push(node);
-        super.visitBlockStatement(node);
+        visitStatement(node);
+        for (Statement statement : (Iterable<Statement>) node.getStatements()) {
+            if (mayContainCompletion(statement)) {
+                statement.visit(this);
+            }
+        }
 
         if (doTest(node)) {
             // if we get here, then we know that we are in this block statement,
@@ -373,6 +386,19 @@ public class CompletionNodeFinder extends ClassCodeVisitorSupport {
         }
     }
 
+    /**
+     * @return false iff the statement was indexed and nothing inside of it can
+     *         contain the completion offset or the end of the supporting node
+     */
+    private boolean mayContainCompletion(Statement statement) {
+        if (index == null || (statement.getStart() <= 0 && statement.getEnd() <= 0)) {
+            return true;
+        }
+        // same sense as doTest(): start < offset <= end
+        return index.mayEnclose(statement, completionOffset - 1, completionOffset)
+                || (supportingNodeEnd != -1 && index.mayEnclose(statement, supportingNodeEnd - 1, supportingNodeEnd));
+    }
+
     /**
      * There is a special case here, where there is a completion after a method
      * name with no parens
@@ -1,14 +1,31 @@
 package org.codehaus.groovy.eclipse.codeassist.requestor;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.codeassist.DocumentSourceBuffer;
+import org.codehaus.groovy.eclipse.codeassist.GroovyContentAssistActivator;
+import org.codehaus.groovy.eclipse.codeassist.ProposalUtils;
 import org.codehaus.groovy.eclipse.codeassist.factories.ConstructorCompletionProcessorFactory;
 import org.codehaus.groovy.eclipse.codeassist.factories.ExpressionCompletionProcessorFactory;
 import org.codehaus.groovy.eclipse.codeassist.factories.IGroovyCompletionProcessorFactory;
@@ -22,7 +39,9 @@ import org.codehaus.groovy.eclipse.codeassist.factories.TypeCompletionProcessorF
 import org.codehaus.groovy.eclipse.codeassist.processors.IGroovyCompletionProcessor;
 import org.codehaus.groovy.eclipse.codeassist.processors.IProposalFilter;
 import org.codehaus.groovy.eclipse.codeassist.processors.IProposalFilterExtension;
+import org.codehaus.groovy.eclipse.codeassist.processors.ISearchingCompletionProcessor;
 import org.codehaus.groovy.eclipse.codeassist.processors.ProposalProviderRegistry;
+import org.codehaus.groovy.eclipse.codeassist.processors.RecordingSearchRequestor;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.core.ISourceBuffer;
 import org.codehaus.groovy.eclipse.core.util.ExpressionFinder;
@@ -31,17 +50,33 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.groovy.search.ITypeResolver;
+import org.eclipse.jdt.internal.codeassist.RelevanceConstants;
 import org.eclipse.jdt.internal.core.JavaProject;
 import org.eclipse.jdt.internal.core.SearchableEnvironment;
+import org.eclipse.jdt.internal.ui.text.java.AbstractJavaCompletionProposal;
 import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
+import org.eclipse.jdt.ui.text.java.IJavaCompletionProposal;
 import org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer;
 import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.ITextOperationTarget;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.contentassist.ContentAssistEvent;
+import org.eclipse.jface.text.contentassist.ContentAssistantFacade;
+import org.eclipse.jface.text.contentassist.ICompletionListener;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposalExtension2;
 import org.eclipse.jface.text.contentassist.IContextInformation;
+import org.eclipse.jface.text.source.ISourceViewer;
+import org.eclipse.jface.text.source.ISourceViewerExtension4;
+import org.eclipse.swt.widgets.Display;
 
 public class GroovyCompletionProposalComputer implements
         IJavaCompletionProposalComputer {
@@ -108,6 +143,253 @@ public class GroovyCompletionProposalComputer implements
     }
 
 
+    /**
+     * The searches of type and package processors only look at names on the classpath, so they can run in the background,
+     * each with its own name environment. Everything else, including turning what the searches found into proposals, reads
+     * the module node and the imports of the unit and stays on the calling thread.
+     */
+    private static boolean searchesInBackground(IGroovyCompletionProcessorFactory factory) {
+        return factory instanceof TypeCompletionProcessorFactory || factory instanceof PackageCompletionProcessorFactory;
+    }
+
+    /** only type and package names are searched in the background, so there are never more searches at once */
+    private static final int MAX_BACKGROUND_SEARCHES = 2;
+
+    /**
+     * Milliseconds to wait for background searches when their late proposals cannot be shown, which is outside of a
+     * session, or when the latency budget is 0
+     */
+    private static final int MAX_WAIT = 5000;
+
+    private static ExecutorService backgroundExecutor;
+
+    private static synchronized ExecutorService getBackgroundExecutor() {
+        if (backgroundExecutor == null) {
+            backgroundExecutor = Executors.newFixedThreadPool(MAX_BACKGROUND_SEARCHES, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Groovy content assist");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return backgroundExecutor;
+    }
+
+    /**
+     * Cancels the background searches and stops their threads. Called when the plugin stops.
+     */
+    public static synchronized void shutdownBackgroundSearches() {
+        if (backgroundExecutor != null) {
+            backgroundExecutor.shutdownNow();
+            backgroundExecutor = null;
+        }
+    }
+
+    /**
+     * The search of a processor running in the background. Only the search runs there, the proposals are created
+     * on the calling thread from what it has found.
+     */
+    private class BackgroundProcessor implements Callable<RecordingSearchRequestor> {
+        final IGroovyCompletionProcessorFactory factory;
+        final ISearchingCompletionProcessor processor;
+        final JavaContentAssistInvocationContext javaContext;
+        final IProgressMonitor monitor = new NullProgressMonitor();
+        Future<RecordingSearchRequestor> future;
+        /** run once the search has finished, if it did not finish within the latency budget */
+        private Runnable whenLate;
+        private boolean lateNotified;
+
+        BackgroundProcessor(IGroovyCompletionProcessorFactory factory, ISearchingCompletionProcessor processor,
+                JavaContentAssistInvocationContext javaContext) {
+            this.factory = factory;
+            this.processor = processor;
+            this.javaContext = javaContext;
+        }
+
+        public RecordingSearchRequestor call() {
+            SearchableEnvironment nameEnvironment = createSearchableEnvironment(javaContext);
+            if (nameEnvironment == null) {
+                return new RecordingSearchRequestor(monitor);
+            }
+            try {
+                long start = System.currentTimeMillis();
+                RecordingSearchRequestor found = new RecordingSearchRequestor(monitor);
+                search(processor, found, nameEnvironment, monitor);
+                if (GroovyLogManager.manager.hasLoggers()) {
+                    GroovyLogManager.manager.log(TraceCategory.CONTENT_ASSIST, factoryName(factory) + " found " + found.size()
+                            + " names in the background in " + (System.currentTimeMillis() - start) + "ms");
+                }
+                return found;
+            } finally {
+                nameEnvironment.cleanup();
+                notifyLate();
+            }
+        }
+
+        /**
+         * @param runnable run once the search has finished, right away if it already has
+         */
+        void setWhenLate(Runnable runnable) {
+            synchronized (this) {
+                whenLate = runnable;
+            }
+            if (future.isDone()) {
+                notifyLate();
+            }
+        }
+
+        private void notifyLate() {
+            Runnable runnable;
+            synchronized (this) {
+                if (whenLate == null || lateNotified) {
+                    return;
+                }
+                lateNotified = true;
+                runnable = whenLate;
+            }
+            runnable.run();
+        }
+
+        /**
+         * must be called on the thread that asked for completions
+         */
+        List<ICompletionProposal> createProposals(RecordingSearchRequestor found) {
+            return processor.createProposals(found, monitor);
+        }
+
+        void cancel() {
+            monitor.setCanceled(true);
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * The proposals of the previous request in a content assist session, along with what is needed to check that a new
+     * request only extends the prefix of the previous one. Changes to the document are followed as they happen, and the
+     * proposals can only be reused while every change has been the typing of more characters at the end of the prefix.
+     */
+    private static class CachedProposals implements IDocumentListener {
+        final GroovyCompilationUnit unit;
+        final IDocument document;
+        final int prefixStart;
+        final String prefix;
+        final List<ICompletionProposal> proposals;
+        /** the relevance of each proposal, without the part that depends on the prefix */
+        final Map<ICompletionProposal, Integer> baseRelevance = new IdentityHashMap<ICompletionProposal, Integer>();
+        final ContentAssistContext assistContext;
+        /** background processors that did not finish within the latency budget */
+        final List<BackgroundProcessor> late;
+
+        /** the end of the prefix, including the characters typed since the proposals were computed */
+        int prefixEnd;
+        /** the modification stamp of the document after the last change that kept the proposals valid */
+        long stamp;
+        boolean valid = true;
+
+        CachedProposals(GroovyCompilationUnit unit, IDocument document, int prefixStart, String prefix,
+                List<ICompletionProposal> proposals, ContentAssistContext assistContext, List<BackgroundProcessor> late) {
+            this.unit = unit;
+            this.document = document;
+            this.prefixStart = prefixStart;
+            this.prefix = prefix;
+            this.proposals = new ArrayList<ICompletionProposal>(proposals);
+            this.assistContext = assistContext;
+            this.late = late;
+            this.prefixEnd = prefixStart + prefix.length();
+            this.stamp = modificationStamp(document);
+            recordBaseRelevance(proposals);
+            document.addDocumentListener(this);
+        }
+
+        void recordBaseRelevance(List<ICompletionProposal> newProposals) {
+            for (ICompletionProposal proposal : newProposals) {
+                if (proposal instanceof AbstractJavaCompletionProposal) {
+                    baseRelevance.put(proposal, ((AbstractJavaCompletionProposal) proposal).getRelevance()
+                            - prefixRelevance(prefix, proposal));
+                }
+            }
+        }
+
+        void dispose() {
+            document.removeDocumentListener(this);
+            cancelLate();
+        }
+
+        void cancelLate() {
+            for (BackgroundProcessor processor : late) {
+                processor.cancel();
+            }
+            late.clear();
+        }
+
+        public void documentAboutToBeChanged(DocumentEvent event) {
+        }
+
+        public void documentChanged(DocumentEvent event) {
+            if (valid && event.getLength() == 0 && event.getOffset() == prefixEnd && isIdentifierPart(event.getText())) {
+                prefixEnd += event.getText().length();
+                stamp = modificationStamp(document);
+            } else {
+                valid = false;
+            }
+        }
+
+        /**
+         * @return true iff the only change since these proposals were computed is that more characters
+         *         were typed at the end of the prefix
+         */
+        boolean isExtendedBy(GroovyCompilationUnit otherUnit, IDocument otherDocument, int otherPrefixStart, String otherPrefix) {
+            return valid && unit.equals(otherUnit) && document == otherDocument && stamp == modificationStamp(otherDocument)
+                    && prefixStart == otherPrefixStart && prefixStart + otherPrefix.length() == prefixEnd
+                    && otherPrefix.startsWith(prefix);
+        }
+    }
+
+    /**
+     * The state of content assist in one viewer. A single computer serves all editors, so the proposals of a session
+     * are kept for the viewer that the session is shown in. The state follows the sessions of the content assistant of
+     * the viewer.
+     */
+    private static class ViewerState implements ICompletionListener {
+        final Reference<ITextViewer> viewer;
+        boolean inSession;
+        CachedProposals cached;
+
+        ViewerState(ITextViewer viewer, boolean inSession) {
+            this.viewer = new WeakReference<ITextViewer>(viewer);
+            this.inSession = inSession;
+        }
+
+        void setCached(CachedProposals newCached) {
+            if (cached != null && cached != newCached) {
+                cached.dispose();
+            }
+            cached = newCached;
+        }
+
+        public void assistSessionStarted(ContentAssistEvent event) {
+            inSession = true;
+            setCached(null);
+        }
+
+        public void assistSessionEnded(ContentAssistEvent event) {
+            inSession = false;
+            setCached(null);
+        }
+
+        public void selectionChanged(ICompletionProposal proposal, boolean smartToggle) {
+        }
+    }
+
+    private final Map<ITextViewer, ViewerState> viewerStates = new WeakHashMap<ITextViewer, ViewerState>();
+
+    /**
+     * true between the start and the end of a session, so that the state of a viewer that is first seen during a
+     * session knows that it is part of it
+     */
+    private boolean sessionStarted;
+
     public GroovyCompletionProposalComputer() {
     }
 
@@ -133,6 +415,35 @@ public class GroovyCompletionProposalComputer implements
 
         GroovyCompilationUnit gunit = (GroovyCompilationUnit) unit;
 
+        // while typing, the new prefix only extends the previous one, so narrow down the previous proposals
+        IDocument document = context.getDocument();
+        int invocationOffset = context.getInvocationOffset();
+        String fullCompletionText = findCompletionText(document, invocationOffset);
+        String[] completionExpressions = findCompletionExpression(fullCompletionText);
+        String prefix = completionExpressions == null ? "" : (completionExpressions[1] == null ? completionExpressions[0]
+                : completionExpressions[1]);
+        int prefixStart = invocationOffset - prefix.length();
+        // proposals are only kept during a session, since outside of one nothing tells when they become stale
+        ViewerState state = getViewerState(context.getViewer());
+        if (state != null && !state.inSession) {
+            state.setCached(null);
+            state = null;
+        }
+        CachedProposals cached = state == null ? null : state.cached;
+        if (cached != null && cached.isExtendedBy(gunit, document, prefixStart, prefix)) {
+            addLateProposals(cached, javaContext);
+            List<ICompletionProposal> proposals = narrowProposals(cached, document, invocationOffset, prefix);
+            if (event != null) {
+                GroovyLogManager.manager.log(TraceCategory.CONTENT_ASSIST, "Narrowed " + cached.proposals.size() + " proposals to "
+                        + proposals.size() + " for prefix " + prefix);
+                GroovyLogManager.manager.logEnd(event, TraceCategory.CONTENT_ASSIST);
+            }
+            return proposals;
+        }
+        if (state != null) {
+            state.setCached(null);
+        }
+
         ModuleNodeInfo moduleInfo = gunit.getModuleInfo(true);
         if (moduleInfo == null) {
             if (GroovyLogManager.manager.hasLoggers()) {
@@ -142,26 +453,45 @@ public class GroovyCompletionProposalComputer implements
             return Collections.EMPTY_LIST;
         }
 
-        IDocument document = context.getDocument();
-        ContentAssistContext assistContext = createContentAssistContext(gunit, context.getInvocationOffset(), document);
+        ContentAssistContext assistContext = createContentAssistContext(gunit, invocationOffset, document);
         List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>();
+        List<BackgroundProcessor> late = new ArrayList<BackgroundProcessor>(0);
         if (assistContext != null) {
             List<IGroovyCompletionProcessorFactory> factories = locationFactoryMap.get(assistContext.location);
             if (factories != null) {
+                long start = System.currentTimeMillis();
                 SearchableEnvironment nameEnvironment = createSearchableEnvironment(javaContext);
-
                 try {
+                    // processors are created here, only their searches are started in the background
+                    List<IGroovyCompletionProcessor> processors = new ArrayList<IGroovyCompletionProcessor>(factories.size());
+                    List<BackgroundProcessor> background = new ArrayList<BackgroundProcessor>(2);
                     for (IGroovyCompletionProcessorFactory factory : factories) {
                         IGroovyCompletionProcessor processor = factory
                                 .createProcessor(assistContext, javaContext,
                                         nameEnvironment);
-                        if (processor != null) {
-                            if (processor instanceof ITypeResolver) {
-                                ((ITypeResolver) processor).setResolverInformation(moduleInfo.module, moduleInfo.resolver);
+                        if (processor == null) {
+                            continue;
+                        }
+                        if (processor instanceof ITypeResolver) {
+                            ((ITypeResolver) processor).setResolverInformation(moduleInfo.module, moduleInfo.resolver);
+                        }
+                        if (searchesInBackground(factory) && processor instanceof ISearchingCompletionProcessor) {
+                            ISearchingCompletionProcessor searching = (ISearchingCompletionProcessor) processor;
+                            if (searching.isSearchNeeded()) {
+                                BackgroundProcessor backgroundProcessor = new BackgroundProcessor(factory, searching, javaContext);
+                                backgroundProcessor.future = getBackgroundExecutor().submit(backgroundProcessor);
+                                background.add(backgroundProcessor);
                             }
-                            proposals.addAll(processor.generateProposals(monitor));
+                        } else {
+                            processors.add(processor);
                         }
                     }
+
+                    for (IGroovyCompletionProcessor processor : processors) {
+                        proposals.addAll(generateProposals(processor, monitor));
+                    }
+
+                    waitForBackgroundProcessors(background, start, state != null, proposals, late);
                 } finally {
                     if (nameEnvironment != null) {
                         nameEnvironment.cleanup();
@@ -169,33 +499,333 @@ public class GroovyCompletionProposalComputer implements
                 }
             }
 
-            // extra filtering and sorting provided by third parties
+            proposals = filterProposals(proposals, assistContext, javaContext);
+        }
+
+        if (state != null && assistContext != null) {
+            CachedProposals newCached = new CachedProposals(gunit, document, prefixStart, prefix, proposals, assistContext, late);
+            state.setCached(newCached);
+            showWhenFinished(state, newCached);
+        } else {
+            for (BackgroundProcessor processor : late) {
+                processor.cancel();
+            }
+        }
+
+        if (event != null) {
+            GroovyLogManager.manager
+                    .logEnd(event, TraceCategory.CONTENT_ASSIST);
+        }
+        return proposals;
+    }
+
+    /**
+     * Waits for the background searches, but only until the latency budget is used up, and creates the proposals for the
+     * searches that have finished. During a session, processors that are still searching are added to late, and their
+     * proposals are shown once they finish. Otherwise, their proposals could not be shown, so searches are waited for
+     * longer, but still not without limit.
+     */
+    private void waitForBackgroundProcessors(List<BackgroundProcessor> background, long start, boolean inSession,
+            List<ICompletionProposal> proposals, List<BackgroundProcessor> late) {
+        int budget = inSession && GroovyContentAssistActivator.getDefault() != null ? GroovyContentAssistActivator
+                .getDefault().getLatencyBudget() : 0;
+        boolean canBeLate = budget > 0;
+        if (!canBeLate) {
+            budget = getMaxWait();
+        }
+        for (BackgroundProcessor processor : background) {
             try {
-                List<IProposalFilter> filters = ProposalProviderRegistry.getRegistry().getFiltersFor(assistContext.unit);
-                for (IProposalFilter filter : filters) {
-                    try {
-                        if (filter instanceof IProposalFilterExtension) {
-                            List<ICompletionProposal> newProposals = ((IProposalFilterExtension) filter).filterExtendedProposals(
-                                    proposals, assistContext, javaContext);
-                            proposals = newProposals == null ? proposals : newProposals;
+                long remaining = start + budget - System.currentTimeMillis();
+                RecordingSearchRequestor found = processor.future.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+                proposals.addAll(processor.createProposals(found));
+            } catch (TimeoutException e) {
+                if (canBeLate) {
+                    if (GroovyLogManager.manager.hasLoggers()) {
+                        GroovyLogManager.manager.log(TraceCategory.CONTENT_ASSIST, factoryName(processor.factory)
+                                + " did not finish within " + budget + "ms.  Its proposals will be shown later.");
+                    }
+                    late.add(processor);
+                } else {
+                    GroovyCore.trace(factoryName(processor.factory) + " did not finish within " + budget
+                            + "ms.  Its proposals are left out.");
+                    processor.cancel();
+                }
+            } catch (InterruptedException e) {
+                processor.cancel();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                GroovyCore.logException("Exception in content assist processor " + factoryName(processor.factory), e.getCause());
+            } catch (CancellationException e) {
+                // can ignore
+            }
+        }
+    }
+
+    /**
+     * Once a late search of the session has finished, asks for proposals again in the viewer, on the UI thread, so that
+     * the late proposals are added to the open popup. Nothing is shown if the session has ended, or its proposals have
+     * been recomputed, in the meantime.
+     */
+    private void showWhenFinished(final ViewerState state, final CachedProposals cached) {
+        final Display display = Display.getCurrent();
+        if (display == null) {
+            // only the UI thread can show proposals
+            return;
+        }
+        Runnable show = new Runnable() {
+            public void run() {
+                if (display.isDisposed()) {
+                    return;
+                }
+                display.asyncExec(new Runnable() {
+                    public void run() {
+                        ITextViewer viewer = state.viewer.get();
+                        if (viewer != null && state.inSession && state.cached == cached && cached.valid
+                                && viewer.getTextWidget() != null && !viewer.getTextWidget().isDisposed()) {
+                            showLateProposals(viewer);
                         }
-                    } catch (Exception e) {
-                        GroovyCore.logException("Exception when using third party proposal filter: "
-                                + filter.getClass().getCanonicalName(), e);
                     }
+                });
+            }
+        };
+        for (BackgroundProcessor processor : new ArrayList<BackgroundProcessor>(cached.late)) {
+            processor.setWhenLate(show);
+        }
+    }
+
+    /**
+     * Shows the proposals of the session again, now that some late searches have finished. Asking for proposals again
+     * while the popup is open finds the proposals of the session, along with the late ones. Called on the UI thread.
+     * <p>
+     * Protected so that tests can see when late proposals would be shown.
+     */
+    protected void showLateProposals(ITextViewer viewer) {
+        ITextOperationTarget target = viewer.getTextOperationTarget();
+        if (target != null && target.canDoOperation(ISourceViewer.CONTENTASSIST_PROPOSALS)) {
+            target.doOperation(ISourceViewer.CONTENTASSIST_PROPOSALS);
+        }
+    }
+
+    /**
+     * Searches for the names that a processor proposes. Runs in the background.
+     * <p>
+     * Protected so that tests can slow searches down.
+     */
+    protected void search(ISearchingCompletionProcessor processor, RecordingSearchRequestor found,
+            SearchableEnvironment nameEnvironment, IProgressMonitor monitor) {
+        processor.search(found, nameEnvironment, monitor);
+    }
+
+    /**
+     * @return the milliseconds to wait for background searches when their late proposals cannot be shown.
+     *         Protected so that tests can wait less.
+     */
+    protected int getMaxWait() {
+        return MAX_WAIT;
+    }
+
+    /**
+     * Adds the proposals of late background processors whose searches have since finished. Each finished search also
+     * asks for proposals again, but any request of the session adds what has finished by then.
+     */
+    private void addLateProposals(CachedProposals cached, JavaContentAssistInvocationContext javaContext) {
+        for (Iterator<BackgroundProcessor> iter = cached.late.iterator(); iter.hasNext();) {
+            BackgroundProcessor processor = iter.next();
+            if (processor.future.isDone()) {
+                iter.remove();
+                try {
+                    List<ICompletionProposal> lateProposals = filterProposals(
+                            createLateProposals(processor, cached.assistContext, javaContext), cached.assistContext, javaContext);
+                    cached.recordBaseRelevance(lateProposals);
+                    cached.proposals.addAll(lateProposals);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    GroovyCore.logException("Exception in content assist processor " + factoryName(processor.factory),
+                            e.getCause());
+                } catch (CancellationException e) {
+                    // can ignore
                 }
-            } catch (CoreException e) {
-                GroovyCore.logException("Exception accessing proposal provider registry", e);
             }
         }
+    }
 
-        if (event != null) {
-            GroovyLogManager.manager
-                    .logEnd(event, TraceCategory.CONTENT_ASSIST);
+    /**
+     * The name environment of the processor that started the search has been cleaned up by now, so a new processor creates
+     * the proposals
+     */
+    private List<ICompletionProposal> createLateProposals(BackgroundProcessor processor, ContentAssistContext assistContext,
+            JavaContentAssistInvocationContext javaContext) throws InterruptedException, ExecutionException {
+        RecordingSearchRequestor found = processor.future.get();
+        SearchableEnvironment nameEnvironment = createSearchableEnvironment(javaContext);
+        if (nameEnvironment == null) {
+            return Collections.emptyList();
+        }
+        try {
+            IGroovyCompletionProcessor lateProcessor = processor.factory.createProcessor(assistContext, javaContext,
+                    nameEnvironment);
+            if (!(lateProcessor instanceof ISearchingCompletionProcessor)) {
+                return Collections.emptyList();
+            }
+            return ((ISearchingCompletionProcessor) lateProcessor).createProposals(found, new NullProgressMonitor());
+        } finally {
+            nameEnvironment.cleanup();
+        }
+    }
+
+    private List<ICompletionProposal> generateProposals(IGroovyCompletionProcessor processor, IProgressMonitor monitor) {
+        if (!GroovyLogManager.manager.hasLoggers()) {
+            return processor.generateProposals(monitor);
+        }
+        long start = System.currentTimeMillis();
+        List<ICompletionProposal> proposals = processor.generateProposals(monitor);
+        GroovyLogManager.manager.log(TraceCategory.CONTENT_ASSIST, processor.getClass().getSimpleName() + " found "
+                + proposals.size() + " proposals in " + (System.currentTimeMillis() - start) + "ms");
+        return proposals;
+    }
+
+    private static String factoryName(IGroovyCompletionProcessorFactory factory) {
+        return factory.getClass().getSimpleName();
+    }
+
+    /**
+     * extra filtering and sorting provided by third parties
+     */
+    private List<ICompletionProposal> filterProposals(List<ICompletionProposal> proposals, ContentAssistContext assistContext,
+            JavaContentAssistInvocationContext javaContext) {
+        try {
+            List<IProposalFilter> filters = ProposalProviderRegistry.getRegistry().getFiltersFor(assistContext.unit);
+            for (IProposalFilter filter : filters) {
+                try {
+                    if (filter instanceof IProposalFilterExtension) {
+                        List<ICompletionProposal> newProposals = ((IProposalFilterExtension) filter).filterExtendedProposals(
+                                proposals, assistContext, javaContext);
+                        proposals = newProposals == null ? proposals : newProposals;
+                    }
+                } catch (Exception e) {
+                    GroovyCore.logException("Exception when using third party proposal filter: "
+                            + filter.getClass().getCanonicalName(), e);
+                }
+            }
+        } catch (CoreException e) {
+            GroovyCore.logException("Exception accessing proposal provider registry", e);
         }
         return proposals;
     }
 
+    /**
+     * Filters the proposals computed for a shorter prefix so that only those valid for the current prefix remain.
+     * Java proposals know how to validate themselves against the document, and they adjust their replacement
+     * length when applied.  For other proposals, the display string is matched against the prefix.
+     * <p>
+     * The remaining proposals are ranked again, since the part of their relevance that depends on how their name
+     * matches the prefix may have changed.
+     */
+    private List<ICompletionProposal> narrowProposals(CachedProposals cached, IDocument document, int offset, String prefix) {
+        List<ICompletionProposal> narrowed = new ArrayList<ICompletionProposal>(cached.proposals.size());
+        for (ICompletionProposal proposal : cached.proposals) {
+            boolean valid;
+            if (proposal instanceof ICompletionProposalExtension2) {
+                valid = ((ICompletionProposalExtension2) proposal).validate(document, offset, null);
+            } else {
+                valid = ProposalUtils.looselyMatches(prefix, proposal.getDisplayString());
+            }
+            if (valid) {
+                Integer base = cached.baseRelevance.get(proposal);
+                if (base != null) {
+                    ((AbstractJavaCompletionProposal) proposal).setRelevance(base + prefixRelevance(prefix, proposal));
+                }
+                narrowed.add(proposal);
+            }
+        }
+        Collections.sort(narrowed, BY_RELEVANCE);
+        return narrowed;
+    }
+
+    private static final Comparator<ICompletionProposal> BY_RELEVANCE = new Comparator<ICompletionProposal>() {
+        public int compare(ICompletionProposal left, ICompletionProposal right) {
+            return relevance(right) - relevance(left);
+        }
+
+        private int relevance(ICompletionProposal proposal) {
+            return proposal instanceof IJavaCompletionProposal ? ((IJavaCompletionProposal) proposal).getRelevance() : 0;
+        }
+    };
+
+    /**
+     * @return the part of the relevance of a proposal that depends on how its name matches the prefix, as for the
+     *         completion engine
+     */
+    private static int prefixRelevance(String prefix, ICompletionProposal proposal) {
+        if (prefix.length() == 0) {
+            return 0;
+        }
+        String name = proposalName(proposal);
+        if (name.equals(prefix)) {
+            return RelevanceConstants.R_CASE + RelevanceConstants.R_EXACT_NAME;
+        } else if (name.equalsIgnoreCase(prefix)) {
+            return RelevanceConstants.R_EXACT_NAME;
+        } else if (name.startsWith(prefix)) {
+            return RelevanceConstants.R_CASE;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the name that a proposal is displayed with, without its parameters or declaring type
+     */
+    private static String proposalName(ICompletionProposal proposal) {
+        String display = proposal.getDisplayString();
+        if (display == null) {
+            return "";
+        }
+        int end = 0;
+        while (end < display.length() && Character.isJavaIdentifierPart(display.charAt(end))) {
+            end++;
+        }
+        return display.substring(0, end);
+    }
+
+    private static boolean isIdentifierPart(String text) {
+        if (text == null || text.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long modificationStamp(IDocument document) {
+        return document instanceof IDocumentExtension4 ? ((IDocumentExtension4) document).getModificationStamp()
+                : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+    }
+
+    /**
+     * @return the content assist state of the viewer, or null if the sessions of its content assistant cannot be
+     *         followed, in which case no proposals are kept between requests
+     */
+    private ViewerState getViewerState(ITextViewer viewer) {
+        if (!(viewer instanceof ISourceViewerExtension4)) {
+            return null;
+        }
+        synchronized (viewerStates) {
+            ViewerState state = viewerStates.get(viewer);
+            if (state == null) {
+                ContentAssistantFacade assistant = ((ISourceViewerExtension4) viewer).getContentAssistantFacade();
+                if (assistant == null) {
+                    return null;
+                }
+                state = new ViewerState(viewer, sessionStarted);
+                assistant.addCompletionListener(state);
+                viewerStates.put(viewer, state);
+            }
+            return state;
+        }
+    }
+
     /**
      * Make public to allow for testing
      *
@@ -290,11 +920,11 @@ public class GroovyCompletionProposalComputer implements
     }
 
     public void sessionEnded() {
-
+        sessionStarted = false;
     }
 
     public void sessionStarted() {
-
+        sessionStarted = true;
     }
 
 }
@@ -33,6 +33,7 @@ import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.ast.PackageNode;
 import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
 import org.codehaus.groovy.ast.expr.AnnotationConstantExpression;
 import org.codehaus.groovy.ast.expr.ArrayExpression;
 import org.codehaus.groovy.ast.expr.BinaryExpression;
@@ -53,6 +54,7 @@ import org.codehaus.groovy.ast.stmt.ForStatement;
 import org.codehaus.groovy.ast.stmt.ReturnStatement;
 import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.eclipse.core.util.ASTNodePositionIndex;
 import org.codehaus.groovy.eclipse.core.util.VisitCompleteException;
 import org.codehaus.groovy.runtime.GeneratedClosure;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
@@ -62,6 +64,12 @@ public class ASTNodeFinder extends ClassCodeVisitorSupport {
     protected ASTNode nodeFound;
     private Region r;
 
+    /**
+     * used to skip declarations and statements that cannot contain the region,
+     * only available when visiting the whole module of a working copy
+     */
+    private ASTNodePositionIndex index;
+
     public ASTNodeFinder(Region r) {
         this.r = r;
     }
@@ -119,6 +127,9 @@ public class ASTNodeFinder extends ClassCodeVisitorSupport {
     @Override
     protected void visitConstructorOrMethod(MethodNode node,
             boolean isConstructor) {
+        if (!mayContainRegion(node)) {
+            return;
+        }
         // don't do this stuff for implicit methods
         if (node.getEnd() > 0) {
             ClassNode expression = node.getReturnType();
@@ -171,6 +182,9 @@ public class ASTNodeFinder extends ClassCodeVisitorSupport {
             // synthetic field, probably 'this$0' for an inner class reference to the outer class
             return;
         }
+        if (!mayContainRegion(node)) {
+            return;
+        }
         visitClassReference(node.getType());
         super.visitField(node);
         // maybe selecting the field name itself
@@ -179,6 +193,35 @@ public class ASTNodeFinder extends ClassCodeVisitorSupport {
         }
     }
 
+    @Override
+    public void visitProperty(PropertyNode node) {
+        if (!mayContainRegion(node)) {
+            return;
+        }
+        super.visitProperty(node);
+    }
+
+    /**
+     * Only visits the statements of the block that may contain the region
+     */
+    @Override
+    public void visitBlockStatement(BlockStatement block) {
+        visitStatement(block);
+        for (Statement statement : (Iterable<Statement>) block.getStatements()) {
+            if (mayContainRegion(statement)) {
+                statement.visit(this);
+            }
+        }
+    }
+
+    /**
+     * @return false iff the declaration or statement and everything inside of
+     *         it lies outside of the region
+     */
+    protected boolean mayContainRegion(ASTNode node) {
+        return index == null || index.mayEnclose(node, r.getOffset(), r.getEnd());
+    }
+
     @Override
     public void visitCastExpression(CastExpression node) {
         check(node.getType());
@@ -500,6 +543,7 @@ public class ASTNodeFinder extends ClassCodeVisitorSupport {
     }
 
     public ASTNode doVisit(ModuleNode module) {
+        index = ASTNodePositionIndex.forModule(module);
         try {
             PackageNode pack = module.getPackage();
             if (pack != null) {
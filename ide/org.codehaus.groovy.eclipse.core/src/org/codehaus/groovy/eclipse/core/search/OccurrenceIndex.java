@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.core.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.Variable;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+import org.eclipse.jdt.groovy.search.LocalVariableReferenceRequestor;
+import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
+import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+import org.eclipse.jface.text.IRegion;
+
+/**
+ * Remembers, for a module, every node that the type inferencing visitor
+ * reports, grouped by the name of the declaration that the node refers to.
+ * Finding all occurrences of a declaration then only looks at the nodes that
+ * refer to a declaration with the same name, instead of inferring the types
+ * of the whole module again.
+ * <p>
+ * The nodes are passed to the same requestors that a full visit would use
+ * ({@link FindAllReferencesRequestor} and
+ * {@link LocalVariableReferenceRequestor}), in the same order, so the results
+ * are the same. Other requestors may be given all of the nodes with
+ * {@link #replay(ITypeRequestor)}, so that features which look at the whole
+ * module share the same inferencing results.
+ * <p>
+ * An index is built by a single inferencing pass the first time
+ * it is used, and the indexes of the most recently used modules are kept. A
+ * module is replaced by a new one whenever its compilation unit is reconciled,
+ * so an index never outlives the AST it was built from.
+ */
+public class OccurrenceIndex {
+
+    private static final int CACHE_SIZE = 4;
+
+    private static final Map<ModuleNode, OccurrenceIndex> indexes = new LinkedHashMap<ModuleNode, OccurrenceIndex>(
+            CACHE_SIZE * 2, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ModuleNode, OccurrenceIndex> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * @return the index of the current module of the unit, or null if the unit
+     *         has no module
+     */
+    public static OccurrenceIndex forUnit(GroovyCompilationUnit unit) {
+        return forModule(unit, unit.getModuleNode());
+    }
+
+    /**
+     * @return the index of the given module of the unit, or null if the unit
+     *         has no module or has been reconciled since the module was built
+     */
+    public static OccurrenceIndex forModule(GroovyCompilationUnit unit, ModuleNode module) {
+        if (module == null) {
+            return null;
+        }
+        synchronized (indexes) {
+            OccurrenceIndex index = indexes.get(module);
+            if (index != null) {
+                return index;
+            }
+        }
+        if (unit.getModuleNode() != module) {
+            return null;
+        }
+        // build outside of the lock, since inferencing may take a while
+        OccurrenceIndex index = new OccurrenceIndex(unit);
+        synchronized (indexes) {
+            indexes.put(module, index);
+        }
+        return index;
+    }
+
+    /**
+     * A node reported by the type inferencing visitor.
+     */
+    private static class Occurrence {
+        final ASTNode node;
+        final TypeLookupResult result;
+        final IJavaElement enclosingElement;
+
+        Occurrence(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+            this.node = node;
+            this.result = result;
+            this.enclosingElement = enclosingElement;
+        }
+
+        VisitStatus replay(ITypeRequestor requestor) {
+            return requestor.acceptASTNode(node, result, enclosingElement);
+        }
+    }
+
+    /** all nodes, in the order in which they were visited */
+    private final List<Occurrence> occurrences = new ArrayList<Occurrence>();
+
+    /** nodes that may refer to a declaration, by the name of the declaration */
+    private final Map<String, List<Occurrence>> byDeclarationName = new HashMap<String, List<Occurrence>>();
+
+    /** nodes that are variables, by the name of the variable */
+    private final Map<String, List<Occurrence>> byVariableName = new HashMap<String, List<Occurrence>>();
+
+    private OccurrenceIndex(GroovyCompilationUnit unit) {
+        TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
+        visitor.visitCompilationUnit(new ITypeRequestor() {
+            public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+                Occurrence occurrence = new Occurrence(node, result, enclosingElement);
+                occurrences.add(occurrence);
+                if (node instanceof AnnotatedNode && node.getLength() != 0 && result.declaration != null) {
+                    add(byDeclarationName, getName(result.declaration), occurrence);
+                }
+                if (node instanceof Variable) {
+                    add(byVariableName, ((Variable) node).getName(), occurrence);
+                }
+                return VisitStatus.CONTINUE;
+            }
+        });
+    }
+
+    private static void add(Map<String, List<Occurrence>> map, String name, Occurrence occurrence) {
+        List<Occurrence> occurrences = map.get(name);
+        if (occurrences == null) {
+            occurrences = new ArrayList<Occurrence>(2);
+            map.put(name, occurrences);
+        }
+        occurrences.add(occurrence);
+    }
+
+    /**
+     * Declarations that {@link FindAllReferencesRequestor} considers to be
+     * equivalent always have the same name.
+     */
+    private static String getName(ASTNode declaration) {
+        if (declaration instanceof ClassNode) {
+            return ((ClassNode) declaration).redirect().getName();
+        } else if (declaration instanceof MethodNode) {
+            return ((MethodNode) declaration).getName();
+        } else if (declaration instanceof PropertyNode) {
+            return ((PropertyNode) declaration).getName();
+        } else if (declaration instanceof Variable) {
+            // includes fields
+            return ((Variable) declaration).getName();
+        }
+        return declaration.getText();
+    }
+
+    /**
+     * @return the same as {@link FindAllReferencesRequestor#getReferences()}
+     *         after visiting the whole module
+     */
+    public Map<ASTNode, Integer> findReferences(AnnotatedNode declaration) {
+        FindAllReferencesRequestor requestor = new FindAllReferencesRequestor(declaration);
+        replay(byDeclarationName.get(getName(declaration)), requestor);
+        return requestor.getReferences();
+    }
+
+    /**
+     * @return the same as {@link LocalVariableReferenceRequestor#getReferences()}
+     *         after visiting the whole module
+     */
+    public List<IRegion> findLocalVariableReferences(Variable variable, IJavaElement enclosingElement) {
+        LocalVariableReferenceRequestor requestor = new LocalVariableReferenceRequestor(variable, enclosingElement);
+        replay(byVariableName.get(variable.getName()), requestor);
+        return requestor.getReferences();
+    }
+
+    /**
+     * Passes every node to the requestor, in the order of a full visit of the
+     * module, without inferring any types again. A node for which the
+     * requestor answers {@link VisitStatus#CANCEL_BRANCH} is not descended
+     * into, that is the nodes inside of its source range that follow it are
+     * skipped, and {@link VisitStatus#CANCEL_MEMBER} skips the remaining nodes
+     * of the same enclosing element.
+     */
+    public void replay(ITypeRequestor requestor) {
+        ASTNode canceledBranch = null;
+        IJavaElement canceledMember = null;
+        for (Occurrence occurrence : occurrences) {
+            if (canceledBranch != null) {
+                if (occurrence.node.getStart() >= canceledBranch.getStart()
+                        && occurrence.node.getEnd() <= canceledBranch.getEnd()) {
+                    continue;
+                }
+                canceledBranch = null;
+            }
+            if (canceledMember != null) {
+                if (canceledMember.equals(occurrence.enclosingElement)) {
+                    continue;
+                }
+                canceledMember = null;
+            }
+            switch (occurrence.replay(requestor)) {
+                case CANCEL_BRANCH:
+                    canceledBranch = occurrence.node;
+                    break;
+                case CANCEL_MEMBER:
+                    canceledMember = occurrence.enclosingElement;
+                    break;
+                case STOP_VISIT:
+                    return;
+            }
+        }
+    }
+
+    private static void replay(List<Occurrence> occurrences, ITypeRequestor requestor) {
+        for (Occurrence occurrence : occurrences != null ? occurrences : Collections.<Occurrence> emptyList()) {
+            if (occurrence.replay(requestor) == VisitStatus.STOP_VISIT) {
+                break;
+            }
+        }
+    }
+}
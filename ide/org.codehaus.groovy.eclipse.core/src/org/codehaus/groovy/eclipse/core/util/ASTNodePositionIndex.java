@@ -0,0 +1,789 @@
+/*
+ * Copyright 2009-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.GenericsType;
+import org.codehaus.groovy.ast.ImportNode;
+import org.codehaus.groovy.ast.ImportNodeCompatibilityWrapper;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.PackageNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.PropertyNode;
+import org.codehaus.groovy.ast.expr.AnnotationConstantExpression;
+import org.codehaus.groovy.ast.expr.ArgumentListExpression;
+import org.codehaus.groovy.ast.expr.ArrayExpression;
+import org.codehaus.groovy.ast.expr.AttributeExpression;
+import org.codehaus.groovy.ast.expr.BinaryExpression;
+import org.codehaus.groovy.ast.expr.BitwiseNegationExpression;
+import org.codehaus.groovy.ast.expr.BooleanExpression;
+import org.codehaus.groovy.ast.expr.CastExpression;
+import org.codehaus.groovy.ast.expr.ClassExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ClosureListExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
+import org.codehaus.groovy.ast.expr.DeclarationExpression;
+import org.codehaus.groovy.ast.expr.ElvisOperatorExpression;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.FieldExpression;
+import org.codehaus.groovy.ast.expr.GStringExpression;
+import org.codehaus.groovy.ast.expr.ListExpression;
+import org.codehaus.groovy.ast.expr.MapEntryExpression;
+import org.codehaus.groovy.ast.expr.MapExpression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.expr.MethodPointerExpression;
+import org.codehaus.groovy.ast.expr.NotExpression;
+import org.codehaus.groovy.ast.expr.PostfixExpression;
+import org.codehaus.groovy.ast.expr.PrefixExpression;
+import org.codehaus.groovy.ast.expr.PropertyExpression;
+import org.codehaus.groovy.ast.expr.RangeExpression;
+import org.codehaus.groovy.ast.expr.SpreadExpression;
+import org.codehaus.groovy.ast.expr.SpreadMapExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.TernaryExpression;
+import org.codehaus.groovy.ast.expr.TupleExpression;
+import org.codehaus.groovy.ast.expr.UnaryMinusExpression;
+import org.codehaus.groovy.ast.expr.UnaryPlusExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.AssertStatement;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.BreakStatement;
+import org.codehaus.groovy.ast.stmt.CaseStatement;
+import org.codehaus.groovy.ast.stmt.CatchStatement;
+import org.codehaus.groovy.ast.stmt.ContinueStatement;
+import org.codehaus.groovy.ast.stmt.DoWhileStatement;
+import org.codehaus.groovy.ast.stmt.ExpressionStatement;
+import org.codehaus.groovy.ast.stmt.ForStatement;
+import org.codehaus.groovy.ast.stmt.IfStatement;
+import org.codehaus.groovy.ast.stmt.ReturnStatement;
+import org.codehaus.groovy.ast.stmt.SwitchStatement;
+import org.codehaus.groovy.ast.stmt.SynchronizedStatement;
+import org.codehaus.groovy.ast.stmt.ThrowStatement;
+import org.codehaus.groovy.ast.stmt.TryCatchStatement;
+import org.codehaus.groovy.ast.stmt.WhileStatement;
+import org.codehaus.groovy.classgen.BytecodeExpression;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper;
+import org.codehaus.jdt.groovy.model.ModuleNodeMapper.ModuleNodeInfo;
+
+/**
+ * An index of the source ranges of the nodes of a module, so that the nodes
+ * enclosing an offset can be found without visiting the whole module.
+ * <p>
+ * Every node that has a source position is kept in an interval tree laid out
+ * over an array sorted by start offset, so the nodes enclosing a range are
+ * found in logarithmic time plus the number of results.
+ * <p>
+ * Declarations (classes, methods, fields and properties) and statements are
+ * also indexed with their <em>extent</em>: the smallest range that covers the
+ * node itself, its name, and everything positioned inside of it.  The source
+ * ranges of declarations do not always cover their annotations, type
+ * references or parameters, so visitors that look for a node at an offset use
+ * {@link #mayEnclose(ASTNode, int, int)} to skip declarations and statements
+ * that cannot contain it.
+ * <p>
+ * The index of a working copy's module is stored with the module, see
+ * {@link #forModule(ModuleNode)}, and is dropped along with it.
+ */
+public class ASTNodePositionIndex {
+
+    /**
+     * @return the index for the module of a working copy, built the first time
+     *         it is asked for, or null if the module does not belong to a
+     *         working copy
+     */
+    public static ASTNodePositionIndex forModule(ModuleNode module) {
+        ModuleNodeInfo info = ModuleNodeMapper.findInfo(module);
+        if (info == null) {
+            return null;
+        }
+        synchronized (info) {
+            ASTNodePositionIndex index = (ASTNodePositionIndex) info.getDerived(ASTNodePositionIndex.class);
+            if (index == null) {
+                index = new ASTNodePositionIndex(module);
+                info.putDerived(ASTNodePositionIndex.class, index);
+            }
+            return index;
+        }
+    }
+
+    private static class Entry {
+        final ASTNode node;
+        final int start;
+        final int end;
+        /** the position of the node in the visit of the module */
+        final int order;
+
+        Entry(ASTNode node, int start, int end, int order) {
+            this.node = node;
+            this.start = start;
+            this.end = end;
+            this.order = order;
+        }
+    }
+
+    private static final Comparator<Entry> BY_START = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            if (e1.start != e2.start) {
+                return e1.start - e2.start;
+            }
+            // outermost first
+            if (e1.end != e2.end) {
+                return e2.end - e1.end;
+            }
+            return e1.order - e2.order;
+        }
+    };
+
+    /**
+     * Visits the module, collects the ranges of everything that has a source
+     * position, and widens the extent of each declaration and statement by the
+     * ranges of everything inside of it
+     */
+    private static class Builder extends ClassCodeVisitorSupport {
+
+        final List<Entry> entries = new ArrayList<Entry>();
+
+        /** the extents, as { start, end }, of the declarations and statements */
+        final Map<ASTNode, int[]> extents = new IdentityHashMap<ASTNode, int[]>();
+
+        /** type references may be shared, so each node is recorded once */
+        private final Map<ASTNode, Boolean> recorded = new IdentityHashMap<ASTNode, Boolean>();
+
+        /** the extents of the declarations and statements being visited */
+        private final Stack<int[]> open = new Stack<int[]>();
+
+        @Override
+        protected SourceUnit getSourceUnit() {
+            return null;
+        }
+
+        void build(ModuleNode module) {
+            PackageNode pack = module.getPackage();
+            if (pack != null) {
+                record(pack);
+                for (AnnotationNode annotation : (Iterable<AnnotationNode>) pack.getAnnotations()) {
+                    record(annotation);
+                    recordType(annotation.getClassNode(), 0);
+                }
+            }
+            for (ImportNode importNode : new ImportNodeCompatibilityWrapper(module).getAllImportNodes()) {
+                record(importNode);
+                recordType(importNode.getType(), 0);
+                record(importNode.getFieldNameExpr());
+                record(importNode.getAliasExpr());
+            }
+            for (ClassNode clazz : (Iterable<ClassNode>) module.getClasses()) {
+                visitClass(clazz);
+            }
+        }
+
+        // method does not exist in 1.6 stream
+        // @Override
+        public void visitPackage(PackageNode node) {
+            // recorded once for the module, not for each class
+        }
+
+        @Override
+        public void visitImports(ModuleNode module) {
+            // recorded once for the module, not for each class
+        }
+
+        @Override
+        public void visitClass(ClassNode node) {
+            open(node);
+            if (node.getUnresolvedSuperClass() != null) {
+                recordType(node.getUnresolvedSuperClass(), 0);
+            }
+            if (node.getInterfaces() != null) {
+                for (ClassNode inter : node.getInterfaces()) {
+                    recordType(inter, 0);
+                }
+            }
+            super.visitClass(node);
+            close(node);
+        }
+
+        @Override
+        protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+            open(node);
+            recordType(node.getReturnType(), 0);
+            if (node.getExceptions() != null) {
+                for (ClassNode exception : node.getExceptions()) {
+                    recordType(exception, 0);
+                }
+            }
+            recordParameters(node.getParameters());
+            super.visitConstructorOrMethod(node, isConstructor);
+            close(node);
+        }
+
+        @Override
+        public void visitField(FieldNode node) {
+            open(node);
+            recordType(node.getType(), 0);
+            super.visitField(node);
+            close(node);
+        }
+
+        @Override
+        public void visitProperty(PropertyNode node) {
+            open(node);
+            super.visitProperty(node);
+            close(node);
+        }
+
+        @Override
+        public void visitAnnotations(AnnotatedNode node) {
+            for (AnnotationNode annotation : (Iterable<AnnotationNode>) node.getAnnotations()) {
+                record(annotation);
+                recordType(annotation.getClassNode(), 0);
+                for (Expression value : (Iterable<Expression>) annotation.getMembers().values()) {
+                    value.visit(this);
+                }
+            }
+        }
+
+        @Override
+        public void visitCatchStatement(CatchStatement statement) {
+            open(statement);
+            recordParameter(statement.getVariable());
+            super.visitCatchStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitForLoop(ForStatement forLoop) {
+            open(forLoop);
+            recordParameter(forLoop.getVariable());
+            super.visitForLoop(forLoop);
+            close(forLoop);
+        }
+
+        @Override
+        public void visitReturnStatement(ReturnStatement statement) {
+            open(statement);
+            if (statement.getExpression() instanceof AnnotationConstantExpression) {
+                // annotations in default values do not visit their type
+                recordType(statement.getExpression().getType(), 0);
+            }
+            super.visitReturnStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitAssertStatement(AssertStatement statement) {
+            open(statement);
+            super.visitAssertStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitBlockStatement(BlockStatement block) {
+            open(block);
+            super.visitBlockStatement(block);
+            close(block);
+        }
+
+        @Override
+        public void visitBreakStatement(BreakStatement statement) {
+            open(statement);
+            super.visitBreakStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitCaseStatement(CaseStatement statement) {
+            open(statement);
+            super.visitCaseStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitContinueStatement(ContinueStatement statement) {
+            open(statement);
+            super.visitContinueStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitDoWhileLoop(DoWhileStatement loop) {
+            open(loop);
+            super.visitDoWhileLoop(loop);
+            close(loop);
+        }
+
+        @Override
+        public void visitExpressionStatement(ExpressionStatement statement) {
+            open(statement);
+            super.visitExpressionStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitIfElse(IfStatement ifElse) {
+            open(ifElse);
+            super.visitIfElse(ifElse);
+            close(ifElse);
+        }
+
+        @Override
+        public void visitSwitch(SwitchStatement statement) {
+            open(statement);
+            super.visitSwitch(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitSynchronizedStatement(SynchronizedStatement statement) {
+            open(statement);
+            super.visitSynchronizedStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitThrowStatement(ThrowStatement statement) {
+            open(statement);
+            super.visitThrowStatement(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitTryCatchFinally(TryCatchStatement statement) {
+            open(statement);
+            super.visitTryCatchFinally(statement);
+            close(statement);
+        }
+
+        @Override
+        public void visitWhileLoop(WhileStatement loop) {
+            open(loop);
+            super.visitWhileLoop(loop);
+            close(loop);
+        }
+
+        @Override
+        public void visitArgumentlistExpression(ArgumentListExpression expression) {
+            record(expression);
+            super.visitArgumentlistExpression(expression);
+        }
+
+        @Override
+        public void visitAttributeExpression(AttributeExpression expression) {
+            record(expression);
+            super.visitAttributeExpression(expression);
+        }
+
+        @Override
+        public void visitBinaryExpression(BinaryExpression expression) {
+            record(expression);
+            super.visitBinaryExpression(expression);
+        }
+
+        @Override
+        public void visitBitwiseNegationExpression(BitwiseNegationExpression expression) {
+            record(expression);
+            super.visitBitwiseNegationExpression(expression);
+        }
+
+        @Override
+        public void visitBooleanExpression(BooleanExpression expression) {
+            record(expression);
+            super.visitBooleanExpression(expression);
+        }
+
+        @Override
+        public void visitBytecodeExpression(BytecodeExpression expression) {
+            record(expression);
+            super.visitBytecodeExpression(expression);
+        }
+
+        @Override
+        public void visitClassExpression(ClassExpression expression) {
+            record(expression);
+            super.visitClassExpression(expression);
+        }
+
+        @Override
+        public void visitClosureListExpression(ClosureListExpression expression) {
+            record(expression);
+            super.visitClosureListExpression(expression);
+        }
+
+        @Override
+        public void visitConstantExpression(ConstantExpression expression) {
+            record(expression);
+            super.visitConstantExpression(expression);
+        }
+
+        @Override
+        public void visitShortTernaryExpression(ElvisOperatorExpression expression) {
+            record(expression);
+            super.visitShortTernaryExpression(expression);
+        }
+
+        @Override
+        public void visitFieldExpression(FieldExpression expression) {
+            record(expression);
+            super.visitFieldExpression(expression);
+        }
+
+        @Override
+        public void visitGStringExpression(GStringExpression expression) {
+            record(expression);
+            super.visitGStringExpression(expression);
+        }
+
+        @Override
+        public void visitListExpression(ListExpression expression) {
+            record(expression);
+            super.visitListExpression(expression);
+        }
+
+        @Override
+        public void visitMapEntryExpression(MapEntryExpression expression) {
+            record(expression);
+            super.visitMapEntryExpression(expression);
+        }
+
+        @Override
+        public void visitMapExpression(MapExpression expression) {
+            record(expression);
+            super.visitMapExpression(expression);
+        }
+
+        @Override
+        public void visitMethodCallExpression(MethodCallExpression expression) {
+            record(expression);
+            super.visitMethodCallExpression(expression);
+        }
+
+        @Override
+        public void visitMethodPointerExpression(MethodPointerExpression expression) {
+            record(expression);
+            super.visitMethodPointerExpression(expression);
+        }
+
+        @Override
+        public void visitNotExpression(NotExpression expression) {
+            record(expression);
+            super.visitNotExpression(expression);
+        }
+
+        @Override
+        public void visitPostfixExpression(PostfixExpression expression) {
+            record(expression);
+            super.visitPostfixExpression(expression);
+        }
+
+        @Override
+        public void visitPrefixExpression(PrefixExpression expression) {
+            record(expression);
+            super.visitPrefixExpression(expression);
+        }
+
+        @Override
+        public void visitPropertyExpression(PropertyExpression expression) {
+            record(expression);
+            super.visitPropertyExpression(expression);
+        }
+
+        @Override
+        public void visitRangeExpression(RangeExpression expression) {
+            record(expression);
+            super.visitRangeExpression(expression);
+        }
+
+        @Override
+        public void visitSpreadExpression(SpreadExpression expression) {
+            record(expression);
+            super.visitSpreadExpression(expression);
+        }
+
+        @Override
+        public void visitSpreadMapExpression(SpreadMapExpression expression) {
+            record(expression);
+            super.visitSpreadMapExpression(expression);
+        }
+
+        @Override
+        public void visitTernaryExpression(TernaryExpression expression) {
+            record(expression);
+            super.visitTernaryExpression(expression);
+        }
+
+        @Override
+        public void visitTupleExpression(TupleExpression expression) {
+            record(expression);
+            super.visitTupleExpression(expression);
+        }
+
+        @Override
+        public void visitUnaryMinusExpression(UnaryMinusExpression expression) {
+            record(expression);
+            super.visitUnaryMinusExpression(expression);
+        }
+
+        @Override
+        public void visitUnaryPlusExpression(UnaryPlusExpression expression) {
+            record(expression);
+            super.visitUnaryPlusExpression(expression);
+        }
+
+        @Override
+        public void visitArrayExpression(ArrayExpression expression) {
+            record(expression);
+            if (expression.getElementType() != expression.getElementType().redirect()) {
+                // otherwise a synthetic array used for enum fields, and the type is the declaration
+                recordType(expression.getElementType(), 0);
+            }
+            super.visitArrayExpression(expression);
+        }
+
+        @Override
+        public void visitCastExpression(CastExpression expression) {
+            record(expression);
+            recordType(expression.getType(), 0);
+            super.visitCastExpression(expression);
+        }
+
+        @Override
+        public void visitClosureExpression(ClosureExpression expression) {
+            record(expression);
+            recordParameters(expression.getParameters());
+            super.visitClosureExpression(expression);
+        }
+
+        @Override
+        public void visitConstructorCallExpression(ConstructorCallExpression expression) {
+            record(expression);
+            recordType(expression.getType(), 0);
+            super.visitConstructorCallExpression(expression);
+        }
+
+        @Override
+        public void visitDeclarationExpression(DeclarationExpression expression) {
+            record(expression);
+            recordType(expression.getLeftExpression().getType(), 0);
+            super.visitDeclarationExpression(expression);
+        }
+
+        @Override
+        public void visitStaticMethodCallExpression(StaticMethodCallExpression expression) {
+            record(expression);
+            if (expression.getOwnerType() != expression.getOwnerType().redirect()) {
+                // otherwise an implicit reference, and the type is the declaration
+                recordType(expression.getOwnerType(), 0);
+            }
+            super.visitStaticMethodCallExpression(expression);
+        }
+
+        @Override
+        public void visitVariableExpression(VariableExpression expression) {
+            record(expression);
+            // VariableExpressions not an AnnotatedNode in groovy 1.6, but they are in 1.7+
+            Object maybeAnnotatedNode = expression;
+            if (maybeAnnotatedNode instanceof AnnotatedNode) {
+                visitAnnotations((AnnotatedNode) maybeAnnotatedNode);
+            }
+            super.visitVariableExpression(expression);
+        }
+
+        private void recordParameters(Parameter[] parameters) {
+            if (parameters != null) {
+                for (Parameter parameter : parameters) {
+                    recordParameter(parameter);
+                }
+            }
+        }
+
+        private void recordParameter(Parameter parameter) {
+            if (parameter != null) {
+                record(parameter);
+                recordType(parameter.getType(), 0);
+                if (parameter.getInitialExpression() != null) {
+                    parameter.getInitialExpression().visit(this);
+                }
+            }
+        }
+
+        private void recordType(ClassNode type, int depth) {
+            if (type == null) {
+                return;
+            }
+            // implicit type references are not in the source, but their type arguments may be
+            record(type);
+            if (depth < 8 && type.isUsingGenerics() && type.getGenericsTypes() != null) {
+                for (GenericsType generic : type.getGenericsTypes()) {
+                    recordType(generic.getType(), depth + 1);
+                    recordType(generic.getLowerBound(), depth + 1);
+                    if (generic.getUpperBounds() != null) {
+                        for (ClassNode upper : generic.getUpperBounds()) {
+                            recordType(upper, depth + 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void record(ASTNode node) {
+            if (node != null && node.getEnd() > 0 && recorded.put(node, Boolean.TRUE) == null) {
+                entries.add(new Entry(node, node.getStart(), node.getEnd(), entries.size()));
+                widen(node.getStart(), node.getEnd());
+            }
+        }
+
+        private void widen(int start, int end) {
+            if (!open.isEmpty()) {
+                int[] extent = open.peek();
+                extent[0] = Math.min(extent[0], start);
+                extent[1] = Math.max(extent[1], end);
+            }
+        }
+
+        private void open(ASTNode node) {
+            record(node);
+            int[] extent = new int[] { Integer.MAX_VALUE, 0 };
+            if (node.getEnd() > 0) {
+                extent[0] = node.getStart();
+                extent[1] = node.getEnd();
+            }
+            if (node instanceof AnnotatedNode && ((AnnotatedNode) node).getNameEnd() > 0) {
+                // name range checks allow one extra character at the end
+                extent[0] = Math.min(extent[0], ((AnnotatedNode) node).getNameStart());
+                extent[1] = Math.max(extent[1], ((AnnotatedNode) node).getNameEnd() + 1);
+            }
+            open.push(extent);
+        }
+
+        private void close(ASTNode node) {
+            int[] extent = open.pop();
+            if (extent[1] > 0) {
+                extents.put(node, extent);
+                widen(extent[0], extent[1]);
+            }
+        }
+    }
+
+    /** sorted by {@link #BY_START} */
+    private final Entry[] entries;
+
+    /**
+     * the largest end offset in the implicit subtree rooted at each entry;
+     * the root of the subtree spanning [low, high) is at (low + high) / 2
+     */
+    private final int[] maxEnds;
+
+    private final Map<ASTNode, int[]> extents;
+
+    /**
+     * Builds an index that is not shared; use {@link #forModule(ModuleNode)}
+     * for the module of a working copy
+     */
+    public ASTNodePositionIndex(ModuleNode module) {
+        Builder builder = new Builder();
+        builder.build(module);
+        entries = builder.entries.toArray(new Entry[builder.entries.size()]);
+        Arrays.sort(entries, BY_START);
+        maxEnds = new int[entries.length];
+        computeMaxEnds(0, entries.length);
+        extents = builder.extents;
+    }
+
+    private int computeMaxEnds(int low, int high) {
+        if (low >= high) {
+            return Integer.MIN_VALUE;
+        }
+        int mid = (low + high) >>> 1;
+        int max = Math.max(entries[mid].end, Math.max(computeMaxEnds(low, mid), computeMaxEnds(mid + 1, high)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    /**
+     * @return the nodes whose source range covers the given range, outermost
+     *         first
+     */
+    public List<ASTNode> findEnclosingNodes(int start, int end) {
+        List<Entry> found = new ArrayList<Entry>();
+        collect(0, entries.length, start, end, found);
+        if (found.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ASTNode> nodes = new ArrayList<ASTNode>(found.size());
+        for (Entry entry : found) {
+            nodes.add(entry.node);
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the node with the smallest source range that covers the given
+     *         range, or null if there is none. Of nodes with the same range,
+     *         the one visited last, so the most deeply nested one, is returned
+     */
+    public ASTNode findInnermostNode(int start, int end) {
+        List<Entry> found = new ArrayList<Entry>();
+        collect(0, entries.length, start, end, found);
+        return found.isEmpty() ? null : found.get(found.size() - 1).node;
+    }
+
+    /**
+     * @return false iff the given declaration or statement was indexed and
+     *         nothing inside of it can cover the given range
+     */
+    public boolean mayEnclose(ASTNode node, int start, int end) {
+        int[] extent = extents.get(node);
+        return extent == null || (extent[0] <= start && end <= extent[1]);
+    }
+
+    /**
+     * Collects the entries covering the range, in sorted order
+     */
+    private void collect(int low, int high, int start, int end, List<Entry> found) {
+        if (low >= high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        if (maxEnds[mid] < end) {
+            // nothing in this subtree ends late enough
+            return;
+        }
+        collect(low, mid, start, end, found);
+        if (entries[mid].start <= start) {
+            if (entries[mid].end >= end) {
+                found.add(entries[mid]);
+            }
+            collect(mid + 1, high, start, end, found);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+
+/**
+ * Collects invocation counts, match rates and cumulative times of DSLD
+ * evaluation, per script and per pointcut.  Pointcuts are told apart by their
+ * script and their description, so nested pointcuts get rows of their own,
+ * and the rows of a script are forgotten when the script is refreshed.
+ * Profiling is off by default and costs a single volatile read per evaluation
+ * when off.  The statistics are shown (and can be exported) from the DSL
+ * preferences page.
+ */
+public class DSLDProfiler {
+
+    public static final DSLDProfiler profiler = new DSLDProfiler();
+
+    /**
+     * Timings for a single script or pointcut
+     */
+    public static class Stats {
+        public final String script;
+        public final String name;
+        int invocations;
+        int matches;
+        long matchNanos;
+        long contributionNanos;
+
+        Stats(String script, String name) {
+            this.script = script;
+            this.name = name;
+        }
+        public int getInvocations() {
+            return invocations;
+        }
+        public int getMatches() {
+            return matches;
+        }
+        public long getMatchNanos() {
+            return matchNanos;
+        }
+        public long getContributionNanos() {
+            return contributionNanos;
+        }
+        public long getTotalNanos() {
+            return matchNanos + contributionNanos;
+        }
+        public double getMatchRate() {
+            return invocations == 0 ? 0 : ((double) matches) / invocations;
+        }
+    }
+
+    private static final Comparator<Stats> SLOWEST_FIRST = new Comparator<Stats>() {
+        public int compare(Stats s1, Stats s2) {
+            long diff = s2.getTotalNanos() - s1.getTotalNanos();
+            return diff > 0 ? 1 : (diff < 0 ? -1 : 0);
+        }
+    };
+
+    private volatile boolean enabled;
+
+    /** keyed by script and pointcut description */
+    private final Map<String, Stats> pointcutStats = new HashMap<String, Stats>();
+    private final Map<String, Stats> scriptStats = new HashMap<String, Stats>();
+    /** saves describing a pointcut each time it is evaluated */
+    private final Map<IPointcut, Stats> statsByPointcut = new IdentityHashMap<IPointcut, Stats>();
+
+    private DSLDProfiler() {
+        // singleton
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public synchronized void reset() {
+        pointcutStats.clear();
+        scriptStats.clear();
+        statsByPointcut.clear();
+    }
+
+    /**
+     * Forgets the statistics of a script, whose pointcuts are about to be
+     * replaced by the ones of a refreshed version of the script
+     * @param script the unique name of the script, as returned by
+     * {@link DSLDStore#toUniqueString}
+     */
+    public synchronized void forgetScript(String script) {
+        scriptStats.remove(script);
+        for (Iterator<Stats> it = pointcutStats.values().iterator(); it.hasNext();) {
+            if (script.equals(it.next().script)) {
+                it.remove();
+            }
+        }
+        for (Iterator<Stats> it = statsByPointcut.values().iterator(); it.hasNext();) {
+            if (script.equals(it.next().script)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Records a single evaluation of a top-level pointcut
+     * @param pointcut the pointcut evaluated
+     * @param matched true iff the pointcut matched
+     * @param nanos time spent in {@link IPointcut#matches}
+     */
+    public synchronized void recordMatch(IPointcut pointcut, boolean matched, long nanos) {
+        Stats pStats = getPointcutStats(pointcut);
+        Stats sStats = getScriptStats(pStats.script);
+        pStats.invocations++;
+        sStats.invocations++;
+        if (matched) {
+            pStats.matches++;
+            sStats.matches++;
+        }
+        pStats.matchNanos += nanos;
+        sStats.matchNanos += nanos;
+    }
+
+    /**
+     * Records a single evaluation of a pointcut that is an argument of
+     * another pointcut.  Its time is already part of the time of the
+     * enclosing pointcut, so it is not added to the script.
+     * @param pointcut the pointcut evaluated
+     * @param matched true iff the pointcut matched
+     * @param nanos time spent in {@link IPointcut#matches}
+     */
+    public synchronized void recordNestedMatch(IPointcut pointcut, boolean matched, long nanos) {
+        Stats pStats = getPointcutStats(pointcut);
+        pStats.invocations++;
+        if (matched) {
+            pStats.matches++;
+        }
+        pStats.matchNanos += nanos;
+    }
+
+    /**
+     * Records the time spent evaluating the contribution groups of a pointcut that matched
+     * @param pointcut the pointcut whose contribution groups were evaluated
+     * @param nanos time spent in the contribution groups
+     */
+    public synchronized void recordContributions(IPointcut pointcut, long nanos) {
+        Stats pStats = getPointcutStats(pointcut);
+        pStats.contributionNanos += nanos;
+        getScriptStats(pStats.script).contributionNanos += nanos;
+    }
+
+    public synchronized List<Stats> getScriptStats() {
+        return sorted(scriptStats.values());
+    }
+
+    public synchronized List<Stats> getPointcutStats() {
+        return sorted(pointcutStats.values());
+    }
+
+    /**
+     * @return a human readable report of all statistics, slowest first
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        List<Stats> scripts = getScriptStats();
+        if (scripts.isEmpty()) {
+            return enabled ? "No DSLD evaluations recorded yet." : "DSLD profiling is disabled.";
+        }
+        sb.append("Scripts:\n");
+        for (Stats stats : scripts) {
+            appendLine(sb, stats.script, stats);
+        }
+        sb.append("\nPointcuts (nested pointcuts are also part of their enclosing pointcut):\n");
+        for (Stats stats : getPointcutStats()) {
+            appendLine(sb, stats.name + " in " + stats.script, stats);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return all statistics as comma separated values, one row per script and per pointcut
+     */
+    public String toCSV() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("kind,script,pointcut,invocations,matches,match rate,match ms,contribution ms,total ms\n");
+        for (Stats stats : getScriptStats()) {
+            appendCSV(sb, "script", stats);
+        }
+        for (Stats stats : getPointcutStats()) {
+            appendCSV(sb, "pointcut", stats);
+        }
+        return sb.toString();
+    }
+
+    private void appendLine(StringBuilder sb, String label, Stats stats) {
+        sb.append("  ").append(label).append(": ");
+        sb.append(stats.invocations).append(" invocations, ");
+        sb.append(stats.matches).append(" matches (").append(Math.round(stats.getMatchRate() * 100)).append("%), ");
+        sb.append(toMillis(stats.matchNanos)).append(" ms matching, ");
+        sb.append(toMillis(stats.contributionNanos)).append(" ms contributing\n");
+    }
+
+    private void appendCSV(StringBuilder sb, String kind, Stats stats) {
+        sb.append(kind).append(',');
+        sb.append(quote(stats.script)).append(',');
+        sb.append(quote(stats.name)).append(',');
+        sb.append(stats.invocations).append(',');
+        sb.append(stats.matches).append(',');
+        sb.append(stats.getMatchRate()).append(',');
+        sb.append(toMillis(stats.matchNanos)).append(',');
+        sb.append(toMillis(stats.contributionNanos)).append(',');
+        sb.append(toMillis(stats.getTotalNanos())).append('\n');
+    }
+
+    private static String quote(String s) {
+        return s == null ? "" : "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10000.0) / 100.0;
+    }
+
+    private Stats getPointcutStats(IPointcut pointcut) {
+        Stats stats = statsByPointcut.get(pointcut);
+        if (stats == null) {
+            String script = DSLDStore.toUniqueString(pointcut.getContainerIdentifier());
+            String description = pointcut instanceof AbstractPointcut ?
+                    ((AbstractPointcut) pointcut).getPointcutDescription() : pointcut.getClass().getSimpleName();
+            String key = script + '\n' + description;
+            stats = pointcutStats.get(key);
+            if (stats == null) {
+                stats = new Stats(script, description);
+                pointcutStats.put(key, stats);
+            }
+            statsByPointcut.put(pointcut, stats);
+        }
+        return stats;
+    }
+
+    private Stats getScriptStats(String script) {
+        Stats stats = scriptStats.get(script);
+        if (stats == null) {
+            stats = new Stats(script, null);
+            scriptStats.put(script, stats);
+        }
+        return stats;
+    }
+
+    private static List<Stats> sorted(Iterable<Stats> values) {
+        List<Stats> list = new ArrayList<Stats>();
+        for (Stats stats : values) {
+            list.add(stats);
+        }
+        Collections.sort(list, SLOWEST_FIRST);
+        return list;
+    }
+}
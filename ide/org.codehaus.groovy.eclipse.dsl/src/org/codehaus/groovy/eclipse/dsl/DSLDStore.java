@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.dsl.contributions.IContributionElement;
@@ -28,6 +29,7 @@ import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IStorage;
+import org.eclipse.jdt.groovy.search.AbstractSimplifiedTypeLookup.TypeAndDeclaration;
 import org.eclipse.jdt.internal.core.NonJavaResource;
 
 /**
@@ -67,6 +69,7 @@ public class DSLDStore {
         if (GroovyLogManager.manager.hasLoggers()) {
             GroovyLogManager.manager.log(TraceCategory.DSL, "Purging pointcut for DSL file " + identifier);
         }
+        DSLDProfiler.profiler.forgetScript(toUniqueString(identifier));
         Set<IPointcut> pointcuts = keyContextMap.remove(identifier);
         if (pointcuts != null) {
             for (IPointcut pointcut : pointcuts) {
@@ -76,6 +79,9 @@ public class DSLDStore {
     }
     
     public void purgeAll() {
+        for (IStorage identifier : keyContextMap.keySet()) {
+            DSLDProfiler.profiler.forgetScript(toUniqueString(identifier));
+        }
         keyContextMap.clear();
         pointcutContributionMap.clear();
     }
@@ -125,18 +131,93 @@ public class DSLDStore {
         for (Entry<IPointcut, List<IContributionGroup>> entry : pointcutContributionMap.entrySet()) {
             IPointcut pointcut = entry.getKey();
             if (! disabledScripts.contains(DSLDStore.toUniqueString(pointcut.getContainerIdentifier()))) {
-                pattern.resetBinding();
-                Collection<?> results = pointcut.matches(pattern, pattern.getCurrentType());
-                if (results != null) {
+                if (matches(pointcut, pattern)) {
+                    boolean profiling = DSLDProfiler.profiler.isEnabled();
+                    long start = profiling ? System.nanoTime() : 0;
                     for (IContributionGroup group : entry.getValue()) {
                         elts.addAll(group.getContributions(pattern, pattern.getCurrentBinding()));
                     }
+                    if (profiling) {
+                        DSLDProfiler.profiler.recordContributions(pointcut, System.nanoTime() - start);
+                    }
                 }
             }
         }
         return elts;
     }
     
+    /**
+     * Looks up the type and declaration of the member named <code>name</code>.
+     * Pointcuts are evaluated in order and only the contribution elements
+     * with the given name are kept and consulted.  Once a contribution element
+     * has been found, only groups with side effects are still evaluated, since
+     * they may change the delegate type, and so the declaring type of the
+     * member.  When there are none, evaluation stops at the first answer.
+     * 
+     * @param pattern The pattern to match against
+     * @param name The name of the member being looked up
+     * @param disabledScripts The set of scripts that are disabled and should be ignored
+     * @return the type and declaration of the first matching contribution, or null if none
+     */
+    public TypeAndDeclaration findContribution(GroovyDSLDContext pattern, String name, Set<String> disabledScripts) {
+        List<IContributionElement> elts = new ArrayList<IContributionElement>();
+        for (Entry<IPointcut, List<IContributionGroup>> entry : pointcutContributionMap.entrySet()) {
+            IPointcut pointcut = entry.getKey();
+            if (!elts.isEmpty() && !hasSideEffects(entry.getValue())) {
+                // already found, and these groups cannot change the answer
+                continue;
+            }
+            if (! disabledScripts.contains(DSLDStore.toUniqueString(pointcut.getContainerIdentifier()))) {
+                if (matches(pointcut, pattern)) {
+                    for (IContributionGroup group : entry.getValue()) {
+                        if (!elts.isEmpty() && !group.hasSideEffects()) {
+                            continue;
+                        }
+                        boolean profiling = DSLDProfiler.profiler.isEnabled();
+                        long start = profiling ? System.nanoTime() : 0;
+                        elts.addAll(group.getContributions(pattern, pattern.getCurrentBinding(), name));
+                        if (profiling) {
+                            DSLDProfiler.profiler.recordContributions(pointcut, System.nanoTime() - start);
+                        }
+                    }
+                }
+            }
+        }
+        // declaring type may have changed via a setDelegateType, even of a later group
+        ClassNode declaringType = pattern.getCurrentType();
+        for (IContributionElement elt : elts) {
+            TypeAndDeclaration td = elt.lookupType(name, declaringType, pattern.getResolverCache());
+            if (td != null) {
+                return td;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasSideEffects(List<IContributionGroup> groups) {
+        for (IContributionGroup group : groups) {
+            if (group.hasSideEffects()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates a registered pointcut against the current type of the pattern,
+     * recording the evaluation in the {@link DSLDProfiler} if profiling is enabled
+     */
+    private boolean matches(IPointcut pointcut, GroovyDSLDContext pattern) {
+        pattern.resetBinding();
+        if (!DSLDProfiler.profiler.isEnabled()) {
+            return pointcut.matches(pattern, pattern.getCurrentType()) != null;
+        }
+        long start = System.nanoTime();
+        Collection<?> results = pointcut.matches(pattern, pattern.getCurrentType());
+        DSLDProfiler.profiler.recordMatch(pointcut, results != null, System.nanoTime() - start);
+        return results != null;
+    }
+    
     public IStorage[] getAllContextKeys() {
         return keyContextMap.keySet().toArray(new IStorage[0]);
     }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2003-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Records the results of checking a single file so that the file can be
+ * checked on a worker thread.  The results are later replayed, in order,
+ * into the real handler on the thread that started the check.
+ */
+class BufferingStaticCheckerHandler implements IStaticCheckerHandler {
+
+    private static class Problem {
+        final ASTNode node;
+        final String expectedType;
+        final String actualType;
+        final Position position;
+        final int line;
+        Problem(ASTNode node, String expectedType, String actualType, Position position, int line) {
+            this.node = node;
+            this.expectedType = expectedType;
+            this.actualType = actualType;
+            this.position = position;
+            this.line = line;
+        }
+    }
+
+    private final List<Problem> problems = new ArrayList<Problem>();
+
+    private IFile resource;
+
+    private long nanos;
+
+    public void handleUnknownReference(ASTNode node, Position position, int line) {
+        problems.add(new Problem(node, null, null, position, line));
+    }
+
+    public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+        problems.add(new Problem(node, expectedType, actualType, position, line));
+    }
+
+    public void setResource(IFile resource) {
+        this.resource = resource;
+    }
+
+    public int numProblemsFound() {
+        return problems.size();
+    }
+
+    public void handleResourceStart(IResource resource) {
+        // markers and such are handled by the real handler during the resource traversal
+    }
+
+    public void handleResourceEnd(IFile resource, long nanos) {
+        this.nanos = nanos;
+    }
+
+    public boolean finish(Shell shell) {
+        return problems.isEmpty();
+    }
+
+    /**
+     * Sends all recorded results to the given handler
+     * @param target the handler to send results to
+     */
+    void replay(IStaticCheckerHandler target) {
+        if (resource == null) {
+            return;
+        }
+        target.setResource(resource);
+        for (Problem problem : problems) {
+            if (problem.expectedType == null) {
+                target.handleUnknownReference(problem.node, problem.position, problem.line);
+            } else {
+                target.handleTypeAssertionFailed(problem.node, problem.expectedType, problem.actualType, problem.position, problem.line);
+            }
+        }
+        target.handleResourceEnd(resource, nanos);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2003-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import org.codehaus.groovy.eclipse.dsl.DSLDStore;
+import org.codehaus.groovy.eclipse.dsl.DSLPreferences;
+import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Remembers which files passed static checking in a previous run, and at what
+ * local time stamp, so that an incremental run can skip files that are
+ * unchanged and known to be clean.  Files that had problems are always rechecked.
+ * <p>
+ * The types inferred in a file also depend on the other sources of its project,
+ * on the DSLD scripts and on the classpath.  Dependencies between files are not
+ * tracked, so the state records a description of all of those (see
+ * {@link #describeEnvironment}).  When it differs from the recorded one, no file
+ * is known to be clean and all files are checked again.  So an incremental run
+ * only skips the clean files when nothing in their projects has changed since
+ * the previous run.
+ * <p>
+ * The state is kept as a properties file mapping the full path of
+ * each clean file to its local time stamp.
+ */
+class CheckerState {
+
+    /** not a full path, so it cannot clash with the key of a file */
+    private static final String ENVIRONMENT_KEY = "environment";
+
+    private final File stateFile;
+
+    private final Properties cleanFiles = new Properties();
+
+    /**
+     * @param environment the description of the environment of the files to check,
+     *        as returned by {@link #describeEnvironment}
+     */
+    CheckerState(File stateFile, String environment) throws IOException {
+        this.stateFile = stateFile;
+        if (stateFile.exists()) {
+            InputStream in = new FileInputStream(stateFile);
+            try {
+                cleanFiles.load(in);
+            } finally {
+                in.close();
+            }
+        }
+        if (!environment.equals(cleanFiles.getProperty(ENVIRONMENT_KEY))) {
+            cleanFiles.clear();
+            cleanFiles.setProperty(ENVIRONMENT_KEY, environment);
+        }
+    }
+
+    /**
+     * @return true iff the file was clean in the previous run and has not changed since
+     */
+    boolean isUnchanged(IFile file) {
+        String stamp = cleanFiles.getProperty(key(file));
+        return stamp != null && stamp.equals(String.valueOf(file.getLocalTimeStamp()));
+    }
+
+    void recordResult(IFile file, boolean clean) {
+        if (clean) {
+            cleanFiles.setProperty(key(file), String.valueOf(file.getLocalTimeStamp()));
+        } else {
+            cleanFiles.remove(key(file));
+        }
+    }
+
+    void save() throws IOException {
+        OutputStream out = new FileOutputStream(stateFile);
+        try {
+            cleanFiles.store(out, "Groovy static checker state");
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String key(IFile file) {
+        return file.getFullPath().toPortableString();
+    }
+
+    /**
+     * Describes what the inferred types of the files in the projects depend on:
+     * the DSLD scripts of each project and the disabled scripts, and the resolved
+     * classpath of each project along with the time stamps of its own sources,
+     * of its libraries and of the sources of the projects it requires.
+     */
+    static String describeEnvironment(Collection<IProject> projects) throws JavaModelException {
+        List<IProject> sorted = new ArrayList<IProject>(projects);
+        Collections.sort(sorted, new Comparator<IProject>() {
+            public int compare(IProject p1, IProject p2) {
+                return p1.getName().compareTo(p2.getName());
+            }
+        });
+        StringBuilder sb = new StringBuilder();
+        for (IProject project : sorted) {
+            sb.append("project ").append(project.getName()).append(';');
+
+            DSLDStore store = GroovyDSLCoreActivator.getDefault().getContextStoreManager().getDSLDStore(project);
+            List<String> scripts = new ArrayList<String>();
+            for (IStorage script : store.getAllContextKeys()) {
+                // scripts that are not files come from libraries, which are described below
+                scripts.add(DSLDStore.toUniqueString(script) +
+                        (script instanceof IFile ? " " + ((IFile) script).getLocalTimeStamp() : ""));
+            }
+            Collections.sort(scripts);
+            for (String script : scripts) {
+                sb.append("dsld ").append(script).append(';');
+            }
+
+            IJavaProject javaProject = JavaCore.create(project);
+            if (javaProject.exists()) {
+                for (IClasspathEntry entry : javaProject.getResolvedClasspath(true)) {
+                    describeClasspathEntry(entry, sb);
+                }
+            }
+        }
+        String[] disabled = DSLPreferences.getDisabledScripts();
+        Arrays.sort(disabled);
+        sb.append("disabled ").append(Arrays.toString(disabled));
+        return sb.toString();
+    }
+
+    private static void describeClasspathEntry(IClasspathEntry entry, StringBuilder sb) throws JavaModelException {
+        sb.append("entry ").append(entry.getEntryKind()).append(' ').append(entry.getPath().toPortableString());
+        IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+        switch (entry.getEntryKind()) {
+            case IClasspathEntry.CPE_SOURCE:
+                // any file may refer to any other one of its project
+                describeFile(toFile(entry.getPath()), sb);
+                break;
+            case IClasspathEntry.CPE_LIBRARY:
+                describeFile(toFile(entry.getPath()), sb);
+                break;
+            case IClasspathEntry.CPE_PROJECT:
+                IJavaProject required = JavaCore.create(root.getProject(entry.getPath().lastSegment()));
+                if (required.exists()) {
+                    for (IClasspathEntry requiredEntry : required.getRawClasspath()) {
+                        if (requiredEntry.getEntryKind() == IClasspathEntry.CPE_SOURCE) {
+                            describeFile(toFile(requiredEntry.getPath()), sb);
+                        }
+                    }
+                }
+                break;
+        }
+        sb.append(';');
+    }
+
+    /**
+     * @return the file system location of a workspace or external path
+     */
+    private static File toFile(IPath path) {
+        IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(path);
+        if (resource != null && resource.getLocation() != null) {
+            return resource.getLocation().toFile();
+        }
+        return path.toFile();
+    }
+
+    /**
+     * Appends the latest modification time, the number and the total length
+     * of the file, or of all of the files in the folder
+     */
+    private static void describeFile(File file, StringBuilder sb) {
+        long[] stamp = new long[3];
+        stamp(file, stamp);
+        sb.append(' ').append(stamp[0]).append(' ').append(stamp[1]).append(' ').append(stamp[2]);
+    }
+
+    private static void stamp(File file, long[] stamp) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                stamp(child, stamp);
+            }
+        } else if (file.exists()) {
+            stamp[0] = Math.max(stamp[0], file.lastModified());
+            stamp[1]++;
+            stamp[2] += file.length();
+        }
+    }
+}
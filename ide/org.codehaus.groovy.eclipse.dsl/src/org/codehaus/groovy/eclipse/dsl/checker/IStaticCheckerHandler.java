@@ -34,6 +34,13 @@ public interface IStaticCheckerHandler {
     int numProblemsFound();
     void handleResourceStart(IResource resource) throws CoreException;
     
+    /**
+     * Called after a single file has been checked
+     * @param resource the file that was checked
+     * @param nanos time taken to check the file
+     */
+    void handleResourceEnd(IFile resource, long nanos);
+    
     /**
      * Finish the type checking and display any messages to user
      * @param shell Useful for openning a message dialog.  May be null if running headless
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2003-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Collects the results of static checking and writes them out as a machine readable
+ * report (JSON or JUnit XML) when checking is finished.  Each checked file is
+ * reported along with the time it took to check.
+ */
+public class ReportStaticCheckerHandler implements IStaticCheckerHandler {
+
+    public static enum Format { JSON, JUNIT }
+
+    private static class FileReport {
+        final String path;
+        final List<String[]> problems = new ArrayList<String[]>();  // { line, kind, message }
+        long nanos;
+        FileReport(String path) {
+            this.path = path;
+        }
+    }
+
+    private final PrintStream out;
+
+    private final Format format;
+
+    private final List<FileReport> reports = new ArrayList<FileReport>();
+
+    private FileReport current;
+
+    private int numProblems = 0;
+
+    public ReportStaticCheckerHandler(PrintStream out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    public void handleUnknownReference(ASTNode node, Position position, int line) {
+        addProblem(line, "unknown", "unknown type: " + node.getText());
+    }
+
+    public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+        addProblem(line, "assertion", "Invalid inferred type.  " + node.getText() + "  Expected: " + expectedType + " Actual: " + actualType);
+    }
+
+    private void addProblem(int line, String kind, String message) {
+        current.problems.add(new String[] { String.valueOf(line), kind, message });
+        numProblems++;
+    }
+
+    public void setResource(IFile resource) {
+        current = new FileReport(resource.getFullPath().toPortableString());
+        reports.add(current);
+    }
+
+    public int numProblemsFound() {
+        return numProblems;
+    }
+
+    public void handleResourceStart(IResource resource) {
+        // do nothing
+    }
+
+    public void handleResourceEnd(IFile resource, long nanos) {
+        if (current != null) {
+            current.nanos = nanos;
+        }
+    }
+
+    public boolean finish(Shell shell) {
+        if (format == Format.JUNIT) {
+            writeJUnit();
+        } else {
+            writeJSON();
+        }
+        if (out != System.out) {
+            out.close();
+            System.out.println(numProblems == 0 ? "SUCCESS" : "FAILURE found " + numProblems + " type checking problems");
+        } else {
+            out.flush();
+        }
+        return numProblems == 0;
+    }
+
+    private void writeJSON() {
+        long total = 0;
+        for (FileReport report : reports) {
+            total += report.nanos;
+        }
+        out.println("{");
+        out.println("  \"success\": " + (numProblems == 0) + ",");
+        out.println("  \"problems\": " + numProblems + ",");
+        out.println("  \"timeMillis\": " + toMillis(total) + ",");
+        out.println("  \"files\": [");
+        for (int i = 0; i < reports.size(); i++) {
+            FileReport report = reports.get(i);
+            out.println("    {");
+            out.println("      \"path\": " + jsonString(report.path) + ",");
+            out.println("      \"timeMillis\": " + toMillis(report.nanos) + ",");
+            out.print("      \"problems\": [");
+            for (int j = 0; j < report.problems.size(); j++) {
+                String[] problem = report.problems.get(j);
+                out.println(j == 0 ? "" : ",");
+                out.print("        { \"line\": " + problem[0] + ", \"kind\": " + jsonString(problem[1]) +
+                        ", \"message\": " + jsonString(problem[2]) + " }");
+            }
+            out.println(report.problems.isEmpty() ? "]" : "\n      ]");
+            out.println(i < reports.size() - 1 ? "    }," : "    }");
+        }
+        out.println("  ]");
+        out.println("}");
+    }
+
+    private void writeJUnit() {
+        long total = 0;
+        int failures = 0;
+        for (FileReport report : reports) {
+            total += report.nanos;
+            if (!report.problems.isEmpty()) {
+                failures++;
+            }
+        }
+        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.println("<testsuite name=\"groovy-static-check\" tests=\"" + reports.size() + "\" failures=\"" + failures +
+                "\" errors=\"0\" time=\"" + toSeconds(total) + "\">");
+        for (FileReport report : reports) {
+            out.print("  <testcase classname=\"" + xmlString(report.path) + "\" name=\"typecheck\" time=\"" + toSeconds(report.nanos) + "\"");
+            if (report.problems.isEmpty()) {
+                out.println("/>");
+            } else {
+                out.println(">");
+                out.println("    <failure message=\"" + report.problems.size() + " type checking problems\">");
+                for (String[] problem : report.problems) {
+                    out.println(xmlString("Line " + problem[0] + ": " + problem[2]));
+                }
+                out.println("    </failure>");
+                out.println("  </testcase>");
+            }
+        }
+        out.println("</testsuite>");
+    }
+
+    private static String toMillis(long nanos) {
+        return String.valueOf(nanos / 1000000);
+    }
+
+    private static String toSeconds(long nanos) {
+        return String.valueOf(nanos / 1000000 / 1000.0);
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+
+    private static String xmlString(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -79,6 +79,9 @@ public class ResourceMarkerHandler implements IStaticCheckerHandler {
     public void handleResourceStart(IResource resource) throws CoreException {
         resource.deleteMarkers(GroovyDSLCoreActivator.MARKER_ID, true, IResource.DEPTH_ZERO);
     }
+    public void handleResourceEnd(IFile resource, long nanos) {
+        // do nothing
+    }
     
     public boolean finish(Shell shell) {
         if (shell != null) {
@@ -15,13 +15,25 @@
  */
 package org.codehaus.groovy.eclipse.dsl.checker;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.codehaus.groovy.ast.Comment;
+import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IFile;
@@ -31,8 +43,10 @@ import org.eclipse.core.resources.IResourceVisitor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
@@ -46,11 +60,15 @@ import org.eclipse.jdt.internal.core.util.Util;
  */
 public class ResourceTypeChecker {
     
+    /**
+     * Gathers all the groovy files to check.  Checking happens afterwards,
+     * so that it can be spread over several threads.
+     */
     class CheckerVisitor implements IResourceVisitor {
-        private IProgressMonitor monitor;
+        private final List<IFile> toCheck;
 
-        CheckerVisitor(IProgressMonitor monitor) {
-            this.monitor = monitor;
+        CheckerVisitor(List<IFile> toCheck) {
+            this.toCheck = toCheck;
         }
 
         public boolean visit(IResource resource) throws CoreException {
@@ -64,65 +82,12 @@ public class ResourceTypeChecker {
                 if (Util.isExcluded(resource, includes, excludes)) {
                     return false;
                 }
-                
-                GroovyCompilationUnit unit = (GroovyCompilationUnit) JavaCore.create((IFile) resource);
-                if (unit != null && unit.isOnBuildPath()) {
-                    if (monitor.isCanceled()) {
-                        throw new OperationCanceledException();
-                    }
-                    monitor.subTask(resource.getName());
-                    handler.setResource((IFile) resource);
-                    Map<Integer, String> commentsMap = findComments(unit);
-                    StaticTypeCheckerRequestor requestor = new StaticTypeCheckerRequestor(handler, commentsMap, onlyAssertions);
-                    TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                    try {
-                        unit.becomeWorkingCopy(monitor);
-                        visitor.visitCompilationUnit(requestor);
-                    } finally {
-                        unit.discardWorkingCopy();
-                    }
-                }
+                toCheck.add((IFile) resource);
             }
             return true;
         }
-
-        private Map<Integer, String> findComments(GroovyCompilationUnit unit) {
-            List<Comment> comments = unit.getModuleNode().getContext().getComments();
-            Map<Integer, String> allComments = new HashMap<Integer, String>(comments.size());
-            for (Comment comment : comments) {
-                StringTokenizer stok = new StringTokenizer(comment.toString());
-                String type = null;
-                if (stok.hasMoreTokens()) {
-                    // consume the comment start
-                    String val = stok.nextToken();
-                    int typeIndex = val.indexOf("TYPE:");
-                    if (typeIndex > 0) {
-                        type = val.substring(typeIndex + "TYPE:".length());
-                        if (type.length() == 0) {
-                            type = null;
-                        }
-                    }
-                }
-                String candidate;
-                if (stok.hasMoreTokens() && (candidate = stok.nextToken()).startsWith("TYPE:")) {
-                    // may or may not have a space after the colon
-                    if (candidate.equals("TYPE:")) {
-                        if (stok.hasMoreTokens()) {
-                            type = stok.nextToken();
-                        }
-                    } else {
-                        String[] split = candidate.split("\\:");
-                        type = split[1];
-                    }
-                }
-                if (type != null) {
-                    allComments.put(comment.sline, type);
-                }
-            }
-            return allComments;
-        }
     }
-    
+
     private final IStaticCheckerHandler handler;
     private final List<IResource> resources;
 
@@ -130,6 +95,9 @@ public class ResourceTypeChecker {
     protected final char[][] includes;
     protected final char[][] excludes;
     
+    private int threads = 1;
+    private CheckerState state;
+    
     public ResourceTypeChecker(IStaticCheckerHandler handler, String projectName, char[][] includes, char[][] excludes, boolean onlyAssertions) {
         this(handler, createProject(projectName), includes, excludes, onlyAssertions);
     }
@@ -150,6 +118,33 @@ public class ResourceTypeChecker {
         return Collections.<IResource>singletonList(project);
     }
 
+    /**
+     * Sets the number of threads used for checking.  Each file is still inferred
+     * by its own visitor, but up to <code>threads</code> files are inferred at once.
+     * Results are reported to the handler in traversal order, on the calling thread.
+     * @param threads number of worker threads, values less than 2 mean check sequentially
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Enables incremental checking.  Files that were clean in the last run recorded in
+     * <code>stateFile</code> and that have not changed since are skipped.  If the DSLD
+     * scripts or the classpath of the projects have changed since that run, all files
+     * are checked.  DSLD scripts must already have been refreshed.
+     * @param stateFile file to read the previous state from and to save the new state to
+     */
+    public void setIncrementalState(File stateFile) throws IOException, CoreException {
+        Set<IProject> projects = new LinkedHashSet<IProject>();
+        for (IResource resource : resources) {
+            if (resource.getProject() != null) {
+                projects.add(resource.getProject());
+            }
+        }
+        this.state = new CheckerState(stateFile, CheckerState.describeEnvironment(projects));
+    }
+
     /**
      * Performs the tpe checking on the selected resources.
      * @param monitor progress monitor, can be null
@@ -160,15 +155,157 @@ public class ResourceTypeChecker {
         if (monitor == null) {
             monitor = new NullProgressMonitor();
         }
-        monitor.beginTask("Static type analysis", resources.size());
+        List<IFile> toCheck = new ArrayList<IFile>();
+        CheckerVisitor visitor = new CheckerVisitor(toCheck);
         for (IResource resource : resources) {
             if (monitor.isCanceled()) {
                 throw new OperationCanceledException();
             }
-            CheckerVisitor visitor = new CheckerVisitor(monitor);
             resource.accept(visitor);
-            monitor.worked(1);
         }
+        if (state != null) {
+            for (Iterator<IFile> iter = toCheck.iterator(); iter.hasNext();) {
+                if (state.isUnchanged(iter.next())) {
+                    iter.remove();
+                }
+            }
+        }
+        
+        monitor.beginTask("Static type analysis", toCheck.size());
+        if (threads > 1 && toCheck.size() > 1) {
+            checkInParallel(toCheck, monitor);
+        } else {
+            for (IFile file : toCheck) {
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                monitor.subTask(file.getName());
+                int before = handler.numProblemsFound();
+                checkFile(file, handler, monitor);
+                recordResult(file, handler.numProblemsFound() == before);
+                monitor.worked(1);
+            }
+        }
+        saveState();
         return handler.finish(null);
     }
+
+    private void checkInParallel(List<IFile> toCheck, IProgressMonitor monitor) throws CoreException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, toCheck.size()));
+        try {
+            List<Future<BufferingStaticCheckerHandler>> results = new ArrayList<Future<BufferingStaticCheckerHandler>>(toCheck.size());
+            for (final IFile file : toCheck) {
+                results.add(executor.submit(new Callable<BufferingStaticCheckerHandler>() {
+                    public BufferingStaticCheckerHandler call() throws Exception {
+                        BufferingStaticCheckerHandler buffer = new BufferingStaticCheckerHandler();
+                        checkFile(file, buffer, new NullProgressMonitor());
+                        return buffer;
+                    }
+                }));
+            }
+            // report in traversal order
+            for (int i = 0; i < toCheck.size(); i++) {
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                monitor.subTask(toCheck.get(i).getName());
+                BufferingStaticCheckerHandler buffer = waitFor(results.get(i));
+                int before = handler.numProblemsFound();
+                buffer.replay(handler);
+                recordResult(toCheck.get(i), handler.numProblemsFound() == before);
+                monitor.worked(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BufferingStaticCheckerHandler waitFor(Future<BufferingStaticCheckerHandler> result) throws CoreException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            throw new OperationCanceledException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CoreException) {
+                throw (CoreException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CoreException(new Status(IStatus.ERROR, GroovyDSLCoreActivator.PLUGIN_ID, "Static type checking failed", cause));
+        }
+    }
+
+    /**
+     * Infers a single file and reports its problems to the given handler
+     */
+    private void checkFile(IFile file, IStaticCheckerHandler fileHandler, IProgressMonitor monitor) throws CoreException {
+        GroovyCompilationUnit unit = (GroovyCompilationUnit) JavaCore.create(file);
+        if (unit != null && unit.isOnBuildPath()) {
+            long start = System.nanoTime();
+            fileHandler.setResource(file);
+            Map<Integer, String> commentsMap = findComments(unit);
+            StaticTypeCheckerRequestor requestor = new StaticTypeCheckerRequestor(fileHandler, commentsMap, onlyAssertions);
+            TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
+            try {
+                unit.becomeWorkingCopy(monitor);
+                visitor.visitCompilationUnit(requestor);
+            } finally {
+                unit.discardWorkingCopy();
+            }
+            fileHandler.handleResourceEnd(file, System.nanoTime() - start);
+        }
+    }
+
+    private Map<Integer, String> findComments(GroovyCompilationUnit unit) {
+        List<Comment> comments = unit.getModuleNode().getContext().getComments();
+        Map<Integer, String> allComments = new HashMap<Integer, String>(comments.size());
+        for (Comment comment : comments) {
+            StringTokenizer stok = new StringTokenizer(comment.toString());
+            String type = null;
+            if (stok.hasMoreTokens()) {
+                // consume the comment start
+                String val = stok.nextToken();
+                int typeIndex = val.indexOf("TYPE:");
+                if (typeIndex > 0) {
+                    type = val.substring(typeIndex + "TYPE:".length());
+                    if (type.length() == 0) {
+                        type = null;
+                    }
+                }
+            }
+            String candidate;
+            if (stok.hasMoreTokens() && (candidate = stok.nextToken()).startsWith("TYPE:")) {
+                // may or may not have a space after the colon
+                if (candidate.equals("TYPE:")) {
+                    if (stok.hasMoreTokens()) {
+                        type = stok.nextToken();
+                    }
+                } else {
+                    String[] split = candidate.split("\\:");
+                    type = split[1];
+                }
+            }
+            if (type != null) {
+                allComments.put(comment.sline, type);
+            }
+        }
+        return allComments;
+    }
+
+    private void recordResult(IFile file, boolean clean) {
+        if (state != null) {
+            state.recordResult(file, clean);
+        }
+    }
+
+    private void saveState() {
+        if (state != null) {
+            try {
+                state.save();
+            } catch (IOException e) {
+                GroovyDSLCoreActivator.logException("Unable to save static checker state", e);
+            }
+        }
+    }
 }
@@ -72,8 +72,18 @@ public class StaticCheckerApplication implements IApplication {
             System.out.println("Performing static type checking on project " + projectName);
             boolean success = false;
             try {
-                IStaticCheckerHandler handler = new SysoutStaticCheckerHandler(resultFile == null ? System.out : createOutStream(resultFile));
+                PrintStream out = resultFile == null ? System.out : createOutStream(resultFile);
+                IStaticCheckerHandler handler;
+                if (resultFormat == null) {
+                    handler = new SysoutStaticCheckerHandler(out);
+                } else {
+                    handler = new ReportStaticCheckerHandler(out, resultFormat);
+                }
                 ResourceTypeChecker checker = new ResourceTypeChecker(handler, projectName, inclusionFilters, exclusionFilters, assertionsOnly);
+                checker.setThreads(threads);
+                if (incrementalStateFile != null) {
+                    checker.setIncrementalState(new File(incrementalStateFile));
+                }
                 success = checker.doCheck(null);
             } catch (Exception e) {
                 e.printStackTrace();
@@ -127,6 +137,9 @@ public class StaticCheckerApplication implements IApplication {
     private String projectFolderPath;
     Display display;
     private String resultFile;
+    private ReportStaticCheckerHandler.Format resultFormat;
+    private int threads = 1;
+    private String incrementalStateFile;
     
     public Object start(IApplicationContext context) throws Exception {
         processCommandLine((String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS));
@@ -255,6 +268,43 @@ public class StaticCheckerApplication implements IApplication {
                     break;
                 }
                 resultFile = args[++i];
+            } else if (arg.equals("--result_format")) {
+                if (i == args.length-1) {
+                    System.err.println("Missing --result_format argument");
+                    doHelp = true;
+                    break;
+                }
+                String format = args[++i];
+                if (format.equalsIgnoreCase("json")) {
+                    resultFormat = ReportStaticCheckerHandler.Format.JSON;
+                } else if (format.equalsIgnoreCase("junit")) {
+                    resultFormat = ReportStaticCheckerHandler.Format.JUNIT;
+                } else if (!format.equalsIgnoreCase("text")) {
+                    System.err.println("Invalid --result_format argument: " + format);
+                    doHelp = true;
+                    break;
+                }
+            } else if (arg.equals("--threads")) {
+                if (i == args.length-1) {
+                    System.err.println("Missing --threads argument");
+                    doHelp = true;
+                    break;
+                }
+                String num = args[++i];
+                try {
+                    threads = num.equals("auto") ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(num);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid --threads argument: " + num);
+                    doHelp = true;
+                    break;
+                }
+            } else if (arg.equals("--incremental")) {
+                if (i == args.length-1) {
+                    System.err.println("Missing --incremental argument");
+                    doHelp = true;
+                    break;
+                }
+                incrementalStateFile = args[++i];
             }
         }
         
@@ -285,7 +335,7 @@ public class StaticCheckerApplication implements IApplication {
         }
         
         System.out.println("Usage:");
-        System.out.println("eclipse -application org.codehause.groovy.eclipse.staticCheck [--help] [-h] [--extra_dslds <FILES>] [--assertions_only] [--excludes <PATH>] [--includes <PATH>] [--project_path <PATH>] <PROJECT_NAME>");
+        System.out.println("eclipse -application org.codehause.groovy.eclipse.staticCheck [--help] [-h] [--extra_dslds <FILES>] [--assertions_only] [--excludes <PATH>] [--includes <PATH>] [--project_path <PATH>] [--result_file <FILE>] [--result_format text|json|junit] [--threads <NUM>|auto] [--incremental <FILE>] <PROJECT_NAME>");
         System.out.println("where:");
         System.out.println("\t--help OR -h  Print this message and exit.");
         System.out.println("\t--extra_dslds  list of extra dsld files to be included in this check.  Use '|' as a file separator.");
@@ -294,6 +344,9 @@ public class StaticCheckerApplication implements IApplication {
         System.out.println("\t--includes  Project-relative inclusion filters.");
         System.out.println("\t--project_path  File system path to the project to check (only required if project is not already in workspace).");
         System.out.println("\t--result_file  File to send static checking results to.  If not specified, then results sent to sysout.");
+        System.out.println("\t--result_format  Format of the results.  One of 'text' (default), 'json', or 'junit' (JUnit XML).  The json and junit formats include the time taken for each file.");
+        System.out.println("\t--threads  Number of files to check in parallel, or 'auto' to use one thread per processor.  Default is 1.");
+        System.out.println("\t--incremental  File that records which files passed the last check.  Unchanged files that passed are skipped unless the DSLDs or the classpath have changed, and the file is updated after checking.");
         System.out.println("\t<PROJECT_NAME>  Name of a project to type check.  If not already in workspace, then must also use '--project_path'.");
         System.out.println();
         System.out.println("Ant style filters are allowed.  Eg, src/org/codehaus/groovy/**/*.groovy means all files with groovy extensions in the org.codehaus.groovy package or below will be ex/included   Filters can be concentenated using '|'.");
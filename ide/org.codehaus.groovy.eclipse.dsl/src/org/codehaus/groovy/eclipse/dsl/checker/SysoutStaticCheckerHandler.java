@@ -69,6 +69,10 @@ public class SysoutStaticCheckerHandler implements IStaticCheckerHandler {
         // do nothing
     }
     
+    public void handleResourceEnd(IFile resource, long nanos) {
+        // do nothing
+    }
+    
     public boolean finish(Shell shell) {
         String message = createMessage();
         out.println(message);
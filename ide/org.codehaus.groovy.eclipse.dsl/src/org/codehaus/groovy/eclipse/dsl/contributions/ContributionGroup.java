@@ -18,7 +18,10 @@ package org.codehaus.groovy.eclipse.dsl.contributions;
 import groovy.lang.GroovyObjectSupport;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.codehaus.groovy.eclipse.dsl.pointcuts.BindingSet;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
@@ -36,17 +39,21 @@ public class ContributionGroup extends GroovyObjectSupport implements IContribut
     
     protected List<IContributionElement> contributions = new ArrayList<IContributionElement>();
     
-    
+    // lazily created index of contributions keyed by contribution name
+    // cleared whenever a new contribution is added
+    private Map<String, List<IContributionElement>> contributionsByName;
     
     // alternative way to add a method contribution
     public void addMethodContribution(String name, ParameterContribution[] params, String returnType, String declaringType,
             boolean isStatic, boolean useNamedArgs) {
         contributions.add(new MethodContributionElement(name, params, returnType, declaringType, isStatic, DEFAULT_PROVIDER, null, useNamedArgs, false, DEFAULT_RELEVANCE_MULTIPLIER));
+        contributionsByName = null;
     }
 
     // alternative way to add a property contribution
     public void addPropertyContribution(String name, String type, String declaringType, boolean isStatic) {
         contributions.add(new PropertyContributionElement(name, type, declaringType, isStatic, DEFAULT_PROVIDER, null, false, DEFAULT_RELEVANCE_MULTIPLIER));
+        contributionsByName = null;
     }
 
     public List<IContributionElement> getContributions(
@@ -61,5 +68,69 @@ public class ContributionGroup extends GroovyObjectSupport implements IContribut
         return currentContributions;
     }
 
+    public List<IContributionElement> getContributions(
+            GroovyDSLDContext pattern, BindingSet matches, String name) {
+        List<IContributionElement> candidates = getContributionsByName().get(name);
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        List<IContributionElement> currentContributions = new ArrayList<IContributionElement>(candidates.size());
+        for (IContributionElement element : candidates) {
+            if (pattern.matchesType(element.getDeclaringTypeName())) {
+                currentContributions.add(element);
+            }
+        }
+        return currentContributions;
+    }
+
+    /**
+     * The contributions are fixed, so evaluating the group changes nothing
+     */
+    public boolean hasSideEffects() {
+        return false;
+    }
+
+    private synchronized Map<String, List<IContributionElement>> getContributionsByName() {
+        if (contributionsByName == null) {
+            contributionsByName = indexByName(contributions);
+        }
+        return contributionsByName;
+    }
 
+    /**
+     * Groups the contribution elements by their contribution name, keeping
+     * the original order within each name.
+     */
+    protected static Map<String, List<IContributionElement>> indexByName(List<IContributionElement> elts) {
+        Map<String, List<IContributionElement>> index = new HashMap<String, List<IContributionElement>>();
+        for (IContributionElement elt : elts) {
+            List<IContributionElement> named = index.get(elt.contributionName());
+            if (named == null) {
+                named = new ArrayList<IContributionElement>(1);
+                index.put(elt.contributionName(), named);
+            }
+            named.add(elt);
+        }
+        return index;
+    }
+
+    /**
+     * Selects the contribution elements that have the given name.
+     * For groups whose contributions are computed on each request.
+     */
+    protected static List<IContributionElement> filterByName(List<IContributionElement> elts, String name) {
+        if (elts == null || elts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<IContributionElement> named = null;
+        for (IContributionElement elt : elts) {
+            if (name.equals(elt.contributionName())) {
+                if (named == null) {
+                    named = new ArrayList<IContributionElement>(1);
+                }
+                named.add(elt);
+            }
+        }
+        return named == null ? Collections.<IContributionElement>emptyList() : named;
+    }
 }
@@ -123,7 +123,24 @@ public class DSLContributionGroup extends ContributionGroup {
         }
     }
 
-    
+    /**
+     * The closure must be run in full since it may set the delegate type,
+     * but only the elements with the given name are returned
+     */
+    @Override
+    public List<IContributionElement> getContributions(GroovyDSLDContext pattern, BindingSet matches, String name) {
+        return filterByName(getContributions(pattern, matches), name);
+    }
+
+    /**
+     * The closure may set the delegate type, and it cannot be known whether
+     * it does without running it
+     */
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
     @Override
     public Object getProperty(String property) {
         if ("wormhole".equals(property)) {
@@ -23,4 +23,23 @@ import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
  */
 public interface IContributionGroup {
     List<IContributionElement> getContributions(GroovyDSLDContext pattern, BindingSet matches);
+
+    /**
+     * Like {@link #getContributions(GroovyDSLDContext, BindingSet)}, but only returns
+     * the contribution elements whose {@link IContributionElement#contributionName()}
+     * is <code>name</code>.  Any side effects of evaluating the group (eg- setting
+     * the delegate type) still occur.
+     * @param pattern the pattern to match against
+     * @param matches the current bindings
+     * @param name the name of the member being looked up
+     * @return the contributions named <code>name</code>, never null
+     */
+    List<IContributionElement> getContributions(GroovyDSLDContext pattern, BindingSet matches, String name);
+
+    /**
+     * @return true if evaluating the group may have side effects on the pattern
+     * or its scope (eg- setting the delegate type), so that the group must still
+     * be evaluated after the member being looked up has been found
+     */
+    boolean hasSideEffects();
 }
@@ -109,4 +109,9 @@ public class SuggestionsContributionGroup extends ContributionGroup {
         return null;
 
     }
+
+    @Override
+    public List<IContributionElement> getContributions(GroovyDSLDContext pattern, BindingSet matches, String name) {
+        return filterByName(getContributions(pattern, matches), name);
+    }
 }
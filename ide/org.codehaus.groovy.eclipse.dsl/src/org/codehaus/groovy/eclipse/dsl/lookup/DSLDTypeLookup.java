@@ -10,7 +10,6 @@
  *******************************************************************************/
 package org.codehaus.groovy.eclipse.dsl.lookup;
 
-import java.util.List;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassNode;
@@ -19,7 +18,6 @@ import org.codehaus.groovy.ast.stmt.BlockStatement;
 import org.codehaus.groovy.eclipse.dsl.DSLDStore;
 import org.codehaus.groovy.eclipse.dsl.DSLPreferences;
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
-import org.codehaus.groovy.eclipse.dsl.contributions.IContributionElement;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
@@ -62,21 +60,15 @@ public class DSLDTypeLookup extends AbstractSimplifiedTypeLookup implements ITyp
         store = store.createSubStore(pattern);
     }
 
-    // FIXADE Should shortcut if we find a solution earlier.
+    /**
+     * Only contributions named <code>name</code> are consulted
+     */
     @Override
     protected TypeAndDeclaration lookupTypeAndDeclaration(ClassNode declaringType, String name, VariableScope scope) {
         pattern.setCurrentScope(scope);
         pattern.setTargetType(declaringType);
         pattern.setStatic(isStatic());
-        List<IContributionElement> elts = store.findContributions(pattern, disabledScriptsAsSet);
-        declaringType = pattern.getCurrentType(); // may have changed via a setDelegateType
-        for (IContributionElement elt : elts) {
-            TypeAndDeclaration td = elt.lookupType(name, declaringType, pattern.getResolverCache());
-            if (td != null) {
-                return td;
-            }
-        }
-        return null;
+        return store.findContribution(pattern, name, disabledScriptsAsSet);
     }
     
     /**
@@ -10,8 +10,13 @@
  *******************************************************************************/
 package org.codehaus.groovy.eclipse.dsl.lookup;
 
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
@@ -23,17 +28,42 @@ import org.eclipse.jdt.groovy.search.VariableScope;
 /**
  * A wrapper around the JDT resolver that caches
  * resolve requests.  Handles classes with type parameters.
+ * Also caches the super types of each type seen in this module,
+ * so that subtype checks from the pointcuts are cheap.
  * @author andrew
  * @created Nov 21, 2010
  */
 public class ResolverCache {
 
+    /**
+     * All the super types of a single type.  <code>ids</code> has a bit set
+     * for the id of the name of each super type (see {@link ResolverCache#typeIds}).
+     */
+    private static class Hierarchy {
+        final Set<ClassNode> supers;
+        final BitSet ids;
+        Hierarchy(Set<ClassNode> supers, BitSet ids) {
+            this.supers = supers;
+            this.ids = ids;
+        }
+    }
+
     private final Map<String, ClassNode> nameTypeCache;
     private final JDTResolver resolver;
     
+    /** maps type names to a dense id used to index into hierarchy bitsets */
+    private final Map<String, Integer> typeIds;
+    /**
+     * by identity, since ClassNodes with the same name but different
+     * generics have different super types
+     */
+    private final Map<ClassNode, Hierarchy> hierarchyCache;
+    
     public ResolverCache(JDTResolver resolver, ModuleNode thisModule) {
         this.nameTypeCache = new HashMap<String, ClassNode>();
         this.resolver = resolver;
+        this.typeIds = new HashMap<String, Integer>();
+        this.hierarchyCache = new IdentityHashMap<ClassNode, Hierarchy>();
     }
     
     /**
@@ -91,4 +121,81 @@ public class ResolverCache {
         return clazz;
     }
     
+    /**
+     * @param type the type to get the hierarchy for
+     * @return an immutable set of the type and all of its super classes and interfaces, 
+     * starting with the type itself and then super classes before interfaces
+     */
+    public Set<ClassNode> getAllSupers(ClassNode type) {
+        return getHierarchy(type).supers;
+    }
+    
+    /**
+     * @param type the type to check
+     * @param superTypeName fully qualified name of a potential super type
+     * @return true iff type is superTypeName or a sub type of it
+     */
+    public boolean isSubType(ClassNode type, String superTypeName) {
+        Integer id = typeIds.get(superTypeName);
+        return id != null && getHierarchy(type).ids.get(id);
+    }
+    
+    /**
+     * @param type the type to check
+     * @param superTypeName fully qualified name of a potential super type
+     * @return the super type of type with the given name, as it appears in the
+     * hierarchy of type, or null if there is none
+     */
+    public ClassNode findSuperType(ClassNode type, String superTypeName) {
+        Hierarchy hierarchy = getHierarchy(type);
+        Integer id = typeIds.get(superTypeName);
+        if (id == null || !hierarchy.ids.get(id)) {
+            return null;
+        }
+        for (ClassNode sup : hierarchy.supers) {
+            if (sup.getName().equals(superTypeName)) {
+                return sup;
+            }
+        }
+        return null;
+    }
+    
+    private Hierarchy getHierarchy(ClassNode type) {
+        Hierarchy hierarchy = hierarchyCache.get(type);
+        if (hierarchy == null) {
+            // use linked hash set because order is important
+            Set<ClassNode> supers = new LinkedHashSet<ClassNode>();
+            internalGetAllSupers(type, supers);
+            BitSet ids = new BitSet(typeIds.size() + supers.size());
+            for (ClassNode sup : supers) {
+                ids.set(getTypeId(sup));
+            }
+            hierarchy = new Hierarchy(Collections.unmodifiableSet(supers), ids);
+            hierarchyCache.put(type, hierarchy);
+        }
+        return hierarchy;
+    }
+    
+    private int getTypeId(ClassNode type) {
+        Integer id = typeIds.get(type.getName());
+        if (id == null) {
+            id = typeIds.size();
+            typeIds.put(type.getName(), id);
+        }
+        return id;
+    }
+
+    @SuppressWarnings("cast") // keep cast to make 1.6 compile
+    private void internalGetAllSupers(ClassNode type, Set<ClassNode> set) {
+        if (type == null) {
+            return;
+        }
+        set.add(type);
+        internalGetAllSupers(type.getSuperClass(), set);
+        for (ClassNode inter : (Iterable<ClassNode>) type.getAllInterfaces()) {
+            if (! inter.getName().equals(type.getName())) {
+                internalGetAllSupers(inter, set);
+            }
+        }
+    }
 }
@@ -19,6 +19,7 @@ import java.util.Map;
 
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
+import org.codehaus.groovy.eclipse.dsl.DSLDProfiler;
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
 import org.codehaus.groovy.eclipse.dsl.contributions.DSLContributionGroup;
 import org.codehaus.groovy.eclipse.dsl.contributions.IContributionGroup;
@@ -115,7 +116,7 @@ public abstract class AbstractPointcut implements IPointcut {
         }
         Collection<Object> outerResults = new HashSet<Object>();
         for (Object toMatch : allElementsToMatch) {
-            Collection<?> innerResults = argument.matches(pattern, toMatch);
+            Collection<?> innerResults = matchArgument(argument, pattern, toMatch);
             if (innerResults != null) {
                 String bindingName = getArgumentName(argument);
                 if (bindingName != null) {
@@ -136,9 +137,20 @@ public abstract class AbstractPointcut implements IPointcut {
     protected Collection<?> matchOnPointcutArgumentReturnInner(
             IPointcut argument, GroovyDSLDContext pattern, Collection<?> allElementsToMatch) {
         String bindingName = getArgumentName(argument);
+        if (allElementsToMatch.size() == 1) {
+            // common case, avoid copying the results
+            Collection<?> singleResults = matchArgument(argument, pattern, allElementsToMatch.iterator().next());
+            if (singleResults == null || singleResults.isEmpty()) {
+                return null;
+            }
+            if (bindingName != null) {
+                pattern.addToBinding(bindingName, singleResults);
+            }
+            return singleResults;
+        }
         Collection<Object> innerResults = new HashSet<Object>();
         for (Object toMatch : allElementsToMatch) {
-            Collection<?> tempInnerResults = argument.matches(pattern, toMatch);
+            Collection<?> tempInnerResults = matchArgument(argument, pattern, toMatch);
             if (tempInnerResults != null) {
                 innerResults.addAll(tempInnerResults);
             }
@@ -150,6 +162,20 @@ public abstract class AbstractPointcut implements IPointcut {
         return innerResults != null && innerResults.size() > 0 ? innerResults : null;
     }
 
+    /**
+     * matches on a pointcut argument, recording the match in the
+     * {@link DSLDProfiler} if profiling is enabled
+     */
+    private static Collection<?> matchArgument(IPointcut argument, GroovyDSLDContext pattern, Object toMatch) {
+        if (!DSLDProfiler.profiler.isEnabled()) {
+            return argument.matches(pattern, toMatch);
+        }
+        long start = System.nanoTime();
+        Collection<?> results = argument.matches(pattern, toMatch);
+        DSLDProfiler.profiler.recordNestedMatch(argument, results != null, System.nanoTime() - start);
+        return results;
+    }
+
     /**
      * flattens a map of collections into a single collection 
      * @param pointcutResult
@@ -414,6 +440,43 @@ public abstract class AbstractPointcut implements IPointcut {
         return sb.toString();
     }
     
+    /**
+     * @return this pointcut and its arguments on a single line, for example
+     * <code>currentType(subType("java.util.List"))</code>
+     */
+    public String getPointcutDescription() {
+        StringBuilder sb = new StringBuilder();
+        describe(sb);
+        return sb.toString();
+    }
+
+    private void describe(StringBuilder sb) {
+        sb.append(pointcutName).append('(');
+        for (int i = 0; i < elements.size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            String name = elements.nameAt(i);
+            if (name != null) {
+                sb.append(name).append(": ");
+            }
+            Object argument = elements.elementAt(i);
+            if (argument instanceof AbstractPointcut) {
+                ((AbstractPointcut) argument).describe(sb);
+            } else if (argument instanceof String) {
+                sb.append('"').append(argument).append('"');
+            } else if (argument instanceof Class<?>) {
+                sb.append(((Class<?>) argument).getName());
+            } else if (argument instanceof Closure) {
+                // the default string of a closure differs for every evaluation of the script
+                sb.append("{...}");
+            } else {
+                sb.append(argument);
+            }
+        }
+        sb.append(')');
+    }
+
     protected void formatedString(StringBuilder sb, int indent) {
         sb.append(getPointcutDebugName());
         elements.formattedString(sb, indent+2);
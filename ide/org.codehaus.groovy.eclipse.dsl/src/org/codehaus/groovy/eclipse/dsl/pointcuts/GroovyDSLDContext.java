@@ -11,7 +11,8 @@
 package org.codehaus.groovy.eclipse.dsl.pointcuts;
 
 import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassNode;
@@ -125,19 +126,21 @@ public class GroovyDSLDContext {
         return unit.getJavaProject().getProject().getDescription().getNatureIds();
     }
 
-    /** cached type hierarchy for checking type matches (consider caching more) */
-    private Set<ClassNode> cachedHierarchy;
+    /** only used when this object is created from deprecated API, and there is no resolverCache */
+    private ResolverCache hierarchyCache;
 
     private boolean isStatic;
 
     private boolean isPrimaryNode;
+
+    /** results of pointcuts that depend only on the current file, keyed by pointcut */
+    private Map<IPointcut, Collection<?>> fileLevelResults;
     
     /**
      * called by the type lookup, not by the pointcuts
      * @param targetType
      */
     public void setTargetType(ClassNode targetType) {
-        cachedHierarchy = null;
         this.targetType = targetType;
     }
     
@@ -171,6 +174,31 @@ public class GroovyDSLDContext {
         currentBinding.addToBinding(bindingName, toAdd);
     }
     
+    /**
+     * @return true iff a result for the file level pointcut has already been computed for this context
+     */
+    public boolean hasFileLevelResult(IPointcut pointcut) {
+        return fileLevelResults != null && fileLevelResults.containsKey(pointcut);
+    }
+
+    /**
+     * @return the cached result of the file level pointcut (may be null if it did not match)
+     */
+    public Collection<?> getFileLevelResult(IPointcut pointcut) {
+        return fileLevelResults == null ? null : fileLevelResults.get(pointcut);
+    }
+
+    /**
+     * Caches the result of a pointcut that depends only on the current file.
+     * Used by the pointcuts only
+     */
+    public void setFileLevelResult(IPointcut pointcut, Collection<?> result) {
+        if (fileLevelResults == null) {
+            fileLevelResults = new IdentityHashMap<IPointcut, Collection<?>>();
+        }
+        fileLevelResults.put(pointcut, result);
+    }
+
     public boolean matchesNature(String natureId) {
         if (natureId == null) {
             return false;
@@ -200,18 +228,32 @@ public class GroovyDSLDContext {
             return true;
         }
         
-        if (cachedHierarchy == null) {
-            // use linked hash set because order is important
-            cachedHierarchy = new LinkedHashSet<ClassNode>();
-            getAllSupers(toCheck, cachedHierarchy);
+        return getHierarchyCache().isSubType(toCheck, typeName);
+    }
+    
+    /**
+     * @return an immutable set of the type and all of its super types.  
+     * Cached for the lifetime of the module
+     */
+    public Set<ClassNode> getAllSupers(ClassNode type) {
+        return getHierarchyCache().getAllSupers(type);
+    }
+    
+    /**
+     * @return the super type of type (or type itself) with the given name, or null if none
+     */
+    public ClassNode findSuperType(ClassNode type, String superTypeName) {
+        return getHierarchyCache().findSuperType(type, superTypeName);
+    }
+    
+    private ResolverCache getHierarchyCache() {
+        if (resolverCache != null) {
+            return resolverCache;
         }
-        
-        for (ClassNode node : cachedHierarchy) {
-            if (typeName.equals(node.getName())) {
-                return true;
-            }
+        if (hierarchyCache == null) {
+            hierarchyCache = new ResolverCache(null, null);
         }
-        return false;
+        return hierarchyCache;
     }
     
     
@@ -229,20 +271,6 @@ public class GroovyDSLDContext {
         return targetType;
     }
     
-    @SuppressWarnings("cast") // keep cast to make 1.6 compile
-    private void getAllSupers(ClassNode type, Set<ClassNode> set) {
-        if (type == null) {
-            return;
-        }
-        set.add(type);
-        getAllSupers(type.getSuperClass(), set);
-        for (ClassNode inter : (Iterable<ClassNode>) type.getAllInterfaces()) {
-            if (! inter.getName().equals(type.getName())) {
-                getAllSupers(inter, set);
-            }
-        }
-    }
-
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
+
+import java.util.Collection;
+
+import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.eclipse.core.resources.IStorage;
+
+/**
+ * A pointcut whose result depends only on the file being inferred (its name,
+ * folder, project natures, etc) and not on the object being matched.
+ * The result is computed once per {@link GroovyDSLDContext} and reused for
+ * every subsequent expression in the file.  File level pointcuts are
+ * evaluated first inside of an 'and' so that a failing file check
+ * short-circuits the more expensive type checks.
+ */
+public abstract class AbstractFileLevelPointcut extends AbstractPointcut {
+
+    public AbstractFileLevelPointcut(IStorage containerIdentifier, String pointcutName) {
+        super(containerIdentifier, pointcutName);
+    }
+
+    @Override
+    public final Collection<?> matches(GroovyDSLDContext pattern, Object toMatch) {
+        if (pattern.hasFileLevelResult(this)) {
+            return pattern.getFileLevelResult(this);
+        }
+        Collection<?> result = matchesFile(pattern);
+        pattern.setFileLevelResult(this, result);
+        return result;
+    }
+
+    /**
+     * Matches against the current file only
+     * @param pattern the current context
+     * @return collection of objects matched, or null if no match
+     */
+    protected abstract Collection<?> matchesFile(GroovyDSLDContext pattern);
+
+    @Override
+    public boolean fastMatch(GroovyDSLDContext pattern) {
+        return matches(pattern, null) != null;
+    }
+}
@@ -33,15 +33,25 @@ public class AndPointcut extends AbstractPointcut {
     @Override
     public Collection<?> matches(GroovyDSLDContext pattern, Object toMatch) {
         Object[] args = getArgumentValues();
-        Collection<Object> result = new HashSet<Object>();
+        Collection<?> allElementsToMatch = ensureCollection(toMatch);
+        // only copy into a new set once there is more than one result to merge
+        Collection<?> first = null;
+        Collection<Object> result = null;
         for (Object arg : args) {
-            Collection<?> intermediate = matchOnPointcutArgumentReturnInner((IPointcut) arg, pattern, ensureCollection(toMatch));
+            Collection<?> intermediate = matchOnPointcutArgumentReturnInner((IPointcut) arg, pattern, allElementsToMatch);
             if (intermediate == null) {
                 return null;
             }
-            result.addAll(intermediate);
+            if (first == null) {
+                first = intermediate;
+            } else {
+                if (result == null) {
+                    result = new HashSet<Object>(first);
+                }
+                result.addAll(intermediate);
+            }
         }
-        return result.size() > 0 ? result : null;
+        return result != null ? result : first;
     }
 
     /**
@@ -69,12 +79,53 @@ public class AndPointcut extends AbstractPointcut {
                 	newNewAnd.addArgument(name, argument);
                 }
             }
-        	return newNewAnd;
+        	return fileLevelFirst(newNewAnd);
         } else {
         	return newPointcut;
         }
     }
 
+    /**
+     * Moves unnamed file level pointcuts to the front, keeping the relative order
+     * of everything else.  Named arguments stay in place since their bindings 
+     * are observable.
+     */
+    private AndPointcut fileLevelFirst(AndPointcut and) {
+        Object[] argumentValues = and.getArgumentValues();
+        String[] argumentNames = and.getArgumentNames();
+        boolean needsReorder = false;
+        boolean seenOther = false;
+        for (int i = 0; i < argumentValues.length; i++) {
+            if (isUnnamedFileLevel(argumentNames[i], argumentValues[i])) {
+                if (seenOther) {
+                    needsReorder = true;
+                    break;
+                }
+            } else {
+                seenOther = true;
+            }
+        }
+        if (!needsReorder) {
+            return and;
+        }
+        AndPointcut reordered = new AndPointcut(getContainerIdentifier(), "and");
+        for (int i = 0; i < argumentValues.length; i++) {
+            if (isUnnamedFileLevel(argumentNames[i], argumentValues[i])) {
+                reordered.addArgument(argumentNames[i], argumentValues[i]);
+            }
+        }
+        for (int i = 0; i < argumentValues.length; i++) {
+            if (!isUnnamedFileLevel(argumentNames[i], argumentValues[i])) {
+                reordered.addArgument(argumentNames[i], argumentValues[i]);
+            }
+        }
+        return reordered;
+    }
+
+    private static boolean isUnnamedFileLevel(String name, Object argument) {
+        return name == null && argument instanceof AbstractFileLevelPointcut;
+    }
+
     @Override
     public void verify() throws PointcutVerificationException {
         // don't call super
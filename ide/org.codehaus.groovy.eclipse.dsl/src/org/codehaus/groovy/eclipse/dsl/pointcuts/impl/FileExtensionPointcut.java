@@ -13,7 +13,6 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 import java.util.Collection;
 import java.util.Collections;
 
-import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
@@ -26,25 +25,20 @@ import org.eclipse.core.resources.IStorage;
  * @author andrew
  * @created Feb 10, 2011
  */
-public class FileExtensionPointcut extends AbstractPointcut {
+public class FileExtensionPointcut extends AbstractFileLevelPointcut {
 
     public FileExtensionPointcut(IStorage containerIdentifier, String pointcutName) {
         super(containerIdentifier, pointcutName);
     }
 
     @Override
-    public Collection<?> matches(GroovyDSLDContext pattern, Object toMatch) {
+    protected Collection<?> matchesFile(GroovyDSLDContext pattern) {
         if (pattern.fullPathName != null && pattern.fullPathName.endsWith("." + (String) getFirstArgument())) {
             return Collections.singleton(pattern.fullPathName);
         } else {
             return null;
         }
     }
-    
-    @Override
-    public boolean fastMatch(GroovyDSLDContext pattern) {
-        return matches(pattern, null) != null;
-    }
 
     @Override
     public void verify() throws PointcutVerificationException {
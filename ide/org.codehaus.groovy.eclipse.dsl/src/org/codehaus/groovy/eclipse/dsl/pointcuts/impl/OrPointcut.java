@@ -33,14 +33,42 @@ public class OrPointcut extends AbstractPointcut {
     @Override
     public Collection<?> matches(GroovyDSLDContext pattern, Object toMatch) {
         Object[] args = getArgumentValues();
-        Collection<Object> result = new HashSet<Object>();
+        Collection<?> allElementsToMatch = ensureCollection(toMatch);
+        // only copy into a new set once there is more than one result to merge
+        Collection<?> first = null;
+        Collection<Object> result = null;
         for (Object arg : args) {
-            Collection<?> intermediate = matchOnPointcutArgumentReturnInner((IPointcut) arg, pattern, ensureCollection(toMatch));
+            Collection<?> intermediate = matchOnPointcutArgumentReturnInner((IPointcut) arg, pattern, allElementsToMatch);
             if (intermediate != null) {
-                result.addAll(intermediate);
+                if (first == null) {
+                    first = intermediate;
+                } else {
+                    if (result == null) {
+                        result = new HashSet<Object>(first);
+                    }
+                    result.addAll(intermediate);
+                }
+            }
+        }
+        return result != null ? result : first;
+    }
+
+    /**
+     * Only one of the arguments needs to match, so this pointcut can fast match 
+     * if any of its arguments can.
+     */
+    @Override
+    public boolean fastMatch(GroovyDSLDContext pattern) {
+        Object[] args = getArgumentValues();
+        if (args.length == 0) {
+            return true;
+        }
+        for (Object arg : args) {
+            if (!(arg instanceof IPointcut) || ((IPointcut) arg).fastMatch(pattern)) {
+                return true;
             }
         }
-        return result.size() > 0 ? result : null;
+        return false;
     }
 
 
@@ -15,7 +15,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.codehaus.jdt.groovy.model.GroovyNature;
@@ -31,7 +30,7 @@ import org.eclipse.jdt.core.JavaCore;
  * @author andrew
  * @created Feb 10, 2011
  */
-public class ProjectNaturePointcut extends AbstractPointcut {
+public class ProjectNaturePointcut extends AbstractFileLevelPointcut {
     
 
     public ProjectNaturePointcut(IStorage containerIdentifier, String pointcutName) {
@@ -39,7 +38,7 @@ public class ProjectNaturePointcut extends AbstractPointcut {
     }
 
     @Override
-    public Collection<?> matches(GroovyDSLDContext pattern, Object toMatch) {
+    protected Collection<?> matchesFile(GroovyDSLDContext pattern) {
         for (String nature : pattern.projectNatures) {
             Object firstArgument = getFirstArgument();
             if (nature.equals(firstArgument) || nature.equals(SHORTCUTS.get(firstArgument))) {
@@ -48,11 +47,6 @@ public class ProjectNaturePointcut extends AbstractPointcut {
         }
         return null;
     }
-
-    @Override
-    public boolean fastMatch(GroovyDSLDContext pattern) {
-        return matches(pattern, null) != null;
-    }
     
     @Override
     public void verify() throws PointcutVerificationException {
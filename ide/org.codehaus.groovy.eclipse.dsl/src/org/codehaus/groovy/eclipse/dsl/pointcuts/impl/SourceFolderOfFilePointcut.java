@@ -13,7 +13,6 @@ package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 import java.util.Collection;
 import java.util.Collections;
 
-import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutVerificationException;
 import org.eclipse.core.resources.IStorage;
@@ -27,14 +26,14 @@ import org.eclipse.core.resources.IStorage;
  * @author andrew
  * @created Feb 10, 2011
  */
-public class SourceFolderOfFilePointcut extends AbstractPointcut {
+public class SourceFolderOfFilePointcut extends AbstractFileLevelPointcut {
 
     public SourceFolderOfFilePointcut(IStorage containerIdentifier, String pointcutName) {
         super(containerIdentifier, pointcutName);
     }
 
     @Override
-    public Collection<?> matches(GroovyDSLDContext pattern, Object toMatch) {
+    protected Collection<?> matchesFile(GroovyDSLDContext pattern) {
         if (pattern.fullPathName != null && pattern.fullPathName.startsWith((String) getFirstArgument())) {
             return Collections.singleton(pattern.fullPathName);
         } else {
@@ -42,11 +41,6 @@ public class SourceFolderOfFilePointcut extends AbstractPointcut {
         }
     }
 
-    
-    @Override
-    public boolean fastMatch(GroovyDSLDContext pattern) {
-        return matches(pattern, null) != null;
-    }
 
     @Override
     public void verify() throws PointcutVerificationException {
@@ -10,15 +10,15 @@
  *******************************************************************************/
 package org.codehaus.groovy.eclipse.dsl.pointcuts.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
 import org.eclipse.core.resources.IStorage;
 
 /**
@@ -31,30 +31,55 @@ import org.eclipse.core.resources.IStorage;
  */
 public class SubTypePointcut extends FilteringPointcut<ClassNode> {
     
-    private Map<ClassNode, Set<ClassNode>> cachedHierarchies = new HashMap<ClassNode, Set<ClassNode>>();
-
     public SubTypePointcut(IStorage containerIdentifier, String pointcutName) {
         super(containerIdentifier, pointcutName, ClassNode.class);
     }
 
+    /**
+     * Super type hierarchies come from the per-module cache in the {@link GroovyDSLDContext}.
+     * When the argument is a type name, the check is a single lookup in that cache.
+     */
+    @Override
+    public Collection<?> matches(GroovyDSLDContext pattern, Object toMatch) {
+        Object first = getFirstArgument();
+        if (toMatch instanceof ClassNode && !(first instanceof IPointcut)) {
+            String firstArg = asString(first);
+            if (firstArg == null) {
+                return new ArrayList<ClassNode>(pattern.getAllSupers((ClassNode) toMatch));
+            }
+            ClassNode superType = pattern.findSuperType((ClassNode) toMatch, firstArg);
+            return superType == null ? null : Collections.singletonList(superType);
+        }
+        
+        Collection<ClassNode> explodedList = explodeObject(pattern, toMatch);
+        if (explodedList == null || explodedList.size() == 0) {
+            // nothing to match on, return failure
+            return null;
+        }
+        if (first instanceof IPointcut) {
+            // pass the exploded list to the inner pointcut and match on each element of the list
+            return matchOnPointcutArgument((IPointcut) first, pattern, explodedList);
+        } else {
+            return filterResult(explodedList, pattern);
+        }
+    }
     
     /**
-     * Converts toMatch to a collection of property nodes.  Might be null or empty list
+     * Converts toMatch to a collection of all of its super types.  Might be null or empty list
      * In either of these cases, this is considered a non-match
      * @param toMatch the object to explode
      */
-    @Override
-    protected Collection<ClassNode> explodeObject(Object toMatch) {
+    private Collection<ClassNode> explodeObject(GroovyDSLDContext pattern, Object toMatch) {
         if (toMatch instanceof Collection<?>) {
             Set<ClassNode> classes = new LinkedHashSet<ClassNode>();
             for (Object elt : (Collection<?>) toMatch) {
                 if (elt instanceof ClassNode) {
-                    classes.addAll(getAllSupers((ClassNode) elt));
+                    classes.addAll(pattern.getAllSupers((ClassNode) elt));
                 }
             }
             return classes;
         } else if (toMatch instanceof ClassNode) {
-            return getAllSupers(((ClassNode) toMatch));
+            return pattern.getAllSupers(((ClassNode) toMatch));
         }
         return null;
     }
@@ -68,28 +93,4 @@ public class SubTypePointcut extends FilteringPointcut<ClassNode> {
             return null;
         }
     }
-    
-    
-    private Set<ClassNode> getAllSupers(ClassNode type) {
-        Set<ClassNode> cached = cachedHierarchies.get(type);
-        if (cached == null) {
-            cached = new HashSet<ClassNode>();
-            internalGetAllSupers(type, cached);
-            cachedHierarchies.put(type, cached);
-        }
-        return cached;
-    }
-    private void internalGetAllSupers(ClassNode type, Set<ClassNode> set) {
-        if (type == null) {
-            return;
-        }
-        set.add(type);
-        internalGetAllSupers(type.getSuperClass(), set);
-        for (ClassNode inter : type.getAllInterfaces()) {
-            if (! inter.getName().equals(type.getName())) {
-                internalGetAllSupers(inter, set);
-            }
-        }
-    }
-
-}
\ No newline at end of file
+}
@@ -11,6 +11,8 @@
 package org.codehaus.groovy.eclipse.dsl.ui;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -20,6 +22,7 @@ import java.util.Set;
 
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
+import org.codehaus.groovy.eclipse.dsl.DSLDProfiler;
 import org.codehaus.groovy.eclipse.dsl.DSLDStore;
 import org.codehaus.groovy.eclipse.dsl.DSLDStoreManager;
 import org.codehaus.groovy.eclipse.dsl.DSLPreferencesInitializer;
@@ -57,12 +60,18 @@ import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.KeyEvent;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IWorkbench;
@@ -250,6 +259,10 @@ public class DSLPreferencesPage extends PreferencePage implements IWorkbenchPref
 
     private Button disableDSLDs;
     
+    private Button profile;
+    
+    private Text profileReport;
+    
     public DSLPreferencesPage() {
     }
 
@@ -307,9 +320,91 @@ public class DSLPreferencesPage extends PreferencePage implements IWorkbenchPref
             l.setText("NOTE: DSLD support is currently disabled.");
         }
         
+        createProfileGroup(composite);
+        
         return composite;
     }
 
+    /**
+     * Shows the statistics collected by the {@link DSLDProfiler} so that DSLD authors
+     * can see which scripts and pointcuts are slowing down inferencing
+     */
+    private void createProfileGroup(Composite composite) {
+        Group group = new Group(composite, SWT.NONE);
+        group.setText("DSLD Performance");
+        group.setLayout(new GridLayout(3, false));
+        GridData data = new GridData(SWT.FILL, SWT.FILL, true, true);
+        data.horizontalSpan = 2;
+        group.setLayoutData(data);
+
+        profile = new Button(group, SWT.CHECK);
+        profile.setText("Collect DSLD performance statistics (slows down inferencing)");
+        profile.setSelection(DSLDProfiler.profiler.isEnabled());
+        data = new GridData(SWT.LEFT, SWT.TOP, true, false);
+        data.horizontalSpan = 3;
+        profile.setLayoutData(data);
+
+        profileReport = new Text(group, SWT.MULTI | SWT.READ_ONLY | SWT.BORDER | SWT.H_SCROLL | SWT.V_SCROLL);
+        data = new GridData(SWT.FILL, SWT.FILL, true, true);
+        data.horizontalSpan = 3;
+        data.heightHint = new PixelConverter(composite).convertHeightInCharsToPixels(8);
+        profileReport.setLayoutData(data);
+        profileReport.setText(DSLDProfiler.profiler.report());
+
+        Button refreshReport = new Button(group, SWT.PUSH);
+        refreshReport.setText("Refresh Statistics");
+        refreshReport.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                profileReport.setText(DSLDProfiler.profiler.report());
+            }
+        });
+        Button resetReport = new Button(group, SWT.PUSH);
+        resetReport.setText("Reset Statistics");
+        resetReport.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                DSLDProfiler.profiler.reset();
+                profileReport.setText(DSLDProfiler.profiler.report());
+            }
+        });
+        Button exportReport = new Button(group, SWT.PUSH);
+        exportReport.setText("Export Statistics...");
+        exportReport.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                exportProfile();
+            }
+        });
+    }
+
+    protected void exportProfile() {
+        FileDialog dialog = new FileDialog(getShell(), SWT.SAVE);
+        dialog.setFilterExtensions(new String[] { "*.csv" });
+        dialog.setFileName("dsld-profile.csv");
+        String fileName = dialog.open();
+        if (fileName == null) {
+            return;
+        }
+        FileWriter writer = null;
+        try {
+            writer = new FileWriter(fileName);
+            writer.write(DSLDProfiler.profiler.toCSV());
+        } catch (IOException e) {
+            ErrorDialog.openError(getShell(), "Could not export statistics", "See error log: " + e.getLocalizedMessage(), 
+                    new Status(IStatus.ERROR, GroovyDSLCoreActivator.PLUGIN_ID, "Could not export statistics", e));
+            GroovyDSLCoreActivator.logException(e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
     protected IProject toProject(Object element) {
         if (element instanceof String) {
             String name = (String) element;
@@ -432,12 +527,14 @@ public class DSLPreferencesPage extends PreferencePage implements IWorkbenchPref
         checkAll(true);
         DSLPreferencesInitializer.reset();
         autoAdd.setSelection(true);
+        profile.setSelection(false);
     }
 
     @Override
     public boolean performOk() {
         storeChecks();
         store.setValue(DSLPreferencesInitializer.AUTO_ADD_DSL_SUPPORT, autoAdd.getSelection());
+        DSLDProfiler.profiler.setEnabled(profile.getSelection());
         
         boolean origDisabled = store.getBoolean(DSLPreferencesInitializer.DSLD_DISABLED);
         if (origDisabled != disableDSLDs.getSelection()) {
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.codehaus.groovy.eclipse.codeassist.relevance.RelevanceContext;
 import org.codehaus.groovy.eclipse.codeassist.relevance.RelevanceRules;
 import org.codehaus.groovy.eclipse.quickfix.GroovyQuickFixPlugin;
 import org.codehaus.groovy.eclipse.refactoring.actions.OrganizeGroovyImports;
@@ -249,8 +250,10 @@ public class AddMissingGroovyImportsResolver extends AbstractQuickFixResolver {
 		List<IType> suggestions = getImportTypeSuggestions();
 		if (suggestions != null) {
 			List<IJavaCompletionProposal> fixes = new ArrayList<IJavaCompletionProposal>();
+			// the context is the same for every suggestion
+			RelevanceContext context = new RelevanceContext(getContextTypes());
 			for (IType type : suggestions) {
-				int revelance = getRelevance(type);
+				int revelance = getRelevance(type, context);
 				fixes.add(new AddMissingImportProposal(type,
 						getGroovyCompilationUnit(), getQuickFixProblem(),
 						revelance));
@@ -275,7 +278,14 @@ public class AddMissingGroovyImportsResolver extends AbstractQuickFixResolver {
 		if (type == null) {
 			return 0;
 		}
-		return RelevanceRules.ALL_RULES.getRelevance(type, getContextTypes());
+		return getRelevance(type, new RelevanceContext(getContextTypes()));
+	}
+
+	protected int getRelevance(IType type, RelevanceContext context) {
+		if (type == null) {
+			return 0;
+		}
+		return RelevanceRules.ALL_RULES.getRelevance(type, context);
 	}
 
 }
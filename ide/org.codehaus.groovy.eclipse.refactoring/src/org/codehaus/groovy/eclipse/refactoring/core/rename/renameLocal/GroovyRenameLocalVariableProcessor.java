@@ -16,12 +16,14 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.core.rename.renameLocal;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.Variable;
 import org.codehaus.groovy.eclipse.codebrowsing.requestor.ASTNodeFinder;
 import org.codehaus.groovy.eclipse.codebrowsing.requestor.Region;
+import org.codehaus.groovy.eclipse.core.search.OccurrenceIndex;
 import org.codehaus.groovy.eclipse.refactoring.Activator;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
@@ -44,7 +46,6 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
-import org.eclipse.jdt.groovy.search.LocalVariableReferenceRequestor;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
@@ -244,10 +245,12 @@ public class GroovyRenameLocalVariableProcessor extends JavaRenameProcessor {
                 throw new RuntimeException(e);
             }
         }
-        LocalVariableReferenceRequestor requestor = new LocalVariableReferenceRequestor(variable, localVariable.getParent());
-        TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-        visitor.visitCompilationUnit(requestor);
-        return requestor.getReferences();
+        // shared with mark occurrences and rename in the editor
+        OccurrenceIndex index = OccurrenceIndex.forUnit(unit);
+        if (index == null) {
+            return new ArrayList<IRegion>();
+        }
+        return index.findLocalVariableReferences(variable, localVariable.getParent());
 
     }
 
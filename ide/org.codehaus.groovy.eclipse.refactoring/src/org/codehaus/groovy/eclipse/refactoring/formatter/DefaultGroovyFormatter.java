@@ -18,6 +18,10 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.formatter;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Vector;
 import java.util.regex.Matcher;
@@ -35,16 +39,14 @@ import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.refactoring.core.utils.ASTTools;
 import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.ASTNodeInfo;
 import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.ASTScanner;
+import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.predicates.IASTNodePredicate;
 import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.predicates.IncludesClosureOrListPredicate;
-import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.predicates.SourceCodePredicate;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextSelection;
 import org.eclipse.jface.text.TextSelection;
-import org.eclipse.text.edits.MultiTextEdit;
-import org.eclipse.text.edits.ReplaceEdit;
 import org.eclipse.text.edits.TextEdit;
 import org.eclipse.text.edits.UndoEdit;
 
@@ -67,6 +69,13 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
     private KlenkDocumentScanner tokens;
     private int indentationLevel = 0;
 
+    /**
+     * All nodes of {@link #rootNode} that have a position, keyed by their
+     * start line and column, in the order in which they are visited. Built
+     * the first time a node is looked up for a token.
+     */
+    private Map<Long, Map<ASTNode, ASTNodeInfo>> nodesByPosition;
+
     /**
      * Default Formatter for the Groovy-Eclipse Plugin
      *
@@ -114,15 +123,26 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
         GroovyCore.trace(formattedDocument.get());
         tokens = new KlenkDocumentScanner(formattedDocument);
         rootNode = ASTTools.getASTNodeFromSource(formattedDocument.get());
+        nodesByPosition = null;
         if (rootNode == null) {
             // caused by unparseable file
             throw new Exception("Could not format.  Problem parsing Compilation unit.  Fix all syntax errors and try again.");
         }
     }
 
+    /**
+     * Beautifies and then indents a copy of the document.  The text is parsed
+     * once, and again before indenting only if the beautifier changed it,
+     * because all lookups are by line and column of the current text.  Each
+     * formatter works on its own copy, so many units can be formatted in
+     * parallel, as the format pipeline of the UI does for Format All.
+     *
+     * @return an edit that replaces only the region that changed
+     */
     @Override
     public TextEdit format() {
-        formattedDocument = new Document(document.get());
+        String original = document.get();
+        formattedDocument = new Document(original);
         try {
             if (!indentOnly) {
                 initCodebase();
@@ -133,7 +153,13 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
                 formatLength += lengthAfter - lengthBefore;
             }
 
-            initCodebase();
+            if (!indentOnly && formattedDocument.get().equals(original)) {
+                // nothing changed, so the AST can be used again, but the
+                // beautifier has disposed of the tokens
+                tokens = new KlenkDocumentScanner(formattedDocument);
+            } else {
+                initCodebase();
+            }
             GroovyIndentation indent = new GroovyIndentation(this, pref, indentationLevel);
             UndoEdit undo2 = indent.getIndentationEdits().apply(formattedDocument);
             formatLength += undo2.getLength();
@@ -148,11 +174,7 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
             GroovyCore.logWarning("Cannot format, probably due to compilation errors.  Please fix and try again.", e);
         }
 
-        if (formattedDocument.get().equals(document.get())) {
-            return new MultiTextEdit();
-        }
-
-        return new ReplaceEdit(0, document.getLength(), formattedDocument.get());
+        return createEdit(original, formattedDocument.get());
     }
 
     /**
@@ -246,24 +268,16 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
      *         length
      */
     public ASTNode findCorrespondingNode(Token t) {
-
-        ASTScanner scanner = new ASTScanner(rootNode,
-                                            new SourceCodePredicate(t.getLine(), t.getColumn()),
-                                            formattedDocument);
-        scanner.startASTscan();
-        Entry<ASTNode, ASTNodeInfo> found = null;
-        if (scanner.hasMatches()) {
-            for (Entry<ASTNode, ASTNodeInfo> e : scanner.getMatchedNodes().entrySet()) {
-                if (found == null || (found.getValue().getLength() < e.getValue().getLength()))
-                    found = e;
+        ASTNode found = null;
+        int foundLength = 0;
+        for (Entry<ASTNode, ASTNodeInfo> e : getNodesAt(t).entrySet()) {
+            int length = e.getValue().getLength();
+            if (found == null || foundLength < length) {
+                found = e.getKey();
+                foundLength = length;
             }
         }
-
-        if (found != null) {
-            return found.getKey();
-        } else {
-            return null;
-        }
+        return found;
     }
 
     /**
@@ -274,18 +288,53 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
      * @return
      */
     public ClosureExpression findCorrespondingClosure(Token t) {
-        ASTScanner scanner = new ASTScanner(rootNode, new SourceCodePredicate(t.getLine(), t.getColumn()), formattedDocument);
-        scanner.startASTscan();
         ClosureExpression found = null;
-        if (scanner.hasMatches()) {
-            for (Entry<ASTNode, ASTNodeInfo> e : scanner.getMatchedNodes().entrySet()) {
-                if (e.getKey() instanceof ClosureExpression) {
-                    found = (ClosureExpression) e.getKey();
-                }
+        for (ASTNode node : getNodesAt(t).keySet()) {
+            if (node instanceof ClosureExpression) {
+                found = (ClosureExpression) node;
             }
         }
         return found;
     }
+
+    /**
+     * @return the nodes that start at the same line and column as the token,
+     *         in the order in which they are visited, the same as the matches
+     *         of an {@link ASTScanner} for that position
+     */
+    private Map<ASTNode, ASTNodeInfo> getNodesAt(Token t) {
+        if (nodesByPosition == null) {
+            // scan the whole AST once, instead of once for every token
+            nodesByPosition = new HashMap<Long, Map<ASTNode, ASTNodeInfo>>();
+            ASTScanner scanner = new ASTScanner(rootNode, new IASTNodePredicate() {
+                public ASTNode evaluate(ASTNode input) {
+                    return input.getLineNumber() > 0 ? input : null;
+                }
+            }, formattedDocument) {
+                @Override
+                protected void doOnPredicate(ASTNode node) {
+                    super.doOnPredicate(node);
+                    // the matches of the scanner are keyed by equality, and
+                    // all references to a type are equal, so only nodes at
+                    // the same position may share a key
+                    Long position = toPosition(node.getLineNumber(), node.getColumnNumber());
+                    Map<ASTNode, ASTNodeInfo> nodes = nodesByPosition.get(position);
+                    if (nodes == null) {
+                        nodes = new LinkedHashMap<ASTNode, ASTNodeInfo>(4);
+                        nodesByPosition.put(position, nodes);
+                    }
+                    nodes.put(node, getMatchedNodes().get(node));
+                }
+            };
+            scanner.startASTscan();
+        }
+        Map<ASTNode, ASTNodeInfo> nodes = nodesByPosition.get(toPosition(t.getLine(), t.getColumn()));
+        return nodes != null ? nodes : Collections.<ASTNode, ASTNodeInfo> emptyMap();
+    }
+
+    private static Long toPosition(int line, int column) {
+        return Long.valueOf(((long) line << 32) | (column & 0xffffffffL));
+    }
     /**
      * Return a token after many () if there is no opening {
      *
@@ -439,7 +488,12 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
     }
 
     public int getPosOfToken(int tokenType, int line, int column, String tokenText) {
-        for (int p = 0; p < tokens.size(); p++) {
+        int first = tokens.indexAt(line, column);
+        if (first < 0) {
+            return -1;
+        }
+        // tokens rarely share a position, so the first one is almost always it
+        for (int p = first; p < tokens.size(); p++) {
             Token a = tokens.get(p);
             if (a.getType() == tokenType &&
                 a.getColumn() == column &&
@@ -451,12 +505,7 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
     }
 
     public int getPosOfToken(int lineNumber, int columnNumber) {
-        for (int p = 0; p < tokens.size(); p++) {
-            Token a = tokens.get(p);
-            if (a.getColumn() == columnNumber && a.getLine() == lineNumber)
-                return p;
-        }
-        return -1;
+        return tokens.indexAt(lineNumber, columnNumber);
     }
 
     /**
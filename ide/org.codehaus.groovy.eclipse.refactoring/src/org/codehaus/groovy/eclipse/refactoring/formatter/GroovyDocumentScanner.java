@@ -15,6 +15,9 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.formatter;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,9 +40,13 @@ import antlr.TokenStreamException;
  * This class provides methods to retrieve tokens for a given IDocument
  * presumed to contain Groovy source code.
  * <p>
- * A sophisticated implementation could try to work incrementally and invalidate
- * only some tokens when the document is changed. This implementation is rather
- * naive and clears the whole cache on every document change.
+ * The tokens are kept up to date incrementally when the document is changed.
+ * Scanning restarts at the start of the line before the change (or further
+ * back, if that line is inside parentheses or a GString), and stops as soon as
+ * the tokens after the change line up with the old ones again, at the start of
+ * a line. The remaining old tokens are kept and moved by the number of lines
+ * that were added or removed. Whenever this is not possible, all the tokens
+ * are thrown away and the whole document is scanned again when needed.
  *
  * @author kdvolder
  * @created 2010-05-26
@@ -61,8 +68,21 @@ public class GroovyDocumentScanner implements IDocumentListener {
      */
     protected List<Token> tokens;
 
+    /**
+     * For each token, the number of braces around it if scanning can be
+     * restarted at that token, or -1 if it can't. Null if the tokens can't be
+     * updated incrementally.
+     */
+    private int[] restartDepths;
+
+    /** Where to restart scanning for the document change that is under way */
+    private Change pendingChange;
+
     private GroovyScanner tokenScanner;
 
+    /** Set when the scanner had to recover from an error */
+    private boolean recovered;
+
     /** At most this number of scanner errors will be reported */
     private static int logLimit = 4;
 
@@ -76,10 +96,258 @@ public class GroovyDocumentScanner implements IDocumentListener {
     }
 
     public void documentChanged(DocumentEvent event) {
-        reset();
+        Change change = pendingChange;
+        pendingChange = null;
+        if (change == null || !rescan(change)) {
+            reset();
+        }
     }
 
-    public void documentAboutToBeChanged(DocumentEvent event) {}
+    public void documentAboutToBeChanged(DocumentEvent event) {
+        pendingChange = null;
+        if (tokens != null && restartDepths != null) {
+            try {
+                pendingChange = new Change(event);
+            } catch (BadLocationException e) {
+                // scan everything again
+            }
+        }
+    }
+
+    /**
+     * Where scanning restarts for a document change, computed from the tokens
+     * and the document before the change.
+     */
+    private class Change {
+        /** index of the first token that is scanned again */
+        final int restartIndex;
+        final int restartOffset;
+        final int restartLine;
+        final int restartColumn;
+        final int restartDepth;
+        /** offset of the changed text */
+        final int offset;
+        /** antlr line of the end of the replaced text, before the change */
+        final int endLine;
+        /** number of lines added by the change, negative if lines are removed */
+        final int lineDelta;
+
+        Change(DocumentEvent event) throws BadLocationException {
+            offset = event.getOffset();
+            int index = findTokenFrom(offset);
+            if (index == NOT_FOUND) {
+                index = tokens.size();
+            }
+            // the token before the change may be changed too, e.g. when typing
+            // at the end of an identifier
+            index = Math.max(0, index - 1);
+            while (restartDepths[index] < 0) {
+                index--;
+            }
+            Token restart = tokens.get(index);
+            restartIndex = index;
+            restartOffset = getOffset(restart);
+            restartLine = restart.getLine();
+            restartColumn = restart.getColumn();
+            restartDepth = restartDepths[index];
+
+            int firstLine = document.getLineOfOffset(offset);
+            int lastLine = document.getLineOfOffset(offset + event.getLength());
+            endLine = lastLine + 1;
+            String text = event.getText();
+            lineDelta = (text == null ? 0 : document.computeNumberOfLines(text)) - (lastLine - firstLine);
+        }
+    }
+
+    /**
+     * Scan the changed part of the document again and replace the tokens that
+     * it used to have.
+     *
+     * @return false if the tokens could not be updated, and should be thrown
+     *         away
+     */
+    private boolean rescan(Change change) {
+        try {
+            recovered = false;
+            tokenScanner = new GroovyScanner(new BufferedReader(new DocumentReader(document, change.restartOffset)),
+                    change.restartLine, change.restartColumn, change.restartDepth);
+            Nesting nesting = new Nesting(change.restartDepth);
+            List<Token> scanned = new ArrayList<Token>();
+            List<Integer> scannedDepths = new ArrayList<Integer>();
+            int oldIndex = change.restartIndex;
+            int resyncIndex = tokens.size();
+            boolean pastChange = false;
+            while (true) {
+                Token token = nextToken();
+                if (recovered) {
+                    return false;
+                }
+                int depth = nesting.getRestartDepth();
+                nesting.accept(token);
+
+                if (!pastChange && token.getType() != GroovyTokenTypeBridge.EOF && getEnd(token) < change.offset) {
+                    // must be the same as before, or scanning did not restart
+                    // in the right state
+                    if (oldIndex >= tokens.size() || !isSame(tokens.get(oldIndex), token, 0)) {
+                        return false;
+                    }
+                    oldIndex++;
+                } else {
+                    pastChange = true;
+                    if (depth >= 0 && token.getLine() > change.endLine + change.lineDelta) {
+                        // skip the old tokens that are before this one
+                        while (oldIndex < tokens.size() && isBefore(tokens.get(oldIndex), change.lineDelta, token)) {
+                            oldIndex++;
+                        }
+                        if (oldIndex < tokens.size() && restartDepths[oldIndex] == depth
+                                && isSame(tokens.get(oldIndex), token, change.lineDelta)) {
+                            // scanning any further produces the old tokens
+                            resyncIndex = oldIndex;
+                            break;
+                        }
+                    }
+                }
+                scanned.add(token);
+                scannedDepths.add(depth);
+                if (token.getType() == GroovyTokenTypeBridge.EOF) {
+                    break;
+                }
+            }
+
+            int oldCount = tokens.size();
+            if (change.lineDelta != 0) {
+                for (int i = resyncIndex; i < oldCount; i++) {
+                    GroovySourceToken token = (GroovySourceToken) tokens.get(i);
+                    token.setLine(token.getLine() + change.lineDelta);
+                    token.setLineLast(token.getLineLast() + change.lineDelta);
+                }
+            }
+            List<Token> replaced = tokens.subList(change.restartIndex, resyncIndex);
+            replaced.clear();
+            replaced.addAll(scanned);
+
+            int[] depths = new int[tokens.size()];
+            System.arraycopy(restartDepths, 0, depths, 0, change.restartIndex);
+            for (int i = 0; i < scanned.size(); i++) {
+                depths[change.restartIndex + i] = scannedDepths.get(i);
+            }
+            System.arraycopy(restartDepths, resyncIndex, depths, change.restartIndex + scanned.size(), oldCount - resyncIndex);
+            restartDepths = depths;
+            return true;
+        } catch (Exception e) {
+            if (logLimit-- > 0) {
+                Util.log(e);
+            }
+            return false;
+        }
+    }
+
+    private static boolean isSame(Token oldToken, Token newToken, int lineDelta) {
+        if (oldToken.getType() != newToken.getType() || oldToken.getLine() + lineDelta != newToken.getLine()
+                || oldToken.getColumn() != newToken.getColumn()) {
+            return false;
+        }
+        String text = oldToken.getText();
+        return text == null ? newToken.getText() == null : text.equals(newToken.getText());
+    }
+
+    private static boolean isBefore(Token oldToken, int lineDelta, Token newToken) {
+        int line = oldToken.getLine() + lineDelta;
+        return line < newToken.getLine() || (line == newToken.getLine() && oldToken.getColumn() < newToken.getColumn());
+    }
+
+    /**
+     * Follows the nesting of parentheses, braces and GStrings that the lexer
+     * keeps track of, to tell where the lexer can be restarted: after a newline
+     * token, when all enclosing braces were opened outside of parentheses and
+     * GStrings, the state of the lexer only depends on the number of braces.
+     */
+    private static class Nesting {
+        /** parentheses and brackets inside the innermost brace */
+        private int parens;
+        private boolean inString;
+        private boolean afterNewline = true;
+        /** for each open brace, the parens and inString from before it */
+        private final List<Integer> braces = new ArrayList<Integer>();
+        /** number of open braces that were opened inside parentheses or a GString */
+        private int unsafeBraces;
+
+        Nesting(int braceDepth) {
+            for (int i = 0; i < braceDepth; i++) {
+                braces.add(0);
+            }
+        }
+
+        /**
+         * @return the number of enclosing braces if the lexer can be restarted
+         *         at the next token, or -1 if it can't
+         */
+        int getRestartDepth() {
+            return afterNewline && parens == 0 && !inString && unsafeBraces == 0 ? braces.size() : -1;
+        }
+
+        void accept(Token token) {
+            int type = token.getType();
+            afterNewline = type == GroovyTokenTypeBridge.NLS;
+            if (type == GroovyTokenTypeBridge.LPAREN || type == GroovyTokenTypeBridge.LBRACK) {
+                parens++;
+            } else if (type == GroovyTokenTypeBridge.RPAREN || type == GroovyTokenTypeBridge.RBRACK) {
+                parens--;
+            } else if (type == GroovyTokenTypeBridge.STRING_CTOR_START) {
+                inString = true;
+            } else if (type == GroovyTokenTypeBridge.STRING_CTOR_END) {
+                inString = false;
+            } else if (type == GroovyTokenTypeBridge.LCURLY) {
+                int saved = parens * 2 + (inString ? 1 : 0);
+                braces.add(saved);
+                if (saved != 0) {
+                    unsafeBraces++;
+                }
+                parens = 0;
+                inString = false;
+            } else if (type == GroovyTokenTypeBridge.RCURLY && !braces.isEmpty()) {
+                // like the lexer, ignore unmatched closing braces
+                int saved = braces.remove(braces.size() - 1);
+                if (saved != 0) {
+                    unsafeBraces--;
+                }
+                parens = saved / 2;
+                inString = saved % 2 != 0;
+            }
+        }
+    }
+
+    /**
+     * Reads the contents of a document from an offset onward, without copying
+     * it all into a string first.
+     */
+    private static class DocumentReader extends Reader {
+        private final IDocument document;
+        private int offset;
+
+        DocumentReader(IDocument document, int offset) {
+            this.document = document;
+            this.offset = offset;
+        }
+
+        @Override
+        public int read(char[] buffer, int start, int length) throws IOException {
+            int count = Math.min(length, document.getLength() - offset);
+            if (count <= 0) {
+                return -1;
+            }
+            try {
+                document.get(offset, count).getChars(0, count, buffer, start);
+            } catch (BadLocationException e) {
+                throw new IOException(e.getMessage());
+            }
+            offset += count;
+            return count;
+        }
+
+        @Override
+        public void close() {}
+    }
 
     /**
      * This method must be called internally before operating on the list of
@@ -94,8 +362,10 @@ public class GroovyDocumentScanner implements IDocumentListener {
     protected void ensureScanned(int end) {
         if (tokens == null) {
             // We haven't started scanning yet. Initialise the scanner and token list.
+            recovered = false;
             tokenScanner = new GroovyScanner(document.get());
             tokens = getTokensIncludingEOF();
+            restartDepths = computeRestartDepths();
         }
     }
 
@@ -115,12 +385,31 @@ public class GroovyDocumentScanner implements IDocumentListener {
         return result;
     }
 
+    /**
+     * @return the restart depth of each token, or null if the tokens can't be
+     *         updated incrementally
+     */
+    private int[] computeRestartDepths() {
+        if (recovered || tokens.isEmpty() || tokens.get(tokens.size() - 1).getType() != GroovyTokenTypeBridge.EOF) {
+            // the nesting after an error or a recovery is not known
+            return null;
+        }
+        int[] depths = new int[tokens.size()];
+        Nesting nesting = new Nesting(0);
+        for (int i = 0; i < depths.length; i++) {
+            depths[i] = nesting.getRestartDepth();
+            nesting.accept(tokens.get(i));
+        }
+        return depths;
+    }
+
     private Token nextToken() throws TokenStreamException, BadLocationException {
         Token token;
         try {
             token = tokenScanner.nextToken();
         } catch (TokenStreamException e) {
             // Try to recover
+            recovered = true;
             tokenScanner.recover(document);
             // If it fails again we give up.
             token = tokenScanner.nextToken();
@@ -134,6 +423,7 @@ public class GroovyDocumentScanner implements IDocumentListener {
      */
     private void reset() {
         tokens = null;
+        restartDepths = null;
     }
 
     /**
@@ -20,6 +20,8 @@ package org.codehaus.groovy.eclipse.refactoring.formatter;
 
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextSelection;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
 import org.eclipse.text.edits.TextEdit;
 
 public abstract class GroovyFormatter {
@@ -39,4 +41,30 @@ public abstract class GroovyFormatter {
      * @return the text edit
      */
     public abstract TextEdit format();
+
+    /**
+     * @return an edit that replaces only the part of the original text that
+     *         is different from the formatted text, or an
+     *         empty edit if they are the same
+     */
+    public static TextEdit createEdit(String original, String formatted) {
+        MultiTextEdit edit = new MultiTextEdit();
+        if (formatted.equals(original)) {
+            return edit;
+        }
+        int prefix = 0;
+        int maxPrefix = Math.min(original.length(), formatted.length());
+        while (prefix < maxPrefix && original.charAt(prefix) == formatted.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix
+                && original.charAt(original.length() - 1 - suffix) == formatted.charAt(formatted.length() - 1 - suffix)) {
+            suffix++;
+        }
+        edit.addChild(new ReplaceEdit(prefix, original.length() - prefix - suffix, formatted.substring(prefix,
+                formatted.length() - suffix)));
+        return edit;
+    }
 }
@@ -18,6 +18,8 @@ package org.codehaus.groovy.eclipse.refactoring.formatter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Vector;
 
 import org.codehaus.greclipse.GroovyTokenTypeBridge;
@@ -61,6 +63,12 @@ public class KlenkDocumentScanner extends GroovyDocumentScanner {
     // to line numbers
     // in any meaningful way.
 
+    /**
+     * Index in {@link #tokens} of the first token at each line and column,
+     * built together with the tokens
+     */
+    private Map<Long, Integer> tokenPositions;
+
     public KlenkDocumentScanner(IDocument doc) {
         super(doc);
     }
@@ -113,6 +121,26 @@ public class KlenkDocumentScanner extends GroovyDocumentScanner {
         tokens.add(token);
         line.add(token);
         tokenLines.add(line);
+
+        tokenPositions = new HashMap<Long, Integer>(tokens.size() * 2);
+        for (int i = tokens.size() - 1; i >= 0; i--) {
+            Token t = tokens.get(i);
+            tokenPositions.put(toPosition(t.getLine(), t.getColumn()), i);
+        }
+    }
+
+    private static Long toPosition(int line, int column) {
+        return Long.valueOf(((long) line << 32) | (column & 0xffffffffL));
+    }
+
+    /**
+     * @return the index of the first token that starts at the given line and
+     *         column, or -1 if there is no such token
+     */
+    public int indexAt(int line, int column) {
+        ensureScanned(Integer.MAX_VALUE);
+        Integer index = tokenPositions.get(toPosition(line, column));
+        return index != null ? index.intValue() : -1;
     }
 
     private boolean equalTokens(Token t1, Token t2) {
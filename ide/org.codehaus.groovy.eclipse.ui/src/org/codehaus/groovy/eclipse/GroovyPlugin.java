@@ -23,6 +23,7 @@ import org.codehaus.groovy.eclipse.editor.GroovyOutlineTools;
 import org.codehaus.groovy.eclipse.editor.GroovyTextTools;
 import org.codehaus.groovy.eclipse.preferences.AskToConvertLegacyProjects;
 import org.codehaus.groovy.eclipse.refactoring.actions.DelegatingCleanUpPostSaveListener;
+import org.codehaus.groovy.eclipse.refactoring.actions.TypeCandidateCache;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
@@ -181,6 +182,7 @@ public class GroovyPlugin extends AbstractUIPlugin {
         outlineTools = new GroovyOutlineTools();
         addMonospaceFontListener();
         DelegatingCleanUpPostSaveListener.installCleanUp();
+        TypeCandidateCache.startListening();
 
         // ensure that the user doesn't see any useless warning dialogs when breakpoints are added
         // to a closure
@@ -246,6 +248,7 @@ public class GroovyPlugin extends AbstractUIPlugin {
         outlineTools.dispose();
         outlineTools = null;
         DelegatingCleanUpPostSaveListener.uninstallCleanUp();
+        TypeCandidateCache.stopListening();
         removeMonospaceFontListener();
 
         // undo the preference store damage
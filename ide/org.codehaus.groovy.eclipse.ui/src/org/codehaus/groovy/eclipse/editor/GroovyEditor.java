@@ -125,6 +125,8 @@ import org.eclipse.swt.events.VerifyEvent;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.part.FileEditorInput;
@@ -636,6 +638,33 @@ public class GroovyEditor extends CompilationUnitEditor {
 
     private GroovySemanticReconciler semanticReconciler;
 
+    private final GroovyReconcileScheduler reconcileScheduler = new GroovyReconcileScheduler(this);
+
+    /**
+     * Refreshes the outline once the contents have settled, rather than each
+     * time the outline is synchronized with the selection.
+     */
+    private final IGroovyReconcilingListener outlineRefresher = new IGroovyReconcilingListener() {
+        public void reconciled(GroovyReconcileScheduler.Snapshot snapshot, IProgressMonitor monitor) {
+            final GroovyOutlinePage outlinePage = page;
+            if (outlinePage == null || monitor.isCanceled()) {
+                return;
+            }
+            Shell shell = getSite().getShell();
+            if (shell == null || shell.isDisposed()) {
+                return;
+            }
+            shell.getDisplay().asyncExec(new Runnable() {
+                public void run() {
+                    Control control = outlinePage.getControl();
+                    if (control != null && !control.isDisposed()) {
+                        outlinePage.refresh();
+                    }
+                }
+            });
+        }
+    };
+
     private final GroovyBracketInserter groovyBracketInserter = new GroovyBracketInserter();
 
     public GroovyEditor() {
@@ -659,14 +688,20 @@ public class GroovyEditor extends CompilationUnitEditor {
         return (GroovyConfiguration) getSourceViewerConfiguration();
     }
 
+    /**
+     * @return the scheduler that tells listeners when the contents of this
+     *         editor have settled after a burst of edits
+     */
+    public GroovyReconcileScheduler getReconcileScheduler() {
+        return reconcileScheduler;
+    }
+
     private void installGroovySemanticHighlighting() {
         try {
             fSemanticManager.uninstall();
             semanticReconciler = new GroovySemanticReconciler();
             semanticReconciler.install(this, (JavaSourceViewer) this.getSourceViewer());
-            ReflectionUtils.executePrivateMethod(CompilationUnitEditor.class, "addReconcileListener",
-                    new Class[] { IJavaReconcilingListener.class }, this, new Object[] { semanticReconciler });
-
+            reconcileScheduler.addListener(semanticReconciler);
         } catch (SecurityException e) {
             GroovyCore.logException("Unable to install semantic reconciler for groovy editor", e);
         }
@@ -675,9 +710,8 @@ public class GroovyEditor extends CompilationUnitEditor {
     private void uninstallGroovySemanticHighlighting() {
         if (semanticHighlightingInstalled()) {
             try {
+                reconcileScheduler.removeListener(semanticReconciler);
                 semanticReconciler.uninstall();
-                ReflectionUtils.executePrivateMethod(CompilationUnitEditor.class, "removeReconcileListener",
-                        new Class[] { IJavaReconcilingListener.class }, this, new Object[] { semanticReconciler });
                 semanticReconciler = null;
             } catch (SecurityException e) {
                 GroovyCore.logException("Unable to uninstall semantic reconciler for groovy editor", e);
@@ -689,10 +723,32 @@ public class GroovyEditor extends CompilationUnitEditor {
         return semanticReconciler != null;
     }
 
+    private void installReconcileScheduler() {
+        try {
+            reconcileScheduler.addListener(outlineRefresher);
+            ReflectionUtils.executePrivateMethod(CompilationUnitEditor.class, "addReconcileListener",
+                    new Class[] { IJavaReconcilingListener.class }, this, new Object[] { reconcileScheduler });
+        } catch (SecurityException e) {
+            GroovyCore.logException("Unable to install reconcile scheduler for groovy editor", e);
+        }
+    }
+
+    private void uninstallReconcileScheduler() {
+        try {
+            ReflectionUtils.executePrivateMethod(CompilationUnitEditor.class, "removeReconcileListener",
+                    new Class[] { IJavaReconcilingListener.class }, this, new Object[] { reconcileScheduler });
+            reconcileScheduler.removeListener(outlineRefresher);
+            reconcileScheduler.dispose();
+        } catch (SecurityException e) {
+            GroovyCore.logException("Unable to uninstall reconcile scheduler for groovy editor", e);
+        }
+    }
+
 
     @Override
     public void dispose() {
         super.dispose();
+        uninstallReconcileScheduler();
         uninstallGroovySemanticHighlighting();
 
         ISourceViewer sourceViewer= getSourceViewer();
@@ -967,6 +1023,7 @@ public class GroovyEditor extends CompilationUnitEditor {
     public void createPartControl(Composite parent) {
         super.createPartControl(parent);
         unsetJavaBreakpointUpdater();
+        installReconcileScheduler();
         installGroovySemanticHighlighting();
 
         IPreferenceStore preferenceStore = getPreferenceStore();
@@ -1411,9 +1468,7 @@ public class GroovyEditor extends CompilationUnitEditor {
 
     @Override
     protected void synchronizeOutlinePage(ISourceReference element, boolean checkIfOutlinePageActive) {
-        if (page != null) {
-            page.refresh();
-        }
+        // the outline itself is refreshed by the outlineRefresher after each reconcile
         super.synchronizeOutlinePage(element, checkIfOutlinePageActive);
     }
 
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.editor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.eclipse.core.GroovyCore;
+import org.codehaus.groovy.eclipse.core.search.OccurrenceIndex;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+/**
+ * Runs the Groovy specific work that follows a reconcile of a Groovy editor
+ * (semantic highlighting, refreshing the outline) in one background job, so
+ * that there is at most one pass per typing pause.
+ * <p>
+ * Every reconcile replaces the snapshot that the next pass will work on and
+ * reschedules the job after a short delay, so a burst of reconciles results
+ * in a single pass.  A reconcile that starts while a pass is running cancels
+ * the monitor of that pass, since its results would be stale anyway, and the
+ * job runs again for the newer snapshot once the stale pass has returned.
+ * All listeners of a pass share its {@link Snapshot}, and with it the module
+ * node and the inferencing results of that module, which are computed at most
+ * once per pass by the first listener that asks for them.
+ */
+public class GroovyReconcileScheduler implements IJavaReconcilingListener {
+
+    /** how long to wait for further reconciles before starting a pass */
+    private static final long DELAY = 100;
+
+    /**
+     * The state of a unit right after it has been reconciled: its module node,
+     * its contents and the modification stamp of the editor's document.
+     */
+    public static class Snapshot {
+        private final GroovyCompilationUnit unit;
+        private final ModuleNode module;
+        private final char[] contents;
+        private final IDocument document;
+        private final long modificationStamp;
+
+        /** the inferencing results of the module, once computed */
+        private OccurrenceIndex inferencingResults;
+
+        Snapshot(GroovyCompilationUnit unit, IDocument document) {
+            this.unit = unit;
+            this.document = document;
+            this.modificationStamp = getModificationStamp(document);
+            this.module = unit.getModuleNode();
+            this.contents = unit.getContents();
+        }
+
+        public GroovyCompilationUnit getUnit() {
+            return unit;
+        }
+
+        /**
+         * @return the module node that the reconcile produced, or null if the
+         *         unit could not be parsed
+         */
+        public ModuleNode getModule() {
+            return module;
+        }
+
+        /**
+         * @return the contents of the unit that the module was built from
+         */
+        public char[] getContents() {
+            return contents;
+        }
+
+        /**
+         * @return every node of the module with the result of inferring its
+         *         type, which are computed by one inferencing pass the first
+         *         time this is called and then shared by all listeners, or
+         *         null if the unit has been reconciled again since this
+         *         snapshot was taken
+         */
+        public synchronized OccurrenceIndex getInferencingResults() {
+            if (inferencingResults == null) {
+                inferencingResults = OccurrenceIndex.forModule(unit, module);
+            }
+            return inferencingResults;
+        }
+
+        /**
+         * @return false iff the document has been changed since the unit was
+         *         reconciled, so that any positions computed for this snapshot
+         *         no longer match the document
+         */
+        public boolean isCurrent() {
+            return modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP
+                    || modificationStamp == getModificationStamp(document);
+        }
+
+        private static long getModificationStamp(IDocument document) {
+            if (document instanceof IDocumentExtension4) {
+                return ((IDocumentExtension4) document).getModificationStamp();
+            }
+            return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+        }
+    }
+
+    private final GroovyEditor editor;
+
+    private final List<IGroovyReconcilingListener> listeners = new CopyOnWriteArrayList<IGroovyReconcilingListener>();
+
+    /** the snapshot for the next pass, or null if there is nothing to do */
+    private Snapshot pending;
+
+    private final Job job = new Job("Groovy reconcile") {
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            Snapshot snapshot = takePending();
+            if (snapshot == null) {
+                return Status.OK_STATUS;
+            }
+            monitor.beginTask("Groovy reconcile", listeners.size());
+            try {
+                for (IGroovyReconcilingListener listener : listeners) {
+                    if (monitor.isCanceled()) {
+                        return Status.CANCEL_STATUS;
+                    }
+                    try {
+                        listener.reconciled(snapshot, new SubProgressMonitor(monitor, 1));
+                    } catch (RuntimeException e) {
+                        GroovyCore.logException("Exception after reconciling " + snapshot.getUnit().getElementName(), e);
+                    }
+                }
+            } finally {
+                monitor.done();
+            }
+            return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+        }
+    };
+
+    public GroovyReconcileScheduler(GroovyEditor editor) {
+        this.editor = editor;
+        job.setSystem(true);
+        job.setPriority(Job.DECORATE);
+    }
+
+    public void addListener(IGroovyReconcilingListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(IGroovyReconcilingListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Cancels the current pass and forgets any pending one.
+     */
+    public void dispose() {
+        takePending();
+        job.cancel();
+    }
+
+    private synchronized Snapshot takePending() {
+        Snapshot snapshot = pending;
+        pending = null;
+        return snapshot;
+    }
+
+    public void aboutToBeReconciled() {
+        // a running pass is working on contents that are about to change
+        job.cancel();
+    }
+
+    public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+        if (progressMonitor != null && progressMonitor.isCanceled()) {
+            // the document has changed again and another reconcile will follow
+            return;
+        }
+        GroovyCompilationUnit unit = editor.getGroovyCompilationUnit();
+        if (unit == null || listeners.isEmpty()) {
+            return;
+        }
+        IDocument document = editor.getDocumentProvider().getDocument(editor.getEditorInput());
+        synchronized (this) {
+            pending = new Snapshot(unit, document);
+        }
+        job.cancel();
+        job.schedule(DELAY);
+    }
+}
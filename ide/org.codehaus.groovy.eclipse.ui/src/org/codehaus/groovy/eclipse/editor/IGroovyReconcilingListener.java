@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.editor;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Is told by a {@link GroovyReconcileScheduler} when the contents of a Groovy
+ * editor have settled after a burst of edits.
+ */
+public interface IGroovyReconcilingListener {
+
+    /**
+     * Called from a background job, once for each typing pause. The monitor
+     * is canceled as soon as the editor is reconciled again, at which point
+     * any further work for this snapshot is wasted.
+     *
+     * @param snapshot the state of the unit after the last reconcile
+     * @param monitor the monitor of the pass, never null
+     */
+    void reconciled(GroovyReconcileScheduler.Snapshot snapshot, IProgressMonitor monitor);
+}
@@ -22,6 +22,7 @@ import java.util.Collections;
 import org.codehaus.groovy.eclipse.GroovyPlugin;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.core.preferences.PreferenceConstants;
+import org.codehaus.groovy.eclipse.core.search.OccurrenceIndex;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
@@ -37,6 +38,17 @@ public class GatherSemanticReferences {
     }
 
     public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences() {
+        return findSemanticHighlightingReferences(unit.getContents(), -1);
+    }
+
+    /**
+     * Finds the references in the member enclosing the offset
+     *
+     * @param contents the contents of the unit
+     * @param offset a location inside the member to visit, or -1 to visit the
+     *        whole compilation unit
+     */
+    public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences(char[] contents, int offset) {
         if (preferences.getBoolean(PreferenceConstants.GROOVY_SEMANTIC_HIGHLIGHTING) /*
                                                                                       * &&
                                                                                       * unit
@@ -47,9 +59,34 @@ public class GatherSemanticReferences {
                                                                                       */) {
 
             try {
-                SemanticHighlightingReferenceRequestor typeRequestor = new SemanticHighlightingReferenceRequestor(unit.getContents());
+                SemanticHighlightingReferenceRequestor typeRequestor = new SemanticHighlightingReferenceRequestor(contents);
                 TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                visitor.visitCompilationUnit(typeRequestor);
+                if (offset < 0) {
+                    visitor.visitCompilationUnit(typeRequestor);
+                } else {
+                    visitor.visitEnclosingMember(typeRequestor, offset);
+                }
+                return typeRequestor.typedPosition;
+            } catch (Exception e) {
+                GroovyCore.logException("Exception with semantic highlighting", e);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Finds the references of the whole compilation unit from inferencing
+     * results that have already been computed, rather than inferring again
+     *
+     * @param contents the contents of the unit that the results are for
+     * @param inferencingResults the results of inferring the whole unit
+     */
+    public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences(char[] contents,
+            OccurrenceIndex inferencingResults) {
+        if (preferences.getBoolean(PreferenceConstants.GROOVY_SEMANTIC_HIGHLIGHTING)) {
+            try {
+                SemanticHighlightingReferenceRequestor typeRequestor = new SemanticHighlightingReferenceRequestor(contents);
+                inferencingResults.replay(typeRequestor);
                 return typeRequestor.typedPosition;
             } catch (Exception e) {
                 GroovyCore.logException("Exception with semantic highlighting", e);
@@ -57,4 +94,4 @@ public class GatherSemanticReferences {
         }
         return Collections.emptyList();
     }
-}
\ No newline at end of file
+}
@@ -23,22 +23,22 @@ import greclipse.org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingPres
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.codehaus.groovy.eclipse.GroovyPlugin;
 import org.codehaus.groovy.eclipse.core.preferences.PreferenceConstants;
 import org.codehaus.groovy.eclipse.editor.GroovyColorManager;
 import org.codehaus.groovy.eclipse.editor.GroovyEditor;
+import org.codehaus.groovy.eclipse.editor.GroovyReconcileScheduler;
+import org.codehaus.groovy.eclipse.editor.IGroovyReconcilingListener;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaSourceViewer;
 import org.eclipse.jdt.internal.ui.text.JavaPresentationReconciler;
-import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
 import org.eclipse.jface.preference.PreferenceConverter;
 import org.eclipse.jface.text.TextAttribute;
 import org.eclipse.jface.text.TextPresentation;
@@ -56,7 +56,13 @@ import org.eclipse.ui.IWorkbenchPartSite;
  * @created Oct 13, 2009
  *
  */
-public class GroovySemanticReconciler implements IJavaReconcilingListener {
+public class GroovySemanticReconciler implements IGroovyReconcilingListener {
+
+    private static final Comparator<HighlightedPosition> BY_OFFSET = new Comparator<HighlightedPosition>() {
+        public int compare(HighlightedPosition p1, HighlightedPosition p2) {
+            return p1.getOffset() - p2.getOffset();
+        }
+    };
 
     private final Object fReconcileLock= new Object();
     private GroovyEditor editor;
@@ -79,6 +85,8 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
     private HighlightingStyle numberRefHighlighting;
     private SemanticHighlightingPresenter presenter;
 
+    private final IncrementalSemanticReferences references = new IncrementalSemanticReferences();
+
     /**
      * <code>true</code> if any thread is executing
      * <code>reconcile</code>, <code>false</code> otherwise.
@@ -123,13 +131,10 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         presenter.uninstall();
         presenter = null;
         editor = null;
+        references.reset();
     }
 
-    public void aboutToBeReconciled() { }
-
-    @SuppressWarnings("unchecked")
-    public void reconciled(CompilationUnit ast, boolean forced,
-            IProgressMonitor progressMonitor) {
+    public void reconciled(GroovyReconcileScheduler.Snapshot snapshot, IProgressMonitor progressMonitor) {
 
         // ensure that only one thread can enter here at a time
         synchronized (fReconcileLock) {
@@ -142,28 +147,32 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         try {
             progressMonitor.beginTask("Groovy semantic highlighting", 100);
 
-            GroovyCompilationUnit unit = editor.getGroovyCompilationUnit();
-            if (unit != null) {
-                presenter.setCanceled(progressMonitor.isCanceled());
-                GatherSemanticReferences finder = new GatherSemanticReferences(unit);
-                Collection<HighlightedTypedPosition> semanticReferences = finder.findSemanticHighlightingReferences();
+            // only a change of the document may cancel the presenter from now on;
+            // a change before this point is caught by comparing modification stamps
+            presenter.setCanceled(false);
+            GroovyCompilationUnit unit = snapshot.getUnit();
+            if (unit != null && !progressMonitor.isCanceled() && snapshot.isCurrent()) {
+                Collection<HighlightedTypedPosition> semanticReferences = references.findSemanticHighlightingReferences(snapshot);
                 progressMonitor.worked(50);
-
-                List<HighlightedPosition> newPositions = new LinkedList<HighlightedPosition>();
-                List<HighlightedPosition> removedPositions = new LinkedList<HighlightedPosition>();
-
-                for (HighlightedPosition oldPosition : (Iterable<HighlightedPosition>) presenter.fPositions) {
-                    if (oldPosition != null) {
-                        removedPositions.add(oldPosition);
-                    }
+                if (progressMonitor.isCanceled() || !snapshot.isCurrent()) {
+                    // the document has been changed while inferring, so these positions are stale
+                    return;
                 }
+
+                // the old positions have already been moved by the document's position updater,
+                // so positions that are unaffected by the edits still match their new counterparts
+                List<HighlightedPosition> oldPositions = new ArrayList<HighlightedPosition>();
+                presenter.addAllPositions(oldPositions);
                 progressMonitor.worked(20);
                 List<HighlightedPosition> semanticReferencesHighlighted = new ArrayList<HighlightedPosition>(semanticReferences.size());
                 for (HighlightedTypedPosition pos : semanticReferences) {
-                    HighlightedPosition range = createHighlightedPosition(pos);
-                    maybeAddPosition(newPositions, removedPositions, range);
-                    semanticReferencesHighlighted.add(range);
+                    semanticReferencesHighlighted.add(createHighlightedPosition(pos));
                 }
+                Collections.sort(semanticReferencesHighlighted, BY_OFFSET);
+
+                List<HighlightedPosition> newPositions = new ArrayList<HighlightedPosition>();
+                List<HighlightedPosition> removedPositions = new ArrayList<HighlightedPosition>();
+                diffPositions(oldPositions, semanticReferencesHighlighted, newPositions, removedPositions);
                 progressMonitor.worked(20);
 
                 TextPresentation textPresentation = null;
@@ -171,7 +180,7 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
                     textPresentation= presenter.createPresentation(newPositions, removedPositions);
                 }
 
-                if (!presenter.isCanceled()) {
+                if (!presenter.isCanceled() && snapshot.isCurrent()) {
                     updatePresentation(textPresentation, newPositions, removedPositions);
                 }
                 progressMonitor.worked(10);
@@ -208,23 +217,46 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         return null;
     }
 
-    private void maybeAddPosition(List<HighlightedPosition> newPositions, List<HighlightedPosition> oldPositionsCopy,
-            HighlightedPosition maybePosition) {
-        boolean found = false;
-        for (Iterator<HighlightedPosition> positionIter = oldPositionsCopy.iterator(); positionIter.hasNext();) {
-            HighlightedPosition oldPosition = positionIter.next();
-            if (oldPosition.isEqual(maybePosition.offset, maybePosition.length, maybePosition.getHighlighting())) {
-                positionIter.remove();
-                found = true;
-                break;
+    /**
+     * Compares the positions currently shown with the positions just computed.
+     * Both lists are sorted by offset, so they can be merged in a single pass
+     * rather than searching all of the old positions for each new one.
+     *
+     * @param oldPositions the positions of the presenter, sorted by offset
+     * @param currentPositions the positions just computed, sorted by offset
+     * @param addedPositions receives the current positions that are not shown yet
+     * @param removedPositions receives the old positions that are no longer current
+     */
+    private void diffPositions(List<HighlightedPosition> oldPositions, List<HighlightedPosition> currentPositions,
+            List<HighlightedPosition> addedPositions, List<HighlightedPosition> removedPositions) {
+        int n = oldPositions.size();
+        boolean[] kept = new boolean[n];
+        int i = 0;
+        for (HighlightedPosition position : currentPositions) {
+            int offset = position.getOffset();
+            while (i < n && (oldPositions.get(i) == null || oldPositions.get(i).getOffset() < offset)) {
+                i++;
+            }
+            // several positions may start at the same offset
+            boolean found = false;
+            for (int j = i; j < n && oldPositions.get(j) != null && oldPositions.get(j).getOffset() == offset; j++) {
+                if (!kept[j] && oldPositions.get(j).isEqual(offset, position.getLength(), position.getHighlighting())) {
+                    kept[j] = true;
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                addedPositions.add(position);
             }
         }
-        if (!found) {
-            newPositions.add(maybePosition);
+        for (int j = 0; j < n; j++) {
+            if (!kept[j] && oldPositions.get(j) != null) {
+                removedPositions.add(oldPositions.get(j));
+            }
         }
     }
 
-
     /**
      * Update the presentation.
      *
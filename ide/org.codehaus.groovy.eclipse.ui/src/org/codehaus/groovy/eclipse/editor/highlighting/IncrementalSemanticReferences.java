@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.groovy.eclipse.editor.highlighting;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ConstructorNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.eclipse.GroovyPlugin;
+import org.codehaus.groovy.eclipse.core.GroovyCore;
+import org.codehaus.groovy.eclipse.core.preferences.PreferenceConstants;
+import org.codehaus.groovy.eclipse.core.search.OccurrenceIndex;
+import org.codehaus.groovy.eclipse.editor.GroovyReconcileScheduler;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Remembers the semantic highlighting of the previous reconcile of an editor,
+ * so that when only the body of a single method has been edited since then,
+ * only that method is inferred again.  The references of the rest of the
+ * file are reused, moved by the change in length of the method.
+ * <p>
+ * Any other edit (to a field, a declaration, an import, or spanning several
+ * members), and a reconcile without any edit, for example after a type that
+ * the file depends on has changed, infers the whole file again.
+ */
+public class IncrementalSemanticReferences {
+
+    /** the contents that {@link #previousReferences} were computed for */
+    private char[] previousContents;
+
+    private SortedSet<HighlightedTypedPosition> previousReferences;
+
+    public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences(GroovyCompilationUnit unit) {
+        return findSemanticHighlightingReferences(unit, unit.getContents(), null);
+    }
+
+    /**
+     * If the whole unit has to be highlighted, the inferencing results of the
+     * snapshot are used, so that they are shared with the other listeners of
+     * the reconcile instead of inferring the unit again.
+     */
+    public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences(GroovyReconcileScheduler.Snapshot snapshot) {
+        return findSemanticHighlightingReferences(snapshot.getUnit(), snapshot.getContents(), snapshot);
+    }
+
+    private Collection<HighlightedTypedPosition> findSemanticHighlightingReferences(GroovyCompilationUnit unit, char[] contents,
+            GroovyReconcileScheduler.Snapshot snapshot) {
+        if (!GroovyPlugin.getDefault().getPreferenceStore().getBoolean(PreferenceConstants.GROOVY_SEMANTIC_HIGHLIGHTING)) {
+            reset();
+            return Collections.emptyList();
+        }
+        GatherSemanticReferences finder = new GatherSemanticReferences(unit);
+        SortedSet<HighlightedTypedPosition> references = null;
+        if (previousContents != null) {
+            references = updateEditedMethod(unit, finder, contents);
+        }
+        if (references == null) {
+            OccurrenceIndex inferencingResults = snapshot != null ? snapshot.getInferencingResults() : null;
+            if (inferencingResults != null) {
+                references = new TreeSet<HighlightedTypedPosition>(finder.findSemanticHighlightingReferences(contents,
+                        inferencingResults));
+            } else {
+                references = new TreeSet<HighlightedTypedPosition>(finder.findSemanticHighlightingReferences(contents, -1));
+            }
+        }
+        previousContents = contents;
+        previousReferences = references;
+        return references;
+    }
+
+    public void reset() {
+        previousContents = null;
+        previousReferences = null;
+    }
+
+    /**
+     * @return all references of the unit, or null if the edits since the last
+     * reconcile are not confined to the body of one method
+     */
+    private SortedSet<HighlightedTypedPosition> updateEditedMethod(GroovyCompilationUnit unit, GatherSemanticReferences finder,
+            char[] contents) {
+        // the edited region is [start,oldEnd) in the previous contents and [start,newEnd) in the current contents
+        int oldLength = previousContents.length, newLength = contents.length;
+        int start = 0, max = Math.min(oldLength, newLength);
+        while (start < max && previousContents[start] == contents[start]) {
+            start++;
+        }
+        if (start == max && oldLength == newLength) {
+            return null;
+        }
+        int oldEnd = oldLength, newEnd = newLength;
+        while (oldEnd > start && newEnd > start && previousContents[oldEnd - 1] == contents[newEnd - 1]) {
+            oldEnd--;
+            newEnd--;
+        }
+        int delta = newLength - oldLength;
+
+        IMethod method = findOutermostMethod(unit, start);
+        if (method == null) {
+            return null;
+        }
+        int methodStart, methodEnd;
+        try {
+            ISourceRange range = method.getSourceRange();
+            ISourceRange nameRange = method.getNameRange();
+            methodStart = range.getOffset();
+            methodEnd = methodStart + range.getLength();
+            if (nameRange == null || nameRange.getOffset() < methodStart) {
+                // synthetic, such as the run method of a script
+                return null;
+            }
+            // not the first '{' after the name, which may open a closure in the default value of a parameter
+            MethodNode node = findMethodNode(unit.getModuleNode(), nameRange.getOffset());
+            Statement code = node == null ? null : node.getCode();
+            if (code == null || code.getStart() < nameRange.getOffset() + nameRange.getLength()) {
+                return null;
+            }
+            int bodyStart = code.getStart();
+            // the signature of a method affects references to it, so only changes inside of the body are confined to it
+            if (start <= bodyStart || newEnd >= methodEnd) {
+                return null;
+            }
+        } catch (JavaModelException e) {
+            GroovyCore.logException("Exception with semantic highlighting", e);
+            return null;
+        }
+        int oldMethodEnd = methodEnd - delta;
+
+        SortedSet<HighlightedTypedPosition> references = new TreeSet<HighlightedTypedPosition>();
+        for (HighlightedTypedPosition pos : previousReferences) {
+            if (pos.getOffset() < methodStart) {
+                references.add(pos);
+            } else if (pos.getOffset() >= oldMethodEnd) {
+                references.add(new HighlightedTypedPosition(pos.getOffset() + delta, pos.getLength(), pos.kind));
+            }
+        }
+        // the enclosing type declarations are visited too, but their references are already known
+        for (HighlightedTypedPosition pos : finder.findSemanticHighlightingReferences(contents, start)) {
+            if (pos.getOffset() >= methodStart && pos.getOffset() < methodEnd) {
+                references.add(pos);
+            }
+        }
+        return references;
+    }
+
+    /**
+     * @return the method enclosing the offset that is not itself inside of a
+     * method, or null if the offset is not inside of a method or is inside
+     * of a field or initializer
+     */
+    private IMethod findOutermostMethod(GroovyCompilationUnit unit, int offset) {
+        IJavaElement element;
+        try {
+            element = unit.getElementAt(offset);
+        } catch (JavaModelException e) {
+            GroovyCore.logException("Exception with semantic highlighting", e);
+            return null;
+        }
+        IMethod method = null;
+        for (; element != null && element.getElementType() != IJavaElement.COMPILATION_UNIT; element = element.getParent()) {
+            switch (element.getElementType()) {
+                case IJavaElement.METHOD:
+                    method = (IMethod) element;
+                    break;
+                case IJavaElement.TYPE:
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return method;
+    }
+
+    /**
+     * @return the method or constructor whose name starts at the offset, or
+     * null if there is none
+     */
+    private static MethodNode findMethodNode(ModuleNode module, int nameStart) {
+        if (module == null) {
+            return null;
+        }
+        for (ClassNode clazz : (Iterable<ClassNode>) module.getClasses()) {
+            for (ConstructorNode constructor : clazz.getDeclaredConstructors()) {
+                if (constructor.getNameStart() == nameStart) {
+                    return constructor;
+                }
+            }
+            for (MethodNode method : clazz.getMethods()) {
+                if (method.getNameStart() == nameStart) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -16,6 +16,7 @@
 package org.codehaus.groovy.eclipse.editor.outline;
 
 import org.codehaus.groovy.eclipse.editor.GroovyEditor;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.ISourceReference;
 import org.eclipse.jdt.internal.ui.IJavaHelpContextIds;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
@@ -49,11 +50,28 @@ public class GroovyOutlinePage extends JavaOutlinePage {
     public void refresh() {
         initializeViewer();
 
-        outlineUnit.refresh();
+        OCompilationUnit.Delta delta = outlineUnit.refreshIncrementally();
+        if (delta == null) {
+            // the outline is up to date
+            return;
+        }
 
         JavaOutlineViewer outlineViewer = getOutlineViewer();
         if (outlineViewer != null) {
-            outlineViewer.refresh();
+            if (delta.refreshAll) {
+                outlineViewer.refresh();
+                return;
+            }
+            // only show what has changed, rather than rebuilding the whole tree
+            if (!delta.removed.isEmpty()) {
+                outlineViewer.remove(delta.removed.toArray());
+            }
+            if (!delta.added.isEmpty()) {
+                outlineViewer.add(outlineUnit, delta.added.toArray());
+            }
+            for (IJavaElement element : delta.changed) {
+                outlineViewer.refresh(element);
+            }
         }
     }
 
@@ -102,6 +120,8 @@ public class GroovyOutlinePage extends JavaOutlinePage {
 
             }
         }
+        // the outline is only refreshed after the editor has been reconciled
+        initializeViewer();
     }
 
     /**
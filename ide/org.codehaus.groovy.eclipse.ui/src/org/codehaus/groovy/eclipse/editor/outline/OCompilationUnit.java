@@ -15,7 +15,13 @@
  */
 package org.codehaus.groovy.eclipse.editor.outline;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
@@ -81,6 +87,30 @@ public abstract class OCompilationUnit extends GroovyCompilationUnit implements
         return unit.getModuleNode();
     }
 
+    /**
+     * The difference between the children before and after a refresh.
+     */
+    public static class Delta {
+        /** new children that have no counterpart among the previous ones */
+        public final List<IJavaElement> added = new ArrayList<IJavaElement>();
+
+        /** previous children that have no counterpart among the new ones */
+        public final List<IJavaElement> removed = new ArrayList<IJavaElement>();
+
+        /** children that have been kept, but whose subtree may have changed */
+        public final List<IJavaElement> changed = new ArrayList<IJavaElement>();
+
+        /**
+         * true if the kept children are no longer in the same order, or some
+         * children cannot be told apart, so that the whole outline has to be
+         * refreshed
+         */
+        public boolean refreshAll;
+    }
+
+    /** the module that {@link #children} were computed from */
+    private ASTNode childrenNode;
+
     /**
      * refresh children
      */
@@ -90,12 +120,124 @@ public abstract class OCompilationUnit extends GroovyCompilationUnit implements
         }
     }
 
+    /**
+     * refresh children with {@link #refresh()}, unless they have already been
+     * computed from the current module.
+     * <p>
+     * A new child with the same handle identifier as one of the previous
+     * children is replaced by that previous child, which is updated to refer
+     * to the new AST, so that the outline viewer can keep showing it. Only the
+     * differences then need to be shown, rather than refreshing the whole
+     * outline after every reconcile.
+     *
+     * @return the differences with the previous children, or null if the
+     *         children have not been recomputed
+     */
+    public Delta refreshIncrementally() {
+        if (!this.exists()) {
+            return null;
+        }
+        ASTNode node = getNode();
+        if (children != null && node != null && node == childrenNode) {
+            return null;
+        }
+        IJavaElement[] previous = children;
+        refresh();
+        childrenNode = node;
+        return reuse(previous, children);
+    }
+
+    /**
+     * Replaces the elements of <code>current</code> that have an equivalent
+     * element in <code>previous</code> by that element.
+     */
+    private static Delta reuse(IJavaElement[] previous, IJavaElement[] current) {
+        Delta delta = new Delta();
+        if (previous == null || current == null) {
+            // nothing to compare with
+            delta.refreshAll = true;
+            return delta;
+        }
+        Map<String, IJavaElement> previousByHandle = new HashMap<String, IJavaElement>();
+        Map<IJavaElement, Integer> previousIndex = new IdentityHashMap<IJavaElement, Integer>();
+        for (int i = 0; i < previous.length; i++) {
+            String handle = previous[i].getHandleIdentifier();
+            if (previousByHandle.containsKey(handle)) {
+                // the viewer would not be able to tell them apart either
+                delta.refreshAll = true;
+            } else {
+                previousByHandle.put(handle, previous[i]);
+                previousIndex.put(previous[i], i);
+            }
+        }
+        Set<String> currentHandles = new HashSet<String>();
+        int lastIndex = -1;
+        for (int i = 0; i < current.length; i++) {
+            String handle = current[i].getHandleIdentifier();
+            if (!currentHandles.add(handle)) {
+                delta.refreshAll = true;
+            }
+            IJavaElement kept = previousByHandle.remove(handle);
+            if (kept == null || !takeOver(kept, current[i])) {
+                delta.added.add(current[i]);
+                continue;
+            }
+            current[i] = kept;
+            int index = previousIndex.get(kept);
+            if (index < lastIndex) {
+                delta.refreshAll = true;
+            }
+            lastIndex = index;
+            if (kept instanceof OType) {
+                if (!((OType) kept).takeOverChildren((OType) current[i])) {
+                    delta.changed.add(kept);
+                }
+            } else if (!(kept instanceof IOJavaElement)) {
+                // java model handles may have new members
+                delta.changed.add(kept);
+            }
+        }
+        Map<IJavaElement, Boolean> kept = new IdentityHashMap<IJavaElement, Boolean>();
+        for (IJavaElement element : current) {
+            kept.put(element, Boolean.TRUE);
+        }
+        for (IJavaElement element : previous) {
+            if (!kept.containsKey(element)) {
+                delta.removed.add(element);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * @return true iff <code>previous</code> can stand in for
+     *         <code>current</code>, in which case it has been updated to refer
+     *         to the AST of <code>current</code>
+     */
+    static boolean takeOver(IJavaElement previous, IJavaElement current) {
+        if (previous.getClass() != current.getClass()) {
+            return false;
+        }
+        if (previous instanceof OType) {
+            return ((OType) previous).takeOver((OType) current);
+        } else if (previous instanceof OMethod) {
+            return ((OMethod) previous).takeOver((OMethod) current);
+        } else if (previous instanceof OField) {
+            return ((OField) previous).takeOver((OField) current);
+        } else if (previous instanceof IOJavaElement) {
+            return false;
+        }
+        // a handle of the java model, whose information is never stale
+        return true;
+    }
+
     /**
      * get children
      */
     @Override
     public IJavaElement[] getChildren() {
         if (children == null) {
+            childrenNode = getNode();
             refresh();
         }
         return children;
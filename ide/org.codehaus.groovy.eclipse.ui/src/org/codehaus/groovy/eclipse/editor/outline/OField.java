@@ -73,6 +73,29 @@ public abstract class OField extends SourceField implements IOJavaElement {
         return new OFieldInfo();
     }
 
+    /**
+     * Moves this field to an equivalent type in an older outline, which has
+     * taken over for the type that this field was created in.
+     */
+    void setParent(OType type) {
+        parent = type;
+    }
+
+    /**
+     * Lets this field stand in for an equivalent field in a newer outline,
+     * so that the outline viewer can keep showing it.
+     *
+     * @return false if the fields are shown differently
+     */
+    boolean takeOver(OField current) {
+        String typeSignature = getTypeSignature();
+        if (typeSignature == null ? current.getTypeSignature() != null : !typeSignature.equals(current.getTypeSignature())) {
+            return false;
+        }
+        node = current.node;
+        return true;
+    }
+
     public GroovyCompilationUnit getUnit() {
         if (getParent() instanceof OType) {
             return ((OType) getParent()).getUnit();
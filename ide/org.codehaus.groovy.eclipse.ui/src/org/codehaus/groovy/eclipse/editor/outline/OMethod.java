@@ -82,6 +82,29 @@ public abstract class OMethod extends SourceMethod implements IOJavaElement {
         return new OMethodInfo();
     }
 
+    /**
+     * Moves this method to an equivalent type in an older outline, which has
+     * taken over for the type that this method was created in.
+     */
+    void setParent(OType type) {
+        parent = type;
+    }
+
+    /**
+     * Lets this method stand in for an equivalent method in a newer outline,
+     * so that the outline viewer can keep showing it.
+     *
+     * @return false if the methods are shown differently
+     */
+    boolean takeOver(OMethod current) {
+        String returnTypeName = getReturnTypeName();
+        if (returnTypeName == null ? current.getReturnTypeName() != null : !returnTypeName.equals(current.getReturnTypeName())) {
+            return false;
+        }
+        node = current.node;
+        return true;
+    }
+
     public GroovyCompilationUnit getUnit() {
         ICompilationUnit unit = (ICompilationUnit) getAncestor(IJavaElement.COMPILATION_UNIT);
         if (unit instanceof GroovyCompilationUnit) {
@@ -15,6 +15,7 @@
  */
 package org.codehaus.groovy.eclipse.editor.outline;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -41,6 +42,9 @@ public class OType extends SourceType implements IOJavaElement {
 
     private List<IMember> children = new LinkedList<IMember>();
 
+    /** whether {@link #createChildren()} has been called */
+    private boolean childrenCreated;
+
     private OTypeInfo cachedInfo;
 
     /**
@@ -90,13 +94,84 @@ public class OType extends SourceType implements IOJavaElement {
 
     @Override
     public IMember[] getChildren() throws JavaModelException {
-        return this.children.toArray(new IMember[] {});
+        return getChildrenList().toArray(new IMember[] {});
     }
 
     public List<IMember> getChildrenList() {
+        if (!childrenCreated) {
+            childrenCreated = true;
+            createChildren();
+        }
         return children;
     }
 
+    /**
+     * Called the first time that the children of this type are asked for,
+     * which is when the type is first expanded in the outline. Subclasses
+     * can {@link #addChild(IMember)} their children here instead of when the
+     * type is created, so that types that are never expanded stay cheap.
+     */
+    protected void createChildren() {
+        // children are added explicitly by default
+    }
+
+    /**
+     * Lets this type stand in for an equivalent type in a newer outline,
+     * so that the outline viewer can keep showing it.
+     *
+     * @return true, since the label of a type depends only on its name
+     */
+    boolean takeOver(OType current) {
+        node = current.node;
+        return true;
+    }
+
+    /**
+     * Lets the children of this type stand in for the children of an
+     * equivalent type in a newer outline, if each of them can. Otherwise
+     * this type adopts the children of <code>current</code>. The children of
+     * a type that has never been asked for its children are not created
+     * here; they are created from the new node once they are asked for.
+     *
+     * @return true iff the children of this type are shown as before
+     */
+    boolean takeOverChildren(OType current) {
+        if (!childrenCreated) {
+            // never shown, and created from the node that has been taken over
+            children = current.children;
+            childrenCreated = current.childrenCreated;
+            for (IMember child : children) {
+                adopt(child);
+            }
+            return true;
+        }
+        List<IMember> currentChildren = current.getChildrenList();
+        boolean same = children.size() == currentChildren.size();
+        for (Iterator<IMember> prev = children.iterator(), curr = currentChildren.iterator(); same && prev.hasNext();) {
+            IMember child = prev.next(), currentChild = curr.next();
+            same = child.getHandleIdentifier().equals(currentChild.getHandleIdentifier())
+                    && OCompilationUnit.takeOver(child, currentChild)
+                    && (!(child instanceof OType) || ((OType) child).takeOverChildren((OType) currentChild));
+        }
+        if (!same) {
+            children = currentChildren;
+            for (IMember child : children) {
+                adopt(child);
+            }
+        }
+        return same;
+    }
+
+    private void adopt(IMember child) {
+        if (child instanceof OType) {
+            ((OType) child).parent = this;
+        } else if (child instanceof OMethod) {
+            ((OMethod) child).setParent(this);
+        } else if (child instanceof OField) {
+            ((OField) child).setParent(this);
+        }
+    }
+
     public void addChild(IMember child) {
         children.add(child);
     }
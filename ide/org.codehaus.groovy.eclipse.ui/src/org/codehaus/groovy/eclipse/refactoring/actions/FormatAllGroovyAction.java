@@ -17,21 +17,26 @@
 package org.codehaus.groovy.eclipse.refactoring.actions;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 
 import org.codehaus.groovy.eclipse.editor.GroovyEditor;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
 import org.eclipse.jdt.internal.corext.util.Messages;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.actions.ActionMessages;
-import org.eclipse.jdt.internal.ui.actions.CleanUpAction;
 import org.eclipse.jdt.internal.ui.actions.MultiFormatAction;
 import org.eclipse.jdt.internal.ui.util.ElementValidator;
 import org.eclipse.jdt.ui.JavaUI;
@@ -40,12 +45,18 @@ import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
 import org.eclipse.jdt.ui.cleanup.ICleanUp;
 import org.eclipse.jface.dialogs.ErrorDialog;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.text.ITextSelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
+import org.eclipse.ltk.core.refactoring.RefactoringCore;
+import org.eclipse.ltk.ui.refactoring.RefactoringUI;
 import org.eclipse.ui.IEditorSite;
 import org.eclipse.ui.IWorkbenchPart;
 import org.eclipse.ui.IWorkbenchSite;
+import org.eclipse.ui.PlatformUI;
 
 /**
  * @author Andrew Eisenberg
@@ -102,7 +113,57 @@ public class FormatAllGroovyAction extends FormatAllAction {
             } else if (cus.length == 1) {
                 run(cus[0]);
             } else {
-                ReflectionUtils.executePrivateMethod(CleanUpAction.class, "runOnMultuple", new Class[] { ICompilationUnit.class }, this, new Object[] { cus });
+                runOnMultiple(cus);
+            }
+        }
+
+        /**
+         * Formats all units in parallel, and applies the result as a single
+         * change that can be undone in one step.
+         */
+        private void runOnMultiple(ICompilationUnit[] cus) {
+            List<GroovyCompilationUnit> editable = new ArrayList<GroovyCompilationUnit>(cus.length);
+            for (ICompilationUnit cu : cus) {
+                if (cu instanceof GroovyCompilationUnit && !cu.isReadOnly()) {
+                    editable.add((GroovyCompilationUnit) cu);
+                }
+            }
+            final GroovyCompilationUnit[] units = editable.toArray(new GroovyCompilationUnit[editable.size()]);
+            if (units.length == 0 || !ElementValidator.check(units, getShell(), getActionName(), false)) {
+                return;
+            }
+
+            final String name = getActionName();
+            IRunnableWithProgress runnable = new IRunnableWithProgress() {
+                public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+                    monitor.beginTask(name, 10);
+                    try {
+                        CompositeChange change = new GroovyFormatPipeline(kind).createChange(name, units,
+                                new SubProgressMonitor(monitor, 9));
+                        if (change.getChildren().length == 0) {
+                            return;
+                        }
+                        change.initializeValidationData(new NullProgressMonitor());
+                        PerformChangeOperation operation = RefactoringUI.createUIAwareChangeOperation(change);
+                        operation.setUndoManager(RefactoringCore.getUndoManager(), name);
+                        operation.run(new SubProgressMonitor(monitor, 1));
+                    } catch (CoreException e) {
+                        throw new InvocationTargetException(e);
+                    } catch (OperationCanceledException e) {
+                        throw new InterruptedException();
+                    } finally {
+                        monitor.done();
+                    }
+                }
+            };
+            try {
+                PlatformUI.getWorkbench().getProgressService().run(true, true, runnable);
+            } catch (InvocationTargetException e) {
+                JavaPlugin.log(e);
+                if (e.getCause() instanceof CoreException)
+                    showUnexpectedError((CoreException)e.getCause());
+            } catch (InterruptedException e) {
+                // canceled
             }
         }
 
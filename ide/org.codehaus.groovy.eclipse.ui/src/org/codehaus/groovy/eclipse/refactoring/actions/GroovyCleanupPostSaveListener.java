@@ -15,8 +15,6 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.actions;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -68,26 +66,12 @@ public class GroovyCleanupPostSaveListener extends CleanUpPostSaveListener imple
             }
         }
 
-        List<ICleanUp> groovyCleanUps = new ArrayList<ICleanUp>();
-
-        if (doImports) {
-            groovyCleanUps.add(new GroovyImportsCleanUp());
-        }
-        if (doFormat) {
-            groovyCleanUps.add(new GroovyCodeFormatCleanUp(FormatKind.FORMAT));
-        } else if (doIndent) {
-            // indent == true && format == false
-            groovyCleanUps.add(new GroovyCodeFormatCleanUp(FormatKind.INDENT_ONLY));
-        }
-
-        if (doSemicolonRemoval) {
-            groovyCleanUps.add(new UnnecessarySemicolonsCleanUp());
+        // all steps are applied together, to one copy of the contents of the unit
+        FormatKind formatKind = doFormat ? FormatKind.FORMAT : doIndent ? FormatKind.INDENT_ONLY : null;
+        GroovyFormatPipeline pipeline = new GroovyFormatPipeline(doImports, formatKind, doSemicolonRemoval, doWhitespaceRemoval);
+        if (pipeline.isEmpty()) {
+            return new ICleanUp[0];
         }
-
-        if (doWhitespaceRemoval) {
-            groovyCleanUps.add(new TrailingWhitespacesCleanUp());
-        }
-
-        return groovyCleanUps.toArray(new ICleanUp[groovyCleanUps.size()]);
+        return new ICleanUp[] { new GroovyPipelineCleanUp(pipeline) };
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.refactoring.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codehaus.groovy.eclipse.core.GroovyCore;
+import org.codehaus.groovy.eclipse.refactoring.formatter.DefaultGroovyFormatter;
+import org.codehaus.groovy.eclipse.refactoring.formatter.FormatterPreferences;
+import org.codehaus.groovy.eclipse.refactoring.formatter.GroovyFormatter;
+import org.codehaus.groovy.eclipse.refactoring.formatter.SemicolonRemover;
+import org.codehaus.groovy.eclipse.refactoring.formatter.WhitespaceRemover;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+import org.eclipse.jdt.internal.corext.codemanipulation.OrganizeImportsOperation.IChooseImportQuery;
+import org.eclipse.jdt.internal.ui.fix.MultiFixMessages;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.TextSelection;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Organizes imports, formats and cleans up Groovy compilation units, for
+ * Format All and for the save actions.  All steps for a unit are applied one
+ * after the other to a single in-memory copy of its contents, and only the
+ * difference between the original and the final contents becomes part of the
+ * result.  Units are processed in parallel, and the changes of all units are
+ * combined into one change, so that the whole operation can be undone in one
+ * step.
+ * <p>
+ * Imports are organized with the module node that the unit already has, and
+ * only the formatter parses the text, once imports have been organized.
+ * Semicolons and trailing whitespace are removed by scanning the text, so no
+ * step after the formatter parses again.  Ambiguous imports are left out, as
+ * in {@link GroovyImportsCleanUp}.
+ */
+public class GroovyFormatPipeline {
+
+    private static final IChooseImportQuery NO_CHOICE = new IChooseImportQuery() {
+        public TypeNameMatch[] chooseImports(TypeNameMatch[][] openChoices, ISourceRange[] ranges) {
+            return new TypeNameMatch[0];
+        }
+    };
+
+    private final boolean organizeImports;
+
+    /** null if the units should not be formatted */
+    private final FormatKind formatKind;
+
+    private final boolean removeSemicolons;
+
+    private final boolean removeTrailingWhitespaces;
+
+    public GroovyFormatPipeline(FormatKind formatKind) {
+        this(false, formatKind, false, false);
+    }
+
+    public GroovyFormatPipeline(boolean organizeImports, FormatKind formatKind, boolean removeSemicolons,
+            boolean removeTrailingWhitespaces) {
+        this.organizeImports = organizeImports;
+        this.formatKind = formatKind;
+        this.removeSemicolons = removeSemicolons;
+        this.removeTrailingWhitespaces = removeTrailingWhitespaces;
+    }
+
+    /**
+     * @return true iff no step is enabled
+     */
+    public boolean isEmpty() {
+        return !organizeImports && formatKind == null && !removeSemicolons && !removeTrailingWhitespaces;
+    }
+
+    /**
+     * @return a description of each enabled step, in the order in which they
+     *         are applied
+     */
+    public String[] getStepDescriptions() {
+        List<String> descriptions = new ArrayList<String>(4);
+        if (organizeImports) {
+            descriptions.add(MultiFixMessages.ImportsCleanUp_OrganizeImports_Description);
+        }
+        if (formatKind != null) {
+            descriptions.add("Format groovy source code.");
+        }
+        if (removeSemicolons) {
+            descriptions.add("Remove unnecessary semicolons.");
+        }
+        if (removeTrailingWhitespaces) {
+            descriptions.add("Remove trailing whitespaces.");
+        }
+        return descriptions.toArray(new String[descriptions.size()]);
+    }
+
+    /**
+     * @return a change with a child for each unit that is changed by the
+     *         pipeline; units that could not be processed are logged and left
+     *         out
+     * @throws OperationCanceledException if the monitor is canceled
+     */
+    public CompositeChange createChange(String name, GroovyCompilationUnit[] units, final IProgressMonitor monitor) {
+        monitor.beginTask(name, units.length);
+        CompositeChange change = new CompositeChange(name);
+        int threads = Math.max(1, Math.min(units.length, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<CompilationUnitChange>> results = new ArrayList<Future<CompilationUnitChange>>(units.length);
+            for (final GroovyCompilationUnit unit : units) {
+                results.add(executor.submit(new Callable<CompilationUnitChange>() {
+                    public CompilationUnitChange call() {
+                        if (monitor.isCanceled()) {
+                            return null;
+                        }
+                        try {
+                            return createChange(unit);
+                        } catch (Exception e) {
+                            GroovyCore.logException("Cannot clean up " + unit.getElementName(), e);
+                            return null;
+                        }
+                    }
+                }));
+            }
+            // the monitor is only used from this thread
+            for (Future<CompilationUnitChange> result : results) {
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                CompilationUnitChange unitChange = result.get();
+                if (unitChange != null) {
+                    change.add(unitChange);
+                }
+                monitor.worked(1);
+            }
+        } catch (InterruptedException e) {
+            throw new OperationCanceledException();
+        } catch (ExecutionException e) {
+            // call() catches everything
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            monitor.done();
+        }
+        return change;
+    }
+
+    /**
+     * @return the change for a single unit, or null if the unit does not
+     *         change
+     */
+    public CompilationUnitChange createChange(GroovyCompilationUnit unit) throws BadLocationException {
+        String original = new String(unit.getContents());
+        IDocument document = new Document(original);
+
+        if (organizeImports) {
+            // based on the module node of the unit, which matches its contents
+            TextEdit edit = new OrganizeGroovyImports(unit, NO_CHOICE).calculateMissingImports();
+            if (edit != null) {
+                edit.apply(document);
+            }
+        }
+        if (formatKind != null) {
+            apply(new DefaultGroovyFormatter(new TextSelection(0, document.getLength()), document,
+                    new FormatterPreferences(unit), formatKind == FormatKind.INDENT_ONLY), document);
+        }
+        if (removeSemicolons) {
+            apply(new SemicolonRemover(new TextSelection(0, document.getLength()), document), document);
+        }
+        if (removeTrailingWhitespaces) {
+            apply(new WhitespaceRemover(new TextSelection(0, document.getLength()), document), document);
+        }
+
+        String result = document.get();
+        if (result.equals(original)) {
+            return null;
+        }
+        CompilationUnitChange change = new CompilationUnitChange(unit.getElementName(), unit);
+        change.setEdit(GroovyFormatter.createEdit(original, result));
+        return change;
+    }
+
+    private static void apply(GroovyFormatter formatter, IDocument document) throws BadLocationException {
+        formatter.format().apply(document);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.refactoring.actions;
+
+import org.codehaus.groovy.eclipse.GroovyPlugin;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
+import org.eclipse.jdt.internal.corext.fix.TextEditFix;
+import org.eclipse.jdt.ui.cleanup.CleanUpContext;
+import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
+import org.eclipse.jface.text.BadLocationException;
+
+/**
+ * Applies the steps of a {@link GroovyFormatPipeline} as a single clean up,
+ * so that the save actions work on one copy of the contents of the unit and
+ * result in one edit
+ */
+public class GroovyPipelineCleanUp extends AbstractGroovyCleanUp {
+
+    private final GroovyFormatPipeline pipeline;
+
+    public GroovyPipelineCleanUp(GroovyFormatPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public ICleanUpFix createFix(CleanUpContext context) throws CoreException {
+        ICompilationUnit unit = context.getCompilationUnit();
+
+        if (!(unit instanceof GroovyCompilationUnit)) {
+            return null;
+        }
+
+        GroovyCompilationUnit gunit = (GroovyCompilationUnit) unit;
+        CompilationUnitChange change;
+        try {
+            change = pipeline.createChange(gunit);
+        } catch (BadLocationException e) {
+            throw new CoreException(new Status(IStatus.ERROR, GroovyPlugin.PLUGIN_ID, "Cannot clean up "
+                    + gunit.getElementName(), e));
+        }
+        if (change == null) {
+            return null;
+        }
+        return new TextEditFix(change.getEdit(), gunit, "Clean up groovy source code.");
+    }
+
+    @Override
+    public String[] getStepDescriptions() {
+        return pipeline.getStepDescriptions();
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.refactoring.actions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.eclipse.core.GroovyCore;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+import org.eclipse.jdt.internal.corext.util.TypeNameMatchCollector;
+
+/**
+ * Remembers, for each project, the types that a simple type name can be
+ * imported as.  Organize imports and the add import quick fix ask for the
+ * candidates of every name that does not resolve; names that have been
+ * asked for before are answered from memory, and all remaining names are
+ * looked up together with a single search.  Organizing the imports of many
+ * files in a row therefore searches for each distinct name only once.
+ * <p>
+ * The candidates of all projects are forgotten whenever a type is added or
+ * removed, or a classpath changes.  When a file is saved, only the names of
+ * the types that it has gained or lost since they were searched for are
+ * forgotten, so saving a file without touching its type declarations keeps
+ * all candidates.
+ */
+public class TypeCandidateCache {
+
+    private static final Map<IJavaProject, TypeCandidateCache> caches = new HashMap<IJavaProject, TypeCandidateCache>();
+
+    private static final IElementChangedListener listener = new IElementChangedListener() {
+        public void elementChanged(ElementChangedEvent event) {
+            synchronized (caches) {
+                if (caches.isEmpty()) {
+                    return;
+                }
+            }
+            List<ICompilationUnit> saved = new ArrayList<ICompilationUnit>();
+            if (changesTypes(event.getDelta(), saved)) {
+                discardAll();
+                return;
+            }
+            for (ICompilationUnit unit : saved) {
+                discardChangedTypes(unit);
+            }
+        }
+    };
+
+    public static void startListening() {
+        JavaCore.addElementChangedListener(listener, ElementChangedEvent.POST_CHANGE);
+    }
+
+    public static void stopListening() {
+        JavaCore.removeElementChangedListener(listener);
+        discardAll();
+    }
+
+    public static TypeCandidateCache forProject(IJavaProject project) {
+        synchronized (caches) {
+            TypeCandidateCache cache = caches.get(project);
+            if (cache == null) {
+                cache = new TypeCandidateCache(project);
+                caches.put(project, cache);
+            }
+            return cache;
+        }
+    }
+
+    private static void discardAll() {
+        synchronized (caches) {
+            caches.clear();
+        }
+    }
+
+    /**
+     * Forgets the candidates of the simple names of the types that the unit
+     * declares now or that were found in the unit before.
+     */
+    private static void discardChangedTypes(ICompilationUnit unit) {
+        // fully qualified names of the types declared by the unit, keyed by simple name
+        Map<String, Set<String>> declared = new HashMap<String, Set<String>>();
+        try {
+            if (unit.exists()) {
+                for (IType type : unit.getAllTypes()) {
+                    Set<String> names = declared.get(type.getElementName());
+                    if (names == null) {
+                        names = new HashSet<String>(2);
+                        declared.put(type.getElementName(), names);
+                    }
+                    names.add(type.getFullyQualifiedName('.'));
+                }
+            }
+        } catch (JavaModelException e) {
+            GroovyCore.logException("Unable to find the types of " + unit.getElementName(), e);
+            discardAll();
+            return;
+        }
+        synchronized (caches) {
+            for (TypeCandidateCache cache : caches.values()) {
+                cache.forgetChangedTypes(unit.getPrimary(), declared);
+            }
+        }
+    }
+
+    /**
+     * @param saved receives the units whose contents have changed without
+     * a fine grained delta, typically because they have been saved
+     * @return true iff the delta adds or removes a type, or may change which
+     * types are visible from a project
+     */
+    private static boolean changesTypes(IJavaElementDelta delta, List<ICompilationUnit> saved) {
+        if (delta.getKind() != IJavaElementDelta.CHANGED) {
+            // an added or removed project, root, package, unit or type
+            return delta.getElement().getElementType() <= IJavaElement.TYPE;
+        }
+        int flags = delta.getFlags();
+        switch (delta.getElement().getElementType()) {
+            case IJavaElement.JAVA_PROJECT:
+                if ((flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED |
+                        IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+                    return true;
+                }
+                break;
+
+            case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+                if ((flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH |
+                        IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED)) != 0) {
+                    return true;
+                }
+                break;
+
+            case IJavaElement.COMPILATION_UNIT:
+                if ((flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0) {
+                    // the delta does not tell whether types were added or removed,
+                    // so the types of the unit are compared with the candidates later
+                    saved.add((ICompilationUnit) delta.getElement());
+                    return false;
+                }
+                break;
+
+            case IJavaElement.TYPE:
+                // only interested in the type itself, not its members
+                return false;
+        }
+        for (IJavaElementDelta child : delta.getAffectedChildren()) {
+            if (changesTypes(child, saved)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final IJavaProject project;
+
+    /** simple name to all types with that name, empty if there are none */
+    private final Map<String, List<TypeNameMatch>> candidates = new HashMap<String, List<TypeNameMatch>>();
+
+    private TypeCandidateCache(IJavaProject project) {
+        this.project = project;
+    }
+
+    /**
+     * @return the types that can be imported for each of the simple names,
+     * keyed by simple name; every name is a key, with an empty list if
+     * there are no candidates
+     */
+    public Map<String, List<TypeNameMatch>> findCandidates(Collection<String> simpleNames) throws JavaModelException {
+        Map<String, List<TypeNameMatch>> found = new HashMap<String, List<TypeNameMatch>>();
+        Set<String> missing = new LinkedHashSet<String>();
+        synchronized (candidates) {
+            for (String simpleName : simpleNames) {
+                List<TypeNameMatch> matches = candidates.get(simpleName);
+                if (matches != null) {
+                    found.put(simpleName, matches);
+                } else {
+                    missing.add(simpleName);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, List<TypeNameMatch>> searched = search(missing);
+            synchronized (candidates) {
+                candidates.putAll(searched);
+            }
+            found.putAll(searched);
+        }
+        return found;
+    }
+
+    /**
+     * Forgets every simple name whose candidates from the unit differ from
+     * the types that the unit declares now.
+     *
+     * @param unit a primary compilation unit
+     * @param declared fully qualified names of the types of the unit, keyed
+     * by simple name
+     */
+    private void forgetChangedTypes(ICompilationUnit unit, Map<String, Set<String>> declared) {
+        synchronized (candidates) {
+            for (Iterator<Map.Entry<String, List<TypeNameMatch>>> it = candidates.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, List<TypeNameMatch>> entry = it.next();
+                Set<String> found = new HashSet<String>(2);
+                for (TypeNameMatch match : entry.getValue()) {
+                    ICompilationUnit matchUnit = match.getType().getCompilationUnit();
+                    if (matchUnit != null && unit.equals(matchUnit.getPrimary())) {
+                        found.add(match.getFullyQualifiedName());
+                    }
+                }
+                Set<String> names = declared.get(entry.getKey());
+                if (!found.equals(names != null ? names : Collections.<String> emptySet())) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private Map<String, List<TypeNameMatch>> search(Set<String> simpleNames) throws JavaModelException {
+        char[][] allTypes = new char[simpleNames.size()][];
+        int i = 0;
+        for (String simpleName : simpleNames) {
+            allTypes[i++] = simpleName.toCharArray();
+        }
+        List<TypeNameMatch> typesFound = new ArrayList<TypeNameMatch>();
+        TypeNameMatchCollector collector = new TypeNameMatchCollector(typesFound);
+        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { project });
+        new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
+                null);
+
+        Map<String, List<TypeNameMatch>> searched = new HashMap<String, List<TypeNameMatch>>();
+        for (String simpleName : simpleNames) {
+            searched.put(simpleName, new ArrayList<TypeNameMatch>(1));
+        }
+        for (TypeNameMatch match : typesFound) {
+            List<TypeNameMatch> matches = searched.get(match.getSimpleTypeName());
+            if (matches == null) {
+                GroovyCore.logException("GRECLIPSE-735: Match not found in missing types: " + match.getFullyQualifiedName(),
+                        new Exception());
+                continue;
+            }
+            matches.add(match);
+        }
+        for (Map.Entry<String, List<TypeNameMatch>> entry : searched.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return searched;
+    }
+}
@@ -15,26 +15,20 @@
  */
 package org.codehaus.groovy.eclipse.refactoring.actions;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.refactoring.actions.OrganizeGroovyImports.UnresolvedTypeData;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.jdt.core.Flags;
-import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.core.search.IJavaSearchConstants;
-import org.eclipse.jdt.core.search.IJavaSearchScope;
-import org.eclipse.jdt.core.search.SearchEngine;
 import org.eclipse.jdt.core.search.TypeNameMatch;
 import org.eclipse.jdt.internal.corext.codemanipulation.OrganizeImportsOperation;
-import org.eclipse.jdt.internal.corext.util.TypeNameMatchCollector;
 
 /**
  * Use a SearchEngine to look for the Java types
  * This will not find inner types, however
+ * Results are shared through the {@link TypeCandidateCache} of the project
  * 
  * @author Andrew Eisenberg
  * @author Nieraj Singh
@@ -55,26 +49,15 @@ public class TypeSearch {
      */
     public void searchForTypes(GroovyCompilationUnit unit, Map<String, OrganizeGroovyImports.UnresolvedTypeData> missingTypes)
             throws JavaModelException {
-        char[][] allTypes = new char[missingTypes.size()][];
-        int i = 0;
-        for (String simpleName : missingTypes.keySet()) {
-            allTypes[i++] = simpleName.toCharArray();
-        }
-        final List<TypeNameMatch> typesFound = new ArrayList<TypeNameMatch>();
-        TypeNameMatchCollector collector = new TypeNameMatchCollector(typesFound);
-        IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { unit.getJavaProject() });
-        new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
-                null);
+        Map<String, List<TypeNameMatch>> candidates = TypeCandidateCache.forProject(unit.getJavaProject()).findCandidates(
+                missingTypes.keySet());
 
-        for (TypeNameMatch match : typesFound) {
-            UnresolvedTypeData data = missingTypes.get(match.getSimpleTypeName());
-            if (data == null) {
-                GroovyCore.logException("GRECLIPSE-735: Match not found in missing types: " + match.getFullyQualifiedName(),
-                        new Exception());
-                continue;
-            }
-            if (isOfKind(match, data.isAnnotation)) {
-                data.addInfo(match);
+        for (Map.Entry<String, List<TypeNameMatch>> entry : candidates.entrySet()) {
+            UnresolvedTypeData data = missingTypes.get(entry.getKey());
+            for (TypeNameMatch match : entry.getValue()) {
+                if (isOfKind(match, data.isAnnotation)) {
+                    data.addInfo(match);
+                }
             }
         }
     }
@@ -34,14 +34,12 @@ import org.codehaus.groovy.ast.expr.DeclarationExpression;
 import org.codehaus.groovy.ast.expr.MethodCallExpression;
 import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
 import org.codehaus.groovy.eclipse.codebrowsing.requestor.CodeSelectHelper;
-import org.codehaus.groovy.eclipse.core.search.FindAllReferencesRequestor;
+import org.codehaus.groovy.eclipse.core.search.OccurrenceIndex;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.SourceRange;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.CompilationUnit;
-import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
-import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder;
 
 /**
@@ -169,11 +167,12 @@ public class GroovyOccurrencesFinder implements IOccurrencesFinder {
                 && !(nodeToLookFor instanceof ClosureExpression) && !(nodeToLookFor instanceof DeclarationExpression)
                 && !(nodeToLookFor instanceof BinaryExpression)
                 && !(nodeToLookFor instanceof MethodCallExpression)) {
-            FindAllReferencesRequestor requestor = new FindAllReferencesRequestor(nodeToLookFor);
-            TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(gunit);
-            visitor.visitCompilationUnit(requestor);
-            Map<org.codehaus.groovy.ast.ASTNode, Integer> occurences = requestor.getReferences();
-            return occurences;
+            // the index is shared by all searches in the same module
+            OccurrenceIndex index = OccurrenceIndex.forUnit(gunit);
+            if (index == null) {
+                return Collections.emptyMap();
+            }
+            return index.findReferences(nodeToLookFor);
         } else {
             return Collections.emptyMap();
         }